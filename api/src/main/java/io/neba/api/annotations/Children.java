@@ -77,6 +77,33 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
  * private List&lt;PageContent&gt; pageContents;
  * </pre>
  *
+ * Children of the current resource, adapted to "Product" in parallel
+ * <pre>
+ * &#64;{@link Children}(parallel = true)
+ * private List&lt;Product&gt; products;
+ * </pre>
+ *
+ * The second page of ten children of the current resource, adapted to "Product".
+ * Only the children on that page are adapted.
+ * <pre>
+ * &#64;{@link Children}(offset = 10, limit = 10)
+ * private List&lt;Product&gt; products;
+ * </pre>
+ *
+ * Children of the current resource with the resource type "shop/components/product"
+ * and the property "visible" set to "true", adapted to "Product". Other children are not adapted.
+ * <pre>
+ * &#64;{@link Children}(resourceTypes = "shop/components/product", properties = "visible=true")
+ * private List&lt;Product&gt; products;
+ * </pre>
+ *
+ * The five most recent children of the current resource, adapted to "News".
+ * Only these five children are adapted.
+ * <pre>
+ * &#64;{@link Children}(resolveBelowEveryChild = "/jcr:content", orderBy = "date", descending = true, limit = 5)
+ * private List&lt;News&gt; latestNews;
+ * </pre>
+ *
  * @author Olaf Otto
  * @author Daniel Rey
  * @since 1.0.0
@@ -90,4 +117,88 @@ public @interface Children {
      * of using the child directly.
      */
     String resolveBelowEveryChild() default "";
+
+    /**
+     * Whether to adapt the children to the collection's component type in parallel. This may significantly reduce the time required
+     * to map large numbers of children to models. The children are adapted using a bounded thread pool; the order of the children
+     * is preserved. Each thread adapts the children using a {@link org.apache.sling.api.resource.ResourceResolver#clone(java.util.Map) clone}
+     * of their resource resolver. The clones are closed once the request is processed, thus children are only adapted in parallel during a request.
+     * Only use this if all models mapped from the children support being mapped concurrently.
+     * Parallel adaptation only occurs if the number of children exceeds a configurable threshold.
+     *
+     * @return whether to adapt the children in parallel.
+     * @since 5.2.3
+     */
+    boolean parallel() default false;
+
+    /**
+     * The number of children to skip. Skipped children are not adapted. Children are skipped after they are
+     * {@link #resolveBelowEveryChild() resolved}, {@link #names() filtered} and {@link #orderBy() ordered}.
+     *
+     * @return the number of children to skip. Must not be negative.
+     * @since 5.2.3
+     */
+    int offset() default 0;
+
+    /**
+     * The maximum number of elements of the children collection. Children are consumed and adapted only until the collection contains
+     * this number of elements, i.e. the remaining children are neither listed nor adapted. Children that cannot be
+     * adapted or {@link #resolveBelowEveryChild() resolved} do not count towards the limit.
+     * A value of 0 or less means that there is no limit.
+     *
+     * @return the maximum number of elements of the children collection.
+     * @since 5.2.3
+     */
+    int limit() default 0;
+
+    /**
+     * Only children whose name matches any of these patterns are {@link #resolveBelowEveryChild() resolved} and adapted.
+     * In the patterns, <code>*</code> matches any number of characters and <code>?</code> matches a single character,
+     * e.g. <code>"item_*"</code>. Other children are skipped and do not count towards the {@link #limit() limit}.
+     *
+     * @return the name patterns. All children are accepted if empty.
+     * @since 5.2.3
+     */
+    String[] names() default {};
+
+    /**
+     * Only children {@link org.apache.sling.api.resource.Resource#isResourceType(String) of} any of these resource types
+     * are adapted. If a {@link #resolveBelowEveryChild()} path is specified, the resource type of the resource below
+     * the child is tested. Other children are skipped and do not count towards the {@link #limit() limit}.
+     *
+     * @return the resource types. All children are accepted if empty.
+     * @since 5.2.3
+     */
+    String[] resourceTypes() default {};
+
+    /**
+     * Only children having all of these properties are adapted. Properties are specified in the form <code>name=value</code>
+     * and are compared to the String representation of the child's property, e.g. <code>"hideInNav=false"</code>.
+     * If a {@link #resolveBelowEveryChild()} path is specified, the properties of the resource below the child are tested.
+     * Other children are skipped and do not count towards the {@link #limit() limit}.
+     *
+     * @return the properties. All children are accepted if empty.
+     * @since 5.2.3
+     */
+    String[] properties() default {};
+
+    /**
+     * The name of a property to order the children by. The property is read from each child prior to adaptation, and compared
+     * by its raw value, e.g. as a {@link java.util.Calendar} or {@link Long}. If a {@link #resolveBelowEveryChild()} path
+     * is specified, the property of the resource below the child is used. Children lacking the property are ordered last; children
+     * with equal values retain their original order.
+     * <br />
+     * All children are listed in order to be ordered. However, only as many children as required by the {@link #limit() limit}
+     * are sorted and adapted.
+     *
+     * @return the name of the property to order by. Children are not ordered if empty.
+     * @since 5.2.3
+     */
+    String orderBy() default "";
+
+    /**
+     * @return whether children are ordered by descending values of the {@link #orderBy()} property.
+     * @since 5.2.3
+     */
+    boolean descending() default false;
 }
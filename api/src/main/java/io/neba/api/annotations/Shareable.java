@@ -0,0 +1,61 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.api.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.ANNOTATION_TYPE;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * <p>
+ * Marks a {@link ResourceModel} as safe to be shared across requests. When the shared resource model cache is enabled,
+ * instances of such a model are cached per resource path, resource type and user ID beyond the scope of a single request
+ * and are evicted as soon as a resource that was read while mapping the model is changed.
+ * </p>
+ * <p>
+ * Since the same instance may be used by multiple concurrent requests, a shareable model must be effectively immutable
+ * after it was mapped and must not retain any request-bound state, such as the request,
+ * a {@link org.apache.sling.api.resource.Resource} or a resource resolver. Models with fields that are inherently bound
+ * to the resource resolver that was used to map them, such as {@link io.neba.api.resourcemodels.Lazy lazy-loading} fields,
+ * {@link Children} or {@link Reference} collections or fields of a type that is neither a property type nor a
+ * {@link ResourceModel}, are never shared.
+ * </p>
+ * <p>
+ * Example:
+ * <pre>
+ *     &#064;{@link ResourceModel}("my/components/teaser")
+ *     &#064;{@link Shareable}
+ *     public class Teaser {
+ *          private String title;
+ *          &#064;{@link Reference}
+ *          private Link link;
+ *          ...
+ *     }
+ * </pre>
+ *
+ * @author Olaf Otto
+ * @since 5.2.3
+ */
+@Documented
+@Retention(RUNTIME)
+@Target({TYPE, ANNOTATION_TYPE})
+public @interface Shareable {
+}
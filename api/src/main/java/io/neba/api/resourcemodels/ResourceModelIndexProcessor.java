@@ -0,0 +1,148 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.api.resourcemodels;
+
+import io.neba.api.annotations.ResourceModel;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.FileObject;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.lang.model.element.ElementKind.CLASS;
+import static javax.tools.Diagnostic.Kind.WARNING;
+import static javax.tools.StandardLocation.CLASS_OUTPUT;
+
+/**
+ * Writes the names of all classes annotated with &#64;{@link ResourceModel} to the {@link #INDEX resource model index}
+ * at compile time. If a bundle declares the {@link #INDEX_HEADER index header}, NEBA reads the indices of the bundle and its
+ * fragments instead of scanning the classes of the packages specified in the <code>Neba-Packages</code> bundle manifest
+ * header, thus avoiding loading classes that are not resource models when a bundle starts, e.g.
+ *
+ * <pre>
+ * &lt;Neba-Resource-Model-Index&gt;true&lt;/Neba-Resource-Model-Index&gt;
+ * </pre>
+ *
+ * Only declare the header if the index is complete, i.e. if all resource models of the <code>Neba-Packages</code>
+ * are compiled with this processor in the same build. Resource models that are embedded or inlined from other artifacts are not
+ * indexed, and are thus not found unless their package contains no indexed classes at all. Packages without indexed classes
+ * and bundles without the header are scanned.
+ * <br />
+ * This processor is discovered by the java compiler when the NEBA API is on the compile class path. If the compiler
+ * only compiles some of the sources of a bundle, e.g. during incremental compilation in an IDE, the existing index
+ * entries of classes that are still resource models are retained.
+ *
+ * @author Olaf Otto
+ * @since 5.2.3
+ */
+@SupportedAnnotationTypes("io.neba.api.annotations.ResourceModel")
+public class ResourceModelIndexProcessor extends AbstractProcessor {
+    /**
+     * The location of the resource model index within a bundle. The index contains the binary name of one
+     * resource model class per line.
+     */
+    public static final String INDEX = "META-INF/neba/resource-models";
+
+    /**
+     * The bundle manifest header declaring that the {@link #INDEX resource model index} of a bundle is complete,
+     * i.e. that the <code>Neba-Packages</code> of the bundle shall not be scanned if the index lists any of their classes.
+     */
+    public static final String INDEX_HEADER = "Neba-Resource-Model-Index";
+
+    private final Set<String> resourceModels = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(ResourceModel.class)) {
+            if (element.getKind() == CLASS) {
+                this.resourceModels.add(this.processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString());
+            }
+        }
+
+        if (roundEnv.processingOver() && !this.resourceModels.isEmpty()) {
+            retainExistingEntries();
+            writeIndex();
+        }
+
+        // Other processors may process resource models as well.
+        return false;
+    }
+
+    /**
+     * Adds the entries of an existing index whose classes are still resource models.
+     */
+    private void retainExistingEntries() {
+        final FileObject existingIndex;
+        try {
+            existingIndex = this.processingEnv.getFiler().getResource(CLASS_OUTPUT, "", INDEX);
+        } catch (IOException | IllegalArgumentException e) {
+            // There is no existing index
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(openReader(existingIndex))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String className = line.trim();
+                if (className.isEmpty() || this.resourceModels.contains(className)) {
+                    continue;
+                }
+                TypeElement type = this.processingEnv.getElementUtils().getTypeElement(className.replace('$', '.'));
+                if (type != null && type.getAnnotation(ResourceModel.class) != null) {
+                    this.resourceModels.add(className);
+                }
+            }
+        } catch (IOException e) {
+            // There is no readable existing index
+        }
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject index = this.processingEnv.getFiler().createResource(CLASS_OUTPUT, "", INDEX);
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(), UTF_8)) {
+                for (String resourceModel : this.resourceModels) {
+                    writer.write(resourceModel);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(WARNING, "Unable to write the NEBA resource model index. " +
+                    "If the bundle declares the " + INDEX_HEADER + " header, resource models missing from an existing index will not be found: " + e.getMessage());
+        }
+    }
+
+    private static Reader openReader(FileObject fileObject) throws IOException {
+        return new InputStreamReader(fileObject.openInputStream(), UTF_8);
+    }
+}
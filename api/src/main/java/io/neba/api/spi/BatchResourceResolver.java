@@ -0,0 +1,47 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.api.spi;
+
+import org.apache.sling.api.resource.Resource;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the resources referenced by a {@link io.neba.api.annotations.Reference} collection at once,
+ * for instance using a single query or a cache, rather than resolving each resource individually.
+ * <br />
+ * The paths provided to the resolver are unique and sorted, such that resources close to each other in the
+ * repository are resolved consecutively. If no resolver provides a result, NEBA resolves each path individually using
+ * {@link org.apache.sling.api.resource.ResourceResolver#getResource(Resource, String)}.
+ *
+ * @author Olaf Otto
+ * @since 5.2.3
+ */
+public interface BatchResourceResolver {
+    /**
+     * @param base  the resource the paths are relative to, i.e. the resource containing the reference property. Never <code>null</code>.
+     * @param paths the unique, sorted paths of the referenced resources. Paths are absolute unless they cannot be resolved to an
+     *              absolute path, e.g. because they are syntactically invalid. Never <code>null</code>.
+     * @return the resolved resources by path, or <code>null</code> if this resolver does not resolve the given paths.
+     * Paths without a corresponding resource in the returned map are considered to reference non-existing resources.
+     */
+    @CheckForNull
+    Map<String, Resource> resolve(@Nonnull Resource base, @Nonnull List<String> paths);
+}
@@ -35,4 +35,30 @@ public interface PlaceholderVariableResolver {
      * variable name.
      */
     String resolve(@Nonnull String variableName);
+
+    /**
+     * Whether the value of the variable only changes when placeholder variable resolvers are registered or
+     * unregistered, i.e. does not depend on the current request, resource, user or time. Paths consisting of
+     * constant variables only are resolved once and cached until a placeholder variable resolver is registered or unregistered.
+     *
+     * @param variableName never null.
+     * @return whether the resolved value of the variable is constant. Defaults to <code>false</code>.
+     * @since 5.2.3
+     */
+    default boolean isConstant(@Nonnull String variableName) {
+        return false;
+    }
+
+    /**
+     * Whether the value of the variable does not change during a request, e.g. because it is derived from the site or locale
+     * of the current request. Values of such variables are resolved once per request and reused for all resource models
+     * mapped during the request. Outside of requests, the variable is resolved whenever it is used.
+     *
+     * @param variableName never null.
+     * @return whether the resolved value of the variable is constant during a request. Defaults to <code>false</code>.
+     * @since 5.2.3
+     */
+    default boolean isRequestConstant(@Nonnull String variableName) {
+        return false;
+    }
 }
@@ -20,6 +20,7 @@ import org.apache.sling.api.resource.Resource;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import java.util.Set;
 
 /**
  * Lifecycle callback for
@@ -52,4 +53,42 @@ public interface ResourceModelPostProcessor {
      */
     @CheckForNull
     <T> T processAfterMapping(@Nonnull T resourceModel, @Nonnull Resource resource, @Nonnull ResourceModelFactory factory);
+
+    /**
+     * Lifecycle callback invoked after the resource properties are mapped onto
+     * the {@link io.neba.api.annotations.ResourceModel}. In addition to
+     * {@link #processAfterMapping(Object, Resource, ResourceModelFactory)}, this callback provides the paths of all resources
+     * that were read to map the model and its nested models, e.g. in order to invalidate caches or
+     * generate validators such as ETags. This is the callback invoked by the core; by default, it delegates to
+     * {@link #processAfterMapping(Object, Resource, ResourceModelFactory)}.
+     *
+     * @param resourceModel is never <code>null</code>.
+     * @param resource      is never <code>null</code>.
+     * @param factory       is never <code>null</code>.
+     * @param dependencies  the absolute paths of the resources the model was mapped from, including the resources of nested models.
+     *                      An immutable snapshot that is never <code>null</code>. Resources read later on, e.g. when
+     *                      {@link io.neba.api.resourcemodels.Lazy lazy} fields are loaded, are not contained. Recording the dependencies
+     *                      is costly, thus they are only complete if a post processor {@link #requiresDependencies() requires them} and may
+     *                      otherwise be empty.
+     * @return a new resource model overriding the provided resourceModel, or
+     * <code>null</code> if the resource model is not to be changed.
+     * @since 5.2.3
+     */
+    @CheckForNull
+    default <T> T processAfterMapping(@Nonnull T resourceModel, @Nonnull Resource resource, @Nonnull ResourceModelFactory factory, @Nonnull Set<String> dependencies) {
+        return processAfterMapping(resourceModel, resource, factory);
+    }
+
+    /**
+     * Post processors using the dependencies provided to
+     * {@link #processAfterMapping(Object, Resource, ResourceModelFactory, Set)} must opt in to recording them.
+     * In this case, all models are mapped without re-using nested models resolved earlier in the same request, as the resources
+     * those models were mapped from are unknown.
+     *
+     * @return whether the post processor requires the complete dependencies of the mapped models. Defaults to <code>false</code>.
+     * @since 5.2.3
+     */
+    default boolean requiresDependencies() {
+        return false;
+    }
 }
@@ -0,0 +1,161 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.api.resourcemodels;
+
+import io.neba.api.annotations.ResourceModel;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static javax.tools.StandardLocation.CLASS_OUTPUT;
+import static javax.tools.StandardLocation.CLASS_PATH;
+import static javax.tools.ToolProvider.getSystemJavaCompiler;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Olaf Otto
+ */
+public class ResourceModelIndexProcessorTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private List<JavaFileObject> sources;
+    private File classOutput;
+
+    @Before
+    public void setUp() throws IOException {
+        this.sources = new ArrayList<>();
+        this.classOutput = this.temporaryFolder.newFolder("classes");
+    }
+
+    @Test
+    public void testIndexContainsResourceModels() throws Exception {
+        withSource("com.acme.FirstModel", "@io.neba.api.annotations.ResourceModel(\"some/type\") public class FirstModel {}");
+        withSource("com.acme.SecondModel", "@io.neba.api.annotations.ResourceModel(\"other/type\") public class SecondModel {}");
+        withSource("com.acme.NoModel", "public class NoModel {}");
+
+        compile();
+
+        assertIndexContainsExactly("com.acme.FirstModel", "com.acme.SecondModel");
+    }
+
+    @Test
+    public void testIndexContainsBinaryNamesOfNestedResourceModels() throws Exception {
+        withSource("com.acme.Outer", "public class Outer { @io.neba.api.annotations.ResourceModel(\"some/type\") public static class Inner {} }");
+
+        compile();
+
+        assertIndexContainsExactly("com.acme.Outer$Inner");
+    }
+
+    @Test
+    public void testNoIndexIsWrittenWithoutResourceModels() throws Exception {
+        withSource("com.acme.NoModel", "public class NoModel {}");
+
+        compile();
+
+        assertThat(index()).doesNotExist();
+    }
+
+    @Test
+    public void testExistingEntriesOfResourceModelsAreRetainedUponPartialCompilation() throws Exception {
+        withSource("com.acme.FirstModel", "@io.neba.api.annotations.ResourceModel(\"some/type\") public class FirstModel {}");
+        withSource("com.acme.SecondModel", "@io.neba.api.annotations.ResourceModel(\"other/type\") public class SecondModel {}");
+        compile();
+
+        this.sources.clear();
+        withSource("com.acme.ThirdModel", "@io.neba.api.annotations.ResourceModel(\"third/type\") public class ThirdModel {}");
+        compile();
+
+        assertIndexContainsExactly("com.acme.FirstModel", "com.acme.SecondModel", "com.acme.ThirdModel");
+    }
+
+    @Test
+    public void testExistingEntriesOfClassesThatAreNoLongerResourceModelsAreRemoved() throws Exception {
+        withSource("com.acme.FirstModel", "@io.neba.api.annotations.ResourceModel(\"some/type\") public class FirstModel {}");
+        withSource("com.acme.SecondModel", "@io.neba.api.annotations.ResourceModel(\"other/type\") public class SecondModel {}");
+        compile();
+
+        this.sources.clear();
+        withSource("com.acme.FirstModel", "@io.neba.api.annotations.ResourceModel(\"some/type\") public class FirstModel {}");
+        withSource("com.acme.SecondModel", "public class SecondModel {}");
+        compile();
+
+        assertIndexContainsExactly("com.acme.FirstModel");
+    }
+
+    private void assertIndexContainsExactly(String... classNames) throws IOException {
+        assertThat(index()).exists();
+        assertThat(Files.readAllLines(index().toPath(), UTF_8)).containsExactly(classNames);
+    }
+
+    private File index() {
+        return new File(this.classOutput, ResourceModelIndexProcessor.INDEX);
+    }
+
+    private void compile() throws IOException {
+        JavaCompiler compiler = getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, UTF_8)) {
+            fileManager.setLocation(CLASS_OUTPUT, singletonList(this.classOutput));
+            fileManager.setLocation(CLASS_PATH, asList(apiClasses(), this.classOutput));
+            JavaCompiler.CompilationTask task = compiler.getTask(
+                    null,
+                    fileManager,
+                    null,
+                    null,
+                    null,
+                    this.sources);
+            task.setProcessors(singletonList(new ResourceModelIndexProcessor()));
+            assertThat(task.call()).describedAs("Expected the test sources to compile").isTrue();
+        }
+    }
+
+    private static File apiClasses() {
+        try {
+            return new File(ResourceModel.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void withSource(String className, String body) {
+        String packageName = className.substring(0, className.lastIndexOf('.'));
+        String source = "package " + packageName + "; " + body;
+        this.sources.add(new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        });
+    }
+}
@@ -0,0 +1,141 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package io.neba.benchmarks;
+
+import io.neba.benchmarks.models.ChildrenModel;
+import io.neba.benchmarks.models.FlatModel;
+import io.neba.benchmarks.models.LazyModel;
+import io.neba.benchmarks.models.NestedModel;
+import org.apache.sling.api.resource.Resource;
+
+import javax.annotation.Nonnull;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The content the benchmarks operate on, held by an {@link InMemoryResourceResolver}:
+ * <ul>
+ * <li>{@value #FLAT_ROOT}/0..n: {@link FlatModel flat} resources with property values of various types,</li>
+ * <li>{@value #NESTED_ROOT}/0..n: a chain of {@link NestedModel nested} resources, each {@link io.neba.api.annotations.Reference referencing}
+ * the next resource, a flat resource and all flat resources,</li>
+ * <li>{@value #CHILDREN_ROOT}: a {@link ChildrenModel} resource with n flat children and</li>
+ * <li>{@value #LAZY_ROOT}: a {@link LazyModel} resource with n flat children, referencing a flat resource.</li>
+ * </ul>
+ *
+ * @author Olaf Otto
+ */
+public class BenchmarkContent {
+    public static final String FLAT_ROOT = "/content/flat";
+    public static final String NESTED_ROOT = "/content/nested";
+    public static final String CHILDREN_ROOT = "/content/children";
+    public static final String LAZY_ROOT = "/content/lazy";
+
+    private static final String BASE_TYPE = "benchmarks/components/base";
+    private static final String UNMAPPED_TYPE = "benchmarks/components/unmapped";
+
+    private final InMemoryResourceResolver resolver;
+
+    /**
+     * @param size   the number of flat resources, which is also the number of children of the children resource.
+     * @param depth  the length of the chain of nested resources.
+     * @param userId the ID of the user owning the resource resolver, can be <code>null</code>.
+     */
+    public BenchmarkContent(int size, int depth, String userId) {
+        this.resolver = new InMemoryResourceResolver(userId);
+        this.resolver.defineResourceType(FlatModel.RESOURCE_TYPE, BASE_TYPE);
+        this.resolver.defineResourceType(NestedModel.RESOURCE_TYPE, BASE_TYPE);
+        this.resolver.defineResourceType(ChildrenModel.RESOURCE_TYPE, BASE_TYPE);
+        this.resolver.defineResourceType(LazyModel.RESOURCE_TYPE, BASE_TYPE);
+        this.resolver.defineResourceType(UNMAPPED_TYPE, BASE_TYPE);
+        this.resolver.defineResourceType(BASE_TYPE, null);
+
+        this.resolver.add("/content", UNMAPPED_TYPE, new HashMap<>());
+
+        this.resolver.add(FLAT_ROOT, UNMAPPED_TYPE, new HashMap<>());
+        String[] flatPaths = new String[size];
+        for (int i = 0; i < size; ++i) {
+            flatPaths[i] = FLAT_ROOT + '/' + i;
+            this.resolver.add(flatPaths[i], FlatModel.RESOURCE_TYPE, flatProperties(i));
+        }
+
+        this.resolver.add(NESTED_ROOT, UNMAPPED_TYPE, new HashMap<>());
+        for (int i = 0; i < depth; ++i) {
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("title", "Nested " + i);
+            if (i + 1 < depth) {
+                properties.put("next", NESTED_ROOT + '/' + (i + 1));
+            }
+            properties.put("flat", flatPaths[i % size]);
+            properties.put("related", flatPaths);
+            this.resolver.add(NESTED_ROOT + '/' + i, NestedModel.RESOURCE_TYPE, properties);
+        }
+
+        Map<String, Object> childrenProperties = new HashMap<>();
+        childrenProperties.put("title", "Children");
+        this.resolver.add(CHILDREN_ROOT, ChildrenModel.RESOURCE_TYPE, childrenProperties);
+        for (int i = 0; i < size; ++i) {
+            this.resolver.add(CHILDREN_ROOT + '/' + i, FlatModel.RESOURCE_TYPE, flatProperties(i));
+        }
+
+        Map<String, Object> lazyProperties = new HashMap<>();
+        lazyProperties.put("title", "Lazy");
+        lazyProperties.put("flat", flatPaths[0]);
+        this.resolver.add(LAZY_ROOT, LazyModel.RESOURCE_TYPE, lazyProperties);
+        for (int i = 0; i < size; ++i) {
+            this.resolver.add(LAZY_ROOT + '/' + i, FlatModel.RESOURCE_TYPE, flatProperties(i));
+        }
+    }
+
+    /**
+     * @param path must not be <code>null</code>.
+     * @return never <code>null</code>.
+     */
+    @Nonnull
+    public Resource get(@Nonnull String path) {
+        Resource resource = this.resolver.getResource(path);
+        if (resource == null) {
+            throw new IllegalArgumentException("There is no resource with path " + path + ".");
+        }
+        return resource;
+    }
+
+    /**
+     * @return never <code>null</code>.
+     */
+    @Nonnull
+    public InMemoryResourceResolver getResolver() {
+        return this.resolver;
+    }
+
+    private static Map<String, Object> flatProperties(int i) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("title", "Title " + i);
+        properties.put("text", "Some longer text of the resource with index " + i + '.');
+        properties.put("count", (long) i);
+        properties.put("width", "" + (i * 10));
+        properties.put("enabled", i % 2 == 0);
+        properties.put("ratio", i / 3D);
+        Calendar created = Calendar.getInstance();
+        created.setTimeInMillis(1_500_000_000_000L + i);
+        properties.put("created", created);
+        properties.put("modified", new Date(1_600_000_000_000L + i));
+        properties.put("tags", new String[]{"one", "two", "three"});
+        properties.put("tagList", new String[]{"one", "two", "three"});
+        return properties;
+    }
+}
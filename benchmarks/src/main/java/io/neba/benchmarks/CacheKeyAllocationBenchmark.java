@@ -0,0 +1,129 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package io.neba.benchmarks;
+
+import io.neba.benchmarks.models.FlatModel;
+import io.neba.core.util.Key4;
+import io.neba.core.util.Key9;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Compares request-scoped cache lookups using varargs-based keys, as formerly used by the
+ * {@link io.neba.core.resourcemodels.caching.RequestScopedResourceModelCache}, with the fixed-arity keys
+ * it uses now. The former generic key has been removed; an array-backed list has the same allocation
+ * profile (an element array plus the key instance) and serves as the baseline. Each operation creates a lookup
+ * key and performs a successful lookup. Run with the GC profiler (the default for this module) to obtain the
+ * bytes allocated per lookup (gc.alloc.rate.norm).
+ *
+ * @author Olaf Otto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CacheKeyAllocationBenchmark {
+    private final Map<Object, Object> cache = new HashMap<>();
+
+    private String path;
+    private Class<?> target;
+    private String resourceType;
+    private String userId;
+    private String pagePath;
+    private String selectors;
+    private String extension;
+    private String suffix;
+    private String queryString;
+
+    @Setup
+    public void setUp() {
+        this.path = "/content/benchmark/page/jcr:content/par/component";
+        this.target = FlatModel.class;
+        this.resourceType = "benchmark/components/flat";
+        this.userId = "benchmark-user";
+        this.pagePath = "/content/benchmark/page";
+        this.selectors = "mobile";
+        this.extension = "html";
+        this.suffix = null;
+        this.queryString = "q=1";
+
+        this.cache.put(legacyKey(), FlatModel.class);
+        this.cache.put(legacySafeModeKey(), FlatModel.class);
+        this.cache.put(key(), FlatModel.class);
+        this.cache.put(safeModeKey(), FlatModel.class);
+    }
+
+    /**
+     * Before: A nested varargs key for the target type wrapped in a varargs key with the resource information.
+     */
+    @Benchmark
+    public Object genericKeyLookup() {
+        return this.cache.get(legacyKey());
+    }
+
+    /**
+     * After: The target type is used as-is and combined with the resource information in a fixed-arity key.
+     */
+    @Benchmark
+    public Object fixedArityKeyLookup() {
+        return this.cache.get(key());
+    }
+
+    @Benchmark
+    public Object genericSafeModeKeyLookup() {
+        return this.cache.get(legacySafeModeKey());
+    }
+
+    @Benchmark
+    public Object fixedAritySafeModeKeyLookup() {
+        return this.cache.get(safeModeKey());
+    }
+
+    private List<Object> legacyKey() {
+        return asList(this.path, asList(this.target), this.resourceType, this.userId);
+    }
+
+    private List<Object> legacySafeModeKey() {
+        return asList(this.path, asList(this.target), this.resourceType, this.userId,
+                this.pagePath, this.selectors, this.extension, this.suffix, this.queryString);
+    }
+
+    private Key4 key() {
+        return new Key4(this.path, this.target, this.resourceType, this.userId);
+    }
+
+    private Key9 safeModeKey() {
+        return new Key9(this.path, this.target, this.resourceType, this.userId,
+                this.pagePath, this.selectors, this.extension, this.suffix, this.queryString);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package io.neba.benchmarks;
+
+import org.apache.sling.api.resource.AbstractResource;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link Resource} held by an {@link InMemoryResourceResolver}. Contrary to
+ * {@link org.apache.sling.api.adapter.SlingAdaptable}, adaptation results are not cached by the resource
+ * so that each {@link #adaptTo(Class) adaptation} reaches the NEBA adapter factory, just as a new resource
+ * instance obtained for each request would.
+ *
+ * @author Olaf Otto
+ */
+public class InMemoryResource extends AbstractResource {
+    private final String path;
+    private final String resourceType;
+    private final String resourceSuperType;
+    private final ValueMap properties;
+    private final InMemoryResourceResolver resolver;
+    private final List<Resource> children = new ArrayList<>();
+    private final ResourceMetadata metadata = new ResourceMetadata();
+
+    InMemoryResource(InMemoryResourceResolver resolver, String path, String resourceType, String resourceSuperType, Map<String, Object> properties) {
+        this.resolver = resolver;
+        this.path = path;
+        this.resourceType = resourceType;
+        this.resourceSuperType = resourceSuperType;
+        this.properties = new ValueMapDecorator(properties);
+        this.metadata.setResolutionPath(path);
+    }
+
+    void addChild(Resource child) {
+        this.children.add(child);
+    }
+
+    @Override
+    @Nonnull
+    public String getPath() {
+        return this.path;
+    }
+
+    @Override
+    @Nonnull
+    public String getResourceType() {
+        return this.resourceType;
+    }
+
+    @Override
+    public String getResourceSuperType() {
+        return this.resourceSuperType;
+    }
+
+    @Override
+    @Nonnull
+    public ResourceMetadata getResourceMetadata() {
+        return this.metadata;
+    }
+
+    @Override
+    @Nonnull
+    public ResourceResolver getResourceResolver() {
+        return this.resolver;
+    }
+
+    @Override
+    @Nonnull
+    public Iterator<Resource> listChildren() {
+        return this.children.iterator();
+    }
+
+    @Override
+    public boolean hasChildren() {
+        return !this.children.isEmpty();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <AdapterType> AdapterType adaptTo(@Nonnull Class<AdapterType> type) {
+        if (type == ValueMap.class || type == Map.class) {
+            return (AdapterType) this.properties;
+        }
+        return this.resolver.adapt(this, type);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [" + this.path + ", " + this.resourceType + ']';
+    }
+}
@@ -0,0 +1,287 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package io.neba.benchmarks;
+
+import org.apache.sling.api.adapter.AdapterFactory;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static java.util.Collections.emptyIterator;
+import static org.apache.commons.lang3.StringUtils.substringBeforeLast;
+
+/**
+ * A read-only, in-memory {@link ResourceResolver} holding a tree of {@link InMemoryResource resources}. Supports
+ * the resource resolution, traversal and resource type hierarchy operations used by NEBA. All other operations
+ * are unsupported. {@link InMemoryResource#adaptTo(Class) Adaptations} of the resources to the supported adapter types are delegated to the
+ * {@link #setAdapterFactory(AdapterFactory, Predicate) adapter factory}, e.g. the NEBA resource to model adapter.
+ *
+ * @author Olaf Otto
+ */
+public class InMemoryResourceResolver implements ResourceResolver {
+    private final Map<String, InMemoryResource> resources = new HashMap<>(1024);
+    private final Map<String, String> resourceSuperTypes = new HashMap<>();
+    private final String userId;
+    private AdapterFactory adapterFactory;
+    private Predicate<Class<?>> adapterTypes;
+
+    /**
+     * @param userId can be <code>null</code>, e.g. for an anonymous resolver.
+     */
+    public InMemoryResourceResolver(@CheckForNull String userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * @param adapterFactory must not be <code>null</code>.
+     * @param adapterTypes   must not be <code>null</code>. Determines the types the adapter factory is used for, just like the
+     *                       adapter classes an adapter factory is registered for in Sling.
+     */
+    public void setAdapterFactory(@Nonnull AdapterFactory adapterFactory, @Nonnull Predicate<Class<?>> adapterTypes) {
+        this.adapterFactory = adapterFactory;
+        this.adapterTypes = adapterTypes;
+    }
+
+    /**
+     * Defines the super type of a resource type, as a resource type definition in /apps would.
+     */
+    public void defineResourceType(@Nonnull String resourceType, @CheckForNull String resourceSuperType) {
+        this.resourceSuperTypes.put(resourceType, resourceSuperType);
+    }
+
+    /**
+     * Adds a resource to the tree. The parent resource must have been added before, unless the resource is a root resource.
+     *
+     * @return the added resource, never <code>null</code>.
+     */
+    @Nonnull
+    public InMemoryResource add(@Nonnull String path, @Nonnull String resourceType, @Nonnull Map<String, Object> properties) {
+        InMemoryResource resource = new InMemoryResource(this, path, resourceType, this.resourceSuperTypes.get(resourceType), properties);
+        this.resources.put(path, resource);
+        InMemoryResource parent = this.resources.get(substringBeforeLast(path, "/"));
+        if (parent != null) {
+            parent.addChild(resource);
+        }
+        return resource;
+    }
+
+    <T> T adapt(Resource resource, Class<T> type) {
+        if (this.adapterFactory == null || !this.adapterTypes.test(type)) {
+            return null;
+        }
+        return this.adapterFactory.getAdapter(resource, type);
+    }
+
+    @Override
+    public Resource getResource(@Nonnull String path) {
+        return this.resources.get(normalize(path));
+    }
+
+    @Override
+    public Resource getResource(Resource base, @Nonnull String path) {
+        if (path.startsWith("/") || base == null) {
+            return getResource(path);
+        }
+        return getResource(base.getPath() + '/' + path);
+    }
+
+    @Override
+    @Nonnull
+    public Iterator<Resource> listChildren(@Nonnull Resource parent) {
+        Resource resource = this.resources.get(parent.getPath());
+        return resource == null ? emptyIterator() : resource.listChildren();
+    }
+
+    @Override
+    @Nonnull
+    public Iterable<Resource> getChildren(@Nonnull Resource parent) {
+        return () -> listChildren(parent);
+    }
+
+    @Override
+    public boolean hasChildren(@Nonnull Resource resource) {
+        return listChildren(resource).hasNext();
+    }
+
+    @Override
+    public String getParentResourceType(Resource resource) {
+        return resource == null ? null : resource.getResourceSuperType();
+    }
+
+    @Override
+    public String getParentResourceType(String resourceType) {
+        return this.resourceSuperTypes.get(resourceType);
+    }
+
+    @Override
+    public boolean isResourceType(Resource resource, String resourceType) {
+        for (String type = resource.getResourceType(); type != null; type = getParentResourceType(type)) {
+            if (type.equals(resourceType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String getUserID() {
+        return this.userId;
+    }
+
+    @Override
+    public boolean isLive() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release.
+    }
+
+    @Override
+    public <AdapterType> AdapterType adaptTo(@Nonnull Class<AdapterType> type) {
+        return null;
+    }
+
+    /**
+     * Resolves "." and ".." segments of a path.
+     */
+    private static String normalize(String path) {
+        if (path.indexOf('.') == -1) {
+            return path;
+        }
+        Deque<String> segments = new ArrayDeque<>();
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty() || ".".equals(segment)) {
+                continue;
+            }
+            if ("..".equals(segment)) {
+                segments.pollLast();
+            } else {
+                segments.addLast(segment);
+            }
+        }
+        return '/' + String.join("/", segments);
+    }
+
+    @Override
+    @Nonnull
+    public Resource resolve(@Nonnull HttpServletRequest request, @Nonnull String absPath) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    @Nonnull
+    public Resource resolve(@Nonnull String absPath) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    @Nonnull
+    @SuppressWarnings("deprecation")
+    public Resource resolve(@Nonnull HttpServletRequest request) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    @Nonnull
+    public String map(@Nonnull String resourcePath) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String map(@Nonnull HttpServletRequest request, @Nonnull String resourcePath) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    @Nonnull
+    public String[] getSearchPath() {
+        return new String[]{"/apps/", "/libs/"};
+    }
+
+    @Override
+    @Nonnull
+    public Iterator<Resource> findResources(@Nonnull String query, String language) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    @Nonnull
+    public Iterator<Map<String, Object>> queryResources(@Nonnull String query, String language) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return this resolver, as it is read-only and thus safe to share amongst the threads mapping children in parallel.
+     */
+    @Override
+    @Nonnull
+    public ResourceResolver clone(Map<String, Object> authenticationInfo) {
+        return this;
+    }
+
+    @Override
+    @Nonnull
+    public Iterator<String> getAttributeNames() {
+        return emptyIterator();
+    }
+
+    @Override
+    public Object getAttribute(@Nonnull String name) {
+        return null;
+    }
+
+    @Override
+    public void delete(@Nonnull Resource resource) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    @Nonnull
+    public Resource create(@Nonnull Resource parent, @Nonnull String name, Map<String, Object> properties) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void revert() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void commit() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean hasChanges() {
+        return false;
+    }
+
+    @Override
+    public void refresh() {
+        // Nothing to refresh.
+    }
+}
@@ -0,0 +1,328 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package io.neba.benchmarks;
+
+import io.neba.api.annotations.ResourceModel;
+import io.neba.api.spi.ResourceModelFactory;
+import io.neba.core.resourcemodels.adaptation.ResourceToModelAdapter;
+import io.neba.core.resourcemodels.caching.RequestScopedResourceModelCache;
+import io.neba.core.resourcemodels.caching.RequestScopedValueMapCache;
+import io.neba.core.resourcemodels.caching.SharedResourceModelCache;
+import io.neba.core.resourcemodels.mapping.AnnotatedFieldMappers;
+import io.neba.core.resourcemodels.mapping.BatchResourceResolvers;
+import io.neba.core.resourcemodels.mapping.ChildrenMappingPool;
+import io.neba.core.resourcemodels.mapping.ModelPostProcessor;
+import io.neba.core.resourcemodels.mapping.NestedMappingSupport;
+import io.neba.core.resourcemodels.mapping.PlaceholderVariableResolvers;
+import io.neba.core.resourcemodels.mapping.ResourceToModelMapper;
+import io.neba.core.resourcemodels.metadata.ResourceModelMetaDataRegistrar;
+import io.neba.core.resourcemodels.registration.ModelRegistry;
+import io.neba.core.util.OsgiModelSource;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.Resource;
+import org.osgi.framework.Bundle;
+
+import javax.annotation.Nonnull;
+import javax.servlet.ServletResponse;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static java.lang.Character.toLowerCase;
+
+/**
+ * Wires the NEBA core components taking part in resource-to-model adaptation the way the OSGi
+ * declarative services runtime would, i.e. by injecting the {@link org.osgi.service.component.annotations.Reference references}
+ * of each component and invoking their activation methods. Models are registered directly, without bundle scanning.
+ *
+ * @author Olaf Otto
+ */
+public class NebaPipeline {
+    private static final long BUNDLE_ID = 1L;
+
+    private final ResourceModelMetaDataRegistrar metaDataRegistrar = new ResourceModelMetaDataRegistrar();
+    private final ModelRegistry registry = new ModelRegistry();
+    private final AnnotatedFieldMappers fieldMappers = new AnnotatedFieldMappers();
+    private final PlaceholderVariableResolvers variableResolvers = new PlaceholderVariableResolvers();
+    private final NestedMappingSupport nestedMappingSupport = new NestedMappingSupport();
+    private final ModelPostProcessor modelPostProcessor = new ModelPostProcessor();
+    private final ResourceToModelMapper mapper = new ResourceToModelMapper();
+    private final RequestScopedResourceModelCache cache = new RequestScopedResourceModelCache();
+    private final SharedResourceModelCache sharedCache = new SharedResourceModelCache();
+    private final RequestScopedValueMapCache valueMapCache = new RequestScopedValueMapCache();
+    private final ChildrenMappingPool childrenMappingPool = new ChildrenMappingPool();
+    private final BatchResourceResolvers batchResourceResolvers = new BatchResourceResolvers();
+    private final ResourceToModelAdapter adapter = new ResourceToModelAdapter();
+    private final Bundle bundle = bundle();
+    private final SlingHttpServletRequest request = stub(SlingHttpServletRequest.class);
+    private final ServletResponse response = stub(ServletResponse.class);
+    private final ModelFactory factory = new ModelFactory();
+
+    public NebaPipeline() {
+        inject(this.mapper, "modelPostProcessor", this.modelPostProcessor);
+        inject(this.mapper, "nestedMappingSupport", this.nestedMappingSupport);
+        inject(this.mapper, "fieldMappers", this.fieldMappers);
+        inject(this.mapper, "variableResolvers", this.variableResolvers);
+        inject(this.mapper, "resourceModelMetaDataRegistrar", this.metaDataRegistrar);
+        inject(this.mapper, "sharedCache", this.sharedCache);
+        inject(this.mapper, "requestScopedCache", this.cache);
+        inject(this.mapper, "childrenMappingPool", this.childrenMappingPool);
+        inject(this.mapper, "batchResourceResolvers", this.batchResourceResolvers);
+        inject(this.mapper, "valueMapCache", this.valueMapCache);
+
+        inject(this.cache, "metaDataRegistrar", this.metaDataRegistrar);
+        activate(this.cache, configuration(RequestScopedResourceModelCache.Configuration.class));
+
+        inject(this.sharedCache, "metaDataRegistrar", this.metaDataRegistrar);
+        activate(this.sharedCache, configuration(SharedResourceModelCache.Configuration.class));
+
+        activate(this.valueMapCache, configuration(RequestScopedValueMapCache.Configuration.class));
+
+        inject(this.childrenMappingPool, "nestedMappingSupport", this.nestedMappingSupport);
+        inject(this.childrenMappingPool, "requestScopedCache", this.cache);
+        inject(this.childrenMappingPool, "variableResolvers", this.variableResolvers);
+        activate(this.childrenMappingPool, configuration(ChildrenMappingPool.Configuration.class));
+
+        inject(this.registry, "valueMapCache", this.valueMapCache);
+
+        inject(this.adapter, "registry", this.registry);
+        inject(this.adapter, "mapper", this.mapper);
+        inject(this.adapter, "cache", this.cache);
+    }
+
+    /**
+     * Registers the given {@link ResourceModel resource models}, just like the
+     * {@link io.neba.core.resourcemodels.registration.ModelRegistrar} does for the models of a bundle.
+     */
+    public NebaPipeline register(Class<?>... modelTypes) {
+        for (Class<?> modelType : modelTypes) {
+            TypeModelDefinition<?> definition = new TypeModelDefinition<>(modelType);
+            this.factory.definitions.add(definition);
+            OsgiModelSource<?> source = new OsgiModelSource<>(definition, this.factory, this.bundle);
+            this.metaDataRegistrar.register(source);
+            this.registry.add(definition.getResourceModel().value(), source);
+        }
+        return this;
+    }
+
+    /**
+     * Runs the given action within the scope of a request, i.e. with the {@link RequestScopedResourceModelCache}
+     * and the request scopes of the {@link RequestScopedValueMapCache}, {@link PlaceholderVariableResolvers} and
+     * {@link ChildrenMappingPool} being active.
+     */
+    public void inRequest(Runnable action) {
+        try {
+            this.cache.doFilter(this.request, this.response, (req, res) ->
+                    this.valueMapCache.doFilter(req, res, (valueMapReq, valueMapRes) ->
+                            this.variableResolvers.doFilter(valueMapReq, valueMapRes, (variablesReq, variablesRes) ->
+                                    this.childrenMappingPool.doFilter(variablesReq, variablesRes, (innerReq, innerRes) -> action.run()))));
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to execute the request.", e);
+        }
+    }
+
+    /**
+     * Uses NEBA to {@link Resource#adaptTo(Class) adapt} the resources of the given resolver to the types of
+     * the registered models and their supertypes.
+     */
+    public void install(InMemoryResourceResolver resolver) {
+        resolver.setAdapterFactory(this.adapter, this::isAdapterType);
+    }
+
+    /**
+     * @return the model the resource is adapted to by NEBA, or <code>null</code>.
+     */
+    public <T> T adapt(Resource resource, Class<T> type) {
+        return this.adapter.getAdapter(resource, type);
+    }
+
+    public ResourceModelFactory getModelFactory() {
+        return this.factory;
+    }
+
+    public ResourceToModelAdapter getAdapter() {
+        return this.adapter;
+    }
+
+    public ModelRegistry getRegistry() {
+        return this.registry;
+    }
+
+    public RequestScopedResourceModelCache getCache() {
+        return this.cache;
+    }
+
+    public SharedResourceModelCache getSharedCache() {
+        return this.sharedCache;
+    }
+
+    public ResourceModelMetaDataRegistrar getMetaDataRegistrar() {
+        return this.metaDataRegistrar;
+    }
+
+    public ChildrenMappingPool getChildrenMappingPool() {
+        return this.childrenMappingPool;
+    }
+
+    public BatchResourceResolvers getBatchResourceResolvers() {
+        return this.batchResourceResolvers;
+    }
+
+    public RequestScopedValueMapCache getValueMapCache() {
+        return this.valueMapCache;
+    }
+
+    public AnnotatedFieldMappers getFieldMappers() {
+        return this.fieldMappers;
+    }
+
+    public PlaceholderVariableResolvers getVariableResolvers() {
+        return this.variableResolvers;
+    }
+
+    private boolean isAdapterType(Class<?> type) {
+        for (TypeModelDefinition<?> definition : this.factory.definitions) {
+            if (type.isAssignableFrom(definition.getType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void inject(Object component, String fieldName, Object reference) {
+        try {
+            Field field = component.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(component, reference);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("Unable to inject " + reference + " into " + fieldName + " of " + component + ".", e);
+        }
+    }
+
+    private static void activate(Object component, Object configuration) {
+        try {
+            Method activate = component.getClass().getDeclaredMethod("activate", configuration.getClass().getInterfaces()[0]);
+            activate.setAccessible(true);
+            activate.invoke(component, configuration);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to activate " + component + ".", e);
+        }
+    }
+
+    /**
+     * @return a component configuration using the default value of each attribute.
+     */
+    private static <T extends Annotation> T configuration(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            if (method.getDefaultValue() != null) {
+                return method.getDefaultValue();
+            }
+            if ("annotationType".equals(method.getName())) {
+                return type;
+            }
+            return method.getName().equals("toString") ? type.getName() : null;
+        }));
+    }
+
+    private static Bundle bundle() {
+        return (Bundle) Proxy.newProxyInstance(Bundle.class.getClassLoader(), new Class[]{Bundle.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getBundleId":
+                    return BUNDLE_ID;
+                case "getSymbolicName":
+                    return "io.neba.benchmarks";
+                case "hashCode":
+                    return (int) BUNDLE_ID;
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static <T> T stub(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName();
+                default:
+                    return null;
+            }
+        }));
+    }
+
+    /**
+     * Instantiates models using their default constructor.
+     *
+     * @author Olaf Otto
+     */
+    private static class ModelFactory implements ResourceModelFactory {
+        private final List<TypeModelDefinition<?>> definitions = new ArrayList<>();
+
+        @Nonnull
+        @Override
+        public Collection<ResourceModelFactory.ModelDefinition<?>> getModelDefinitions() {
+            return new ArrayList<>(this.definitions);
+        }
+
+        @Override
+        public <T> T provideModel(@Nonnull ResourceModelFactory.ModelDefinition<T> modelDefinition, @Nonnull ContentToModelMappingCallback<T> callback) {
+            try {
+                return callback.map(modelDefinition.getType().newInstance());
+            } catch (InstantiationException | IllegalAccessException e) {
+                throw new IllegalStateException("Unable to instantiate " + modelDefinition.getType() + ".", e);
+            }
+        }
+    }
+
+    /**
+     * @author Olaf Otto
+     */
+    private static class TypeModelDefinition<T> implements ResourceModelFactory.ModelDefinition<T> {
+        private final Class<T> type;
+
+        TypeModelDefinition(Class<T> type) {
+            this.type = type;
+        }
+
+        @Nonnull
+        @Override
+        public ResourceModel getResourceModel() {
+            return this.type.getAnnotation(ResourceModel.class);
+        }
+
+        @Nonnull
+        @Override
+        public String getName() {
+            return toLowerCase(this.type.getSimpleName().charAt(0)) + this.type.getSimpleName().substring(1);
+        }
+
+        @Nonnull
+        @Override
+        public Class<T> getType() {
+            return this.type;
+        }
+    }
+}
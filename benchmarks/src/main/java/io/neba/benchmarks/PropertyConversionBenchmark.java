@@ -0,0 +1,116 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+
+package io.neba.benchmarks;
+
+import io.neba.core.util.PrimitiveAndEnumSupportingValueMap;
+import io.neba.core.util.PropertyConverter;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.neba.core.util.PropertyConverter.converterFor;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Compares the retrieval of a property as the type of a mapped field via {@link ValueMap#get(String, Class)}, as formerly used
+ * for all property fields, with the retrieval via the {@link PropertyConverter} bound to the field. The property value is
+ * of the field type, which is the case for the vast majority of mapped properties.
+ *
+ * @author Olaf Otto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PropertyConversionBenchmark {
+    private static final String NAME = "property";
+
+    @Param({"String", "long", "boolean", "Calendar", "Date"})
+    private String fieldType;
+
+    private ValueMap properties;
+    private Class<?> type;
+    private PropertyConverter<?> converter;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> values = new HashMap<>();
+        switch (this.fieldType) {
+            case "String":
+                this.type = String.class;
+                values.put(NAME, "Lorem ipsum dolor sit amet");
+                break;
+            case "long":
+                this.type = long.class;
+                values.put(NAME, 1234567890L);
+                break;
+            case "boolean":
+                this.type = boolean.class;
+                values.put(NAME, true);
+                break;
+            case "Calendar":
+                this.type = Calendar.class;
+                values.put(NAME, new GregorianCalendar());
+                break;
+            case "Date":
+                this.type = Date.class;
+                values.put(NAME, new Date());
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported field type: " + this.fieldType);
+        }
+
+        // Mapped properties are retrieved from value maps decorated with primitive and enum support.
+        this.properties = new PrimitiveAndEnumSupportingValueMap(new ValueMapDecorator(values));
+        this.converter = converterFor(this.type);
+    }
+
+    /**
+     * Before: The value map converts the property to the field type.
+     */
+    @Benchmark
+    public Object valueMapConversion() {
+        return this.properties.get(NAME, this.type);
+    }
+
+    /**
+     * After: The converter bound to the field retrieves the property without conversion.
+     */
+    @Benchmark
+    public Object propertyConverter() {
+        return this.converter.get(this.properties, NAME);
+    }
+}
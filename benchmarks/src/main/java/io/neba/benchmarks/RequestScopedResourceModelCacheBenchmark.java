@@ -0,0 +1,106 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package io.neba.benchmarks;
+
+import io.neba.benchmarks.models.FlatModel;
+import io.neba.benchmarks.models.NestedModel;
+import org.apache.sling.api.resource.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static io.neba.benchmarks.BenchmarkContent.FLAT_ROOT;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Measures adaptations within a request, i.e. with the {@link io.neba.core.resourcemodels.caching.RequestScopedResourceModelCache}
+ * being active. Each invocation represents a request adapting {@value #ADAPTATIONS} resources; the results are reported
+ * per adaptation.
+ *
+ * @author Olaf Otto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RequestScopedResourceModelCacheBenchmark {
+    private static final int ADAPTATIONS = 100;
+
+    private NebaPipeline neba;
+    private Resource[] resources;
+
+    @Setup
+    public void setUp() {
+        BenchmarkContent content = new BenchmarkContent(ADAPTATIONS, 1, "benchmark");
+        this.neba = new NebaPipeline().register(FlatModel.class, NestedModel.class);
+        this.neba.install(content.getResolver());
+
+        this.resources = new Resource[ADAPTATIONS];
+        for (int i = 0; i < ADAPTATIONS; ++i) {
+            this.resources[i] = content.get(FLAT_ROOT + '/' + i);
+        }
+    }
+
+    /**
+     * Adapts the same resource: Except for the first adaptation, all models are served from the cache.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ADAPTATIONS)
+    public void cacheHits(Blackhole blackhole) {
+        this.neba.inRequest(() -> {
+            for (int i = 0; i < ADAPTATIONS; ++i) {
+                blackhole.consume(this.neba.adapt(this.resources[0], FlatModel.class));
+            }
+        });
+    }
+
+    /**
+     * Adapts distinct resources: All models are mapped and added to the cache.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ADAPTATIONS)
+    public void cacheMisses(Blackhole blackhole) {
+        this.neba.inRequest(() -> {
+            for (Resource resource : this.resources) {
+                blackhole.consume(this.neba.adapt(resource, FlatModel.class));
+            }
+        });
+    }
+
+    /**
+     * Adapts a resource to a model type not applicable to the resource: The failed lookup is cached.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ADAPTATIONS)
+    public void cachedLookupFailures(Blackhole blackhole) {
+        this.neba.inRequest(() -> {
+            for (int i = 0; i < ADAPTATIONS; ++i) {
+                blackhole.consume(this.neba.adapt(this.resources[0], NestedModel.class));
+            }
+        });
+    }
+}
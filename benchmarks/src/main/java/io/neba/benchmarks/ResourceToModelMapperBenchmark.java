@@ -0,0 +1,140 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package io.neba.benchmarks;
+
+import io.neba.benchmarks.models.ChildrenModel;
+import io.neba.benchmarks.models.FlatModel;
+import io.neba.benchmarks.models.LazyModel;
+import io.neba.benchmarks.models.NestedModel;
+import io.neba.benchmarks.models.ParallelChildrenModel;
+import org.apache.sling.api.resource.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static io.neba.benchmarks.BenchmarkContent.CHILDREN_ROOT;
+import static io.neba.benchmarks.BenchmarkContent.FLAT_ROOT;
+import static io.neba.benchmarks.BenchmarkContent.LAZY_ROOT;
+import static io.neba.benchmarks.BenchmarkContent.NESTED_ROOT;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * Measures the adaptation of resources to models outside of a request, i.e. without
+ * the {@link io.neba.core.resourcemodels.caching.RequestScopedResourceModelCache request-scoped cache}, such that
+ * every adaptation looks up, instantiates and maps the model.
+ *
+ * @author Olaf Otto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ResourceToModelMapperBenchmark {
+    @Param({"100"})
+    private int size;
+    @Param({"10"})
+    private int depth;
+
+    private NebaPipeline neba;
+    private Resource flat;
+    private Resource nested;
+    private Resource children;
+    private Resource lazy;
+
+    @Setup
+    public void setUp() {
+        BenchmarkContent content = new BenchmarkContent(this.size, this.depth, "benchmark");
+        this.neba = new NebaPipeline().register(FlatModel.class, NestedModel.class, ChildrenModel.class, ParallelChildrenModel.class, LazyModel.class);
+        this.neba.install(content.getResolver());
+
+        this.flat = content.get(FLAT_ROOT + "/0");
+        this.nested = content.get(NESTED_ROOT + "/0");
+        this.children = content.get(CHILDREN_ROOT);
+        this.lazy = content.get(LAZY_ROOT);
+    }
+
+    @Benchmark
+    public FlatModel flatModel() {
+        return this.neba.adapt(this.flat, FlatModel.class);
+    }
+
+    /**
+     * Maps the chain of nested models, including the lazy-loaded collection of related models of each model.
+     */
+    @Benchmark
+    public void nestedReferenceGraph(Blackhole blackhole) {
+        NestedModel model = this.neba.adapt(this.nested, NestedModel.class);
+        while (model != null) {
+            blackhole.consume(model.getFlat());
+            blackhole.consume(model.getRelated().size());
+            model = model.getNext();
+        }
+    }
+
+    /**
+     * Maps a model with a large collection of children without accessing the lazy-loaded children.
+     */
+    @Benchmark
+    public ChildrenModel childrenNotLoaded() {
+        return this.neba.adapt(this.children, ChildrenModel.class);
+    }
+
+    /**
+     * Maps a model with a large collection of children and iterates the children.
+     */
+    @Benchmark
+    public void childrenLoaded(Blackhole blackhole) {
+        for (FlatModel child : this.neba.adapt(this.children, ChildrenModel.class).getChildren()) {
+            blackhole.consume(child);
+        }
+    }
+
+    /**
+     * Maps a model with a large collection of children mapped in parallel and iterates the children. Runs within a request,
+     * as children are only mapped in parallel during a request.
+     */
+    @Benchmark
+    public void childrenLoadedInParallel(Blackhole blackhole) {
+        this.neba.inRequest(() -> {
+            for (FlatModel child : this.neba.adapt(this.children, ParallelChildrenModel.class).getChildren()) {
+                blackhole.consume(child);
+            }
+        });
+    }
+
+    @Benchmark
+    public LazyModel lazyFieldsNotLoaded() {
+        return this.neba.adapt(this.lazy, LazyModel.class);
+    }
+
+    @Benchmark
+    public void lazyFieldsLoaded(Blackhole blackhole) {
+        LazyModel model = this.neba.adapt(this.lazy, LazyModel.class);
+        blackhole.consume(model.getFlat().asOptional());
+        blackhole.consume(model.getChildren().asOptional());
+    }
+}
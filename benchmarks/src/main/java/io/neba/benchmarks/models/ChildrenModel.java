@@ -0,0 +1,43 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package io.neba.benchmarks.models;
+
+import io.neba.api.annotations.Children;
+import io.neba.api.annotations.ResourceModel;
+
+import java.util.List;
+
+/**
+ * A model with a lazy-loaded collection of {@link Children}.
+ *
+ * @author Olaf Otto
+ */
+@ResourceModel(ChildrenModel.RESOURCE_TYPE)
+public class ChildrenModel {
+    public static final String RESOURCE_TYPE = "benchmarks/components/children";
+
+    private String title;
+    @Children
+    private List<FlatModel> children;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public List<FlatModel> getChildren() {
+        return children;
+    }
+}
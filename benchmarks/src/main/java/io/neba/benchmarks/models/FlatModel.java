@@ -0,0 +1,83 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package io.neba.benchmarks.models;
+
+import io.neba.api.annotations.ResourceModel;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A model with property-typed fields only.
+ *
+ * @author Olaf Otto
+ */
+@ResourceModel(FlatModel.RESOURCE_TYPE)
+public class FlatModel {
+    public static final String RESOURCE_TYPE = "benchmarks/components/flat";
+
+    private String title;
+    private String text;
+    private long count;
+    private int width;
+    private boolean enabled;
+    private double ratio;
+    private Calendar created;
+    private Date modified;
+    private String[] tags;
+    private List<String> tagList;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getRatio() {
+        return ratio;
+    }
+
+    public Calendar getCreated() {
+        return created;
+    }
+
+    public Date getModified() {
+        return modified;
+    }
+
+    public String[] getTags() {
+        return tags;
+    }
+
+    public List<String> getTagList() {
+        return tagList;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package io.neba.benchmarks.models;
+
+import io.neba.api.annotations.Reference;
+import io.neba.api.annotations.ResourceModel;
+
+import java.util.List;
+
+/**
+ * A model referencing further models, forming a graph of {@link Reference references} that is mapped eagerly
+ * for single references and lazily for collections of references.
+ *
+ * @author Olaf Otto
+ */
+@ResourceModel(NestedModel.RESOURCE_TYPE)
+public class NestedModel {
+    public static final String RESOURCE_TYPE = "benchmarks/components/nested";
+
+    private String title;
+    @Reference
+    private NestedModel next;
+    @Reference
+    private FlatModel flat;
+    @Reference
+    private List<FlatModel> related;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public NestedModel getNext() {
+        return next;
+    }
+
+    public FlatModel getFlat() {
+        return flat;
+    }
+
+    public List<FlatModel> getRelated() {
+        return related;
+    }
+}
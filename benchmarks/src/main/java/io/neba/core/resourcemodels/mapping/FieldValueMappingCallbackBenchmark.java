@@ -0,0 +1,105 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package io.neba.core.resourcemodels.mapping;
+
+import io.neba.api.spi.ResourceModelFactory;
+import io.neba.benchmarks.BenchmarkContent;
+import io.neba.benchmarks.NebaPipeline;
+import io.neba.benchmarks.models.FlatModel;
+import io.neba.benchmarks.models.NestedModel;
+import io.neba.core.resourcemodels.metadata.MappedFieldMetaData;
+import io.neba.core.resourcemodels.metadata.ResourceModelMetaData;
+import org.apache.sling.api.resource.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static io.neba.benchmarks.BenchmarkContent.FLAT_ROOT;
+import static io.neba.benchmarks.BenchmarkContent.NESTED_ROOT;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Compares mapping the fields of a model using a pre-compiled {@link MappingPlan} with mapping
+ * each {@link MappedFieldMetaData mappable field} individually via {@link FieldValueMappingCallback#doWith(MappedFieldMetaData)}.
+ * Resides in the mapping package to be able to use the package-private mapping infrastructure directly.
+ *
+ * @author Olaf Otto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FieldValueMappingCallbackBenchmark {
+    @Param({"flat", "nested"})
+    private String model;
+
+    private NebaPipeline neba;
+    private ResourceModelFactory factory;
+    private Resource resource;
+    private Class<?> modelType;
+    private MappedFieldMetaData[] mappableFields;
+    private MappingPlan plan;
+    private ResourceModelMetaData metaData;
+
+    @Setup
+    public void setUp() {
+        BenchmarkContent content = new BenchmarkContent(10, 2, "benchmark");
+        this.neba = new NebaPipeline().register(FlatModel.class, NestedModel.class);
+        this.neba.install(content.getResolver());
+        this.factory = this.neba.getModelFactory();
+
+        boolean flat = "flat".equals(this.model);
+        this.resource = content.get(flat ? FLAT_ROOT + "/0" : NESTED_ROOT + "/1");
+        this.modelType = flat ? FlatModel.class : NestedModel.class;
+
+        this.metaData = this.neba.getMetaDataRegistrar().get(this.modelType);
+        this.mappableFields = this.metaData.getMappableFields();
+        this.plan = MappingPlan.compile(this.metaData, this.neba.getFieldMappers());
+    }
+
+    @Benchmark
+    public Object perFieldCallback() throws ReflectiveOperationException {
+        Object instance = this.modelType.newInstance();
+        FieldValueMappingCallback callback = newCallback(instance);
+        for (MappedFieldMetaData mappableField : this.mappableFields) {
+            callback.doWith(mappableField);
+        }
+        return instance;
+    }
+
+    @Benchmark
+    public Object mappingPlan() throws ReflectiveOperationException {
+        Object instance = this.modelType.newInstance();
+        this.plan.mapWith(newCallback(instance));
+        return instance;
+    }
+
+    private FieldValueMappingCallback newCallback(Object instance) {
+        return new FieldValueMappingCallback(instance, this.resource, this.factory, this.neba.getFieldMappers(), this.neba.getVariableResolvers(),
+                new Mapping<>(this.resource.getPath(), this.metaData, this.resource.getResourceType(), false), this.neba.getChildrenMappingPool(),
+                this.neba.getBatchResourceResolvers(), this.neba.getValueMapCache());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package io.neba.core.resourcemodels.registration;
+
+import io.neba.benchmarks.BenchmarkContent;
+import io.neba.benchmarks.NebaPipeline;
+import io.neba.benchmarks.models.ChildrenModel;
+import io.neba.benchmarks.models.FlatModel;
+import io.neba.benchmarks.models.LazyModel;
+import io.neba.benchmarks.models.NestedModel;
+import org.apache.sling.api.resource.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+
+import static io.neba.benchmarks.BenchmarkContent.FLAT_ROOT;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Measures {@link ModelRegistry#lookupMostSpecificModels(Resource, Class) model lookups} served from the
+ * lookup cache of the registry and lookups that traverse the resource type hierarchy.
+ * Resides in the registry's package to be able to clear the lookup cache.
+ *
+ * @author Olaf Otto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ModelRegistryBenchmark {
+    private ModelRegistry registry;
+    private Resource resource;
+
+    @Setup
+    public void setUp() {
+        BenchmarkContent content = new BenchmarkContent(1, 1, "benchmark");
+        this.registry = new NebaPipeline()
+                .register(FlatModel.class, NestedModel.class, ChildrenModel.class, LazyModel.class)
+                .getRegistry();
+        this.resource = content.get(FLAT_ROOT + "/0");
+    }
+
+    @Benchmark
+    public Collection<?> cachedLookup() {
+        return this.registry.lookupMostSpecificModels(this.resource, FlatModel.class);
+    }
+
+    @Benchmark
+    public Collection<?> uncachedLookup() {
+        this.registry.clearLookupCaches();
+        return this.registry.lookupMostSpecificModels(this.resource, FlatModel.class);
+    }
+
+    /**
+     * Looks up a type no model exists for, which traverses the entire resource type hierarchy.
+     */
+    @Benchmark
+    public Collection<?> uncachedFailingLookup() {
+        this.registry.clearLookupCaches();
+        return this.registry.lookupMostSpecificModels(this.resource, Runnable.class);
+    }
+}
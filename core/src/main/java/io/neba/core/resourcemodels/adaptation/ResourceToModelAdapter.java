@@ -19,7 +19,6 @@ package io.neba.core.resourcemodels.adaptation;
 import io.neba.core.resourcemodels.caching.RequestScopedResourceModelCache;
 import io.neba.core.resourcemodels.mapping.ResourceToModelMapper;
 import io.neba.core.resourcemodels.registration.ModelRegistry;
-import io.neba.core.util.Key;
 import io.neba.core.util.ResolvedModelSource;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.adapter.AdapterFactory;
@@ -31,7 +30,6 @@ import javax.annotation.Nonnull;
 import java.util.Collection;
 import java.util.Optional;
 
-import static io.neba.core.util.Key.key;
 import static org.apache.commons.lang3.StringUtils.join;
 
 /**
@@ -69,13 +67,12 @@ public class ResourceToModelAdapter implements AdapterFactory {
             resource = ((SlingHttpServletRequest) adaptable).getResource();
         }
 
-        if (resource == null) {
+        if (resource == null || this.registry.isUnmapped(resource)) {
             return null;
         }
 
-        final Key key = key(target);
-
-        Optional<T> cachedModel = this.cache.get(resource, key);
+        // The target type suffices to identify the model in the cache, which combines it with the resource information.
+        Optional<T> cachedModel = this.cache.get(resource, target);
 
         // A null model signals that we have not mapped the specific resource before and do not know whether it can be mapped.
         // Resolve and map it, if present.
@@ -84,7 +81,7 @@ public class ResourceToModelAdapter implements AdapterFactory {
 
             if (models == null || models.isEmpty()) {
                 // Cache the lookup failure
-                this.cache.put(resource, key, null);
+                this.cache.put(resource, target, null);
                 return null;
             }
 
@@ -95,7 +92,7 @@ public class ResourceToModelAdapter implements AdapterFactory {
 
             T model = (T) this.mapper.map(resource, models.iterator().next());
 
-            this.cache.put(resource, key, model);
+            this.cache.put(resource, target, model);
 
             return model;
         }
@@ -0,0 +1,158 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.caching;
+
+import javax.annotation.Nonnull;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * The model cache of a single request. Evicts the least recently used entries once either the
+ * number of entries or the estimated weight of all entries exceeds the configured bounds, if any. This prevents
+ * requests adapting very large numbers of resources, e.g. listings, from retaining all models until the
+ * request is completed.
+ * <br />
+ * Only the cache of the request reports its size and weight to the {@link RequestCacheStatistics}. {@link #emptyCopy() Copies}
+ * of the cache, e.g. for isolated mappings, only count their hits, misses and evictions, as their entries are eventually
+ * {@link #putAll(RequestCache) added} to the cache of the request.
+ * <br />
+ * Not thread-safe, as it is confined to the thread processing the request.
+ *
+ * @author Olaf Otto
+ */
+class RequestCache {
+    private final LinkedHashMap<Object, Optional<?>> entries = new LinkedHashMap<>(256, 0.75F, true);
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToIntFunction<Optional<?>> weigher;
+    private final Consumer<Optional<?>> evictionListener;
+    private final RequestCacheStatistics statistics;
+    private final boolean root;
+    private long weight;
+
+    /**
+     * @param maxEntries       the maximum number of entries, or a value &lt;= 0 for no limit.
+     * @param maxWeight        the maximum total estimated weight of all entries, or a value &lt;= 0 for no limit.
+     * @param weigher          estimates the weight of an entry. Must not be <code>null</code>.
+     * @param evictionListener notified of evicted entries. Must not be <code>null</code>.
+     * @param statistics       receives the hits, misses and evictions of this cache. Must not be <code>null</code>.
+     */
+    RequestCache(int maxEntries,
+                 long maxWeight,
+                 @Nonnull ToIntFunction<Optional<?>> weigher,
+                 @Nonnull Consumer<Optional<?>> evictionListener,
+                 @Nonnull RequestCacheStatistics statistics) {
+        this(maxEntries, maxWeight, weigher, evictionListener, statistics, true);
+    }
+
+    private RequestCache(int maxEntries,
+                         long maxWeight,
+                         ToIntFunction<Optional<?>> weigher,
+                         Consumer<Optional<?>> evictionListener,
+                         RequestCacheStatistics statistics,
+                         boolean root) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.evictionListener = evictionListener;
+        this.statistics = statistics;
+        this.root = root;
+    }
+
+    /**
+     * @return a new, empty cache with the same bounds, weigher, eviction listener and statistics as this cache.
+     * The copy does not report its size and weight to the statistics.
+     */
+    RequestCache emptyCopy() {
+        return new RequestCache(this.maxEntries, this.maxWeight, this.weigher, this.evictionListener, this.statistics, false);
+    }
+
+    /**
+     * @return a new, empty cache with the same bounds, weigher and eviction listener as this cache, counting
+     * its hits, misses and evictions with the given statistics.
+     */
+    RequestCache emptyCopy(@Nonnull RequestCacheStatistics statistics) {
+        return new RequestCache(this.maxEntries, this.maxWeight, this.weigher, this.evictionListener, statistics, false);
+    }
+
+    /**
+     * @return the cached value, or <code>null</code> if the key is not known to this cache.
+     */
+    Optional<?> get(@Nonnull Object key) {
+        Optional<?> value = this.entries.get(key);
+        if (value == null) {
+            this.statistics.countMiss();
+        } else {
+            this.statistics.countHit();
+        }
+        return value;
+    }
+
+    void put(@Nonnull Object key, @Nonnull Optional<?> value) {
+        Optional<?> previous = this.entries.put(key, value);
+        if (previous != null) {
+            this.weight -= this.weigher.applyAsInt(previous);
+        }
+        this.weight += this.weigher.applyAsInt(value);
+        evictIfExceedingBounds();
+        if (this.root) {
+            this.statistics.update(this.entries.size(), this.weight);
+        }
+    }
+
+    /**
+     * Adds all entries of the given cache to this cache, retaining their recency order.
+     */
+    void putAll(@Nonnull RequestCache other) {
+        for (Map.Entry<Object, Optional<?>> entry : other.entries.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    int size() {
+        return this.entries.size();
+    }
+
+    long getWeight() {
+        return this.weight;
+    }
+
+    RequestCacheStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    private void evictIfExceedingBounds() {
+        final Iterator<Optional<?>> leastRecentlyUsed = this.entries.values().iterator();
+        // Always retain the most recently added entry
+        while (this.entries.size() > 1 && exceedsBounds() && leastRecentlyUsed.hasNext()) {
+            Optional<?> evicted = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            this.weight -= this.weigher.applyAsInt(evicted);
+            this.statistics.countEviction();
+            this.evictionListener.accept(evicted);
+        }
+    }
+
+    private boolean exceedsBounds() {
+        return (this.maxEntries > 0 && this.entries.size() > this.maxEntries) ||
+                (this.maxWeight > 0 && this.weight > this.maxWeight);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.caching;
+
+/**
+ * The hits, misses and evictions of the {@link RequestScopedResourceModelCache} during a single request.
+ * Available as the {@link RequestScopedResourceModelCache#STATISTICS_ATTRIBUTE request attribute}
+ * while the request is processed.
+ *
+ * @author Olaf Otto
+ */
+public final class RequestCacheStatistics {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int size;
+    private long weight;
+
+    void countHit() {
+        ++this.hits;
+    }
+
+    void countMiss() {
+        ++this.misses;
+    }
+
+    void countEviction() {
+        ++this.evictions;
+    }
+
+    /**
+     * Adds the hits, misses and evictions counted by the given statistics, e.g. those of a cache used by a
+     * {@link RequestScopedResourceModelCache#fork() forked} task.
+     */
+    void addCounts(RequestCacheStatistics other) {
+        this.hits += other.hits;
+        this.misses += other.misses;
+        this.evictions += other.evictions;
+    }
+
+    void update(int size, long weight) {
+        this.size = size;
+        this.weight = weight;
+    }
+
+    /**
+     * @return the number of lookups that found a model or a known lookup failure.
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return the number of lookups that found nothing.
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * @return the number of entries evicted as the cache exceeded its bounds.
+     */
+    public long getEvictions() {
+        return this.evictions;
+    }
+
+    /**
+     * @return the current number of cache entries.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * @return the current estimated weight of all cache entries.
+     */
+    public long getWeight() {
+        return this.weight;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestCacheStatistics {" +
+                "hits=" + this.hits +
+                ", misses=" + this.misses +
+                ", evictions=" + this.evictions +
+                ", size=" + this.size +
+                ", weight=" + this.weight + '}';
+    }
+}
@@ -16,8 +16,11 @@
 
 package io.neba.core.resourcemodels.caching;
 
+import io.neba.core.resourcemodels.metadata.MappedFieldMetaData;
+import io.neba.core.resourcemodels.metadata.ResourceModelMetaData;
 import io.neba.core.resourcemodels.metadata.ResourceModelMetaDataRegistrar;
-import io.neba.core.util.Key;
+import io.neba.core.util.Key4;
+import io.neba.core.util.Key9;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.request.RequestPathInfo;
 import org.apache.sling.api.resource.Resource;
@@ -40,9 +43,10 @@ import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
 
 import static java.util.Optional.ofNullable;
 import static org.apache.commons.lang3.StringUtils.substringBefore;
@@ -53,6 +57,11 @@ import static org.osgi.framework.Constants.SERVICE_VENDOR;
  * A request-scoped resource model cache. Models added to this cache may either be cached for the entire
  * request regardless of state changes (selectors, suffixes, extension, query string...)
  * during the request processing, or in a request-state sensitive manner.
+ * <br />
+ * The cache of a request may be bounded by a {@link Configuration#maxEntries() maximum number of entries} and
+ * a {@link Configuration#maxWeight() maximum estimated weight}. Both are unbounded by default. When either is exceeded, the least recently used
+ * models are evicted. The hits, misses and evictions of the cache during a request are available via the
+ * {@link #STATISTICS_ATTRIBUTE} request attribute and are aggregated in the {@link io.neba.core.resourcemodels.metadata.ResourceModelStatistics}.
  *
  * @author Olaf Otto
  */
@@ -67,7 +76,12 @@ import static org.osgi.framework.Constants.SERVICE_VENDOR;
 )
 @Designate(ocd = RequestScopedResourceModelCache.Configuration.class)
 public class RequestScopedResourceModelCache implements Filter {
-    private final ThreadLocal<Map<Key, Optional<?>>> cacheHolder = new ThreadLocal<>();
+    /**
+     * The name of the request attribute providing the {@link RequestCacheStatistics} of the current request.
+     */
+    public static final String STATISTICS_ATTRIBUTE = RequestScopedResourceModelCache.class.getName() + ".statistics";
+
+    private final ThreadLocal<RequestCache> cacheHolder = new ThreadLocal<>();
     private final ThreadLocal<SlingHttpServletRequest> requestHolder = new ThreadLocal<>();
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
@@ -85,13 +99,13 @@ public class RequestScopedResourceModelCache implements Filter {
      * Retrieve a cached model.
      *
      * @param resource The resource {@link Resource#adaptTo(Class) adapted} to the target type. Never <code>null</code>.
-     * @param key      The key used to identify the stored model. Never <code>null</code>.
+     * @param key      The key used to identify the stored model, e.g. the target type of an adaptation. Never <code>null</code>.
      * @return Either an instance of Optional - which means the object was stored as non null or known null value, depending on whether the option {@link Optional#isPresent()},
      * or <code>null</code>, signaling that the key is not known to the cache.
      */
     @CheckForNull
     @SuppressWarnings("unchecked")
-    public <T> Optional<T> get(@Nonnull Resource resource, @Nonnull Key key) {
+    public <T> Optional<T> get(@Nonnull Resource resource, @Nonnull Object key) {
         if (key == null) {
             throw new IllegalArgumentException("Method argument key must not be null.");
         }
@@ -102,7 +116,7 @@ public class RequestScopedResourceModelCache implements Filter {
             return null;
         }
 
-        Map<Key, Optional<?>> cache = this.cacheHolder.get();
+        RequestCache cache = this.cacheHolder.get();
         if (cache == null) {
             this.logger.debug("No cache found, the cache will not be used.");
             return null;
@@ -125,9 +139,9 @@ public class RequestScopedResourceModelCache implements Filter {
     /**
      * @param resource The resource {@link Resource#adaptTo(Class) adapted} to the target type. Never <code>null</code>.
      * @param model    the model representing the mapped result of the adaptation. Can be <code>null</code>.
-     * @param key      the key by which the model is identified and {@link #get(Resource, Key)} retrieved}. Never <code>null</code>.
+     * @param key      the key by which the model is identified and {@link #get(Resource, Object)} retrieved}. Never <code>null</code>.
      */
-    public <T> void put(@Nonnull Resource resource, @Nonnull Key key, @CheckForNull T model) {
+    public <T> void put(@Nonnull Resource resource, @Nonnull Object key, @CheckForNull T model) {
         if (resource == null) {
             throw new IllegalArgumentException("Method argument resource must not be null.");
         }
@@ -140,13 +154,20 @@ public class RequestScopedResourceModelCache implements Filter {
             return;
         }
 
-        Map<Key, Optional<?>> cache = this.cacheHolder.get();
+        RequestCache cache = this.cacheHolder.get();
         if (cache == null) {
             this.logger.debug("No cache found, the cache will not be used.");
             return;
         }
 
         final Optional<?> storedValue = ofNullable(model);
+        if (model != null) {
+            // Models are put into the cache after they were not found in it.
+            ResourceModelMetaData metaData = this.metaDataRegistrar.get(model.getClass());
+            if (metaData != null) {
+                metaData.getStatistics().countCacheMiss();
+            }
+        }
 
         if (this.configuration.safeMode()) {
             cache.put(createSafeModeKey(resource, key), storedValue);
@@ -156,6 +177,117 @@ public class RequestScopedResourceModelCache implements Filter {
         cache.put(createKey(resource, key), storedValue);
     }
 
+    /**
+     * Invokes the given supplier with an empty cache, i.e. models cached so far in the current request are neither visible to
+     * nor altered by the cache operations occurring within the supplier. This is required whenever all models obtained by the supplier must
+     * actually be mapped, e.g. to record the resources they are mapped from. Afterwards, the previous cache state is restored and
+     * complemented with the models cached within the supplier.
+     *
+     * @param supplier must not be <code>null</code>.
+     * @return the result of the supplier.
+     */
+    public <T> T isolated(@Nonnull Supplier<T> supplier) {
+        if (supplier == null) {
+            throw new IllegalArgumentException("Method argument supplier must not be null.");
+        }
+
+        final RequestCache cache = this.cacheHolder.get();
+        if (cache == null) {
+            return supplier.get();
+        }
+
+        final RequestCache isolatedCache = cache.emptyCopy();
+        this.cacheHolder.set(isolatedCache);
+        try {
+            return supplier.get();
+        } finally {
+            cache.putAll(isolatedCache);
+            this.cacheHolder.set(cache);
+        }
+    }
+
+    /**
+     * Captures the request and cache of the current thread, such that models can be resolved in other threads
+     * on behalf of the current request, e.g. when {@link io.neba.api.annotations.Children#parallel() mapping children in parallel}.
+     *
+     * @return never <code>null</code>.
+     */
+    @Nonnull
+    public Fork fork() {
+        return new Fork(this.requestHolder.get(), this.cacheHolder.get());
+    }
+
+    /**
+     * The request and cache of a thread {@link #fork() forked} to other threads. Each task {@link #run(Supplier) run}
+     * with a fork uses its own, initially empty cache as the request cache is not thread-safe. Once all tasks are complete, the forking thread
+     * must {@link #join()} the fork to add the models cached by the tasks to the request cache.
+     *
+     * @author Olaf Otto
+     */
+    public final class Fork {
+        private final SlingHttpServletRequest request;
+        private final RequestCache cache;
+        private final Queue<RequestCache> taskCaches = new ConcurrentLinkedQueue<>();
+
+        private Fork(@CheckForNull SlingHttpServletRequest request, @CheckForNull RequestCache cache) {
+            this.request = request;
+            this.cache = cache;
+        }
+
+        /**
+         * Executes the task in the current thread on behalf of the forked request. Afterwards, the previous
+         * request and cache of the current thread are restored.
+         *
+         * @param task must not be <code>null</code>.
+         * @return the result of the task.
+         */
+        public <T> T run(@Nonnull Supplier<T> task) {
+            if (task == null) {
+                throw new IllegalArgumentException("Method argument task must not be null.");
+            }
+
+            if (this.cache == null) {
+                return task.get();
+            }
+
+            final SlingHttpServletRequest previousRequest = requestHolder.get();
+            final RequestCache previousCache = cacheHolder.get();
+            final RequestCache taskCache = this.cache.emptyCopy(new RequestCacheStatistics());
+            this.taskCaches.add(taskCache);
+
+            set(requestHolder, this.request);
+            cacheHolder.set(taskCache);
+            try {
+                return task.get();
+            } finally {
+                set(requestHolder, previousRequest);
+                set(cacheHolder, previousCache);
+            }
+        }
+
+        /**
+         * Adds the models cached by all tasks {@link #run(Supplier) run} so far to the cache of the forked thread.
+         * Must be invoked by the forked thread after the tasks are complete.
+         */
+        public void join() {
+            if (this.cache == null) {
+                return;
+            }
+            for (RequestCache taskCache = this.taskCaches.poll(); taskCache != null; taskCache = this.taskCaches.poll()) {
+                this.cache.putAll(taskCache);
+                this.cache.getStatistics().addCounts(taskCache.getStatistics());
+            }
+        }
+
+        private <T> void set(ThreadLocal<T> holder, @CheckForNull T value) {
+            if (value == null) {
+                holder.remove();
+            } else {
+                holder.set(value);
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -171,8 +303,15 @@ public class RequestScopedResourceModelCache implements Filter {
         }
 
         final SlingHttpServletRequest slingHttpServletRequest = (SlingHttpServletRequest) request;
+        final RequestCacheStatistics statistics = new RequestCacheStatistics();
         this.requestHolder.set(slingHttpServletRequest);
-        this.cacheHolder.set(new HashMap<>(256));
+        this.cacheHolder.set(new RequestCache(
+                this.configuration.maxEntries(),
+                this.configuration.maxWeight(),
+                this::weightOf,
+                this::countEviction,
+                statistics));
+        slingHttpServletRequest.setAttribute(STATISTICS_ATTRIBUTE, statistics);
 
         try {
             chain.doFilter(slingHttpServletRequest, response);
@@ -197,10 +336,10 @@ public class RequestScopedResourceModelCache implements Filter {
      * to restrict the cached object's scope to a specific component when safe mode is enabled.
      *
      * @return A request-state sensitive key if the cached if the current thread is a HTTP request, the original key if not.
-     * @see #createKey(Resource, Key)
+     * @see #createKey(Resource, Object)
      */
     @Nonnull
-    private Key createSafeModeKey(@Nonnull Resource resource, @Nonnull Key key) {
+    private Object createSafeModeKey(@Nonnull Resource resource, @Nonnull Object key) {
         // Create a request-state sensitive key to scope the cached model to a request with specific parameters.
         final SlingHttpServletRequest request = this.requestHolder.get();
 
@@ -209,7 +348,7 @@ public class RequestScopedResourceModelCache implements Filter {
         }
 
         final RequestPathInfo requestPathInfo = request.getRequestPathInfo();
-        return new Key(
+        return new Key9(
                 resource.getPath(),
                 key,
                 resource.getResourceType(),
@@ -229,8 +368,8 @@ public class RequestScopedResourceModelCache implements Filter {
      * may be used within the same request and they might feature different views on resource trees, e.g. through deviating privileges.
      */
     @Nonnull
-    private static Key createKey(@Nonnull Resource resource, @Nonnull Key key) {
-        return new Key(
+    private static Object createKey(@Nonnull Resource resource, @Nonnull Object key) {
+        return new Key4(
                 resource.getPath(),
                 key,
                 resource.getResourceType(),
@@ -238,6 +377,32 @@ public class RequestScopedResourceModelCache implements Filter {
         );
     }
 
+    /**
+     * Estimates the weight of a cached model as one plus the number of its mappable fields, as the fields
+     * dominate the memory retained by a model. Known lookup failures weigh one.
+     */
+    private int weightOf(@Nonnull Optional<?> cachedValue) {
+        if (!cachedValue.isPresent()) {
+            return 1;
+        }
+        ResourceModelMetaData metaData = this.metaDataRegistrar.get(cachedValue.get().getClass());
+        if (metaData == null) {
+            return 1;
+        }
+        MappedFieldMetaData[] mappableFields = metaData.getMappableFields();
+        return mappableFields == null ? 1 : 1 + mappableFields.length;
+    }
+
+    private void countEviction(@Nonnull Optional<?> evictedValue) {
+        if (!evictedValue.isPresent()) {
+            return;
+        }
+        ResourceModelMetaData metaData = this.metaDataRegistrar.get(evictedValue.get().getClass());
+        if (metaData != null) {
+            metaData.getStatistics().countCacheEviction();
+        }
+    }
+
     /**
      * A resource resolver is associated with specific repository permissions. To avoid leaking privileges by sharing resource-to-model mapping results
      * between different resource resolvers, the resource resolver identity is used as part of the cache key. Here, we either use the
@@ -269,5 +434,18 @@ public class RequestScopedResourceModelCache implements Filter {
                         "enabling this feature is likely to a significant negative performance impact. It is highly recommended to disable " +
                         "safemode in favor of safe-to-cache @ResourceModels.")
         boolean safeMode() default false;
+
+        @AttributeDefinition(
+                name = "Maximum entries",
+                description = "The maximum number of models cached during a single request. When exceeded, the least recently used " +
+                        "models are evicted from the cache. A value of 0 or less disables this limit (default).")
+        int maxEntries() default 0;
+
+        @AttributeDefinition(
+                name = "Maximum weight",
+                description = "The maximum estimated weight of all models cached during a single request. The weight of a model is " +
+                        "estimated as one plus the number of its mappable fields. When exceeded, the least recently used models are evicted " +
+                        "from the cache. A value of 0 or less disables this limit (default).")
+        long maxWeight() default 0;
     }
 }
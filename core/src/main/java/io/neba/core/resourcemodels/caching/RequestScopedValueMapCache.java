@@ -0,0 +1,157 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+
+package io.neba.core.resourcemodels.caching;
+
+import io.neba.core.util.Key3;
+import io.neba.core.util.PrimitiveAndEnumSupportingValueMap;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Optional.ofNullable;
+import static org.osgi.framework.Constants.SERVICE_RANKING;
+import static org.osgi.framework.Constants.SERVICE_VENDOR;
+
+/**
+ * Provides the properties of resources as {@link PrimitiveAndEnumSupportingValueMap value maps}. During a request,
+ * the value map of a resource is {@link Resource#adaptTo(Class) adapted} and wrapped once and shared by all
+ * models mapped from that resource, e.g. when several models are adapted from the same resource or a resource's properties
+ * are referenced by other models.
+ * <br />
+ * The value maps are only shared within the thread processing the request, as value maps are not thread-safe. Threads mapping on behalf of the
+ * request, e.g. when {@link io.neba.api.annotations.Children#parallel() mapping children in parallel}, adapt the value maps themselves.
+ *
+ * @author Olaf Otto
+ */
+@Component(
+        service = {Filter.class, RequestScopedValueMapCache.class},
+        property = {
+                SERVICE_VENDOR + "=neba.io",
+                "sling.filter.scope=REQUEST",
+                "sling.filter.scope=ERROR",
+                SERVICE_RANKING + ":Integer=9000"
+        }
+)
+@Designate(ocd = RequestScopedValueMapCache.Configuration.class)
+public class RequestScopedValueMapCache implements Filter {
+    private final ThreadLocal<Map<Key3, Optional<ValueMap>>> cacheHolder = new ThreadLocal<>();
+
+    private Configuration configuration;
+
+    @Activate
+    protected void activate(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * @param resource must not be <code>null</code>.
+     * @return the properties of the resource, or <code>null</code> if the resource has no properties,
+     * e.g. if it is synthetic.
+     */
+    @CheckForNull
+    public ValueMap get(@Nonnull Resource resource) {
+        if (resource == null) {
+            throw new IllegalArgumentException("Method argument resource must not be null.");
+        }
+
+        final Map<Key3, Optional<ValueMap>> cache = this.cacheHolder.get();
+        if (cache == null) {
+            return toValueMap(resource);
+        }
+
+        // Resources with the same path may differ in type (e.g. synthetic resources) and resolver (e.g. privileges).
+        final Key3 key = new Key3(resource.getPath(), resource.getResourceType(), resource.getResourceResolver());
+        Optional<ValueMap> valueMap = cache.get(key);
+        if (valueMap != null) {
+            return valueMap.orElse(null);
+        }
+
+        valueMap = ofNullable(toValueMap(resource));
+        if (this.configuration.maxEntries() <= 0 || cache.size() < this.configuration.maxEntries()) {
+            cache.put(key, valueMap);
+        }
+        return valueMap.orElse(null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void doFilter(@Nonnull ServletRequest request, @Nonnull ServletResponse response, @Nonnull FilterChain chain) throws IOException, ServletException {
+        if (!this.configuration.enabled() || this.cacheHolder.get() != null) {
+            // The cache of the request is retained, e.g. when an error is handled during a request.
+            chain.doFilter(request, response);
+            return;
+        }
+
+        this.cacheHolder.set(new HashMap<>());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            this.cacheHolder.remove();
+        }
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        // ignore
+    }
+
+    @Override
+    public void destroy() {
+        // ignore
+    }
+
+    @CheckForNull
+    private static ValueMap toValueMap(@Nonnull Resource resource) {
+        ValueMap properties = resource.adaptTo(ValueMap.class);
+        return properties == null ? null : new PrimitiveAndEnumSupportingValueMap(properties);
+    }
+
+    @ObjectClassDefinition(name = "NEBA request-scoped value map cache", description = "Shares the properties of resources amongst all models mapped during a request.")
+    public @interface Configuration {
+        @AttributeDefinition(
+                name = "Enabled",
+                description = "Activates the request-scoped cache for the properties of resources. " +
+                        "Disable if resources are modified and subsequently mapped during the same request.")
+        boolean enabled() default true;
+
+        @AttributeDefinition(
+                name = "Maximum entries",
+                description = "The maximum number of resource properties cached during a single request. When exceeded, the properties of " +
+                        "further resources are no longer cached. A value of 0 or less disables this limit.")
+        int maxEntries() default 10000;
+    }
+}
@@ -0,0 +1,465 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.caching;
+
+import io.neba.core.resourcemodels.metadata.ResourceModelMetaDataRegistrar;
+import io.neba.core.util.Key4;
+import org.apache.sling.api.resource.Resource;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventHandler;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Dictionary;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.neba.core.util.StringUtil.internTypeName;
+import static java.util.Comparator.comparingLong;
+import static org.apache.commons.lang3.StringUtils.substringBeforeLast;
+import static org.apache.sling.api.SlingConstants.PROPERTY_PATH;
+import static org.apache.sling.api.SlingConstants.TOPIC_RESOURCE_ADDED;
+import static org.apache.sling.api.SlingConstants.TOPIC_RESOURCE_CHANGED;
+import static org.apache.sling.api.SlingConstants.TOPIC_RESOURCE_REMOVED;
+import static org.osgi.framework.Constants.SERVICE_DESCRIPTION;
+import static org.osgi.framework.Constants.SERVICE_VENDOR;
+import static org.osgi.service.event.EventConstants.EVENT_TOPIC;
+
+/**
+ * An application-scoped cache for {@link io.neba.api.annotations.Shareable shareable} resource models. Unlike the
+ * {@link RequestScopedResourceModelCache}, models in this cache outlive the request they were mapped in. Thus,
+ * cached models are identified by the resource path, model type, resource type and the user ID of the resource resolver
+ * (the latter to avoid sharing models between users with different privileges) and
+ * are evicted as soon as one of the resources read while mapping the model (its <em>dependencies</em>) is added, changed or removed.
+ * <br />
+ * The cache is bounded by both the number of entries and their total weight, the weight of an entry being the number of its dependencies.
+ * If either bound is exceeded, the least recently used entries are evicted. To avoid contention, lookups do not lock. Instead, each lookup
+ * stamps the cached model with the current value of a clock advanced by each put, i.e. the least recently used entries are determined approximately.
+ * Modifications of the cache and the evictions are serialized.
+ * <br />
+ * The cache only listens to resource changes while it is enabled. A resource change may be processed while a model depending on the
+ * resource is being mapped, i.e. before the model is put into the cache. Thus, mappings obtain the {@link #getInvalidationSequence() invalidation sequence}
+ * before they start and the model is not cached if resources have changed since.
+ *
+ * @author Olaf Otto
+ */
+@Component(service = SharedResourceModelCache.class)
+@Designate(ocd = SharedResourceModelCache.Configuration.class)
+public class SharedResourceModelCache implements EventHandler {
+    // When evicting, 1/EVICTION_RATIO of the bounds is freed.
+    private static final int EVICTION_RATIO = 16;
+
+    private final Map<Key4, CachedModel<?>> cache = new ConcurrentHashMap<>(256);
+    // Reverse index of dependency paths to the keys of the cached models depending on them. Sorted to evict entire subtrees.
+    // Only accessed while holding the lock.
+    private final NavigableMap<String, Set<Key4>> dependents = new TreeMap<>();
+    private final Object lock = new Object();
+    // Incremented upon each put. Models stamped with the current value were used more recently than all models put before.
+    private final AtomicLong clock = new AtomicLong();
+    // Incremented upon each resource change.
+    private final AtomicLong invalidations = new AtomicLong();
+    private long weight = 0;
+
+    @Reference
+    private ResourceModelMetaDataRegistrar metaDataRegistrar;
+
+    private Configuration configuration;
+    private BundleContext context;
+    private ServiceRegistration<EventHandler> eventHandlerRegistration;
+
+    @Activate
+    @Modified
+    protected void activate(Configuration configuration, BundleContext context) {
+        this.configuration = configuration;
+        this.context = context;
+        clear();
+        if (configuration.enabled()) {
+            registerEventHandler();
+        } else {
+            unregisterEventHandler();
+        }
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        unregisterEventHandler();
+        clear();
+    }
+
+    /**
+     * @return whether the cache is enabled. Only if this is the case, mappings must record their dependencies.
+     */
+    public boolean isEnabled() {
+        return this.configuration.enabled();
+    }
+
+    /**
+     * @return the current invalidation sequence. Must be obtained before a model is mapped and provided
+     * when {@link #put(Resource, Class, Object, Collection, long) putting} the model into the cache.
+     */
+    public long getInvalidationSequence() {
+        return this.invalidations.get();
+    }
+
+    /**
+     * @param resource  must not be <code>null</code>.
+     * @param modelType must not be <code>null</code>.
+     * @return the cached model or <code>null</code> if no model of the given type is cached for the resource.
+     */
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public <T> CachedModel<T> get(@Nonnull Resource resource, @Nonnull Class<?> modelType) {
+        if (resource == null) {
+            throw new IllegalArgumentException("Method argument resource must not be null.");
+        }
+        if (modelType == null) {
+            throw new IllegalArgumentException("Method argument modelType must not be null.");
+        }
+        if (!isEnabled()) {
+            return null;
+        }
+
+        final Key4 key = createKey(resource, modelType);
+        if (key == null) {
+            return null;
+        }
+
+        final CachedModel<T> cachedModel = (CachedModel<T>) this.cache.get(key);
+
+        if (cachedModel != null) {
+            cachedModel.accessed(this.clock.get());
+            this.metaDataRegistrar.get(cachedModel.getModel().getClass()).getStatistics().countCacheHit();
+        }
+
+        return cachedModel;
+    }
+
+    /**
+     * @param resource     must not be <code>null</code>.
+     * @param modelType    must not be <code>null</code>.
+     * @param model        must not be <code>null</code>.
+     * @param dependencies the paths of all resources read to map the model. Must not be <code>null</code>.
+     * @param invalidationSequence the {@link #getInvalidationSequence() invalidation sequence} obtained before the model was mapped.
+     *                             The model is not cached if resources have changed since.
+     */
+    public void put(@Nonnull Resource resource, @Nonnull Class<?> modelType, @Nonnull Object model, @Nonnull Collection<String> dependencies,
+                    long invalidationSequence) {
+        if (resource == null) {
+            throw new IllegalArgumentException("Method argument resource must not be null.");
+        }
+        if (modelType == null) {
+            throw new IllegalArgumentException("Method argument modelType must not be null.");
+        }
+        if (model == null) {
+            throw new IllegalArgumentException("Method argument model must not be null.");
+        }
+        if (dependencies == null) {
+            throw new IllegalArgumentException("Method argument dependencies must not be null.");
+        }
+        if (!isEnabled()) {
+            return;
+        }
+
+        final Key4 key = createKey(resource, modelType);
+        if (key == null || dependencies.size() > this.configuration.maxWeight()) {
+            return;
+        }
+
+        final CachedModel<?> cachedModel = new CachedModel<>(model, dependencies);
+
+        synchronized (this.lock) {
+            if (this.invalidations.get() != invalidationSequence) {
+                // A resource changed while the model was mapped. It may have been read before the change, but the eviction
+                // of its dependents already happened.
+                return;
+            }
+            cachedModel.accessed(this.clock.getAndIncrement());
+            remove(key);
+            this.cache.put(key, cachedModel);
+            this.weight += cachedModel.getWeight();
+            for (String path : cachedModel.getDependencies()) {
+                this.dependents.computeIfAbsent(path, p -> new HashSet<>()).add(key);
+            }
+            evictLeastRecentlyUsedEntries();
+        }
+    }
+
+    /**
+     * Evicts all cached models depending on the changed resource. Added and removed resources also
+     * affect their parent's children and the entire subtree below them.
+     */
+    @Override
+    public void handleEvent(Event event) {
+        final Object path = event.getProperty(PROPERTY_PATH);
+        if (!(path instanceof String)) {
+            return;
+        }
+
+        // Models being mapped right now may depend on the resource, reject them even if the cache is still empty.
+        this.invalidations.incrementAndGet();
+
+        if (this.cache.isEmpty()) {
+            return;
+        }
+
+        final String changedPath = (String) path;
+        final boolean structuralChange = !TOPIC_RESOURCE_CHANGED.equals(event.getTopic());
+
+        synchronized (this.lock) {
+            evictDependentsOf(changedPath);
+
+            if (structuralChange) {
+                evictDependentsOf(substringBeforeLast(changedPath, "/"));
+                // All paths starting with <changedPath>/, i.e. ranging up to the next character after '/', which is '0'.
+                for (String descendant : this.dependents.subMap(changedPath + '/', true, changedPath + '0', false).keySet().toArray(new String[0])) {
+                    evictDependentsOf(descendant);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all cached models, e.g. when resource models are unregistered.
+     */
+    public void clear() {
+        synchronized (this.lock) {
+            this.cache.clear();
+            this.dependents.clear();
+            this.weight = 0;
+        }
+    }
+
+    /**
+     * @return the number of cached models.
+     */
+    public int size() {
+        return this.cache.size();
+    }
+
+    /**
+     * @return the total weight of all cached models.
+     */
+    public long getWeight() {
+        synchronized (this.lock) {
+            return this.weight;
+        }
+    }
+
+    private void registerEventHandler() {
+        if (this.eventHandlerRegistration != null) {
+            return;
+        }
+        Dictionary<String, Object> properties = new Hashtable<>();
+        properties.put(EVENT_TOPIC, new String[]{TOPIC_RESOURCE_ADDED, TOPIC_RESOURCE_CHANGED, TOPIC_RESOURCE_REMOVED});
+        properties.put(SERVICE_DESCRIPTION, "Evicts shared resource models when the resources they were mapped from change.");
+        properties.put(SERVICE_VENDOR, "neba.io");
+        this.eventHandlerRegistration = this.context.registerService(EventHandler.class, this, properties);
+    }
+
+    private void unregisterEventHandler() {
+        if (this.eventHandlerRegistration == null) {
+            return;
+        }
+        try {
+            this.eventHandlerRegistration.unregister();
+        } catch (IllegalStateException e) {
+            // The registration was already removed, e.g. as the bundle is stopping.
+        }
+        this.eventHandlerRegistration = null;
+    }
+
+    private void evictDependentsOf(String path) {
+        final Set<Key4> keys = this.dependents.get(path);
+        if (keys == null) {
+            return;
+        }
+        for (Key4 key : keys.toArray(new Key4[0])) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries until both the number of entries and the weight are
+     * {@link #EVICTION_RATIO slightly} below their bounds, such that the entries do not have to be sorted upon each put.
+     */
+    private void evictLeastRecentlyUsedEntries() {
+        final int maxEntries = this.configuration.maxEntries();
+        final long maxWeight = this.configuration.maxWeight();
+        if (this.cache.size() <= maxEntries && this.weight <= maxWeight) {
+            return;
+        }
+
+        final int targetEntries = maxEntries - maxEntries / EVICTION_RATIO;
+        final long targetWeight = maxWeight - maxWeight / EVICTION_RATIO;
+
+        // Lookups keep using the models during eviction. Thus, the time of use is captured prior to sorting.
+        final List<EvictionCandidate> candidates = new ArrayList<>(this.cache.size());
+        for (Map.Entry<Key4, CachedModel<?>> entry : this.cache.entrySet()) {
+            candidates.add(new EvictionCandidate(entry.getKey(), entry.getValue()));
+        }
+        candidates.sort(comparingLong(candidate -> candidate.accessed));
+
+        for (int i = 0; i < candidates.size() && (this.cache.size() > targetEntries || this.weight > targetWeight); ++i) {
+            EvictionCandidate candidate = candidates.get(i);
+            if (this.cache.remove(candidate.key, candidate.model)) {
+                removeFromIndex(candidate.key, candidate.model);
+            }
+        }
+    }
+
+    private void remove(Key4 key) {
+        removeFromIndex(key, this.cache.remove(key));
+    }
+
+    private void removeFromIndex(Key4 key, CachedModel<?> cachedModel) {
+        if (cachedModel == null) {
+            return;
+        }
+        this.weight -= cachedModel.getWeight();
+        for (String path : cachedModel.getDependencies()) {
+            Set<Key4> keys = this.dependents.get(path);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                this.dependents.remove(path);
+            }
+        }
+    }
+
+    /**
+     * Like the {@link RequestScopedResourceModelCache}, models are identified by resource path, resource type and resource resolver identity.
+     * However, a shared model must never be identified by a resource resolver instance, as it would both leak the resolver and never be
+     * used by other requests. Thus, models of resource resolvers without a user ID are not shared.
+     *
+     * @return the key, or <code>null</code> if the model must not be shared.
+     */
+    @CheckForNull
+    private static Key4 createKey(@Nonnull Resource resource, @Nonnull Class<?> modelType) {
+        final String userId = resource.getResourceResolver().getUserID();
+        if (userId == null) {
+            return null;
+        }
+        return new Key4(
+                resource.getPath(),
+                modelType,
+                // The key may be retained for a long time, thus use the canonical type name instance
+                internTypeName(resource.getResourceType()),
+                userId
+        );
+    }
+
+    /**
+     * A cached model and the time of its most recent use when eviction started.
+     *
+     * @author Olaf Otto
+     */
+    private static final class EvictionCandidate {
+        private final Key4 key;
+        private final CachedModel<?> model;
+        private final long accessed;
+
+        private EvictionCandidate(Key4 key, CachedModel<?> model) {
+            this.key = key;
+            this.model = model;
+            this.accessed = model.accessed;
+        }
+    }
+
+    /**
+     * A cached model and the paths of the resources it was mapped from.
+     *
+     * @param <T> the model type.
+     * @author Olaf Otto
+     */
+    public static final class CachedModel<T> {
+        private final T model;
+        private final String[] dependencies;
+        // The clock value of the most recent use of the model, see SharedResourceModelCache#clock.
+        private volatile long accessed;
+
+        /**
+         * @param model        must not be <code>null</code>.
+         * @param dependencies must not be <code>null</code>.
+         */
+        public CachedModel(@Nonnull T model, @Nonnull Collection<String> dependencies) {
+            this.model = model;
+            this.dependencies = dependencies.toArray(new String[0]);
+        }
+
+        @Nonnull
+        public T getModel() {
+            return this.model;
+        }
+
+        /**
+         * @return the paths of the resources the model was mapped from. Never <code>null</code>.
+         */
+        @Nonnull
+        public String[] getDependencies() {
+            return this.dependencies;
+        }
+
+        int getWeight() {
+            return this.dependencies.length;
+        }
+
+        private void accessed(long clock) {
+            // Avoid writing the shared field if the model was already used at this time.
+            if (this.accessed < clock) {
+                this.accessed = clock;
+            }
+        }
+    }
+
+    @ObjectClassDefinition(name = "NEBA shared resource model cache", description = "Provides a cache for @Shareable resource models " +
+            "that is shared across requests.")
+    public @interface Configuration {
+        @AttributeDefinition(
+                name = "Enabled",
+                description = "Activates the shared cache for @Shareable resource models. " +
+                        "When enabled, the resources read during each mapping are recorded to evict cached models when these resources change.")
+        boolean enabled() default false;
+
+        @AttributeDefinition(
+                name = "Maximum entries",
+                description = "The maximum number of cached models. If exceeded, the least recently used models are evicted.")
+        int maxEntries() default 10000;
+
+        @AttributeDefinition(
+                name = "Maximum weight",
+                description = "The maximum total number of resource paths the cached models depend on. " +
+                        "If exceeded, the least recently used models are evicted.")
+        int maxWeight() default 100000;
+    }
+}
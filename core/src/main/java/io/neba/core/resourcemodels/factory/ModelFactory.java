@@ -16,11 +16,16 @@
 package io.neba.core.resourcemodels.factory;
 
 import io.neba.api.annotations.ResourceModel;
+import io.neba.api.resourcemodels.ResourceModelIndexProcessor;
 import io.neba.api.spi.ResourceModelFactory;
 import org.apache.commons.lang3.StringUtils;
 import org.osgi.framework.Bundle;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -29,8 +34,19 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Stream;
 
+import static io.neba.api.resourcemodels.ResourceModelIndexProcessor.INDEX;
+import static io.neba.api.resourcemodels.ResourceModelIndexProcessor.INDEX_HEADER;
+import static io.neba.core.util.BundleUtil.displayNameOf;
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.Thread.currentThread;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.stream;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableList;
@@ -44,33 +60,66 @@ import static java.util.stream.Collectors.toList;
  * {@link io.neba.api.spi.ResourceModelFactory.ModelDefinition model definitions} and
  * {@link #provideModel(ModelDefinition, io.neba.api.spi.ResourceModelFactory.ContentToModelMappingCallback) means to instantiate}
  * the models, including injection of <em>OSGi service dependencies</em> via {@link javax.inject.Inject} and {@link io.neba.api.annotations.Filter}.
+ * <br />
+ * If the bundle declares the {@link ResourceModelIndexProcessor#INDEX_HEADER index header}, only the classes listed in the
+ * {@link ResourceModelIndexProcessor#INDEX resource model indices} of the bundle and its fragments are loaded. Packages without
+ * any indexed class, and the packages of bundles without the header, are scanned. Scanned classes are loaded in parallel
+ * using the provided executor.
  */
 class ModelFactory implements ResourceModelFactory {
+    private static final String INDEX_DIRECTORY = INDEX.substring(0, INDEX.lastIndexOf('/'));
+    private static final String INDEX_FILE = INDEX.substring(INDEX.lastIndexOf('/') + 1);
+
     private final Bundle bundle;
     private List<ModelDefinition<?>> modelDefinitions;
     private Map<ModelDefinition<?>, ModelInstantiator<?>> modelMetadata;
 
-    ModelFactory(Bundle bundle) {
+    /**
+     * @param bundle       must not be <code>null</code>.
+     * @param scanExecutor loads the classes of scanned packages in parallel. Can be <code>null</code>, in which case
+     *                     the classes are loaded in the current thread.
+     */
+    ModelFactory(Bundle bundle, @CheckForNull ExecutorService scanExecutor) {
         this.bundle = bundle;
 
         String packages = this.bundle.getHeaders().get("Neba-Packages");
 
-        this.modelDefinitions = packages == null ? emptyList() :
-                unmodifiableList(stream(packages.split(","))
+        List<String> packageNames = packages == null ? emptyList() :
+                stream(packages.split(","))
                         .map(String::trim)
                         .filter(StringUtils::isNotBlank)
-                        .map(this::packageNameToDirectory)
-                        .map(this::findClassesInDirectory)
-                        .filter(Optional::isPresent)
-                        .map(Optional::get)
-                        .flatMap(this::streamUrls)
-                        .map(this::urlToClassName)
-                        .map(this::loadClass)
-                        .filter(o -> o.map(c -> c.isAnnotationPresent(ResourceModel.class)).orElse(false))
-                        .map(Optional::get)
-                        .map(ClassBasedModelDefinition::new)
-                        .distinct()
-                        .collect(toList()));
+                        .collect(toList());
+
+        List<String> indexedClassNames = indexedClassNames();
+        List<String> packagesToScan = new ArrayList<>(packageNames.size());
+        List<Class<?>> classes = new ArrayList<>();
+
+        for (String packageName : packageNames) {
+            List<String> classNames = indexedClassNames.stream()
+                    .filter(className -> className.startsWith(packageName + '.'))
+                    .collect(toList());
+
+            if (classNames.isEmpty()) {
+                packagesToScan.add(packageName);
+                continue;
+            }
+
+            // The indexed classes are (almost) exclusively resource models, thus they are loaded in the current thread.
+            classNames.stream()
+                    .map(this::loadClass)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .forEach(classes::add);
+        }
+
+        classes.addAll(loadClasses(scannedClassNames(packagesToScan), scanExecutor));
+
+        this.modelDefinitions = unmodifiableList(classes
+                .stream()
+                .filter(c -> c.isAnnotationPresent(ResourceModel.class))
+                .map(ClassBasedModelDefinition::new)
+                .distinct()
+                .collect(toList()));
 
         Map<ModelDefinition<?>, ModelInstantiator<?>> metaData = new HashMap<>();
         for (ModelDefinition<?> definition : this.modelDefinitions) {
@@ -86,6 +135,97 @@ class ModelFactory implements ResourceModelFactory {
         return this.modelDefinitions;
     }
 
+    /**
+     * @return the names of the classes listed in the {@link ResourceModelIndexProcessor#INDEX resource model indices}
+     * of the bundle and its fragments, or an empty list if the bundle does not declare the
+     * {@link ResourceModelIndexProcessor#INDEX_HEADER index header}. Never <code>null</code>.
+     */
+    private List<String> indexedClassNames() {
+        if (!parseBoolean(this.bundle.getHeaders().get(INDEX_HEADER))) {
+            return emptyList();
+        }
+
+        // In contrast to Bundle#getEntry, this includes the entries of attached fragments.
+        Enumeration<URL> indices = this.bundle.findEntries(INDEX_DIRECTORY, INDEX_FILE, false);
+        if (indices == null) {
+            return emptyList();
+        }
+
+        List<String> classNames = new ArrayList<>();
+        while (indices.hasMoreElements()) {
+            URL index = indices.nextElement();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), UTF_8))) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    String className = line.trim();
+                    if (!className.isEmpty()) {
+                        classNames.add(className);
+                    }
+                }
+            } catch (IOException e) {
+                // The index is unreadable. The packages without indexed classes are scanned.
+            }
+        }
+        return classNames;
+    }
+
+    /**
+     * @return the names of all classes within the given packages or their sub packages.
+     */
+    private List<String> scannedClassNames(List<String> packageNames) {
+        return packageNames.stream()
+                .map(this::packageNameToDirectory)
+                .map(this::findClassesInDirectory)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .flatMap(this::streamUrls)
+                .map(this::urlToClassName)
+                .collect(toList());
+    }
+
+    /**
+     * Loading the classes is the most expensive part of scanning, as the bundle's class loader must define them.
+     * Thus, the classes are split into one batch per available processor.
+     */
+    private List<Class<?>> loadClasses(List<String> classNames, @CheckForNull ExecutorService scanExecutor) {
+        if (scanExecutor == null || scanExecutor.isShutdown() || classNames.size() < 2) {
+            return loadClasses(classNames);
+        }
+
+        int batchSize = Math.max(1, classNames.size() / Runtime.getRuntime().availableProcessors());
+        List<Callable<List<Class<?>>>> batches = new ArrayList<>();
+        for (int from = 0; from < classNames.size(); from += batchSize) {
+            List<String> batch = classNames.subList(from, Math.min(from + batchSize, classNames.size()));
+            batches.add(() -> loadClasses(batch));
+        }
+
+        List<Class<?>> classes = new ArrayList<>(classNames.size());
+        try {
+            for (Future<List<Class<?>>> batch : scanExecutor.invokeAll(batches)) {
+                classes.addAll(batch.get());
+            }
+        } catch (InterruptedException e) {
+            currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading the classes of " + displayNameOf(this.bundle) + ".", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException("Unable to load the classes of " + displayNameOf(this.bundle) + ".", e.getCause());
+        } catch (RejectedExecutionException e) {
+            // The executor was shut down concurrently
+            return loadClasses(classNames);
+        }
+        return classes;
+    }
+
+    private List<Class<?>> loadClasses(List<String> classNames) {
+        return classNames.stream()
+                .map(this::loadClass)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(toList());
+    }
+
     private Optional<Enumeration<URL>> findClassesInDirectory(String directory) {
         return ofNullable(bundle.findEntries(directory, "*.class", true));
     }
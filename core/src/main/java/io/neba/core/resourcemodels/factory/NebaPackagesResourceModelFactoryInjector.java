@@ -30,8 +30,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Hashtable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.neba.core.util.BundleUtil.displayNameOf;
+import static java.lang.Runtime.getRuntime;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.osgi.framework.Bundle.ACTIVE;
 import static org.osgi.framework.Constants.SERVICE_DESCRIPTION;
 import static org.osgi.framework.Constants.SERVICE_VENDOR;
@@ -45,13 +50,25 @@ public class NebaPackagesResourceModelFactoryInjector {
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private BundleTracker<ServiceRegistration<?>> tracker;
+    // Scanning for resource models loads bundle classes. This is done in a dedicated pool as the common pool
+    // is shared with the application.
+    private ThreadPoolExecutor scanExecutor;
 
     @Activate
     protected void activate(ComponentContext context) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        int parallelism = getRuntime().availableProcessors();
+        this.scanExecutor = new ThreadPoolExecutor(parallelism, parallelism, 30, SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "neba-model-scan-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Bundles are mostly started at once, the threads are not retained afterwards.
+        this.scanExecutor.allowCoreThreadTimeOut(true);
         this.tracker = new BundleTracker<>(context.getBundleContext(), ACTIVE, new BundleTrackerCustomizer<ServiceRegistration<?>>() {
             @Override
             public ServiceRegistration<?> addingBundle(Bundle bundle, BundleEvent event) {
-                ModelFactory factory = new ModelFactory(bundle);
+                ModelFactory factory = new ModelFactory(bundle, scanExecutor);
                 if (factory.getModelDefinitions().isEmpty()) {
                     return null;
                 }
@@ -88,5 +105,6 @@ public class NebaPackagesResourceModelFactoryInjector {
     @Deactivate
     protected void deactivate() {
         this.tracker.close();
+        this.scanExecutor.shutdown();
     }
 }
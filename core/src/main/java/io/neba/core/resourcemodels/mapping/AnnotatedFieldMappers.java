@@ -65,6 +65,7 @@ public class AnnotatedFieldMappers {
 
     private final ConcurrentDistinctMultiValueMap<Field, AnnotationMapping<?, ?>> cache = new ConcurrentDistinctMultiValueMap<>();
     private final ConcurrentDistinctMultiValueMap<Class<? extends Annotation>, AnnotatedFieldMapper<?, ?>> fieldMappers = new ConcurrentDistinctMultiValueMap<>();
+    private volatile int generation = 0;
 
     @Reference(cardinality = MULTIPLE, policy = DYNAMIC, unbind = "unbind")
     protected synchronized void bind(AnnotatedFieldMapper<?, ?> mapper) {
@@ -73,6 +74,7 @@ public class AnnotatedFieldMappers {
         }
         this.fieldMappers.put(mapper.getAnnotationType(), mapper);
         this.cache.clear();
+        ++this.generation;
     }
 
     /**
@@ -84,6 +86,7 @@ public class AnnotatedFieldMappers {
         }
         this.fieldMappers.removeValue(mapper);
         this.cache.clear();
+        ++this.generation;
     }
 
     /**
@@ -104,6 +107,15 @@ public class AnnotatedFieldMappers {
         return this.cache.computeIfAbsent(metaData.getField(), key -> resolveCompatibleMappers(metaData));
     }
 
+    /**
+     * @return a number that changes whenever a {@link AnnotatedFieldMapper mapper} is {@link #bind(AnnotatedFieldMapper) bound}
+     * or {@link #unbind(AnnotatedFieldMapper) unbound}. Mappings obtained via {@link #get(MappedFieldMetaData)} must not be
+     * retained beyond the generation they where obtained in.
+     */
+    public int getGeneration() {
+        return this.generation;
+    }
+
     @SuppressWarnings({"rawtypes", "unchecked"})
     private Collection<AnnotationMapping<?, ?>> resolveCompatibleMappers(MappedFieldMetaData metaData) {
         List<AnnotationMapping<?, ?>> compatibleMappers = new ArrayList<>();
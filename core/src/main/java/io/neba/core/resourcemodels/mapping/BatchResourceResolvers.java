@@ -0,0 +1,133 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.mapping;
+
+import io.neba.api.spi.BatchResourceResolver;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.util.Arrays.asList;
+import static org.apache.sling.api.resource.ResourceUtil.normalize;
+import static org.osgi.service.component.annotations.ReferenceCardinality.MULTIPLE;
+import static org.osgi.service.component.annotations.ReferencePolicy.DYNAMIC;
+
+/**
+ * Resolves the paths of a {@link io.neba.api.annotations.Reference} collection in a single batch. Duplicate paths
+ * are only resolved once and the paths are resolved in sorted order for repository locality. The batch
+ * is resolved by the first {@link BatchResourceResolver} providing a result, or by resolving each path individually.
+ *
+ * @author Olaf Otto
+ */
+@Component(service = BatchResourceResolvers.class)
+public class BatchResourceResolvers {
+    // Resolvers may be bound or unbound while resources are resolved, possibly in parallel.
+    private final Collection<BatchResourceResolver> resolvers = new CopyOnWriteArrayList<>();
+
+    @Reference(
+            cardinality = MULTIPLE,
+            policy = DYNAMIC,
+            unbind = "unbind")
+    protected void bind(BatchResourceResolver resolver) {
+        this.resolvers.add(resolver);
+    }
+
+    @SuppressWarnings("unused")
+    protected void unbind(BatchResourceResolver resolver) {
+        if (resolver == null) {
+            return;
+        }
+        this.resolvers.remove(resolver);
+    }
+
+    /**
+     * @param base  the resource the paths are relative to. Must not be <code>null</code>.
+     * @param paths absolute or relative paths, may contain duplicates. Must not be <code>null</code>.
+     * @return the resolved resources in the order of the paths, with <code>null</code> elements for paths that
+     * could not be resolved. Equivalent paths are resolved to the same resource instance. Never <code>null</code>.
+     */
+    @Nonnull
+    Resource[] resolve(@Nonnull Resource base, @Nonnull String[] paths) {
+        if (base == null) {
+            throw new IllegalArgumentException("Method argument base must not be null");
+        }
+        if (paths == null) {
+            throw new IllegalArgumentException("Method argument paths must not be null");
+        }
+
+        final Resource[] resources = new Resource[paths.length];
+        if (paths.length == 0) {
+            return resources;
+        }
+
+        final String[] keys = new String[paths.length];
+        for (int i = 0; i < paths.length; ++i) {
+            keys[i] = keyOf(base, paths[i]);
+        }
+
+        final List<String> uniqueSortedPaths = new ArrayList<>(new TreeSet<>(asList(keys)));
+        final Map<String, Resource> resolved = resolve(base, uniqueSortedPaths);
+
+        for (int i = 0; i < keys.length; ++i) {
+            resources[i] = resolved.get(keys[i]);
+        }
+        return resources;
+    }
+
+    private Map<String, Resource> resolve(Resource base, List<String> paths) {
+        for (BatchResourceResolver resolver : this.resolvers) {
+            Map<String, Resource> resolved = resolver.resolve(base, paths);
+            if (resolved != null) {
+                return resolved;
+            }
+        }
+
+        final ResourceResolver resourceResolver = base.getResourceResolver();
+        final Map<String, Resource> resolved = new HashMap<>(paths.size() * 4 / 3 + 1);
+        for (String path : paths) {
+            Resource resource = resourceResolver.getResource(base, path);
+            if (resource != null) {
+                resolved.put(path, resource);
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * @return the normalized absolute path, or the original path if it cannot be resolved to an absolute path.
+     */
+    private static String keyOf(Resource base, String path) {
+        String absolutePath;
+        if (!path.isEmpty() && path.charAt(0) == '/') {
+            absolutePath = normalize(path);
+        } else {
+            String basePath = base.getPath();
+            absolutePath = basePath == null ? null : normalize(basePath + '/' + path);
+        }
+        return absolutePath == null ? path : absolutePath;
+    }
+}
@@ -0,0 +1,343 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.mapping;
+
+import io.neba.core.resourcemodels.caching.RequestScopedResourceModelCache;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+import static java.lang.Thread.currentThread;
+import static java.util.Arrays.asList;
+import static org.osgi.framework.Constants.SERVICE_RANKING;
+import static org.osgi.framework.Constants.SERVICE_VENDOR;
+
+/**
+ * Maps the children of a resource to models in parallel, see {@link io.neba.api.annotations.Children#parallel()}.
+ * The children are mapped using a bounded {@link ForkJoinPool}. The tasks executing the mappings inherit the
+ * {@link NestedMappingSupport#fork() ongoing mappings}, the {@link RequestScopedResourceModelCache#fork() request context},
+ * the {@link PlaceholderVariableResolvers#fork() request-scoped placeholder variables}
+ * and the context class loader of the thread requesting the mapping. The order of the mapped children is preserved.
+ * <br />
+ * Resource resolvers are not thread-safe. Thus, each task {@link ResourceResolver#clone(java.util.Map) clones} the resolver of
+ * its children and maps the children resolved by the clone. As the mapped models may use the cloned resolvers to lazy-load further
+ * resources, the clones are closed once the request is processed. Consequently, children are only mapped in parallel during a request,
+ * see {@link #doFilter(ServletRequest, ServletResponse, FilterChain)}. Children that cannot be resolved by a clone, e.g. synthetic
+ * resources, are mapped by the thread requesting the mapping.
+ *
+ * @author Olaf Otto
+ */
+@Component(
+        service = {ChildrenMappingPool.class, Filter.class},
+        property = {
+                SERVICE_VENDOR + "=neba.io",
+                "sling.filter.scope=REQUEST",
+                "sling.filter.scope=ERROR",
+                SERVICE_RANKING + ":Integer=9000"
+        }
+)
+@Designate(ocd = ChildrenMappingPool.Configuration.class)
+public class ChildrenMappingPool implements Filter {
+    // The number of tasks per thread the children are split into, allowing threads to balance
+    // children that are more expensive to map than others.
+    private static final int TASKS_PER_THREAD = 4;
+    // Marks the results of children that were not mapped as they could not be resolved by a cloned resolver.
+    private static final Object NOT_MAPPED = new Object();
+
+    // The resolvers cloned for mapping children during the current request.
+    private final ThreadLocal<Queue<ResourceResolver>> clonedResolversHolder = new ThreadLocal<>();
+
+    @Reference
+    private NestedMappingSupport nestedMappingSupport;
+    @Reference
+    private RequestScopedResourceModelCache requestScopedCache;
+    @Reference
+    private PlaceholderVariableResolvers variableResolvers;
+
+    private ForkJoinPool pool;
+    private int parallelism;
+    private int threshold;
+
+    @Activate
+    protected void activate(Configuration configuration) {
+        this.parallelism = configuration.parallelism() > 0 ?
+                configuration.parallelism() :
+                Runtime.getRuntime().availableProcessors();
+        this.threshold = configuration.threshold();
+        this.pool = new ForkJoinPool(this.parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("neba-children-mapping-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        this.pool.shutdown();
+    }
+
+    /**
+     * Applies the mapper to each child. The mapper is applied in parallel if the number of children
+     * exceeds the {@link Configuration#threshold() threshold} during a request, otherwise the mapper is applied in the current thread.
+     *
+     * @param children must not be <code>null</code>.
+     * @param mapper   must not be <code>null</code>.
+     * @return the mapper results in the order of the children. Never <code>null</code>, but may contain <code>null</code>
+     * elements if the mapper yields <code>null</code>.
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    <T> List<T> map(@Nonnull List<Resource> children, @Nonnull Function<Resource, T> mapper) {
+        if (children == null) {
+            throw new IllegalArgumentException("Method argument children must not be null.");
+        }
+        if (mapper == null) {
+            throw new IllegalArgumentException("Method argument mapper must not be null.");
+        }
+
+        final Object[] results = new Object[children.size()];
+        final Queue<ResourceResolver> clonedResolvers = this.clonedResolversHolder.get();
+
+        if (clonedResolvers == null || this.parallelism < 2 || children.size() <= this.threshold || this.pool.isShutdown()) {
+            for (int i = 0; i < results.length; ++i) {
+                results[i] = mapper.apply(children.get(i));
+            }
+            return (List<T>) asList(results);
+        }
+
+        final RequestScopedResourceModelCache.Fork requestFork = this.requestScopedCache.fork();
+        final MapChildren mapChildren = new MapChildren(
+                children,
+                mapper,
+                results,
+                0,
+                results.length,
+                Math.max(1, results.length / (this.parallelism * TASKS_PER_THREAD)),
+                clonedResolvers,
+                this.nestedMappingSupport.fork(),
+                requestFork,
+                this.variableResolvers.fork(),
+                currentThread().getContextClassLoader());
+
+        try {
+            if (ForkJoinTask.getPool() == this.pool) {
+                // Nested parallel mapping: the current thread is a worker of this pool and participates in the mapping.
+                mapChildren.invoke();
+            } else {
+                this.pool.invoke(mapChildren);
+            }
+        } finally {
+            requestFork.join();
+        }
+
+        for (int i = 0; i < results.length; ++i) {
+            if (results[i] == NOT_MAPPED) {
+                results[i] = mapper.apply(children.get(i));
+            }
+        }
+
+        return (List<T>) asList(results);
+    }
+
+    /**
+     * Provides the scope of the resolvers cloned for mapping children in parallel. Once the request is processed,
+     * the cloned resolvers are closed.
+     */
+    @Override
+    public void doFilter(@Nonnull ServletRequest request, @Nonnull ServletResponse response, @Nonnull FilterChain chain) throws IOException, ServletException {
+        if (this.clonedResolversHolder.get() != null) {
+            // E.g. when an error is handled during a request, the cloned resolvers are closed once the request is processed.
+            chain.doFilter(request, response);
+            return;
+        }
+
+        final Queue<ResourceResolver> clonedResolvers = new ConcurrentLinkedQueue<>();
+        this.clonedResolversHolder.set(clonedResolvers);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            this.clonedResolversHolder.remove();
+            for (ResourceResolver resolver = clonedResolvers.poll(); resolver != null; resolver = clonedResolvers.poll()) {
+                resolver.close();
+            }
+        }
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        // ignore
+    }
+
+    @Override
+    public void destroy() {
+        // ignore
+    }
+
+    /**
+     * Maps a range of children, splitting the range until it is small enough to be mapped by a single task.
+     *
+     * @author Olaf Otto
+     */
+    private class MapChildren extends RecursiveAction {
+        private final List<Resource> children;
+        private final Function<Resource, ?> mapper;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+        private final int batchSize;
+        private final Queue<ResourceResolver> clonedResolvers;
+        private final NestedMappingSupport.Fork mappingFork;
+        private final RequestScopedResourceModelCache.Fork requestFork;
+        private final PlaceholderVariableResolvers.Fork variablesFork;
+        private final ClassLoader contextClassLoader;
+
+        private MapChildren(List<Resource> children,
+                            Function<Resource, ?> mapper,
+                            Object[] results,
+                            int from,
+                            int to,
+                            int batchSize,
+                            Queue<ResourceResolver> clonedResolvers,
+                            NestedMappingSupport.Fork mappingFork,
+                            RequestScopedResourceModelCache.Fork requestFork,
+                            PlaceholderVariableResolvers.Fork variablesFork,
+                            ClassLoader contextClassLoader) {
+            this.children = children;
+            this.mapper = mapper;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.batchSize = batchSize;
+            this.clonedResolvers = clonedResolvers;
+            this.mappingFork = mappingFork;
+            this.requestFork = requestFork;
+            this.variablesFork = variablesFork;
+            this.contextClassLoader = contextClassLoader;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > this.batchSize) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(range(this.from, middle), range(middle, this.to));
+                return;
+            }
+
+            final ResourceResolver resolver = cloneResolverOf(this.children.get(this.from));
+            if (resolver == null) {
+                for (int i = this.from; i < this.to; ++i) {
+                    this.results[i] = NOT_MAPPED;
+                }
+                return;
+            }
+
+            final Thread thread = currentThread();
+            final ClassLoader previousContextClassLoader = thread.getContextClassLoader();
+            final Queue<ResourceResolver> previousClonedResolvers = clonedResolversHolder.get();
+            thread.setContextClassLoader(this.contextClassLoader);
+            // Enables nested parallel mappings within the request
+            clonedResolversHolder.set(this.clonedResolvers);
+            try {
+                this.mappingFork.run(() -> this.requestFork.run(() -> this.variablesFork.run(() -> {
+                    for (int i = this.from; i < this.to; ++i) {
+                        final Resource child = resolver.getResource(this.children.get(i).getPath());
+                        this.results[i] = child == null ? NOT_MAPPED : this.mapper.apply(child);
+                    }
+                    return null;
+                })));
+            } finally {
+                thread.setContextClassLoader(previousContextClassLoader);
+                if (previousClonedResolvers == null) {
+                    clonedResolversHolder.remove();
+                } else {
+                    clonedResolversHolder.set(previousClonedResolvers);
+                }
+            }
+        }
+
+        /**
+         * @return a clone of the child's resolver, or <code>null</code> if the resolver cannot be cloned.
+         */
+        @CheckForNull
+        private ResourceResolver cloneResolverOf(Resource child) {
+            final ResourceResolver resolver;
+            try {
+                resolver = child.getResourceResolver().clone(null);
+            } catch (LoginException e) {
+                // The children are mapped by the thread requesting the mapping instead.
+                return null;
+            }
+            this.clonedResolvers.add(resolver);
+            return resolver;
+        }
+
+        private MapChildren range(int from, int to) {
+            return new MapChildren(
+                    this.children,
+                    this.mapper,
+                    this.results,
+                    from,
+                    to,
+                    this.batchSize,
+                    this.clonedResolvers,
+                    this.mappingFork,
+                    this.requestFork,
+                    this.variablesFork,
+                    this.contextClassLoader);
+        }
+    }
+
+    @ObjectClassDefinition(name = "NEBA parallel children mapping", description = "Maps @Children(parallel = true) collections in parallel.")
+    public @interface Configuration {
+        @AttributeDefinition(
+                name = "Parallelism",
+                description = "The maximum number of threads mapping children in parallel. " +
+                        "A value of 0 or less uses the number of available processors.")
+        int parallelism() default 0;
+
+        @AttributeDefinition(
+                name = "Threshold",
+                description = "Children are only mapped in parallel if their number exceeds this threshold, " +
+                        "as the overhead of parallel mapping outweighs its benefits for few children.")
+        int threshold() default 16;
+    }
+}
@@ -19,8 +19,10 @@ package io.neba.core.resourcemodels.mapping;
 import io.neba.api.resourcemodels.Lazy;
 import io.neba.api.spi.AnnotatedFieldMapper;
 import io.neba.api.spi.ResourceModelFactory;
+import io.neba.core.resourcemodels.caching.RequestScopedValueMapCache;
+import io.neba.core.resourcemodels.metadata.ChildrenFilter;
 import io.neba.core.resourcemodels.metadata.MappedFieldMetaData;
-import io.neba.core.util.PrimitiveAndEnumSupportingValueMap;
+import io.neba.core.util.PropertyConverter;
 import io.neba.core.util.ReflectionUtil;
 import io.neba.core.util.ResourcePaths;
 import org.apache.sling.api.resource.Resource;
@@ -30,25 +32,34 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import static io.neba.core.resourcemodels.mapping.AnnotatedFieldMappers.AnnotationMapping;
 import static io.neba.core.util.ReflectionUtil.instantiateCollectionType;
 import static io.neba.core.util.StringUtil.appendToAll;
 import static java.util.Optional.ofNullable;
+import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater;
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.sling.api.resource.ResourceUtil.getParent;
+import static org.apache.sling.api.resource.ResourceUtil.normalize;
 
 /**
  * Attempts to load the property or resource associated with each
  * {@link io.neba.core.resourcemodels.metadata.MappedFieldMetaData mappable field} of a
  * {@link io.neba.api.annotations.ResourceModel},
  * {@link #convert(org.apache.sling.api.resource.Resource, Class) convert} it to the suitable field type
- * and inject it into the corresponding field.
+ * and inject it into the corresponding field. The paths of all resources read to resolve the field values are recorded as
+ * {@link Mapping#getDependencies() dependencies} of the {@link Mapping}.
  *
  * @author Olaf Otto
  */
@@ -58,6 +69,10 @@ public class FieldValueMappingCallback {
     private final Resource resource;
     private final AnnotatedFieldMappers annotatedFieldMappers;
     private final PlaceholderVariableResolvers placeholderVariableResolvers;
+    private final Mapping<?> mapping;
+    private final ChildrenMappingPool childrenMappingPool;
+    private final BatchResourceResolvers batchResourceResolvers;
+    private final RequestScopedValueMapCache valueMapCache;
 
     /**
      * @param model     the model to be mapped. Must not be <code>null</code>.
@@ -65,13 +80,21 @@ public class FieldValueMappingCallback {
      * @param factory   must not be <code>null</code>.
      * @param mappers   must not be <code>null</code>.
      * @param resolvers must not be <code>null</code>.
+     * @param mapping   the mapping recording the resources read to map the model. Must not be <code>null</code>.
+     * @param pool      used to map {@link io.neba.api.annotations.Children#parallel() children in parallel}. Must not be <code>null</code>.
+     * @param batchResolvers used to resolve the resources referenced by {@link io.neba.api.annotations.Reference} collections. Must not be <code>null</code>.
+     * @param valueMaps      provides the properties of the resource and of resources whose properties are referenced. Must not be <code>null</code>.
      */
     FieldValueMappingCallback(
             Object model,
             Resource resource,
             ResourceModelFactory factory,
             AnnotatedFieldMappers mappers,
-            PlaceholderVariableResolvers resolvers) {
+            PlaceholderVariableResolvers resolvers,
+            Mapping<?> mapping,
+            ChildrenMappingPool pool,
+            BatchResourceResolvers batchResolvers,
+            RequestScopedValueMapCache valueMaps) {
 
         if (model == null) {
             throw new IllegalArgumentException("Constructor parameter model must not be null.");
@@ -88,18 +111,36 @@ public class FieldValueMappingCallback {
         if (resolvers == null) {
             throw new IllegalArgumentException("Method argument resolvers must not be null");
         }
+        if (mapping == null) {
+            throw new IllegalArgumentException("Method argument mapping must not be null");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Method argument pool must not be null");
+        }
+        if (batchResolvers == null) {
+            throw new IllegalArgumentException("Method argument batchResolvers must not be null");
+        }
+        if (valueMaps == null) {
+            throw new IllegalArgumentException("Method argument valueMaps must not be null");
+        }
 
         this.model = model;
-        this.properties = toValueMap(resource);
+        this.properties = valueMaps.get(resource);
         this.resource = resource;
         this.annotatedFieldMappers = mappers;
         this.placeholderVariableResolvers = resolvers;
+        this.mapping = mapping;
+        this.childrenMappingPool = pool;
+        this.batchResourceResolvers = batchResolvers;
+        this.valueMapCache = valueMaps;
     }
 
     /**
      * Invoked for each {@link io.neba.core.resourcemodels.metadata.ResourceModelMetaData#getMappableFields() mappable field}
      * of a {@link io.neba.api.annotations.ResourceModel} to map the {@link MappedFieldMetaData#getField() corresponding field's}
-     * value from the resource provided to the {@link #FieldValueMappingCallback(Object, Resource, ResourceModelFactory, AnnotatedFieldMappers, PlaceholderVariableResolvers) constructor}.
+     * value from the resource provided to the {@link #FieldValueMappingCallback(Object, Resource, ResourceModelFactory, AnnotatedFieldMappers, PlaceholderVariableResolvers, Mapping, ChildrenMappingPool, BatchResourceResolvers, RequestScopedValueMapCache) constructor}.
+     * Compiles the field's {@link FieldMapping} for this single invocation; use {@link #doWith(FieldMapping)} with
+     * the mappings of a {@link MappingPlan} to map the fields of a model repeatedly.
      *
      * @param metaData must not be <code>null</code>.
      */
@@ -108,15 +149,27 @@ public class FieldValueMappingCallback {
             throw new IllegalArgumentException("Method argument metaData must not be null.");
         }
 
-        // Prepare the dynamic contextual data of this mapping
-        final FieldData fieldData = new FieldData(metaData, evaluateFieldPath(metaData));
+        doWith(FieldMapping.compile(metaData));
+    }
+
+    /**
+     * Maps the value of the field represented by the given {@link FieldMapping compiled field mapping}
+     * from the resource provided to the {@link #FieldValueMappingCallback(Object, Resource, ResourceModelFactory, AnnotatedFieldMappers, PlaceholderVariableResolvers, Mapping, ChildrenMappingPool, BatchResourceResolvers, RequestScopedValueMapCache) constructor}.
+     *
+     * @param fieldMapping must not be <code>null</code>.
+     */
+    final void doWith(final FieldMapping fieldMapping) {
+        // Prepare the dynamic contextual data of this mapping, unless it was already prepared when the mapping was compiled
+        final FieldData fieldData = fieldMapping.fieldData == null ?
+                new FieldData(fieldMapping, evaluateFieldPath(fieldMapping.metaData)) :
+                fieldMapping.fieldData;
         // Determine whether the mapping can result in a non-null value
-        final boolean isMappable = isMappable(fieldData);
+        final boolean isMappable = this.properties != null || fieldData.isMappableWithoutProperties;
 
-        if (metaData.isLazy()) {
+        if (fieldMapping.isLazy) {
             // Lazy fields are never null, regardless of whether a value is mappable.
             Lazy<Object> lazy = isMappable ? new LazyFieldValue(fieldData, this) : LazyFieldValue.EMPTY;
-            setField(metaData, lazy);
+            setField(fieldMapping.metaData, lazy);
             return;
         }
 
@@ -129,7 +182,7 @@ public class FieldValueMappingCallback {
         value = postProcessResolvedValue(fieldData, value);
 
         if (value != null) {
-            setField(metaData, value);
+            setField(fieldMapping.metaData, value);
         }
     }
 
@@ -177,35 +230,22 @@ public class FieldValueMappingCallback {
     @SuppressWarnings({"unchecked", "rawtypes"})
     private Object applyCustomMappings(FieldData fieldData, final Object value) {
         Object result = value;
-        for (final AnnotationMapping<?, ?> mapping : this.annotatedFieldMappers.get(fieldData.metaData)) {
+        Collection<AnnotationMapping<?, ?>> customMappings = fieldData.mapping.customMappings;
+        if (customMappings == null) {
+            // The mappers were not bound when the field mapping was compiled
+            customMappings = this.annotatedFieldMappers.get(fieldData.metaData);
+        }
+        for (final AnnotationMapping<?, ?> mapping : customMappings) {
             result = mapping.getMapper().map(new OngoingFieldMapping(this.model, result, mapping, fieldData, this.resource, this.properties));
         }
         return result;
     }
 
     /**
-     * Resolves the field's value with regard to the {@link io.neba.core.resourcemodels.metadata.MappedFieldMetaData}
-     * of the field.
+     * Resolves the field's value using the {@link Resolution} the field's mapping was compiled to.
      */
     private Object resolve(FieldData fieldData) {
-        Object value;
-        if (fieldData.metaData.isThisReference()) {
-            // The field is a @This reference
-            value = convertThisResourceToFieldType(fieldData);
-        } else if (fieldData.metaData.isChildrenAnnotationPresent()) {
-            // The field is a collection of @Children
-            value = resolveChildren(fieldData);
-        } else if (fieldData.metaData.isReference()) {
-            // The field is a @Reference
-            value = resolveReferenceValueOfField(fieldData);
-        } else if (fieldData.metaData.isPropertyType()) {
-            // The field points to a property of the resource
-            value = resolvePropertyTypedValue(fieldData);
-        } else {
-            // The field points to another resource
-            value = resolveResource(fieldData.path, fieldData.metaData.getType());
-        }
-        return value;
+        return fieldData.mapping.resolution.resolve(this, fieldData);
     }
 
     private Object convertThisResourceToFieldType(FieldData field) {
@@ -238,10 +278,13 @@ public class FieldValueMappingCallback {
     /**
      * Loads the children for a field annotated with {@link io.neba.api.annotations.Children}.
      * Resolves the parent who's children are to be loaded (e.g. a {@link io.neba.api.annotations.Reference referenced} resource).
-     * Loads all children of the parent resource, {@link #convert(org.apache.sling.api.resource.Resource, Class) adapts}
+     * Loads the children of the parent resource, {@link #convert(org.apache.sling.api.resource.Resource, Class) adapts}
      * them if required, and adds them to a newly create collection compatible to the
      * {@link io.neba.core.resourcemodels.metadata.MappedFieldMetaData#getType() field type}, if the adaptation result is not
-     * <code>null</code>.
+     * <code>null</code>. Children before the {@link io.neba.api.annotations.Children#offset() offset} are skipped, and
+     * children are only adapted until the collection reaches the {@link io.neba.api.annotations.Children#limit() limit}.
+     * Children rejected by the {@link ChildrenFilter filter} of the field are skipped without adaptation, and children
+     * are {@link OrderedChildren ordered} prior to adaptation if an {@link io.neba.api.annotations.Children#orderBy() order} is specified.
      *
      * @return never null but rather an empty collection.
      */
@@ -267,18 +310,40 @@ public class FieldValueMappingCallback {
         }
 
         final Class<?> targetType = field.metaData.getTypeParameter();
-        Iterator<Resource> children = parent.listChildren();
-
-        while (children.hasNext()) {
-            Resource child = children.next();
-            if (field.metaData.isResolveBelowEveryChildPathPresentOnChildren()) {
-                // As specified via @Children(resolveBelowEveryChild = "...")
-                child = child.getChild(field.metaData.getResolveBelowEveryChildPathOnChildren());
-                if (child == null) {
-                    continue;
+        // As specified via @Children(limit = ...)
+        final int limit = field.metaData.isChildrenLimited() ? field.metaData.getChildrenLimit() : Integer.MAX_VALUE;
+        Iterator<Resource> children = new ResolvedChildren(field, parent.listChildren(), this.valueMapCache);
+
+        if (field.metaData.isChildrenOrdered()) {
+            // As specified via @Children(orderBy = ...). Only the children that are consumed below are sorted.
+            children = OrderedChildren.order(
+                    children,
+                    field.metaData.getChildrenOrderProperty(),
+                    field.metaData.isChildrenOrderDescending(),
+                    this.valueMapCache::get);
+        }
+
+        // As specified via @Children(offset = ...). Skipped children are not adapted.
+        for (int skipped = 0; skipped < field.metaData.getChildrenOffset() && children.hasNext(); ++skipped) {
+            children.next();
+        }
+
+        if (field.metaData.isChildrenMappedInParallel()) {
+            // As specified via @Children(parallel = true). Children that cannot be adapted do not count towards
+            // the limit, thus further children are mapped until the limit is reached or no children are left.
+            while (values.size() < limit && children.hasNext()) {
+                for (Object adapted : this.childrenMappingPool.map(next(children, limit - values.size()), child -> convert(child, targetType))) {
+                    if (adapted != null) {
+                        values.add(adapted);
+                    }
                 }
             }
-            Object adapted = convert(child, targetType);
+            return values;
+        }
+
+        // Children are only listed until the limit is reached.
+        while (values.size() < limit && children.hasNext()) {
+            Object adapted = convert(children.next(), targetType);
             if (adapted != null) {
                 values.add(adapted);
             }
@@ -287,6 +352,17 @@ public class FieldValueMappingCallback {
         return values;
     }
 
+    /**
+     * @return up to the given number of children. Never <code>null</code>.
+     */
+    private static List<Resource> next(Iterator<Resource> children, int max) {
+        List<Resource> next = new ArrayList<>();
+        while (next.size() < max && children.hasNext()) {
+            next.add(children.next());
+        }
+        return next;
+    }
+
     /**
      * Resolves the String path(s) stored in the resource property designated by the given field to respective resources and adapts
      * them if necessary. May provide a single adapted value or a collection of references,
@@ -352,8 +428,20 @@ public class FieldValueMappingCallback {
         }
 
         final Class<?> componentClass = field.metaData.getTypeParameter();
-        for (String path : resourcePaths) {
-            Object element = resolveResource(path, componentClass);
+        final Resource[] resources = this.batchResourceResolvers.resolve(this.resource, resourcePaths);
+        // Equivalent paths are resolved to the same resource instance, which is only converted once.
+        final Map<Resource, Object> converted = new IdentityHashMap<>(resources.length);
+        for (int i = 0; i < resources.length; ++i) {
+            // Record the path even if the resource does not exist, as the mapping result changes when it is added.
+            recordDependency(resources[i], resourcePaths[i]);
+            if (resources[i] == null) {
+                continue;
+            }
+            Object element = converted.get(resources[i]);
+            if (element == null && !converted.containsKey(resources[i])) {
+                element = convert(resources[i], componentClass);
+                converted.put(resources[i], element);
+            }
             if (element != null) {
                 values.add(element);
             }
@@ -396,7 +484,22 @@ public class FieldValueMappingCallback {
             throw new IllegalStateException("Tried to map the property " + field +
                     " even though the resource has no properties.");
         }
-        return this.properties.get(field.path, propertyType);
+        return getProperty(this.properties, field, field.path, propertyType);
+    }
+
+    /**
+     * Uses the {@link MappedFieldMetaData#getPropertyConverter() property converter} of the field, if it converts
+     * to the requested type, to retrieve the property.
+     *
+     * @return the property value, or <code>null</code>.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T getProperty(ValueMap properties, FieldData field, String name, Class<T> propertyType) {
+        PropertyConverter<?> converter = field.metaData.getPropertyConverter();
+        if (converter != null && converter.getTargetType() == propertyType) {
+            return (T) converter.get(properties, name);
+        }
+        return properties.get(name, propertyType);
     }
 
     /**
@@ -410,6 +513,8 @@ public class FieldValueMappingCallback {
      */
     private <T> T resolveResource(final String resourcePath, final Class<T> targetType) {
         Resource absoluteResource = this.resource.getResourceResolver().getResource(this.resource, resourcePath);
+        // Record the path even if the resource does not exist, as the mapping result changes when it is added.
+        recordDependency(absoluteResource, resourcePath);
         return convert(absoluteResource, targetType);
     }
 
@@ -422,6 +527,15 @@ public class FieldValueMappingCallback {
      */
     private <T> T resolvePropertyTypedValueFromForeignResource(FieldData field, Class<T> propertyType) {
         Resource property = this.resource.getResourceResolver().getResource(this.resource, field.path);
+        // The property is changed with the resource containing it.
+        if (this.mapping.isRecordingDependencies()) {
+            String propertyPath = absolutePathOf(property, field.path);
+            String resourcePath = propertyPath == null ? null : getParent(propertyPath);
+            if (resourcePath != null) {
+                this.mapping.addDependency(resourcePath);
+            }
+        }
+
         if (property == null) {
             return null;
         }
@@ -437,12 +551,12 @@ public class FieldValueMappingCallback {
             return null;
         }
 
-        ValueMap properties = parent.adaptTo(ValueMap.class);
+        ValueMap properties = this.valueMapCache.get(parent);
         if (properties == null) {
             return null;
         }
 
-        return new PrimitiveAndEnumSupportingValueMap(properties).get(property.getName(), propertyType);
+        return getProperty(properties, field, property.getName(), propertyType);
     }
 
     /**
@@ -468,53 +582,50 @@ public class FieldValueMappingCallback {
     }
 
     /**
-     * Evaluates the {@link ResourcePaths.ResourcePath#hasPlaceholders() variables}
-     * in the {@link MappedFieldMetaData#getPath()} path} of the field, if any.
+     * @param resolvedResource the resource resolved for the given path, or <code>null</code> if it does not exist.
+     * @param path             an absolute path or a path relative to the current resource.
+     * @return the absolute path, or <code>null</code> if the path cannot be resolved, e.g. as it points above the root resource.
      */
-    private String evaluateFieldPath(MappedFieldMetaData fieldMetaData) {
-        ResourcePaths.ResourcePath path = fieldMetaData.getPath();
-        return (path.hasPlaceholders() ? path.resolve(this.placeholderVariableResolvers::resolve) : path).getPath();
+    @CheckForNull
+    private String absolutePathOf(@CheckForNull Resource resolvedResource, @Nonnull String path) {
+        if (resolvedResource != null) {
+            return resolvedResource.getPath();
+        }
+        if (!path.isEmpty() && path.charAt(0) == '/') {
+            return normalize(path);
+        }
+        return normalize(this.resource.getPath() + '/' + path);
     }
 
     /**
-     * Determines whether a given field's value can be mapped from either the current resource properties
-     * or another (e.g. referenced) resource.
+     * Records the absolute path of the resource as a dependency of the mapping, unless the mapping does not
+     * {@link Mapping#isRecordingDependencies() record its dependencies}.
      */
-    private boolean isMappable(FieldData field) {
-        return this.properties != null ||
-                field.metaData.isThisReference() ||
-                field.isReferenceToOtherResource();
+    private void recordDependency(@CheckForNull Resource resolvedResource, @Nonnull String path) {
+        if (!this.mapping.isRecordingDependencies()) {
+            return;
+        }
+        String absolutePath = absolutePathOf(resolvedResource, path);
+        if (absolutePath != null) {
+            this.mapping.addDependency(absolutePath);
+        }
     }
 
     /**
-     * Provides the properties of the resource as a {@link PrimitiveAndEnumSupportingValueMap}.
-     *
-     * @param resource must not be <code>null</code>.
-     * @return the value map, or <code>null</code> if the resource has no properties,
-     * e.g. if it is synthetic.
+     * Evaluates the {@link ResourcePaths.ResourcePath#hasPlaceholders() variables}
+     * in the {@link MappedFieldMetaData#getPath()} path} of the field, if any.
      */
-    private static ValueMap toValueMap(Resource resource) {
-        ValueMap propertyMap = resource.adaptTo(ValueMap.class);
-        if (propertyMap != null) {
-            propertyMap = new PrimitiveAndEnumSupportingValueMap(propertyMap);
-        }
-        return propertyMap;
+    private String evaluateFieldPath(MappedFieldMetaData fieldMetaData) {
+        ResourcePaths.ResourcePath path = fieldMetaData.getPath();
+        return path.hasPlaceholders() ? this.placeholderVariableResolvers.resolve(path) : path.getPath();
     }
 
     private Object getField(FieldData fieldData) {
-        try {
-            return fieldData.metaData.getField().get(this.model);
-        } catch (IllegalAccessException e) {
-            throw new IllegalStateException(e);
-        }
+        return fieldData.metaData.getAccessor().get(this.model);
     }
 
     private void setField(MappedFieldMetaData metaData, Object value) {
-        try {
-            metaData.getField().set(this.model, value);
-        } catch (IllegalAccessException e) {
-            throw new IllegalStateException(e);
-        }
+        metaData.getAccessor().set(this.model, value);
     }
 
     /**
@@ -534,21 +645,145 @@ public class FieldValueMappingCallback {
         return resource.adaptTo(targetType);
     }
 
+    /**
+     * The strategies used to resolve a field's value. The strategy suitable for a field is determined once, when the
+     * {@link FieldMapping field mapping} is compiled, rather than every time the field is mapped.
+     *
+     * @author Olaf Otto
+     */
+    private enum Resolution {
+        /**
+         * The field is a @This reference.
+         */
+        THIS {
+            @Override
+            Object resolve(FieldValueMappingCallback callback, FieldData fieldData) {
+                return callback.convertThisResourceToFieldType(fieldData);
+            }
+        },
+        /**
+         * The field is a collection of @Children.
+         */
+        CHILDREN {
+            @Override
+            Object resolve(FieldValueMappingCallback callback, FieldData fieldData) {
+                return callback.resolveChildren(fieldData);
+            }
+        },
+        /**
+         * The field is a @Reference.
+         */
+        REFERENCE {
+            @Override
+            Object resolve(FieldValueMappingCallback callback, FieldData fieldData) {
+                return callback.resolveReferenceValueOfField(fieldData);
+            }
+        },
+        /**
+         * The field points to a property of the resource.
+         */
+        PROPERTY {
+            @Override
+            Object resolve(FieldValueMappingCallback callback, FieldData fieldData) {
+                return callback.resolvePropertyTypedValue(fieldData);
+            }
+        },
+        /**
+         * The field points to another resource.
+         */
+        RESOURCE {
+            @Override
+            Object resolve(FieldValueMappingCallback callback, FieldData fieldData) {
+                return callback.resolveResource(fieldData.path, fieldData.metaData.getType());
+            }
+        };
+
+        abstract Object resolve(FieldValueMappingCallback callback, FieldData fieldData);
+
+        private static Resolution of(MappedFieldMetaData metaData) {
+            if (metaData.isThisReference()) {
+                return THIS;
+            }
+            if (metaData.isChildrenAnnotationPresent()) {
+                return CHILDREN;
+            }
+            if (metaData.isReference()) {
+                return REFERENCE;
+            }
+            if (metaData.isPropertyType()) {
+                return PROPERTY;
+            }
+            return RESOURCE;
+        }
+    }
+
+    /**
+     * A {@link MappedFieldMetaData mappable field} compiled for {@link #doWith(FieldMapping) mapping}:
+     * The {@link Resolution} of the field value is determined, the field path is pre-evaluated
+     * if it has no {@link ResourcePaths.ResourcePath#hasPlaceholders() placeholders} and the
+     * {@link AnnotatedFieldMapper custom field mappers} are optionally pre-bound. Field mappings are immutable
+     * and may thus be shared by any number of concurrent mappings.
+     *
+     * @author Olaf Otto
+     * @see MappingPlan
+     */
+    static final class FieldMapping {
+        private final MappedFieldMetaData metaData;
+        private final Resolution resolution;
+        private final boolean isLazy;
+        private final Collection<AnnotationMapping<?, ?>> customMappings;
+        private final FieldData fieldData;
+
+        /**
+         * Compiles a field mapping that obtains the custom field mappers when the field's value is mapped.
+         *
+         * @param metaData must not be <code>null</code>.
+         * @return never <code>null</code>.
+         */
+        static FieldMapping compile(MappedFieldMetaData metaData) {
+            return new FieldMapping(metaData, null);
+        }
+
+        /**
+         * Compiles a field mapping with the custom field mappers currently applicable to the field.
+         *
+         * @param metaData must not be <code>null</code>.
+         * @param mappers  must not be <code>null</code>.
+         * @return never <code>null</code>.
+         */
+        static FieldMapping compile(MappedFieldMetaData metaData, AnnotatedFieldMappers mappers) {
+            return new FieldMapping(metaData, mappers.get(metaData));
+        }
+
+        private FieldMapping(MappedFieldMetaData metaData, Collection<AnnotationMapping<?, ?>> customMappings) {
+            this.metaData = metaData;
+            this.resolution = Resolution.of(metaData);
+            this.isLazy = metaData.isLazy();
+            this.customMappings = customMappings;
+            ResourcePaths.ResourcePath path = metaData.getPath();
+            this.fieldData = path.hasPlaceholders() ? null : new FieldData(this, path.getPath());
+        }
+    }
+
     /**
      * Represents the the contextual data of a resource model field during
-     * {@link FieldValueMappingCallback#doWith(io.neba.core.resourcemodels.metadata.MappedFieldMetaData) mapping}.
+     * {@link FieldValueMappingCallback#doWith(FieldMapping) mapping}.
      */
     private static final class FieldData {
+        private final FieldMapping mapping;
         private final MappedFieldMetaData metaData;
         private final String path;
         private final boolean isAbsolute;
         private final boolean isRelative;
+        private final boolean isMappableWithoutProperties;
 
-        private FieldData(MappedFieldMetaData metaData, String path) {
-            this.metaData = metaData;
+        private FieldData(FieldMapping mapping, String path) {
+            this.mapping = mapping;
+            this.metaData = mapping.metaData;
             this.path = path;
             this.isAbsolute = !path.isEmpty() && path.charAt(0) == '/';
             this.isRelative = !this.isAbsolute && path.indexOf('/') != -1;
+            this.isMappableWithoutProperties = this.metaData.isThisReference() || isReferenceToOtherResource();
         }
 
         private boolean isAbsolute() {
@@ -590,12 +825,14 @@ public class FieldValueMappingCallback {
             }
         };
 
-        private static final Object NULL = new Object();
+        private static final Object NOT_LOADED = new Object();
+        private static final AtomicReferenceFieldUpdater<LazyFieldValue, Object> VALUE =
+                newUpdater(LazyFieldValue.class, Object.class, "value");
 
         private final FieldData fieldData;
         private final FieldValueMappingCallback callback;
 
-        private Object value = NULL;
+        private volatile Object value = NOT_LOADED;
 
         LazyFieldValue(FieldData fieldData, FieldValueMappingCallback callback) {
             this.fieldData = fieldData;
@@ -608,21 +845,81 @@ public class FieldValueMappingCallback {
         @Override
         @Nonnull
         public java.util.Optional<Object> asOptional() {
-            if (this.value == NULL) {
-                load();
+            Object value = this.value;
+            if (value == NOT_LOADED) {
+                value = load();
             }
-            return ofNullable(this.value);
+            return ofNullable(value);
         }
 
         /**
          * The semantics of the value holder must adhere to the semantics of a non-lazy-loaded field value:
-         * The value is loaded exactly once, subsequent or concurrent access to the field value means accessing the
-         * same value. Thus, the value is retained and this method is thread-safe.
+         * The value is set exactly once, subsequent or concurrent access to the field value means accessing the
+         * same value. Thus, the value is retained and this method is thread-safe without locking: Threads concurrently loading
+         * the value all obtain the value set first.
          */
-        private synchronized void load() {
-            if (this.value == NULL) {
-                this.value = this.callback.resumeMapping(this.fieldData);
+        private Object load() {
+            VALUE.compareAndSet(this, NOT_LOADED, this.callback.resumeMapping(this.fieldData));
+            return this.value;
+        }
+    }
+
+    /**
+     * Provides the resources to adapt for the listed children of a {@link io.neba.api.annotations.Children} field:
+     * Each child itself, or the resource below the child as specified via @Children(resolveBelowEveryChild = "...").
+     * Children for which no such resource exists or that are rejected by the {@link ChildrenFilter filter} of the field are skipped.
+     * The children are consumed lazily, i.e. only as far as required to provide the next resource.
+     *
+     * @author Olaf Otto
+     */
+    private static class ResolvedChildren implements Iterator<Resource> {
+        private final FieldData field;
+        private final ChildrenFilter filter;
+        private final Iterator<Resource> children;
+        private final RequestScopedValueMapCache valueMaps;
+        private Resource next;
+
+        ResolvedChildren(FieldData field, Iterator<Resource> children, RequestScopedValueMapCache valueMaps) {
+            this.field = field;
+            this.filter = field.metaData.getChildrenFilter();
+            this.children = children;
+            this.valueMaps = valueMaps;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.next == null && this.children.hasNext()) {
+                this.next = resolve(this.children.next());
+            }
+            return this.next != null;
+        }
+
+        @Override
+        public Resource next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Resource next = this.next;
+            this.next = null;
+            return next;
+        }
+
+        @CheckForNull
+        private Resource resolve(Resource child) {
+            if (this.filter != null && !this.filter.acceptsName(child.getName())) {
+                return null;
+            }
+            Resource resolved = child;
+            if (this.field.metaData.isResolveBelowEveryChildPathPresentOnChildren()) {
+                resolved = child.getChild(this.field.metaData.getResolveBelowEveryChildPathOnChildren());
+                if (resolved == null) {
+                    return null;
+                }
+            }
+            if (this.filter != null && !this.filter.accepts(resolved, this.valueMaps::get)) {
+                return null;
             }
+            return resolved;
         }
     }
 
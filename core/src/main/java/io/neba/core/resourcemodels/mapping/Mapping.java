@@ -17,12 +17,22 @@
 package io.neba.core.resourcemodels.mapping;
 
 import io.neba.core.resourcemodels.metadata.ResourceModelMetaData;
+import io.neba.core.util.ResourcePathSet;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.Set;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
 
 /**
- * Represents a mapping of the form <code>resource path -&gt; model</code>.
+ * Represents a mapping of the form <code>resource path -&gt; model</code>. If the dependencies of the mapping are consumed,
+ * e.g. by the {@link io.neba.core.resourcemodels.caching.SharedResourceModelCache}, the mapping records the
+ * {@link #getDependencies() paths of all resources} read during the mapping, including the resources read by nested mappings, until it is
+ * {@link #complete() complete}. Nested mappings may be {@link ChildrenMappingPool executed in parallel}, thus the recorded state is guarded
+ * by this instance.
  *
  * @param <T> the type of the contained {@link #getMappedModel()} mapped model.
  * @author Olaf Otto
@@ -35,13 +45,18 @@ public class Mapping<T> {
     private final int hashCode;
 
     private T mappedModel = null;
+    // null if dependencies are not recorded
+    private final ResourcePathSet dependencies;
+    private volatile boolean recordingDependencies;
+    private boolean requestBound = false;
 
     /**
      * @param resourcePath must not be <code>null</code>.
      * @param metadata     must not be <code>null</code>.
      * @param resourceType the resource type, e.g. "components/wide/teaser" or "cq:Page". Must not be <code>null</code>.
+     * @param recordDependencies whether to record the {@link #getDependencies() dependencies} of the mapping.
      */
-    Mapping(@Nonnull String resourcePath, @Nonnull ResourceModelMetaData metadata, @Nonnull String resourceType) {
+    Mapping(@Nonnull String resourcePath, @Nonnull ResourceModelMetaData metadata, @Nonnull String resourceType, boolean recordDependencies) {
         if (resourcePath == null) {
             throw new IllegalArgumentException("Constructor parameter resourcePath must not be null.");
         }
@@ -56,6 +71,13 @@ public class Mapping<T> {
         this.srcPath = resourcePath;
         this.metadata = metadata;
         this.hashCode = 31 * (31 + srcPath.hashCode()) + metadata.hashCode();
+        this.recordingDependencies = recordDependencies;
+        if (recordDependencies) {
+            this.dependencies = new ResourcePathSet();
+            this.dependencies.add(resourcePath);
+        } else {
+            this.dependencies = null;
+        }
     }
 
     @Override
@@ -72,6 +94,113 @@ public class Mapping<T> {
         return mappedModel;
     }
 
+    /**
+     * @return whether the mapping records its {@link #getDependencies() dependencies}, i.e. whether they are consumed and the mapping is not yet
+     * {@link #complete() complete}. Callers should avoid computing dependencies that are not recorded.
+     */
+    boolean isRecordingDependencies() {
+        return this.recordingDependencies;
+    }
+
+    /**
+     * Stops recording dependencies, e.g. once the mapped model was cached. Resources read afterwards, e.g. when
+     * {@link io.neba.api.resourcemodels.Lazy lazy} fields are loaded, are not recorded.
+     */
+    void complete() {
+        this.recordingDependencies = false;
+    }
+
+    /**
+     * Records the path of a resource that was read to map the model, if the mapping {@link #isRecordingDependencies() records its dependencies}.
+     *
+     * @param path must not be <code>null</code>.
+     */
+    void addDependency(@Nonnull String path) {
+        if (path == null) {
+            throw new IllegalArgumentException("Method argument path must not be null.");
+        }
+        if (!this.recordingDependencies) {
+            return;
+        }
+        synchronized (this) {
+            this.dependencies.add(path);
+        }
+    }
+
+    /**
+     * Records the paths of resources that were read to map the model, if the mapping {@link #isRecordingDependencies() records its dependencies}.
+     *
+     * @param paths must not be <code>null</code>.
+     */
+    void addDependencies(@Nonnull Collection<String> paths) {
+        if (paths == null) {
+            throw new IllegalArgumentException("Method argument paths must not be null.");
+        }
+        if (!this.recordingDependencies) {
+            return;
+        }
+        synchronized (this) {
+            this.dependencies.addAll(paths);
+        }
+    }
+
+    /**
+     * Includes the {@link #getDependencies() dependencies} and the {@link #isRequestBound() request-bound state}
+     * of a mapping that occurred while mapping this model, e.g. when resolving a {@link io.neba.api.annotations.Reference}.
+     * Has no effect unless both mappings {@link #isRecordingDependencies() record their dependencies}.
+     *
+     * @param nestedMapping must not be <code>null</code>.
+     */
+    void include(@Nonnull Mapping<?> nestedMapping) {
+        if (nestedMapping == null) {
+            throw new IllegalArgumentException("Method argument nestedMapping must not be null.");
+        }
+        if (!this.recordingDependencies || nestedMapping.dependencies == null) {
+            return;
+        }
+        synchronized (this) {
+            this.dependencies.addAll(nestedMapping.dependencies);
+            this.requestBound |= nestedMapping.requestBound;
+        }
+    }
+
+    /**
+     * @return an immutable snapshot of the paths of all resources that were read to map the model so far, i.e. the resource the
+     * model was mapped from, resources whose properties were mapped, referenced resources, parents of mapped children and the
+     * dependencies of nested mappings. Empty if the mapping does not record its dependencies. Never <code>null</code>.
+     */
+    @Nonnull
+    public synchronized Set<String> getDependencies() {
+        if (this.dependencies == null) {
+            return emptySet();
+        }
+        ResourcePathSet snapshot = new ResourcePathSet();
+        snapshot.addAll(this.dependencies);
+        return unmodifiableSet(snapshot);
+    }
+
+    /**
+     * @return the number of {@link #getDependencies() dependencies} recorded so far.
+     */
+    synchronized int getNumberOfDependencies() {
+        return this.dependencies == null ? 0 : this.dependencies.size();
+    }
+
+    /**
+     * Signals that the mapped model retains state bound to the request or resource resolver it was mapped with.
+     */
+    synchronized void markRequestBound() {
+        this.requestBound = true;
+    }
+
+    /**
+     * @return whether the mapped model or any of its nested models retains state bound to the request
+     * or resource resolver it was mapped with.
+     */
+    synchronized boolean isRequestBound() {
+        return this.requestBound;
+    }
+
     @Nonnull
     public ResourceModelMetaData getMetadata() {
         return metadata;
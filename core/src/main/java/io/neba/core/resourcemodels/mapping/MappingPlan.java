@@ -0,0 +1,133 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package io.neba.core.resourcemodels.mapping;
+
+import io.neba.api.annotations.ResourceModel;
+import io.neba.core.resourcemodels.metadata.MappedFieldMetaData;
+import io.neba.core.resourcemodels.metadata.ResourceModelMetaData;
+
+import javax.annotation.Nonnull;
+
+import static io.neba.core.resourcemodels.mapping.FieldValueMappingCallback.FieldMapping;
+import static io.neba.core.util.Annotations.annotations;
+
+/**
+ * The immutable result of compiling the {@link ResourceModelMetaData#getMappableFields() mappable fields}
+ * of a {@link io.neba.api.annotations.ResourceModel} into {@link FieldMapping field mappings}. Mapping a model
+ * using a plan means {@link #mapWith(FieldValueMappingCallback) applying} each field mapping in order, without having to
+ * re-evaluate how each field is resolved or which {@link AnnotatedFieldMappers custom mappers} apply.
+ * <br />
+ * A plan is compiled with the custom mappers of a specific {@link AnnotatedFieldMappers#getGeneration() generation}
+ * and must be re-compiled when the generation changes.
+ *
+ * @author Olaf Otto
+ * @see ResourceToModelMapper
+ */
+final class MappingPlan {
+    private final ResourceModelMetaData metaData;
+    private final FieldMapping[] fieldMappings;
+    private final int mappersGeneration;
+    private final boolean detached;
+
+    /**
+     * @param metaData must not be <code>null</code>.
+     * @param mappers  must not be <code>null</code>.
+     * @return never <code>null</code>.
+     */
+    @Nonnull
+    static MappingPlan compile(@Nonnull ResourceModelMetaData metaData, @Nonnull AnnotatedFieldMappers mappers) {
+        if (metaData == null) {
+            throw new IllegalArgumentException("Method argument metaData must not be null.");
+        }
+        if (mappers == null) {
+            throw new IllegalArgumentException("Method argument mappers must not be null.");
+        }
+
+        // Obtain the generation prior to the mappers to never consider outdated mappers current.
+        final int generation = mappers.getGeneration();
+        final MappedFieldMetaData[] mappableFields = metaData.getMappableFields();
+        final FieldMapping[] fieldMappings = new FieldMapping[mappableFields.length];
+        boolean detached = true;
+        for (int i = 0; i < mappableFields.length; ++i) {
+            fieldMappings[i] = FieldMapping.compile(mappableFields[i], mappers);
+            detached &= isDetached(mappableFields[i]);
+        }
+
+        return new MappingPlan(metaData, fieldMappings, generation, detached);
+    }
+
+    /**
+     * A field is detached from the resource resolver used to map it if its value is a plain property value or
+     * a nested {@link ResourceModel} (which is in turn subject to this check).
+     * Lazy-loading fields, {@link io.neba.api.annotations.Children} or {@link io.neba.api.annotations.Reference} collections
+     * and any other types, such as resources or adapter types, may retain the resource resolver.
+     */
+    private static boolean isDetached(MappedFieldMetaData field) {
+        if (field.isLazy() || field.isChildrenAnnotationPresent() || field.isCollectionType() && field.isReference()) {
+            return false;
+        }
+        if (field.isPropertyType() && !field.isReference()) {
+            return true;
+        }
+        return annotations(field.getType()).contains(ResourceModel.class);
+    }
+
+    private MappingPlan(ResourceModelMetaData metaData, FieldMapping[] fieldMappings, int mappersGeneration, boolean detached) {
+        this.metaData = metaData;
+        this.fieldMappings = fieldMappings;
+        this.mappersGeneration = mappersGeneration;
+        this.detached = detached;
+    }
+
+    /**
+     * @param callback must not be <code>null</code>.
+     */
+    void mapWith(@Nonnull FieldValueMappingCallback callback) {
+        for (FieldMapping fieldMapping : this.fieldMappings) {
+            callback.doWith(fieldMapping);
+        }
+    }
+
+    /**
+     * @return whether this plan was compiled with the current {@link AnnotatedFieldMappers#getGeneration() generation}
+     * of the given mappers.
+     */
+    boolean isCurrentFor(@Nonnull AnnotatedFieldMappers mappers) {
+        return this.mappersGeneration == mappers.getGeneration();
+    }
+
+    /**
+     * @return whether the mapped model does not retain state bound to the request or resource resolver used to map it
+     * as far as its own fields are concerned, i.e. whether it may be shared across requests.
+     */
+    boolean isDetached() {
+        return this.detached;
+    }
+
+    @Nonnull
+    ResourceModelMetaData getMetaData() {
+        return this.metaData;
+    }
+
+    int size() {
+        return this.fieldMappings.length;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [" + this.metaData + ", " + this.fieldMappings.length + " fields]";
+    }
+}
@@ -20,10 +20,16 @@ import io.neba.core.resourcemodels.metadata.ResourceModelMetaData;
 import org.osgi.service.component.annotations.Component;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.EmptyStackException;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+
+import static java.util.Collections.synchronizedMap;
 
 import static java.lang.ThreadLocal.withInitial;
 
@@ -31,7 +37,8 @@ import static java.lang.ThreadLocal.withInitial;
 /**
  * Provides thread-local tracking of mapping invocations in order to support cycles in mappings
  * and gather statistical data regarding mapping depths of
- * {@link io.neba.api.annotations.ResourceModel resource models}.
+ * {@link io.neba.api.annotations.ResourceModel resource models}. When a nested mapping ends, the
+ * {@link Mapping#getDependencies() resources it depends on} are included in the dependencies of its parent mapping, if both record their dependencies.
  *
  * @author Olaf Otto
  */
@@ -93,7 +100,8 @@ public class NestedMappingSupport {
     }
 
     /**
-     * Ends a mapping that was {@link #push(Mapping) begun}. Removes thread-local tracking once the mapping stack is empty.
+     * Ends a mapping that was {@link #push(Mapping) begun}. Includes the mapping's {@link Mapping#getDependencies() dependencies}
+     * in the parent mapping, if any. Removes thread-local tracking once the mapping stack is empty.
      */
     void pop() {
         MappingStack mappingStack = this.mappingStack.get();
@@ -129,6 +137,89 @@ public class NestedMappingSupport {
         return this.mappingStack.get().contains(metadata);
     }
 
+    /**
+     * Captures the ongoing mappings and recorded mappings of the current thread, such that mappings can
+     * be executed in other threads as if they were nested within the current mapping, e.g. when
+     * {@link ChildrenMappingPool mapping children in parallel}.
+     *
+     * @return never <code>null</code>.
+     */
+    @Nonnull
+    Fork fork() {
+        MappingStack mappingStack = this.mappingStack.get();
+        List<Mapping<?>> ongoingMappings = new ArrayList<>();
+        for (Mapping<?> mapping : mappingStack.getMappings()) {
+            ongoingMappings.add(mapping);
+        }
+        if (mappingStack.peek() == null) {
+            this.mappingStack.remove();
+        }
+        Map<Object, Mapping<?>> recordedMappings = this.recordedMappings.get();
+        return new Fork(ongoingMappings, recordedMappings == null ? null : synchronizedMap(recordedMappings));
+    }
+
+    /**
+     * The mapping state of a thread {@link #fork() forked} to other threads.
+     *
+     * @author Olaf Otto
+     */
+    final class Fork {
+        private final List<Mapping<?>> ongoingMappings;
+        private final Map<Object, Mapping<?>> recordedMappings;
+
+        private Fork(List<Mapping<?>> ongoingMappings, Map<Object, Mapping<?>> recordedMappings) {
+            this.ongoingMappings = ongoingMappings;
+            this.recordedMappings = recordedMappings;
+        }
+
+        /**
+         * Executes the task in the current thread with the ongoing mappings of the forked thread. Mappings
+         * executed by the task thus detect cycles with the ongoing mappings, are {@link #getRecordedMappings() recorded} and
+         * include their dependencies in the forked thread's current mapping. Afterwards, the
+         * previous mapping state of the current thread is restored. The task must not leave any mapping
+         * {@link #push(Mapping) pushed}.
+         *
+         * @param task must not be <code>null</code>.
+         * @return the result of the task.
+         */
+        <T> T run(@Nonnull Supplier<T> task) {
+            if (task == null) {
+                throw new IllegalArgumentException("Method argument task must not be null.");
+            }
+
+            // Threads may execute tasks while waiting for other tasks, e.g. when work-stealing. Thus, the
+            // thread may already have a mapping state that must be restored.
+            final MappingStack previousStack = mappingStack.get();
+            final Map<Object, Mapping<?>> previousRecordedMappings = NestedMappingSupport.this.recordedMappings.get();
+
+            MappingStack forkedStack = new MappingStack(this.recordedMappings);
+            for (Mapping<?> mapping : this.ongoingMappings) {
+                forkedStack.push(mapping);
+            }
+            mappingStack.set(forkedStack);
+            setRecordedMappings(this.recordedMappings);
+
+            try {
+                return task.get();
+            } finally {
+                if (previousStack.peek() == null) {
+                    mappingStack.remove();
+                } else {
+                    mappingStack.set(previousStack);
+                }
+                setRecordedMappings(previousRecordedMappings);
+            }
+        }
+
+        private void setRecordedMappings(Map<Object, Mapping<?>> recordedMappings) {
+            if (recordedMappings == null) {
+                NestedMappingSupport.this.recordedMappings.remove();
+            } else {
+                NestedMappingSupport.this.recordedMappings.set(recordedMappings);
+            }
+        }
+    }
+
     /**
      * Represents the stack of the currently ongoing mappings.
      *
@@ -181,6 +272,10 @@ public class NestedMappingSupport {
                 this.recordedMappings.put(this.tail.mapping.getMappedModel(), this.tail.mapping);
             }
 
+            if (this.tail.previous != null) {
+                this.tail.previous.mapping.include(this.tail.mapping);
+            }
+
             tail = tail.previous;
 
             return stack.size();
@@ -0,0 +1,164 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.mapping;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Orders children by a property, as specified via {@link io.neba.api.annotations.Children#orderBy()}.
+ * The property is read from the {@link ValueMap} of each child before the child is adapted.
+ * <br />
+ * The ordered children are provided via a heap that is built in linear time. Each child is only
+ * put into place when it is requested, i.e. when taking the first <em>k</em> of <em>n</em> children -
+ * e.g. when the children are {@link io.neba.api.annotations.Children#limit() limited} -
+ * only the first <em>k</em> children are sorted (partial heap sort). Thus, children that are
+ * never requested are neither sorted nor adapted.
+ * <br />
+ * Children are compared by their raw property value. Children lacking the property are ordered last, regardless
+ * of the direction of the order. Children with equal values retain their original order.
+ *
+ * @author Olaf Otto
+ */
+final class OrderedChildren implements Iterator<Resource> {
+    /**
+     * @param children     must not be <code>null</code>.
+     * @param propertyName the name of the property to order by. Must not be <code>null</code>.
+     * @param descending   whether to order by descending property values.
+     * @param properties   provides the properties of a child. Must not be <code>null</code>.
+     * @return the children in order. Never <code>null</code>.
+     */
+    @Nonnull
+    static Iterator<Resource> order(@Nonnull Iterator<Resource> children,
+                                    @Nonnull String propertyName,
+                                    boolean descending,
+                                    @Nonnull Function<Resource, ValueMap> properties) {
+        if (children == null) {
+            throw new IllegalArgumentException("Method argument children must not be null.");
+        }
+        if (propertyName == null) {
+            throw new IllegalArgumentException("Method argument propertyName must not be null.");
+        }
+        if (properties == null) {
+            throw new IllegalArgumentException("Method argument properties must not be null.");
+        }
+
+        final List<Entry> entries = new ArrayList<>();
+        for (int index = 0; children.hasNext(); ++index) {
+            Resource child = children.next();
+            entries.add(new Entry(child, sortKeyOf(properties.apply(child), propertyName), index, descending));
+        }
+
+        // Heapifies the entries in O(n).
+        return new OrderedChildren(new PriorityQueue<>(entries));
+    }
+
+    private final PriorityQueue<Entry> heap;
+
+    private OrderedChildren(PriorityQueue<Entry> heap) {
+        this.heap = heap;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !this.heap.isEmpty();
+    }
+
+    @Override
+    public Resource next() {
+        Entry entry = this.heap.poll();
+        if (entry == null) {
+            throw new NoSuchElementException();
+        }
+        return entry.child;
+    }
+
+    /**
+     * @return the property value, or the first value of a multi-value property. <code>null</code> if the
+     * property does not exist.
+     */
+    @CheckForNull
+    private static Object sortKeyOf(@CheckForNull ValueMap properties, String propertyName) {
+        if (properties == null) {
+            return null;
+        }
+        Object value = properties.get(propertyName);
+        if (value != null && value.getClass().isArray()) {
+            return Array.getLength(value) == 0 ? null : Array.get(value, 0);
+        }
+        return value;
+    }
+
+    /**
+     * Compares values of the same type by their natural order, numbers by their numeric value and all other values
+     * by their String representation.
+     */
+    @SuppressWarnings("unchecked")
+    private static int compare(@Nonnull Object first, @Nonnull Object second) {
+        if (first instanceof Comparable && first.getClass() == second.getClass()) {
+            return ((Comparable<Object>) first).compareTo(second);
+        }
+        if (first instanceof Number && second instanceof Number) {
+            return Double.compare(((Number) first).doubleValue(), ((Number) second).doubleValue());
+        }
+        return first.toString().compareTo(second.toString());
+    }
+
+    /**
+     * A child, its sort key and its original position.
+     *
+     * @author Olaf Otto
+     */
+    private static class Entry implements Comparable<Entry> {
+        private final Resource child;
+        private final Object sortKey;
+        private final int index;
+        private final boolean descending;
+
+        private Entry(Resource child, @CheckForNull Object sortKey, int index, boolean descending) {
+            this.child = child;
+            this.sortKey = sortKey;
+            this.index = index;
+            this.descending = descending;
+        }
+
+        @Override
+        public int compareTo(@Nonnull Entry other) {
+            int result;
+            if (this.sortKey == null || other.sortKey == null) {
+                // Children without a value are always last.
+                result = this.sortKey == other.sortKey ? 0 : this.sortKey == null ? 1 : -1;
+            } else {
+                result = compare(this.sortKey, other.sortKey);
+                if (this.descending) {
+                    result = -result;
+                }
+            }
+            return result == 0 ? Integer.compare(this.index, other.index) : result;
+        }
+    }
+}
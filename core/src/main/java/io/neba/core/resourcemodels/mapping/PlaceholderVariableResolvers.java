@@ -1,23 +1,63 @@
 package io.neba.core.resourcemodels.mapping;
 
 import io.neba.api.spi.PlaceholderVariableResolver;
+import io.neba.core.util.ResourcePaths.ResourcePath;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 
-import java.util.ArrayList;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 
 import static java.lang.System.getProperty;
 import static java.lang.System.getenv;
+import static org.osgi.framework.Constants.SERVICE_RANKING;
+import static org.osgi.framework.Constants.SERVICE_VENDOR;
 import static org.osgi.service.component.annotations.ReferenceCardinality.MULTIPLE;
 import static org.osgi.service.component.annotations.ReferencePolicy.DYNAMIC;
 
 /**
+ * Resolves placeholder variables using the registered {@link PlaceholderVariableResolver resolvers}, falling back
+ * to environment variables and system properties. {@link #resolve(ResourcePath) Resolved paths} consisting of
+ * {@link PlaceholderVariableResolver#isConstant(String) constant} variables or environment variables only are cached
+ * until a resolver is bound or unbound. Paths containing unresolvable variables are never cached.
+ * <br />
+ * As a request filter, this component provides a request scope for
+ * {@link PlaceholderVariableResolver#isRequestConstant(String) request-constant} variables: Their values, and the paths
+ * consisting of constant and request-constant variables, are resolved once per request.
+ *
  * @author Olaf Otto
  */
-@Component(service = PlaceholderVariableResolvers.class)
-public class PlaceholderVariableResolvers {
-    private final Collection<PlaceholderVariableResolver> resolvers = new ArrayList<>();
+@Component(
+        service = {PlaceholderVariableResolvers.class, Filter.class},
+        property = {
+                SERVICE_VENDOR + "=neba.io",
+                "sling.filter.scope=REQUEST",
+                "sling.filter.scope=ERROR",
+                SERVICE_RANKING + ":Integer=9000"
+        }
+)
+public class PlaceholderVariableResolvers implements Filter {
+    private static final int NOT_CONSTANT = 0;
+    private static final int REQUEST_CONSTANT = 1;
+    private static final int CONSTANT = 2;
+
+    private final Collection<PlaceholderVariableResolver> resolvers = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<RequestScope> requestScope = new ThreadLocal<>();
+    // The resolved paths are specific to the currently bound resolvers. Thus, the cache is replaced
+    // whenever a resolver is bound or unbound.
+    private volatile Map<String, String> resolvedPaths = new ConcurrentHashMap<>();
 
     @Reference(
             cardinality = MULTIPLE,
@@ -25,6 +65,7 @@ public class PlaceholderVariableResolvers {
             unbind = "unbind")
     protected void bind(PlaceholderVariableResolver resolver) {
         this.resolvers.add(resolver);
+        this.resolvedPaths = new ConcurrentHashMap<>();
     }
 
     @SuppressWarnings("unused")
@@ -33,6 +74,44 @@ public class PlaceholderVariableResolvers {
             return;
         }
         this.resolvers.remove(resolver);
+        this.resolvedPaths = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @param path must not be <code>null</code>.
+     * @return the path with all resolvable placeholders replaced by their values. Never <code>null</code>.
+     */
+    String resolve(ResourcePath path) {
+        if (path == null) {
+            throw new IllegalArgumentException("Method argument path must not be null");
+        }
+        if (!path.hasPlaceholders()) {
+            return path.getPath();
+        }
+
+        final Map<String, String> resolvedPaths = this.resolvedPaths;
+        final String template = path.getPath();
+        String resolvedPath = resolvedPaths.get(template);
+        if (resolvedPath != null) {
+            return resolvedPath;
+        }
+
+        final RequestScope scope = currentScope(resolvedPaths);
+        if (scope != null) {
+            resolvedPath = scope.resolvedPaths.get(template);
+            if (resolvedPath != null) {
+                return resolvedPath;
+            }
+        }
+
+        final int[] constancy = {CONSTANT};
+        resolvedPath = path.resolve(variableName -> resolve(variableName, constancy, scope)).getPath();
+        if (constancy[0] == CONSTANT) {
+            resolvedPaths.put(template, resolvedPath);
+        } else if (constancy[0] == REQUEST_CONSTANT && scope != null) {
+            scope.resolvedPaths.put(template, resolvedPath);
+        }
+        return resolvedPath;
     }
 
     /**
@@ -44,11 +123,85 @@ public class PlaceholderVariableResolvers {
             throw new IllegalArgumentException("Method argument variableName must not be null");
         }
 
+        return resolve(variableName, new int[1], currentScope(this.resolvedPaths));
+    }
+
+    /**
+     * Captures the request scope of the current thread, such that variables can be resolved in other threads
+     * on behalf of the current request, e.g. when {@link ChildrenMappingPool mapping children in parallel}.
+     *
+     * @return never <code>null</code>.
+     */
+    @Nonnull
+    Fork fork() {
+        return new Fork(this.requestScope.get());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void doFilter(@Nonnull ServletRequest request, @Nonnull ServletResponse response, @Nonnull FilterChain chain) throws IOException, ServletException {
+        final RequestScope previousScope = this.requestScope.get();
+        if (previousScope != null) {
+            // E.g. when an error is handled during a request, the request scope is retained.
+            chain.doFilter(request, response);
+            return;
+        }
+
+        this.requestScope.set(new RequestScope(this.resolvedPaths));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            this.requestScope.remove();
+        }
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        // ignore
+    }
+
+    @Override
+    public void destroy() {
+        // ignore
+    }
+
+    /**
+     * @param constancy lowered to the constancy of the resolved value. Environment variables are considered constant,
+     *                  system properties and unresolvable variables are not.
+     * @param scope     the current request scope, can be <code>null</code>.
+     */
+    private String resolve(String variableName, int[] constancy, @CheckForNull RequestScope scope) {
+        if (scope != null) {
+            String resolved = scope.variables.get(variableName);
+            if (resolved != null) {
+                constancy[0] = Math.min(constancy[0], REQUEST_CONSTANT);
+                return resolved;
+            }
+        }
+
         for (PlaceholderVariableResolver resolver : resolvers) {
             String resolved = resolver.resolve(variableName);
-            if (resolved != null) {
+            if (resolved == null) {
+                // The resolver may well provide a value later on, e.g. within a request.
+                if (!resolver.isConstant(variableName)) {
+                    constancy[0] = NOT_CONSTANT;
+                }
+                continue;
+            }
+            if (resolver.isConstant(variableName)) {
                 return resolved;
             }
+            if (resolver.isRequestConstant(variableName)) {
+                constancy[0] = Math.min(constancy[0], REQUEST_CONSTANT);
+                if (scope != null) {
+                    scope.variables.put(variableName, resolved);
+                }
+                return resolved;
+            }
+            constancy[0] = NOT_CONSTANT;
+            return resolved;
         }
 
         String resolved = getenv(variableName);
@@ -56,6 +209,75 @@ public class PlaceholderVariableResolvers {
             return resolved;
         }
 
+        // System properties may change at any time. Likewise, paths containing unresolved variables must not be cached.
+        constancy[0] = NOT_CONSTANT;
         return getProperty(variableName, null);
     }
+
+    /**
+     * @return the request scope of the current thread, unless it was created for resolvers that are no longer bound.
+     */
+    @CheckForNull
+    private RequestScope currentScope(Map<String, String> resolvedPaths) {
+        RequestScope scope = this.requestScope.get();
+        return scope == null || scope.generation != resolvedPaths ? null : scope;
+    }
+
+    /**
+     * The request scope of a thread {@link #fork() forked} to other threads.
+     *
+     * @author Olaf Otto
+     */
+    final class Fork {
+        private final RequestScope scope;
+
+        private Fork(@CheckForNull RequestScope scope) {
+            this.scope = scope;
+        }
+
+        /**
+         * Executes the task in the current thread with the request scope of the forked thread. Afterwards, the previous
+         * request scope of the current thread is restored.
+         *
+         * @param task must not be <code>null</code>.
+         * @return the result of the task.
+         */
+        <T> T run(@Nonnull Supplier<T> task) {
+            if (task == null) {
+                throw new IllegalArgumentException("Method argument task must not be null.");
+            }
+            if (this.scope == null) {
+                return task.get();
+            }
+
+            final RequestScope previousScope = requestScope.get();
+            requestScope.set(this.scope);
+            try {
+                return task.get();
+            } finally {
+                if (previousScope == null) {
+                    requestScope.remove();
+                } else {
+                    requestScope.set(previousScope);
+                }
+            }
+        }
+    }
+
+    /**
+     * The {@link PlaceholderVariableResolver#isRequestConstant(String) request-constant} variables and paths resolved
+     * during a request. Thread-safe as the scope may be {@link #fork() shared} with other threads.
+     *
+     * @author Olaf Otto
+     */
+    private static class RequestScope {
+        private final Map<String, String> variables = new ConcurrentHashMap<>();
+        private final Map<String, String> resolvedPaths = new ConcurrentHashMap<>();
+        // The constant paths cache at the time the scope was created, i.e. the generation of the bound resolvers.
+        private final Map<String, String> generation;
+
+        private RequestScope(Map<String, String> generation) {
+            this.generation = generation;
+        }
+    }
 }
@@ -19,7 +19,9 @@ package io.neba.core.resourcemodels.mapping;
 import io.neba.api.spi.AopSupport;
 import io.neba.api.spi.ResourceModelFactory;
 import io.neba.api.spi.ResourceModelPostProcessor;
-import io.neba.core.resourcemodels.metadata.MappedFieldMetaData;
+import io.neba.core.resourcemodels.caching.RequestScopedResourceModelCache;
+import io.neba.core.resourcemodels.caching.RequestScopedValueMapCache;
+import io.neba.core.resourcemodels.caching.SharedResourceModelCache;
 import io.neba.core.resourcemodels.metadata.ResourceModelMetaData;
 import io.neba.core.resourcemodels.metadata.ResourceModelMetaDataRegistrar;
 import io.neba.core.util.OsgiModelSource;
@@ -29,10 +31,17 @@ import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static io.neba.api.spi.ResourceModelFactory.ContentToModelMappingCallback;
+import static io.neba.core.resourcemodels.caching.SharedResourceModelCache.CachedModel;
 import static java.lang.System.currentTimeMillis;
+import static java.util.Arrays.asList;
 import static org.apache.commons.lang3.StringUtils.join;
 import static org.osgi.service.component.annotations.ReferenceCardinality.MULTIPLE;
 import static org.osgi.service.component.annotations.ReferencePolicy.DYNAMIC;
@@ -41,7 +50,14 @@ import static org.osgi.service.component.annotations.ReferencePolicy.DYNAMIC;
  * Maps the properties of a {@link Resource} onto a {@link io.neba.api.annotations.ResourceModel} using
  * the {@link FieldValueMappingCallback}. Applies the registered
  * {@link ResourceModelPostProcessor post processors} to the model before and
- * after the fields are mapped.
+ * after the fields are mapped. The mappable fields of each model are compiled once into a {@link MappingPlan}
+ * that is re-used for all subsequent mappings of the model.
+ * <br />
+ * If they are consumed, a {@link Mapping} records the paths of the resources it reads, including those read by nested mappings. These
+ * {@link Mapping#getDependencies() dependencies} are used to evict {@link io.neba.api.annotations.Shareable} models from the
+ * {@link SharedResourceModelCache}, if it is enabled, and are provided to post processors that {@link ResourceModelPostProcessor#requiresDependencies()
+ * require them}. In both cases, the model is mapped {@link RequestScopedResourceModelCache#isolated(java.util.function.Supplier) isolated}
+ * from the request-scoped cache, such that the dependencies of nested models are always included. Otherwise, no dependencies are recorded.
  *
  * @author Olaf Otto
  */
@@ -49,6 +65,8 @@ import static org.osgi.service.component.annotations.ReferencePolicy.DYNAMIC;
 public class ResourceToModelMapper {
     private final List<ResourceModelPostProcessor> postProcessors = new ArrayList<>();
     private final List<AopSupport> aopSupports = new ArrayList<>();
+    private volatile boolean dependenciesRequiredByPostProcessors = false;
+    private final Map<ResourceModelMetaData, MappingPlan> mappingPlans = new ConcurrentHashMap<>();
 
     @Reference
     private ModelPostProcessor modelPostProcessor;
@@ -60,6 +78,16 @@ public class ResourceToModelMapper {
     private PlaceholderVariableResolvers variableResolvers;
     @Reference
     private ResourceModelMetaDataRegistrar resourceModelMetaDataRegistrar;
+    @Reference
+    private SharedResourceModelCache sharedCache;
+    @Reference
+    private RequestScopedResourceModelCache requestScopedCache;
+    @Reference
+    private ChildrenMappingPool childrenMappingPool;
+    @Reference
+    private BatchResourceResolvers batchResourceResolvers;
+    @Reference
+    private RequestScopedValueMapCache valueMapCache;
 
     /**
      * @param <T>                 the model type.
@@ -78,10 +106,19 @@ public class ResourceToModelMapper {
         final OsgiModelSource<T> modelSource = resolvedModelSource.getSource();
         final Class<?> modelType = modelSource.getModelType();
         final ResourceModelMetaData metaData = this.resourceModelMetaDataRegistrar.get(modelType);
-        final Mapping<T> mapping = new Mapping<>(resource.getPath(), metaData, resolvedModelSource.getResolvedResourceType());
         // Do not track mapping time for nested resource models of the same type: this would yield
         // a useless average and total mapping time as the mapping durations would sum up multiple times.
         final boolean trackMappingDuration = !this.nestedMappingSupport.hasOngoingMapping(metaData);
+        final boolean shareable = metaData.isShareable() && this.sharedCache.isEnabled();
+        // The dependencies of a mapping are only recorded if they are consumed, i.e. if the model is cached, they are provided to
+        // post processors or the parent mapping records its dependencies.
+        final Mapping<?> parentMapping = this.nestedMappingSupport.peek();
+        final boolean parentRecordsDependencies = parentMapping != null && parentMapping.isRecordingDependencies();
+        final boolean recordDependencies = shareable || this.dependenciesRequiredByPostProcessors || parentRecordsDependencies;
+        // Nested models taken from the request-scoped cache would not contribute their dependencies. A recording parent already
+        // isolates its nested mappings.
+        final boolean isolated = recordDependencies && !parentRecordsDependencies;
+        final Mapping<T> mapping = new Mapping<>(resource.getPath(), metaData, resolvedModelSource.getResolvedResourceType(), recordDependencies);
 
         final Mapping<T> alreadyOngoingMapping = this.nestedMappingSupport.push(mapping);
 
@@ -103,6 +140,17 @@ public class ResourceToModelMapper {
         }
 
         try {
+            // Obtained before the model is mapped to reject the model if its dependencies change while it is mapped.
+            final long invalidationSequence = shareable ? this.sharedCache.getInvalidationSequence() : 0;
+            if (shareable) {
+                CachedModel<T> cachedModel = this.sharedCache.get(resource, modelType);
+                if (cachedModel != null) {
+                    // The parent mapping depends on the resources the cached model was mapped from.
+                    mapping.addDependencies(asList(cachedModel.getDependencies()));
+                    return cachedModel.getModel();
+                }
+            }
+
             // Phase 1: Delegate model instantiation to factory.
             // Here, we delegate the model lifecycle to the model factory, and provide a callback that
             // applies the content-to-model mapping when invoked. This way, a factory may construct the object, inject collaborators, map content to the model
@@ -119,7 +167,7 @@ public class ResourceToModelMapper {
                 // Retain current time for statistics
                 final long startTimeInMs = trackMappingDuration ? currentTimeMillis() : 0;
 
-                T mappedModel = ResourceToModelMapper.this.map(resource, model, metaData, modelSource.getFactory());
+                T mappedModel = ResourceToModelMapper.this.map(resource, model, mapping, modelSource.getFactory());
 
                 // Always count the subsequent mapping, if there is a parent.
                 Mapping<?> parent = nestedMappingSupport.peek();
@@ -132,26 +180,72 @@ public class ResourceToModelMapper {
                     metaData.getStatistics().countMappingDuration((int) (currentTimeMillis() - startTimeInMs));
                 }
 
+                if (recordDependencies) {
+                    metaData.getStatistics().countDependencies(mapping.getNumberOfDependencies());
+                }
+
                 return mappedModel;
             };
 
-            return modelSource.getModel(cb);
+            if (!isolated) {
+                return modelSource.getModel(cb);
+            }
+
+            // Nested models must not be taken from the request-scoped cache, as the resources they were mapped from are unknown.
+            final T model = this.requestScopedCache.isolated(() -> modelSource.getModel(cb));
+            if (shareable && !mapping.isRequestBound()) {
+                this.sharedCache.put(resource, modelType, model, mapping.getDependencies(), invalidationSequence);
+            }
+            return model;
         } finally {
             this.nestedMappingSupport.pop();
+            // The dependencies were included in the parent mapping and the model is cached, if applicable.
+            mapping.complete();
         }
     }
 
-    private <T> T map(final Resource resource, final T model, final ResourceModelMetaData metaData, final ResourceModelFactory factory) {
+    private <T> T map(final Resource resource, final T model, final Mapping<T> mapping, final ResourceModelFactory factory) {
         T fieldInjectionViewOnPreprocessedModel = prepareAopEnhancedModelTypes(model);
 
-        final FieldValueMappingCallback callback = new FieldValueMappingCallback(fieldInjectionViewOnPreprocessedModel, resource, factory, this.fieldMappers, this.variableResolvers);
+        final FieldValueMappingCallback callback = new FieldValueMappingCallback(fieldInjectionViewOnPreprocessedModel, resource, factory, this.fieldMappers, this.variableResolvers, mapping, this.childrenMappingPool, this.batchResourceResolvers, this.valueMapCache);
 
-        for (MappedFieldMetaData mappedFieldMetaData : metaData.getMappableFields()) {
-            callback.doWith(mappedFieldMetaData);
+        final MappingPlan plan = getMappingPlan(mapping.getMetadata());
+        if (!plan.isDetached()) {
+            mapping.markRequestBound();
         }
+        plan.mapWith(callback);
 
         // Do not expose the unwrapped model to the post processors, use the proxy (if any) instead.
-        return postProcess(resource, model, factory);
+        return postProcess(resource, model, mapping, factory);
+    }
+
+    /**
+     * @return the current {@link MappingPlan} for the given model metadata, compiling it if it does not yet exist or is outdated.
+     */
+    private MappingPlan getMappingPlan(ResourceModelMetaData metaData) {
+        MappingPlan plan = this.mappingPlans.get(metaData);
+        if (plan != null && plan.isCurrentFor(this.fieldMappers)) {
+            return plan;
+        }
+
+        if (plan == null) {
+            // The metadata is new. This happens whenever models are (re-)registered,
+            // e.g. when a bundle is updated, thus release the plans of metadata that is no longer registered.
+            removeMappingPlansOfUnregisteredModels();
+        }
+
+        plan = MappingPlan.compile(metaData, this.fieldMappers);
+        this.mappingPlans.put(metaData, plan);
+        return plan;
+    }
+
+    private void removeMappingPlansOfUnregisteredModels() {
+        if (this.mappingPlans.isEmpty()) {
+            return;
+        }
+        Set<ResourceModelMetaData> registered = Collections.newSetFromMap(new IdentityHashMap<>());
+        registered.addAll(this.resourceModelMetaDataRegistrar.get());
+        this.mappingPlans.keySet().retainAll(registered);
     }
 
     @SuppressWarnings("unchecked")
@@ -163,13 +257,18 @@ public class ResourceToModelMapper {
         return model;
     }
 
-    private <T> T postProcess(final Resource resource, final T model, final ResourceModelFactory factory) {
+    private <T> T postProcess(final Resource resource, final T model, final Mapping<T> mapping, final ResourceModelFactory factory) {
         final ResourceModelMetaData metaData = this.resourceModelMetaDataRegistrar.get(model.getClass());
         this.modelPostProcessor.processAfterMapping(metaData, model);
 
+        if (this.postProcessors.isEmpty()) {
+            return model;
+        }
+
+        final Set<String> dependencies = mapping.getDependencies();
         T currentModel = model;
         for (ResourceModelPostProcessor processor : this.postProcessors) {
-            T processedModel = processor.processAfterMapping(currentModel, resource, factory);
+            T processedModel = processor.processAfterMapping(currentModel, resource, factory, dependencies);
             if (processedModel != null) {
                 currentModel = processedModel;
             }
@@ -183,6 +282,7 @@ public class ResourceToModelMapper {
             unbind = "unbindProcessor")
     protected void bindProcessor(ResourceModelPostProcessor postProcessor) {
         this.postProcessors.add(postProcessor);
+        updateDependenciesRequiredByPostProcessors();
     }
 
     protected void unbindProcessor(ResourceModelPostProcessor postProcessor) {
@@ -190,6 +290,15 @@ public class ResourceToModelMapper {
             return;
         }
         this.postProcessors.remove(postProcessor);
+        updateDependenciesRequiredByPostProcessors();
+    }
+
+    private void updateDependenciesRequiredByPostProcessors() {
+        boolean required = false;
+        for (ResourceModelPostProcessor processor : this.postProcessors) {
+            required |= processor.requiresDependencies();
+        }
+        this.dependenciesRequiredByPostProcessors = required;
     }
 
     protected void bindAopSupport(AopSupport aopSupport) {
@@ -0,0 +1,161 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.metadata;
+
+import io.neba.api.annotations.Children;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.lang.reflect.Field;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import static java.util.regex.Pattern.quote;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Selects the children of a {@link Children} field that are adapted, as specified via
+ * {@link Children#names()}, {@link Children#resourceTypes()} and {@link Children#properties()}.
+ * The filter is compiled once per field and evaluated against the children before they are adapted, such
+ * that children not matching the filter do not cause any adaptation or model lookup.
+ *
+ * @author Olaf Otto
+ */
+public class ChildrenFilter {
+    /**
+     * @return the filter specified by the annotation, or <code>null</code> if the annotation specifies no filter.
+     */
+    @CheckForNull
+    static ChildrenFilter filterFor(@Nonnull Children children, @Nonnull Field field) {
+        if (children.names().length == 0 && children.resourceTypes().length == 0 && children.properties().length == 0) {
+            return null;
+        }
+        return new ChildrenFilter(children, field);
+    }
+
+    private final Pattern[] names;
+    private final String[] resourceTypes;
+    private final String[] propertyNames;
+    private final String[] propertyValues;
+
+    private ChildrenFilter(Children children, Field field) {
+        this.names = new Pattern[children.names().length];
+        for (int i = 0; i < this.names.length; ++i) {
+            if (isBlank(children.names()[i])) {
+                throw new IllegalArgumentException("The @Children name patterns of field " + field + " must not be blank.");
+            }
+            this.names[i] = toPattern(children.names()[i]);
+        }
+
+        this.resourceTypes = children.resourceTypes();
+
+        String[] properties = children.properties();
+        this.propertyNames = new String[properties.length];
+        this.propertyValues = new String[properties.length];
+        for (int i = 0; i < properties.length; ++i) {
+            int separator = properties[i].indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("The @Children property filter '" + properties[i] + "' of field " + field +
+                        " is invalid: Property filters must have the form name=value.");
+            }
+            this.propertyNames[i] = properties[i].substring(0, separator);
+            this.propertyValues[i] = properties[i].substring(separator + 1);
+        }
+    }
+
+    /**
+     * @param name the name of a child, must not be <code>null</code>.
+     * @return whether the name matches any of the {@link Children#names() name patterns}, or <code>true</code> if no patterns are specified.
+     */
+    public boolean acceptsName(@Nonnull String name) {
+        if (this.names.length == 0) {
+            return true;
+        }
+        for (Pattern pattern : this.names) {
+            if (pattern.matcher(name).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param resource   the resource that is adapted, i.e. the child or the resource {@link Children#resolveBelowEveryChild() below the child}.
+     *                   Must not be <code>null</code>.
+     * @param properties provides the properties of the resource. Only invoked if {@link Children#properties() property filters} are specified.
+     *                   Must not be <code>null</code>.
+     * @return whether the resource is of any of the {@link Children#resourceTypes() resource types} and has all
+     * {@link Children#properties() properties}.
+     */
+    public boolean accepts(@Nonnull Resource resource, @Nonnull Function<Resource, ValueMap> properties) {
+        return isOfResourceType(resource) && hasProperties(resource, properties);
+    }
+
+    private boolean isOfResourceType(Resource resource) {
+        if (this.resourceTypes.length == 0) {
+            return true;
+        }
+        for (String resourceType : this.resourceTypes) {
+            if (resource.isResourceType(resourceType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasProperties(Resource resource, Function<Resource, ValueMap> properties) {
+        if (this.propertyNames.length == 0) {
+            return true;
+        }
+        ValueMap valueMap = properties.apply(resource);
+        if (valueMap == null) {
+            return false;
+        }
+        for (int i = 0; i < this.propertyNames.length; ++i) {
+            if (!Objects.equals(this.propertyValues[i], valueMap.get(this.propertyNames[i], String.class))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compiles a glob pattern where <code>*</code> matches any number of characters and <code>?</code> matches a single character.
+     */
+    private static Pattern toPattern(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() + 16);
+        int literalStart = 0;
+        for (int i = 0; i < glob.length(); ++i) {
+            char c = glob.charAt(i);
+            if (c != '*' && c != '?') {
+                continue;
+            }
+            if (i > literalStart) {
+                regex.append(quote(glob.substring(literalStart, i)));
+            }
+            regex.append(c == '*' ? ".*" : ".");
+            literalStart = i + 1;
+        }
+        if (literalStart < glob.length()) {
+            regex.append(quote(glob.substring(literalStart)));
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
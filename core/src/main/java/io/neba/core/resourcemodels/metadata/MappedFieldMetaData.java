@@ -22,30 +22,44 @@ import io.neba.api.annotations.Reference;
 import io.neba.api.annotations.This;
 import io.neba.api.resourcemodels.Lazy;
 import io.neba.core.util.Annotations;
+import io.neba.core.util.FieldAccessor;
+import io.neba.core.util.PropertyConverter;
 import io.neba.core.util.ReflectionUtil;
 import io.neba.core.util.ResourcePaths;
 import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
 import org.apache.commons.lang3.ClassUtils;
 
+import javax.annotation.CheckForNull;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import static io.neba.core.util.Annotations.annotations;
+import static io.neba.core.util.FieldAccessor.accessorFor;
+import static io.neba.core.util.PropertyConverter.converterFor;
 import static io.neba.core.util.ReflectionUtil.getInstantiableCollectionTypes;
-import static io.neba.core.util.ReflectionUtil.makeAccessible;
 import static io.neba.core.util.ReflectionUtil.getBoundaryOfParametrizedType;
 import static io.neba.core.util.ResourcePaths.path;
+import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater;
+import static net.bytebuddy.description.modifier.FieldManifestation.FINAL;
+import static net.bytebuddy.description.modifier.Visibility.PACKAGE_PRIVATE;
 import static net.bytebuddy.description.modifier.Visibility.PRIVATE;
+import static net.bytebuddy.description.modifier.Visibility.PUBLIC;
+import static net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy.Default.NO_CONSTRUCTORS;
 import static net.bytebuddy.implementation.FieldAccessor.ofField;
-import static net.bytebuddy.implementation.InvocationHandlerAdapter.toField;
+import static net.bytebuddy.implementation.MethodCall.construct;
+import static net.bytebuddy.implementation.MethodCall.invoke;
+import static net.bytebuddy.implementation.MethodCall.invokeSelf;
+import static net.bytebuddy.implementation.bytecode.assign.Assigner.Typing.DYNAMIC;
 import static net.bytebuddy.matcher.ElementMatchers.isDeclaredBy;
+import static net.bytebuddy.matcher.ElementMatchers.isPublic;
+import static net.bytebuddy.matcher.ElementMatchers.named;
 import static net.bytebuddy.matcher.ElementMatchers.not;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
@@ -59,6 +73,9 @@ import static org.apache.commons.lang3.reflect.TypeUtils.getRawType;
  * @author Olaf Otto
  */
 public class MappedFieldMetaData {
+    private static final String TARGET_FIELD = "__neba__lazyLoading_target";
+    private static final String TARGET_METHOD = "__neba__lazyLoading_getTarget";
+
     private boolean isLazy;
 
     /**
@@ -74,6 +91,7 @@ public class MappedFieldMetaData {
     }
 
     private final Field field;
+    private final FieldAccessor accessor;
     private final Annotations annotations;
     private final ResourcePaths.ResourcePath path;
     private final boolean isReference;
@@ -87,13 +105,22 @@ public class MappedFieldMetaData {
     private final boolean isChildrenAnnotationPresent;
     private final boolean isResolveBelowEveryChildPathPresentOnChildren;
     private final String resolveBelowEveryChildPathOnChildren;
+    private final boolean isChildrenMappedInParallel;
+    private final int childrenOffset;
+    private final boolean isChildrenLimited;
+    private final int childrenLimit;
+    private final ChildrenFilter childrenFilter;
+    private final boolean isChildrenOrdered;
+    private final String childrenOrderProperty;
+    private final boolean isChildrenOrderDescending;
 
     private final Class<?> typeParameter;
     private final Class<?> arrayTypeOfComponentType;
     private final Type genericFieldType;
     private final Class<?> fieldType;
     private final Class<?> modelType;
-    private final Class<? extends NebaDelegatingLazyLoadingProxy> collectionProxyFactory;
+    private final LazyLoadingProxyFactory collectionProxyFactory;
+    private final PropertyConverter<?> propertyConverter;
 
     /**
      * Immediately extracts all metadata for the provided field.
@@ -129,6 +156,14 @@ public class MappedFieldMetaData {
         this.appendPathOnReference = getAppendPathFromReference();
         this.isResolveBelowEveryChildPathPresentOnChildren = isResolveBelowEveryChildPathPresentOnChildrenInternal();
         this.resolveBelowEveryChildPathOnChildren = getResolveBelowEveryChildPathFromChildren();
+        this.isChildrenMappedInParallel = this.isChildrenAnnotationPresent && this.annotations.get(Children.class).parallel();
+        this.childrenOffset = getChildrenOffsetInternal();
+        this.childrenLimit = this.isChildrenAnnotationPresent ? this.annotations.get(Children.class).limit() : 0;
+        this.isChildrenLimited = this.childrenLimit > 0;
+        this.childrenFilter = this.isChildrenAnnotationPresent ? ChildrenFilter.filterFor(this.annotations.get(Children.class), field) : null;
+        this.isChildrenOrdered = this.isChildrenAnnotationPresent && !isBlank(this.annotations.get(Children.class).orderBy());
+        this.childrenOrderProperty = this.isChildrenOrdered ? this.annotations.get(Children.class).orderBy().trim() : null;
+        this.isChildrenOrderDescending = this.isChildrenOrdered && this.annotations.get(Children.class).descending();
         this.typeParameter = resolveTypeParameter();
         this.arrayTypeOfComponentType = resolveArrayTypeOfComponentType();
         this.path = getPathInternal();
@@ -137,8 +172,9 @@ public class MappedFieldMetaData {
 
         enforceInstantiableCollectionTypeForExplicitlyMappedFields();
         this.collectionProxyFactory = prepareProxyFactoryForCollectionTypes();
+        this.propertyConverter = getPropertyConverterInternal();
 
-        makeAccessible(field);
+        this.accessor = accessorFor(field);
     }
 
     /**
@@ -154,38 +190,51 @@ public class MappedFieldMetaData {
     }
 
     /**
-     * If the field type is eligible for automated lazy-loading, prepare a proxy class for the field type that delegates
-     * all method calls to the {@link NebaLazyLoadingHandler}. To associate this handler with instances of the generated proxy class,
-     * a special field and interface are provided to allow injection of the handlers into the instances. The infrastructure interfaces must
-     * be public as ByteBuddy enhances a publicly visible type and adding inaccessible interfaces to it would break any reflective action
-     * occurring outside of the private namespace of the interfaces.
+     * If the field type is eligible for automated lazy-loading, prepare a proxy class for the field type whose public methods
+     * invoke the same method on the {@link LazyLoadingTarget lazy-loaded target}, typed as the field type. Thus, calls to the proxy are plain
+     * method calls rather than reflective invocations. The proxy instances are created by a generated {@link LazyLoadingProxyFactory} invoking
+     * the proxy constructor. The infrastructure types must be public as ByteBuddy enhances a publicly visible type and adding inaccessible types to it
+     * would break any reflective action occurring outside of the private namespace of these types.
      */
-    @SuppressWarnings("unchecked")
-    private Class<? extends NebaDelegatingLazyLoadingProxy> prepareProxyFactoryForCollectionTypes() {
-        if (this.isInstantiableCollectionType) {
-            return (Class<? extends NebaDelegatingLazyLoadingProxy>) new ByteBuddy()
-                    .subclass(this.fieldType) // Enhance the field type by subclassing it.
-                    .defineField("__neba__lazyLoading_handler", InvocationHandler.class, PRIVATE) // Create a private member that will contain the lazy loading handler.
-                    .implement(NebaDelegatingLazyLoadingProxy.class) // We will inject the lazy loading handler using this interface.
-                    .intercept(ofField("__neba__lazyLoading_handler")) // When the interface's setter method is called, store the argument in this member.
-                    .method(not(isDeclaredBy(NebaDelegatingLazyLoadingProxy.class))) // Intercept all method calls of fieldType, except for those defined by the internal interface.
-                    .intercept(toField("__neba__lazyLoading_handler")) // Delegate all intercepted method calls to the this member
+    private LazyLoadingProxyFactory prepareProxyFactoryForCollectionTypes() {
+        if (!this.isInstantiableCollectionType) {
+            return null;
+        }
+
+        final Class<?> superType = this.fieldType.isInterface() ? Object.class : this.fieldType;
+        final Class<?> proxyType;
+        try {
+            proxyType = new ByteBuddy()
+                    .subclass(this.fieldType, NO_CONSTRUCTORS) // Enhance the field type by subclassing it.
+                    .implement(NebaDelegatingLazyLoadingProxy.class) // Mark the type as a lazy loading proxy.
+                    .defineField(TARGET_FIELD, LazyLoadingTarget.class, PRIVATE, FINAL) // Create a private member that will contain the lazy loaded target.
+                    .defineConstructor(PUBLIC)
+                    .withParameters(LazyLoadingTarget.class)
+                    .intercept(invoke(superType.getDeclaredConstructor()).andThen(ofField(TARGET_FIELD).setsArgumentAt(0))) // Store the target in the private member.
+                    .method(isPublic().and(not(isDeclaredBy(NebaDelegatingLazyLoadingProxy.class)))) // Intercept all public methods of fieldType.
+                    .intercept(invokeSelf().onMethodCall(invoke(named(TARGET_METHOD))).withAllArguments()) // Invoke the same method on the target.
+                    .defineMethod(TARGET_METHOD, this.fieldType, PACKAGE_PRIVATE) // Provide the target, typed as the field type. Must be virtual to be invocable via MethodCall.
+                    .intercept(invoke(LazyLoadingTarget.class.getMethod("get")).onField(TARGET_FIELD).withAssigner(Assigner.DEFAULT, DYNAMIC))
                     .make()
                     .load(getClass().getClassLoader())
                     .getLoaded();
+
+            return new ByteBuddy()
+                    .subclass(LazyLoadingProxyFactory.class)
+                    .method(isDeclaredBy(LazyLoadingProxyFactory.class))
+                    .intercept(construct(proxyType.getConstructor(LazyLoadingTarget.class)).withArgument(0))
+                    .make()
+                    .load(proxyType.getClassLoader())
+                    .getLoaded()
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create a lazy loading proxy for field type " + this.fieldType + ".", e);
         }
-        return null;
     }
 
     public Object getLazyLoadingProxy(Callable<?> valueFactory) {
-        NebaDelegatingLazyLoadingProxy proxy;
-        try {
-            proxy = this.collectionProxyFactory.newInstance();
-        } catch (Exception e) {
-            throw new IllegalStateException("Unable to instantiate a lazy loading proxy for field type " + this.fieldType + ".", e);
-        }
-        proxy.setHandler(new NebaLazyLoadingHandler(valueFactory));
-        return proxy;
+        return this.collectionProxyFactory.newInstance(new LazyLoadingTarget(valueFactory));
     }
 
     private String getAppendPathFromReference() {
@@ -221,6 +270,17 @@ public class MappedFieldMetaData {
                 relativePath.charAt(0) == '/' ? relativePath.substring(1) : relativePath;
     }
 
+    private int getChildrenOffsetInternal() {
+        if (!this.isChildrenAnnotationPresent) {
+            return 0;
+        }
+        int offset = this.annotations.get(Children.class).offset();
+        if (offset < 0) {
+            throw new IllegalArgumentException("The @Children offset of field " + this.field + " must not be negative, but is " + offset + ".");
+        }
+        return offset;
+    }
+
     private Class<?> resolveTypeParameter() {
         Class<?> typeParameter = null;
         if (this.isCollectionType) {
@@ -281,6 +341,19 @@ public class MappedFieldMetaData {
                         || (type.isArray() || isCollectionType) && isPropertyType(getTypeParameter());
     }
 
+    /**
+     * Binds the field to the {@link PropertyConverter} for the type its property value is retrieved as, i.e.
+     * the {@link #getArrayTypeOfTypeParameter() array type} for collections and the field type otherwise.
+     * References are retrieved as paths rather than the field type and thus have no converter.
+     */
+    private PropertyConverter<?> getPropertyConverterInternal() {
+        if (!this.isPropertyType || this.isReference) {
+            return null;
+        }
+        Class<?> propertyType = this.isInstantiableCollectionType ? this.arrayTypeOfComponentType : getType();
+        return propertyType == null ? null : converterFor(propertyType);
+    }
+
     /**
      * @return The {@link java.lang.reflect.Field#setAccessible(boolean) accessible}
      * {@link java.lang.reflect.Field} represented by this meta data.
@@ -289,6 +362,14 @@ public class MappedFieldMetaData {
         return this.field;
     }
 
+    /**
+     * @return The {@link FieldAccessor} used to read and write the value of the {@link #getField() field}
+     * when mapping, never <code>null</code>.
+     */
+    public FieldAccessor getAccessor() {
+        return this.accessor;
+    }
+
     /**
      * @return Whether this field is annotated with {@link io.neba.api.annotations.Reference}.
      */
@@ -389,6 +470,71 @@ public class MappedFieldMetaData {
         return resolveBelowEveryChildPathOnChildren;
     }
 
+    /**
+     * @return whether a {@link io.neba.api.annotations.Children} annotation is present and the children
+     * shall be mapped {@link io.neba.api.annotations.Children#parallel() in parallel}.
+     */
+    public boolean isChildrenMappedInParallel() {
+        return isChildrenMappedInParallel;
+    }
+
+    /**
+     * @return the number of children to skip as specified via {@link io.neba.api.annotations.Children#offset()},
+     * or 0 if no {@link io.neba.api.annotations.Children} annotation is present.
+     */
+    public int getChildrenOffset() {
+        return childrenOffset;
+    }
+
+    /**
+     * @return whether a {@link io.neba.api.annotations.Children} annotation is present with a positive
+     * {@link io.neba.api.annotations.Children#limit()}.
+     */
+    public boolean isChildrenLimited() {
+        return isChildrenLimited;
+    }
+
+    /**
+     * @return the {@link io.neba.api.annotations.Children#limit() maximum number of children}. Only meaningful
+     * if the children {@link #isChildrenLimited() are limited}.
+     */
+    public int getChildrenLimit() {
+        return childrenLimit;
+    }
+
+    /**
+     * @return the filter selecting the children to adapt, or <code>null</code> if the
+     * {@link io.neba.api.annotations.Children} annotation specifies no filter or is not present.
+     */
+    @CheckForNull
+    public ChildrenFilter getChildrenFilter() {
+        return childrenFilter;
+    }
+
+    /**
+     * @return whether a {@link io.neba.api.annotations.Children} annotation is present with a non-empty
+     * {@link io.neba.api.annotations.Children#orderBy()} property.
+     */
+    public boolean isChildrenOrdered() {
+        return isChildrenOrdered;
+    }
+
+    /**
+     * @return the {@link io.neba.api.annotations.Children#orderBy()} property, or
+     * <code>null</code> if the children {@link #isChildrenOrdered() are not ordered}.
+     */
+    public String getChildrenOrderProperty() {
+        return childrenOrderProperty;
+    }
+
+    /**
+     * @return whether the children {@link #isChildrenOrdered() are ordered}
+     * {@link io.neba.api.annotations.Children#descending() descending}.
+     */
+    public boolean isChildrenOrderDescending() {
+        return isChildrenOrderDescending;
+    }
+
     /**
      * @return The generic type of this field if it has a generic type declaration, such as <code>List&lt;MyModel&gt; field;</code>
      * or <code>Optional&lt;MyModel&gt; field;</code>
@@ -405,6 +551,14 @@ public class MappedFieldMetaData {
         return arrayTypeOfComponentType;
     }
 
+    /**
+     * @return the converter retrieving the property value of this field, or <code>null</code> if
+     * the field is not a {@link #isPropertyType() property type} or a {@link #isReference() reference}.
+     */
+    public PropertyConverter<?> getPropertyConverter() {
+        return this.propertyConverter;
+    }
+
     /**
      * @return the annotations of the field, never <code>null</code>.
      */
@@ -438,30 +592,44 @@ public class MappedFieldMetaData {
         return getClass().getName() + " [" + this.field + "]";
     }
 
+    /**
+     * Implemented by all lazy loading proxies.
+     */
     public interface NebaDelegatingLazyLoadingProxy {
-        void setHandler(final InvocationHandler handler);
     }
 
     /**
-     * A simple lazy loader that will obtain a value from a provided {@link Callable} at most once,
-     * and retain the {@link Callable#call() obtained value} in an instance field.
+     * Creates lazy loading proxy instances. Implemented by a generated type per proxy type,
+     * such that proxies are created by a plain constructor invocation.
+     */
+    public interface LazyLoadingProxyFactory {
+        Object newInstance(LazyLoadingTarget target);
+    }
+
+    /**
+     * A simple lazy loader that will obtain a value from a provided {@link Callable} upon first access
+     * and retain the {@link Callable#call() obtained value} in an instance field. Threads concurrently
+     * loading the value all use the value set first.
      */
-    private static class NebaLazyLoadingHandler implements InvocationHandler {
-        static final Object UNSET = new Object();
+    public static final class LazyLoadingTarget {
+        private static final Object UNSET = new Object();
+        private static final AtomicReferenceFieldUpdater<LazyLoadingTarget, Object> TARGET =
+                newUpdater(LazyLoadingTarget.class, Object.class, "target");
+
         private final Callable<?> factory;
-        private Object target = UNSET;
+        private volatile Object target = UNSET;
 
-        private NebaLazyLoadingHandler(final Callable<?> factory) {
+        private LazyLoadingTarget(final Callable<?> factory) {
             this.factory = factory;
         }
 
-        @Override
-        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        public Object get() throws Exception {
+            Object target = this.target;
             if (target == UNSET) {
-                target = factory.call();
+                TARGET.compareAndSet(this, UNSET, this.factory.call());
+                target = this.target;
             }
-            return method.invoke(target, args);
+            return target;
         }
     }
-
 }
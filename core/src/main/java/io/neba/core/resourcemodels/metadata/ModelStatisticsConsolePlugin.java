@@ -188,6 +188,10 @@ public class ModelStatisticsConsolePlugin extends AbstractWebConsolePlugin {
         data.put("minimumMappingDuration", statistics.getMinimumMappingDuration());
         data.put("mappingDurationMedian", statistics.getMappingDurationMedian());
         data.put("cacheHits", statistics.getCacheHits());
+        data.put("cacheMisses", statistics.getCacheMisses());
+        data.put("cacheEvictions", statistics.getCacheEvictions());
+        data.put("averageDependencies", statistics.getAverageNumberOfDependencies());
+        data.put("maximumDependencies", statistics.getMaximumNumberOfDependencies());
         return data;
     }
 
@@ -16,6 +16,7 @@
 
 package io.neba.core.resourcemodels.metadata;
 
+import io.neba.api.annotations.Shareable;
 import io.neba.api.annotations.Unmapped;
 import io.neba.core.util.Annotations;
 
@@ -124,6 +125,7 @@ public class ResourceModelMetaData {
     private final MappedFieldMetaData[] mappableFields;
     private final MethodMetaData[] afterMappingMethods;
     private final String typeName;
+    private final boolean shareable;
 
     private final ResourceModelStatistics statistics = new ResourceModelStatistics();
 
@@ -137,6 +139,7 @@ public class ResourceModelMetaData {
         this.mappableFields = fc.getMappableFields();
         this.afterMappingMethods = mc.getAfterMappingMethods();
         this.typeName = modelType.getName();
+        this.shareable = annotations(modelType).contains(Shareable.class);
     }
 
 
@@ -152,6 +155,13 @@ public class ResourceModelMetaData {
         return typeName;
     }
 
+    /**
+     * @return whether the model is {@link Shareable} across requests.
+     */
+    public boolean isShareable() {
+        return shareable;
+    }
+
     public ResourceModelStatistics getStatistics() {
         return statistics;
     }
@@ -44,6 +44,11 @@ public class ResourceModelStatistics {
     private long instantiations;
     private long mappings;
     private long cacheHits;
+    private long cacheMisses;
+    private long cacheEvictions;
+    private long dependencySamples;
+    private long totalDependencies;
+    private int maximumDependencies;
 
     ResourceModelStatistics() {
         reset();
@@ -62,6 +67,11 @@ public class ResourceModelStatistics {
         this.instantiations = 0;
         this.mappings = 0;
         this.cacheHits = 0;
+        this.cacheMisses = 0;
+        this.cacheEvictions = 0;
+        this.dependencySamples = 0;
+        this.totalDependencies = 0;
+        this.maximumDependencies = 0;
     }
 
     /**
@@ -116,6 +126,68 @@ public class ResourceModelStatistics {
         return this;
     }
 
+    /**
+     * @return The number of times the model was not found in the {@link io.neba.core.resourcemodels.caching.RequestScopedResourceModelCache}
+     * and thus added to it.
+     */
+    long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * Increment the number of cache misses for this model.
+     *
+     * @return this instance.
+     */
+    public ResourceModelStatistics countCacheMiss() {
+        ++this.cacheMisses;
+        return this;
+    }
+
+    /**
+     * @return The number of times the model was evicted from the {@link io.neba.core.resourcemodels.caching.RequestScopedResourceModelCache}
+     * as the cache exceeded its bounds.
+     */
+    long getCacheEvictions() {
+        return cacheEvictions;
+    }
+
+    /**
+     * Increment the number of cache evictions for this model.
+     *
+     * @return this instance.
+     */
+    public ResourceModelStatistics countCacheEviction() {
+        ++this.cacheEvictions;
+        return this;
+    }
+
+    /**
+     * Adds the number of resources a mapping of the model depended on to the statistics.
+     *
+     * @return this instance.
+     */
+    public ResourceModelStatistics countDependencies(int numberOfDependencies) {
+        ++this.dependencySamples;
+        this.totalDependencies += numberOfDependencies;
+        this.maximumDependencies = max(this.maximumDependencies, numberOfDependencies);
+        return this;
+    }
+
+    /**
+     * @return the average number of resources a mapping of the model depended on.
+     */
+    double getAverageNumberOfDependencies() {
+        return this.totalDependencies / (double) max(this.dependencySamples, 1);
+    }
+
+    /**
+     * @return the maximum number of resources a mapping of the model depended on.
+     */
+    int getMaximumNumberOfDependencies() {
+        return this.maximumDependencies;
+    }
+
     /**
      * @return the total number of recorded subsequent resource-to-resource model mappings
      * that occurred during the mapping of this model.
@@ -0,0 +1,144 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.registration;
+
+import javax.annotation.CheckForNull;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static io.neba.core.util.StringUtil.internTypeName;
+
+/**
+ * The key of a {@link ModelRegistry} lookup. Represents the
+ * {@link org.apache.sling.api.resource.Resource#getResourceType() resource type},
+ * {@link org.apache.sling.api.resource.Resource#getResourceSuperType() resource super type},
+ * primary type and mixin types of a resource as well as the kind of lookup, e.g. a model name or target type.
+ * <br />
+ * This key has a fixed number of elements and computes
+ * its hash code once upon construction. Keys stored in the lookup cache are {@link #intern() interned}, i.e.
+ * all cached keys share the same type name instances, such that comparing a lookup key to a cached key
+ * mostly boils down to reference comparisons. The mixin types are retained as the array read from the resource
+ * and compared by their contents, i.e. creating a key does not require joining the mixin type names.
+ *
+ * @author Olaf Otto
+ */
+final class LookupKey {
+    private final String resourceType;
+    private final String resourceSuperType;
+    private final String primaryType;
+    private final String[] mixinTypes;
+    private final Object qualifier;
+    private final int hashCode;
+
+    /**
+     * @param resourceType      can be <code>null</code>.
+     * @param resourceSuperType can be <code>null</code>.
+     * @param primaryType       can be <code>null</code>, e.g. if the resource does not represent a JCR node.
+     * @param mixinTypes        the mixin type names, can be <code>null</code>. The array must not be modified after creating the key.
+     * @param qualifier         the kind of lookup, e.g. a model name or target type. Can be <code>null</code>.
+     */
+    LookupKey(@CheckForNull String resourceType,
+              @CheckForNull String resourceSuperType,
+              @CheckForNull String primaryType,
+              @CheckForNull String[] mixinTypes,
+              @CheckForNull Object qualifier) {
+        this.resourceType = resourceType;
+        this.resourceSuperType = resourceSuperType;
+        this.primaryType = primaryType;
+        this.mixinTypes = mixinTypes == null || mixinTypes.length == 0 ? null : mixinTypes;
+        this.qualifier = qualifier;
+
+        int hashCode = Objects.hashCode(resourceType);
+        hashCode = 31 * hashCode + Objects.hashCode(resourceSuperType);
+        hashCode = 31 * hashCode + Objects.hashCode(primaryType);
+        hashCode = 31 * hashCode + Arrays.hashCode(this.mixinTypes);
+        hashCode = 31 * hashCode + Objects.hashCode(qualifier);
+        this.hashCode = hashCode;
+    }
+
+    /**
+     * @return an equal key using canonical instances of the type names. Used for keys that are retained
+     * in a cache in order to share the type names amongst all cached keys.
+     */
+    LookupKey intern() {
+        return new LookupKey(
+                internTypeName(this.resourceType),
+                internTypeName(this.resourceSuperType),
+                internTypeName(this.primaryType),
+                internTypeNames(this.mixinTypes),
+                this.qualifier);
+    }
+
+    private static String[] internTypeNames(String[] typeNames) {
+        if (typeNames == null) {
+            return null;
+        }
+        String[] internedTypeNames = new String[typeNames.length];
+        for (int i = 0; i < typeNames.length; ++i) {
+            internedTypeNames[i] = internTypeName(typeNames[i]);
+        }
+        return internedTypeNames;
+    }
+
+    /**
+     * @return the primary type, or <code>null</code> if the resource does not represent a JCR node.
+     */
+    @CheckForNull
+    String getPrimaryType() {
+        return this.primaryType;
+    }
+
+    /**
+     * @return the mixin type names, or <code>null</code> if the resource has no mixin types. Must not be modified.
+     */
+    @CheckForNull
+    String[] getMixinTypes() {
+        return this.mixinTypes;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != LookupKey.class) {
+            return false;
+        }
+        LookupKey other = (LookupKey) obj;
+        return this.hashCode == other.hashCode &&
+                Objects.equals(this.resourceType, other.resourceType) &&
+                Objects.equals(this.resourceSuperType, other.resourceSuperType) &&
+                Objects.equals(this.primaryType, other.primaryType) &&
+                Arrays.equals(this.mixinTypes, other.mixinTypes) &&
+                Objects.equals(this.qualifier, other.qualifier);
+    }
+
+    @Override
+    public String toString() {
+        return "LookupKey {" +
+                this.resourceType + ", " +
+                this.resourceSuperType + ", " +
+                this.primaryType + ", " +
+                Arrays.toString(this.mixinTypes) + ", " +
+                this.qualifier + '}';
+    }
+}
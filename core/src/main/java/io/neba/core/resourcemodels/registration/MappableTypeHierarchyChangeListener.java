@@ -23,10 +23,17 @@ import org.osgi.service.event.Event;
 import org.osgi.service.event.EventHandler;
 import org.slf4j.Logger;
 
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.sling.api.SlingConstants.PROPERTY_PATH;
@@ -49,6 +56,8 @@ import static org.slf4j.LoggerFactory.getLogger;
  * </p>
  * <p>
  * Consequently, cached type hierarchy state must be cleared when these attributes change. This is what this event handler is responsible for.
+ * Only the known type hierarchies and cached lookups containing the type represented by the changed resource are
+ * {@link ModelRegistry#typeHierarchyChanged(java.util.Collection) invalidated}.
  * <p>
  * <p>
  * Only valid cases are handled here. For instance, if a resource points to a sling:resourceType or sling:resourceSuperType, and
@@ -86,9 +95,26 @@ import static org.slf4j.LoggerFactory.getLogger;
         }
 )
 public class MappableTypeHierarchyChangeListener implements EventHandler {
+    // If more changes are pending, the lookup cache is cleared entirely.
+    private static final int MAX_PENDING_INVALIDATIONS = 1000;
+
+    /**
+     * @param path the path of a changed resource, must not be <code>null</code>.
+     * @return the names of the resource type the path may represent, i.e. the path itself, as resource types may be absolute,
+     * and the path relative to the search path, e.g. <code>/apps/my/type</code> and <code>my/type</code>.
+     */
+    static Collection<String> typeNamesOf(String path) {
+        int searchPathEnd = path.indexOf('/', 1);
+        if (path.isEmpty() || path.charAt(0) != '/' || searchPathEnd == -1 || searchPathEnd == path.length() - 1) {
+            return singletonList(path);
+        }
+        return asList(path, path.substring(searchPathEnd + 1));
+    }
+
     private final Logger logger = getLogger(getClass());
     private final ExecutorService executorService = newSingleThreadExecutor();
-    private final BlockingQueue<Object> invalidationRequests = new ArrayBlockingQueue<>(1);
+    private final BlockingQueue<String> invalidationRequests = new LinkedBlockingQueue<>(MAX_PENDING_INVALIDATIONS);
+    private volatile boolean isInvalidationRequestDiscarded = false;
     private boolean isShutDown = false;
 
     @Reference
@@ -99,12 +125,12 @@ public class MappableTypeHierarchyChangeListener implements EventHandler {
         executorService.execute(() -> {
             while (!isShutDown) {
                 try {
-                    Object path = invalidationRequests.poll(5, SECONDS);
+                    String path = invalidationRequests.poll(5, SECONDS);
                     if (path != null) {
-                        if (logger.isTraceEnabled()) {
-                            logger.trace("Invalidating the resource model registry lookup cache due to changes to {}.", path);
-                        }
-                        modelRegistry.clearLookupCaches();
+                        List<String> paths = new ArrayList<>();
+                        paths.add(path);
+                        invalidationRequests.drainTo(paths);
+                        invalidate(paths);
                     }
                 } catch (InterruptedException e) {
                     if (!isShutDown) {
@@ -122,13 +148,36 @@ public class MappableTypeHierarchyChangeListener implements EventHandler {
     }
 
     /**
-     * A substantial number of events may reach this handler.
-     * However, we only need to clear the cache once.
-     * Thus, if there already is a pending invalidation,
-     * further invalidating events are simply discarded.
+     * A substantial number of events may reach this handler, e.g. when a package is installed.
+     * Thus, the changes are queued and processed in batches. If too many changes are pending,
+     * further changes are discarded and the cache is cleared entirely.
      */
     @Override
     public void handleEvent(Event event) {
-        invalidationRequests.offer(event.getProperty(PROPERTY_PATH));
+        Object path = event.getProperty(PROPERTY_PATH);
+        if (path == null) {
+            return;
+        }
+        if (!invalidationRequests.offer(path.toString())) {
+            this.isInvalidationRequestDiscarded = true;
+        }
+    }
+
+    private void invalidate(List<String> paths) {
+        if (this.isInvalidationRequestDiscarded) {
+            this.isInvalidationRequestDiscarded = false;
+            this.logger.debug("Clearing the resource model registry lookup cache due to {} or more changes.", MAX_PENDING_INVALIDATIONS);
+            this.modelRegistry.clearLookupCaches();
+            return;
+        }
+
+        Set<String> typeNames = new LinkedHashSet<>();
+        for (String path : paths) {
+            if (this.logger.isTraceEnabled()) {
+                this.logger.trace("Invalidating the resource model registry lookup cache due to changes to {}.", path);
+            }
+            typeNames.addAll(typeNamesOf(path));
+        }
+        this.modelRegistry.typeHierarchyChanged(typeNames);
     }
 }
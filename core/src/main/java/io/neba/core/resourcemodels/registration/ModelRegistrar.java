@@ -19,6 +19,7 @@ package io.neba.core.resourcemodels.registration;
 import io.neba.api.spi.ResourceModelFactory;
 import io.neba.api.spi.ResourceModelFactory.ModelDefinition;
 import io.neba.core.resourcemodels.adaptation.ResourceToModelAdapterUpdater;
+import io.neba.core.resourcemodels.caching.SharedResourceModelCache;
 import io.neba.core.resourcemodels.metadata.ResourceModelMetaDataRegistrar;
 import io.neba.core.util.OsgiModelSource;
 import org.osgi.framework.Bundle;
@@ -60,6 +61,8 @@ public class ModelRegistrar {
     private ResourceToModelAdapterUpdater resourceToModelAdapterUpdater;
     @Reference
     private ResourceModelMetaDataRegistrar resourceModelMetaDataRegistrar;
+    @Reference
+    private SharedResourceModelCache sharedResourceModelCache;
 
     private ServiceTracker<ResourceModelFactory, ResourceModelFactory> tracker;
 
@@ -120,6 +123,8 @@ public class ModelRegistrar {
     private void unregister(Bundle bundle) {
         this.registry.removeResourceModels(bundle);
         this.resourceModelMetaDataRegistrar.removeMetadataForModelsIn(bundle);
+        // Shared models of the bundle's model types must no longer be used.
+        this.sharedResourceModelCache.clear();
         this.resourceToModelAdapterUpdater.refresh();
     }
 }
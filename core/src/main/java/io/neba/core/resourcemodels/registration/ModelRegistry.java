@@ -16,73 +16,57 @@
 
 package io.neba.core.resourcemodels.registration;
 
+import io.neba.core.resourcemodels.caching.RequestScopedValueMapCache;
+import io.neba.core.resourcemodels.registration.ModelSourceIndex.TypeModels;
 import io.neba.core.util.ConcurrentDistinctMultiValueMap;
-import io.neba.core.util.Key;
 import io.neba.core.util.MatchedBundlesPredicate;
 import io.neba.core.util.OsgiModelSource;
 import io.neba.core.util.ResolvedModelSource;
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
 import org.osgi.framework.Bundle;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 
+import javax.annotation.CheckForNull;
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import static io.neba.core.resourcemodels.registration.MappableTypeHierarchy.mappableTypeHierarchyOf;
 import static io.neba.core.util.BundleUtil.displayNameOf;
 import static io.neba.core.util.NodeUtil.geMixinTypes;
 import static io.neba.core.util.NodeUtil.getPrimaryType;
-import static java.util.Collections.unmodifiableCollection;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * Contains {@link OsgiModelSource model sources} associated to
- * {@link MappableTypeHierarchy mappable types} and the corresponding logic to
+ * {@link TypeHierarchyIndex mappable types} and the corresponding logic to
  * lookup these relationships.
  *
  * @author Olaf Otto
  */
 @Component(service = ModelRegistry.class)
+@Designate(ocd = ModelRegistry.Configuration.class)
 public class ModelRegistry {
-    /**
-     * Generate a {@link Key} representing both the
-     * {@link org.apache.sling.api.resource.Resource#getResourceType() sling resource type},
-     * {@link javax.jcr.Node#getPrimaryNodeType() primary node type} and the {@link Node#getMixinNodeTypes() mixin types}
-     * of the resource, if any. Rationale: Resources may have the same <code>sling:resourceType</code>, but different primary or mixin types,
-     * thus potentially producing different results when mapped. The cache must thus use these
-     * types as a key for cached adaptation results.<br />
-     *
-     * @param resource           must not be <code>null</code>.
-     * @param furtherKeyElements can be <code>null</code>
-     * @return never <code>null</code>.
-     */
-    private static Key key(Resource resource, Object... furtherKeyElements) {
-        final Key furtherElementsKey = furtherKeyElements == null ? null : new Key(furtherKeyElements);
-        final Node node = resource.adaptTo(Node.class);
-
-        if (node == null) {
-            return new Key(resource.getResourceType(), furtherElementsKey);
-        }
-
-        try {
-            return new Key(
-                    resource.getResourceType(),
-                    resource.getResourceSuperType(),
-                    getPrimaryType(node),
-                    geMixinTypes(node),
-                    furtherElementsKey);
-        } catch (RepositoryException e) {
-            throw new RuntimeException("Unable to retrieve the primary type of " + resource + ".", e);
-        }
-    }
+    private static final String JCR_PRIMARY_TYPE = "jcr:primaryType";
+    private static final String JCR_MIXIN_TYPES = "jcr:mixinTypes";
+    private static final Object ALL_MODELS = new Object();
+    private static final Object ANY_MODEL = new Object();
 
     /**
      * @param source can be <code>null</code>.
@@ -94,50 +78,28 @@ public class ModelRegistry {
         return source == null || source.isEmpty() ? null : source;
     }
 
-    /**
-     * @param sources        can be <code>null</code>.
-     * @param compatibleType can be <code>null</code>.
-     * @return the original collection if sources or compatibleType are
-     * <code>null</code>, or a collection representing the models
-     * compatible to the given type.
-     */
-    private static Collection<OsgiModelSource<?>> filter(Collection<OsgiModelSource<?>> sources, Class<?> compatibleType) {
-        Collection<OsgiModelSource<?>> compatibleSources = sources;
-        if (sources != null && compatibleType != null) {
-            compatibleSources = new ArrayList<>(sources.size());
-            for (OsgiModelSource<?> source : sources) {
-                if (compatibleType.isAssignableFrom(source.getModelType())) {
-                    compatibleSources.add(source);
-                }
-            }
-        }
-        return compatibleSources;
-    }
+    // Replaced by a new snapshot upon each registration change, see ModelSourceIndex.
+    private volatile ModelSourceIndex modelSources = ModelSourceIndex.EMPTY;
+    private final ConcurrentDistinctMultiValueMap<LookupKey, ResolvedModelSource<?>> lookupCache = new ConcurrentDistinctMultiValueMap<>();
+    // The keys of the lookup cache entries by the type names traversed when resolving the entries, i.e. the entries
+    // that may change when the models or the type hierarchy of the type change.
+    private final Map<String, Set<LookupKey>> typeNameToLookupKeys = new ConcurrentHashMap<>();
+    // Whether any models exist for resources with the types of a key, see isUnmapped(Resource). Invalidated alongside the lookup cache.
+    private final Map<LookupKey, Boolean> unmappedCache = new ConcurrentHashMap<>();
+    private final TypeHierarchyIndex typeHierarchies = new TypeHierarchyIndex();
+    private final Logger logger = getLogger(getClass());
+    private boolean resolveNodeTypesFromProperties = true;
 
-    /**
-     * @param sources   can be <code>null</code>.
-     * @param modelName can be <code>null</code>.
-     * @return the original collection if sources or modelName are
-     * <code>null</code>, or a collection representing the models
-     * who's {@link OsgiModelSource#getModelName()} model name}
-     * is equal to the given model name.
-     */
-    private static Collection<OsgiModelSource<?>> filter(Collection<OsgiModelSource<?>> sources, String modelName) {
-        Collection<OsgiModelSource<?>> sourcesWithModelName = sources;
-        if (sources != null && modelName != null) {
-            sourcesWithModelName = new ArrayList<>(sources.size());
-            for (OsgiModelSource<?> source : sources) {
-                if (modelName.equals(source.getModelName())) {
-                    sourcesWithModelName.add(source);
-                }
-            }
-        }
-        return sourcesWithModelName;
-    }
+    @Reference
+    private RequestScopedValueMapCache valueMapCache;
 
-    private final ConcurrentDistinctMultiValueMap<String, OsgiModelSource<?>> typeNameToModelSourcesMap = new ConcurrentDistinctMultiValueMap<>();
-    private final ConcurrentDistinctMultiValueMap<Key, ResolvedModelSource<?>> lookupCache = new ConcurrentDistinctMultiValueMap<>();
-    private final Logger logger = getLogger(getClass());
+    @Activate
+    @Modified
+    protected void activate(Configuration configuration) {
+        this.resolveNodeTypesFromProperties = configuration.resolveNodeTypesFromProperties();
+        // Keys generated in the previous mode may not be equal to the keys of the current mode.
+        clearLookupCaches();
+    }
 
     /**
      * Finds the most specific models for the given {@link Resource}. The model's model
@@ -155,11 +117,11 @@ public class ModelRegistry {
             throw new IllegalArgumentException("Method argument modelName must not be null.");
         }
 
-        Key key = key(resource, modelName);
+        final LookupKey key = key(resource, modelName);
 
         Collection<ResolvedModelSource<?>> matchingModels = this.lookupCache.get(key);
         if (matchingModels == null) {
-            matchingModels = lookupCache.computeIfAbsent(key, k -> resolveMostSpecificModelSources(resource, modelName));
+            matchingModels = lookupCache.computeIfAbsent(key.intern(), k -> resolveMostSpecificModelSources(resource, modelName, k));
         }
 
         return nullIfEmpty(matchingModels);
@@ -168,7 +130,7 @@ public class ModelRegistry {
     /**
      * Finds the most specific models for the given {@link Resource}, i.e. the
      * first model(s) found when traversing the resource's
-     * {@link MappableTypeHierarchy mappable hierarchy}.
+     * {@link TypeHierarchyIndex mappable hierarchy}.
      *
      * @param resource must not be <code>null</code>.
      * @return the model sources, or <code>null</code> if no models exist for the resource.
@@ -178,11 +140,11 @@ public class ModelRegistry {
             throw new IllegalArgumentException("Method argument resource must not be null.");
         }
 
-        final Key key = key(resource);
+        final LookupKey key = key(resource, null);
 
         Collection<ResolvedModelSource<?>> matchingModels = this.lookupCache.get(key);
         if (matchingModels == null) {
-            matchingModels = lookupCache.computeIfAbsent(key, k -> resolveMostSpecificModelSources(resource));
+            matchingModels = lookupCache.computeIfAbsent(key.intern(), k -> resolveMostSpecificModelSources(resource, k));
         }
 
         return nullIfEmpty(matchingModels);
@@ -191,7 +153,7 @@ public class ModelRegistry {
     /**
      * Finds the all models for the given {@link Resource}, i.e. the
      * all model(s) found when traversing the resource's
-     * {@link MappableTypeHierarchy mappable hierarchy}.
+     * {@link TypeHierarchyIndex mappable hierarchy}.
      *
      * @param resource must not be <code>null</code>.
      * @return the model sources, or <code>null</code> if no models exist for the resource.
@@ -201,11 +163,11 @@ public class ModelRegistry {
             throw new IllegalArgumentException("Method argument resource must not be null.");
         }
 
-        final Key key = key(resource, "allModels");
+        final LookupKey key = key(resource, ALL_MODELS);
 
         Collection<ResolvedModelSource<?>> matchingModels = this.lookupCache.get(key);
         if (matchingModels == null) {
-            matchingModels = lookupCache.computeIfAbsent(key, k -> resolveModelSources(resource, null, false));
+            matchingModels = lookupCache.computeIfAbsent(key.intern(), k -> resolveModelSources(resource, null, false, k));
         }
 
         return nullIfEmpty(matchingModels);
@@ -227,16 +189,125 @@ public class ModelRegistry {
             throw new IllegalArgumentException("Method argument targetType must not be null.");
         }
 
-        final Key key = key(resource, targetType);
+        final LookupKey key = key(resource, targetType);
 
         Collection<ResolvedModelSource<?>> matchingModels = this.lookupCache.get(key);
         if (matchingModels == null) {
-            matchingModels = lookupCache.computeIfAbsent(key, k -> resolveMostSpecificModelSources(resource, targetType));
+            matchingModels = lookupCache.computeIfAbsent(key.intern(), k -> resolveMostSpecificModelSources(resource, targetType, k));
         }
 
         return nullIfEmpty(matchingModels);
     }
 
+    /**
+     * Determines whether the resource certainly has no models. If no models are registered for
+     * {@link ModelSourceIndex#hasModelsForNodeTypes() node types}, this is the case if no models are registered for the resource's
+     * {@link TypeHierarchyIndex#resourceTypeHierarchyOf(Resource) resource type hierarchy}. As the hierarchy of a resource type is
+     * only resolved once, this does not access the repository. Otherwise, the result is cached per resource type, resource super type,
+     * primary and mixin types, provided the node types can be read from the <code>jcr:primaryType</code> and <code>jcr:mixinTypes</code>
+     * properties of the resource. The resource is only adapted to a {@link Node} if the hierarchy of its node types is not yet known.
+     *
+     * @param resource must not be <code>null</code>.
+     * @return <code>true</code> if none of the lookups of this registry yields models for the resource,
+     * <code>false</code> if the resource may have models.
+     */
+    public boolean isUnmapped(Resource resource) {
+        if (resource == null) {
+            throw new IllegalArgumentException("Method argument resource must not be null.");
+        }
+
+        final ModelSourceIndex modelSources = this.modelSources;
+        if (modelSources.isEmpty()) {
+            return true;
+        }
+
+        if (!modelSources.hasModelsForNodeTypes()) {
+            for (String resourceType : this.typeHierarchies.resourceTypeHierarchyOf(resource)) {
+                if (modelSources.modelsOf(resourceType) != null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        final LookupKey key = this.resolveNodeTypesFromProperties ? keyFromProperties(resource, ANY_MODEL) : null;
+        if (key == null) {
+            // The node types are not known without accessing the repository, let the lookup determine the models.
+            return false;
+        }
+
+        Boolean unmapped = this.unmappedCache.get(key);
+        if (unmapped == null) {
+            unmapped = this.unmappedCache.computeIfAbsent(key.intern(), k -> resolveUnmapped(resource, k));
+        }
+        return unmapped;
+    }
+
+    /**
+     * Generate a {@link LookupKey} representing the
+     * {@link org.apache.sling.api.resource.Resource#getResourceType() sling resource type},
+     * {@link org.apache.sling.api.resource.Resource#getResourceSuperType() sling resource super type},
+     * {@link javax.jcr.Node#getPrimaryNodeType() primary node type} and the {@link Node#getMixinNodeTypes() mixin types}
+     * of the resource, if any. Rationale: Resources may have the same <code>sling:resourceType</code>, but different primary or mixin types,
+     * thus potentially producing different results when mapped. The cache must thus use these
+     * types as a key for cached adaptation results.<br />
+     * Unless {@link Configuration#resolveNodeTypesFromProperties() disabled}, the node types are read from the <code>jcr:primaryType</code>
+     * and <code>jcr:mixinTypes</code> properties of the resource's {@link ValueMap}, which is shared with the models mapped from the resource
+     * during a request, see {@link RequestScopedValueMapCache}. The resource is only adapted to a {@link Node}
+     * if these properties are not available.
+     *
+     * @param resource  must not be <code>null</code>.
+     * @param qualifier the kind of lookup, can be <code>null</code>.
+     * @return never <code>null</code>.
+     */
+    private LookupKey key(Resource resource, Object qualifier) {
+        final String resourceType = resource.getResourceType();
+        final String resourceSuperType = resource.getResourceSuperType();
+
+        if (this.resolveNodeTypesFromProperties) {
+            final LookupKey key = keyFromProperties(resource, qualifier);
+            if (key != null) {
+                return key;
+            }
+        }
+
+        final Node node = resource.adaptTo(Node.class);
+
+        if (node == null) {
+            return new LookupKey(resourceType, resourceSuperType, null, null, qualifier);
+        }
+
+        try {
+            return new LookupKey(
+                    resourceType,
+                    resourceSuperType,
+                    getPrimaryType(node),
+                    geMixinTypes(node),
+                    qualifier);
+        } catch (RepositoryException e) {
+            throw new RuntimeException("Unable to retrieve the primary type of " + resource + ".", e);
+        }
+    }
+
+    /**
+     * @return a key containing the node types read from the <code>jcr:primaryType</code> and <code>jcr:mixinTypes</code>
+     * properties of the resource, or <code>null</code> if the resource has no <code>jcr:primaryType</code> property.
+     */
+    @CheckForNull
+    private LookupKey keyFromProperties(Resource resource, Object qualifier) {
+        final ValueMap properties = this.valueMapCache.get(resource);
+        final String primaryType = properties == null ? null : properties.get(JCR_PRIMARY_TYPE, String.class);
+        if (primaryType == null) {
+            return null;
+        }
+        return new LookupKey(
+                resource.getResourceType(),
+                resource.getResourceSuperType(),
+                primaryType,
+                properties.get(JCR_MIXIN_TYPES, String[].class),
+                qualifier);
+    }
+
     /**
      * Clears the registry upon shutdown.
      */
@@ -252,12 +323,12 @@ public class ModelRegistry {
      *
      * @param bundle must not be <code>null</code>.
      */
-    void removeResourceModels(final Bundle bundle) {
+    synchronized void removeResourceModels(final Bundle bundle) {
         this.logger.info("Removing resource models of bundle " + displayNameOf(bundle) + "...");
         MatchedBundlesPredicate sourcesWithBundles = new MatchedBundlesPredicate(bundle);
-        for (Collection<OsgiModelSource<?>> values : this.typeNameToModelSourcesMap.values()) {
-            CollectionUtils.filter(values, sourcesWithBundles);
-        }
+        this.modelSources = this.modelSources.retain(sourcesWithBundles);
+        // Cache entries may reference classes of the bundle regardless of the traversed types, e.g. the target type of a lookup.
+        // Clearing all entries ensures the registry does not retain the bundle's classes and class loader.
         clearLookupCaches();
         this.logger.info("Removed " + sourcesWithBundles.getFilteredElements()
                 + " resource models of bundle " + displayNameOf(bundle) + "...");
@@ -268,12 +339,7 @@ public class ModelRegistry {
      * <code>null</code> but rather an empty list.
      */
     public List<OsgiModelSource<?>> getModelSources() {
-        Collection<Collection<OsgiModelSource<?>>> sources = this.typeNameToModelSourcesMap.values();
-        List<OsgiModelSource<?>> linearizedSources = new LinkedList<>();
-        for (Collection<OsgiModelSource<?>> source : sources) {
-            linearizedSources.addAll(source);
-        }
-        return linearizedSources;
+        return this.modelSources.getSources();
     }
 
     /**
@@ -282,18 +348,18 @@ public class ModelRegistry {
      * @param types  must not be <code>null</code>.
      * @param source must not be <code>null</code>.
      */
-    public void add(String[] types, OsgiModelSource<?> source) {
-        for (String resourceType : types) {
-            this.typeNameToModelSourcesMap.put(resourceType, source);
-        }
-        clearLookupCaches();
+    public synchronized void add(String[] types, OsgiModelSource<?> source) {
+        this.modelSources = this.modelSources.with(types, source);
+        // Only the entries traversing the types may change. Unlike removing models, adding models does not release classes
+        // that cache entries may reference, see removeResourceModels(Bundle).
+        clearLookupCaches(asList(types));
     }
 
     /**
      * @return all type -&gt; model mappings.
      */
     Map<String, Collection<OsgiModelSource<?>>> getTypeMappings() {
-        return this.typeNameToModelSourcesMap.shallowCopy();
+        return this.modelSources.toMap();
     }
 
     /**
@@ -302,29 +368,87 @@ public class ModelRegistry {
      */
     void clearLookupCaches() {
         this.lookupCache.clear();
+        this.unmappedCache.clear();
+        this.typeNameToLookupKeys.clear();
+        this.typeHierarchies.clear();
         this.logger.debug("Cache cleared.");
     }
 
-    private void clearRegisteredModels() {
-        this.typeNameToModelSourcesMap.clear();
+    /**
+     * Clears the quick lookup cache entries that may be affected by changes to the models or the type hierarchy of the given types,
+     * i.e. the entries whose resolution traversed any of the types. Entries whose resolution did not reach the types, e.g. since
+     * a more specific model was found, remain cached.
+     *
+     * @param typeNames the names of the changed resource or node types. Must not be <code>null</code>.
+     */
+    void clearLookupCaches(Collection<String> typeNames) {
+        if (typeNames == null) {
+            throw new IllegalArgumentException("Method argument typeNames must not be null.");
+        }
+
+        int clearedEntries = 0;
+        for (String typeName : typeNames) {
+            Set<LookupKey> keys = this.typeNameToLookupKeys.remove(typeName);
+            if (keys == null) {
+                continue;
+            }
+            for (LookupKey key : keys) {
+                if (this.lookupCache.remove(key) != null || this.unmappedCache.remove(key) != null) {
+                    ++clearedEntries;
+                }
+            }
+        }
+
+        if (this.logger.isDebugEnabled()) {
+            this.logger.debug("Cleared {} cache entries for the types {}.", clearedEntries, typeNames);
+        }
+    }
+
+    /**
+     * Signals that the resource or node type hierarchy of the given types changed, e.g. since their <code>sling:resourceSuperType</code>
+     * was modified. Discards the known type hierarchies containing these types and {@link #clearLookupCaches(Collection) clears}
+     * the affected cache entries.
+     *
+     * @param typeNames the names of the changed resource or node types. Must not be <code>null</code>.
+     */
+    void typeHierarchyChanged(Collection<String> typeNames) {
+        if (typeNames == null) {
+            throw new IllegalArgumentException("Method argument typeNames must not be null.");
+        }
+        this.typeHierarchies.invalidate(typeNames);
+        clearLookupCaches(typeNames);
+    }
+
+    /**
+     * Records that the resolution of the cache entry with the given key traverses the type. Invoked prior to
+     * resolving the models for the type, such that changes to the type during the resolution will
+     * {@link #clearLookupCaches(Collection) clear} the resolved entry.
+     */
+    private void traversed(String typeName, LookupKey key) {
+        this.typeNameToLookupKeys.computeIfAbsent(typeName, k -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    private synchronized void clearRegisteredModels() {
+        this.modelSources = ModelSourceIndex.EMPTY;
         this.logger.debug("Registry cleared.");
     }
 
     /**
-     * @see #resolveMostSpecificModelSources(org.apache.sling.api.resource.Resource, Class)
+     * @see #resolveMostSpecificModelSources(org.apache.sling.api.resource.Resource, Class, LookupKey)
      */
-    private Collection<ResolvedModelSource<?>> resolveMostSpecificModelSources(Resource resource) {
-        return resolveMostSpecificModelSources(resource, (Class<?>) null);
+    private Collection<ResolvedModelSource<?>> resolveMostSpecificModelSources(Resource resource, LookupKey key) {
+        return resolveMostSpecificModelSources(resource, (Class<?>) null, key);
     }
 
     /**
-     * @see #resolveModelSources(org.apache.sling.api.resource.Resource, Class, boolean)
+     * @see #resolveModelSources(org.apache.sling.api.resource.Resource, Class, boolean, LookupKey)
      */
     private Collection<ResolvedModelSource<?>> resolveMostSpecificModelSources(
             Resource resource,
-            Class<?> compatibleType) {
+            Class<?> compatibleType,
+            LookupKey key) {
 
-        return resolveModelSources(resource, compatibleType, true);
+        return resolveModelSources(resource, compatibleType, true, key);
     }
 
     /**
@@ -335,26 +459,44 @@ public class ModelRegistry {
      * @param compatibleType      can be <code>null</code>. If provided, only models
      *                            compatible to the given type are returned.
      * @param resolveMostSpecific whether to resolve only the most specific models.
+     * @param key                 the key of the cache entry that is resolved. Must not be <code>null</code>.
      * @return never <code>null</code> but rather an empty collection.
      */
-    private Collection<ResolvedModelSource<?>> resolveModelSources(Resource resource, Class<?> compatibleType, boolean resolveMostSpecific) {
-        Collection<ResolvedModelSource<?>> sources = new ArrayList<>(64);
-        for (final String resourceType : mappableTypeHierarchyOf(resource)) {
-            Collection<OsgiModelSource<?>> allSourcesForType = this.typeNameToModelSourcesMap.get(resourceType);
-            Collection<OsgiModelSource<?>> sourcesForCompatibleType = filter(allSourcesForType, compatibleType);
-            if (sourcesForCompatibleType != null && !sourcesForCompatibleType.isEmpty()) {
-                List<ResolvedModelSource<?>> list = new ArrayList<>();
-                for (OsgiModelSource<?> source : sourcesForCompatibleType) {
-                    ResolvedModelSource<?> resolvedModelSource = new ResolvedModelSource<>(source, resourceType);
-                    list.add(resolvedModelSource);
-                }
-                sources.addAll(list);
-                if (resolveMostSpecific) {
-                    break;
-                }
+    private Collection<ResolvedModelSource<?>> resolveModelSources(Resource resource, Class<?> compatibleType, boolean resolveMostSpecific, LookupKey key) {
+        List<ResolvedModelSource<?>> sources = null;
+        for (final String resourceType : this.typeHierarchies.hierarchyOf(resource, key.getPrimaryType(), key.getMixinTypes())) {
+            traversed(resourceType, key);
+            TypeModels models = this.modelSources.modelsOf(resourceType);
+            if (models == null) {
+                continue;
+            }
+            List<ResolvedModelSource<?>> sourcesForCompatibleType = compatibleType == null ? models.all() : models.compatibleWith(compatibleType);
+            if (sourcesForCompatibleType.isEmpty()) {
+                continue;
+            }
+            if (resolveMostSpecific) {
+                return sourcesForCompatibleType;
+            }
+            if (sources == null) {
+                sources = new ArrayList<>();
+            }
+            sources.addAll(sourcesForCompatibleType);
+        }
+        return sources == null ? emptyList() : unmodifiableList(sources);
+    }
+
+    /**
+     * @param key the key of the cache entry that is resolved. Must not be <code>null</code>.
+     * @return whether no models are registered for any type of the resource's hierarchy.
+     */
+    private boolean resolveUnmapped(Resource resource, LookupKey key) {
+        for (final String type : this.typeHierarchies.hierarchyOf(resource, key.getPrimaryType(), key.getMixinTypes())) {
+            traversed(type, key);
+            if (this.modelSources.modelsOf(type) != null) {
+                return false;
             }
         }
-        return unmodifiableCollection(sources);
+        return true;
     }
 
     /**
@@ -363,24 +505,32 @@ public class ModelRegistry {
      * matches the given model name.
      *
      * @param resource  must not be <code>null</code>.
-     * @param modelName can be <code>null</code>.
+     * @param modelName must not be <code>null</code>.
+     * @param key       the key of the cache entry that is resolved. Must not be <code>null</code>.
      * @return never <code>null</code> but rather an empty collection.
      */
-    private Collection<ResolvedModelSource<?>> resolveMostSpecificModelSources(Resource resource, String modelName) {
-        Collection<ResolvedModelSource<?>> sources = new ArrayList<>();
-        for (final String resourceType : mappableTypeHierarchyOf(resource)) {
-            Collection<OsgiModelSource<?>> allSourcesForType = this.typeNameToModelSourcesMap.get(resourceType);
-            Collection<OsgiModelSource<?>> sourcesWithMatchingModelName = filter(allSourcesForType, modelName);
-            if (sourcesWithMatchingModelName != null && !sourcesWithMatchingModelName.isEmpty()) {
-                List<ResolvedModelSource<?>> list = new ArrayList<>();
-                for (OsgiModelSource<?> source : sourcesWithMatchingModelName) {
-                    ResolvedModelSource<?> resolvedModelSource = new ResolvedModelSource<>(source, resourceType);
-                    list.add(resolvedModelSource);
-                }
-                sources.addAll(list);
-                break;
+    private Collection<ResolvedModelSource<?>> resolveMostSpecificModelSources(Resource resource, String modelName, LookupKey key) {
+        for (final String resourceType : this.typeHierarchies.hierarchyOf(resource, key.getPrimaryType(), key.getMixinTypes())) {
+            traversed(resourceType, key);
+            TypeModels models = this.modelSources.modelsOf(resourceType);
+            if (models == null) {
+                continue;
+            }
+            List<ResolvedModelSource<?>> sourcesWithMatchingModelName = models.withModelName(modelName);
+            if (!sourcesWithMatchingModelName.isEmpty()) {
+                return sourcesWithMatchingModelName;
             }
         }
-        return unmodifiableCollection(sources);
+        return emptyList();
+    }
+
+    @ObjectClassDefinition(name = "NEBA model registry", description = "Resolves the resource models for resources.")
+    public @interface Configuration {
+        @AttributeDefinition(
+                name = "Resolve node types from properties",
+                description = "Read the primary and mixin types of resources from their jcr:primaryType and jcr:mixinTypes properties " +
+                        "when looking up models. Resources are only adapted to JCR nodes if these properties are not available. " +
+                        "If disabled, every lookup adapts the resource to a JCR node.")
+        boolean resolveNodeTypesFromProperties() default true;
     }
 }
@@ -0,0 +1,244 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.registration;
+
+import io.neba.core.util.MatchedBundlesPredicate;
+import io.neba.core.util.OsgiModelSource;
+import io.neba.core.util.ResolvedModelSource;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * An immutable snapshot of the {@link OsgiModelSource model sources} registered for type names. Changes to the registered
+ * sources {@link #with(String[], OsgiModelSource) yield} a new snapshot, which is expected to be swapped atomically
+ * by the {@link ModelRegistry}. As registrations are rare compared to lookups, the {@link TypeModels models of a type}
+ * provide the resolved models as precomputed, immutable lists. Thus, looking up all models of a type or the models with a
+ * model name does not allocate.
+ *
+ * @author Olaf Otto
+ */
+final class ModelSourceIndex {
+    static final ModelSourceIndex EMPTY = new ModelSourceIndex(emptyMap());
+
+    private final Map<String, TypeModels> typeModels;
+    private final boolean hasModelsForNodeTypes;
+
+    private ModelSourceIndex(Map<String, TypeModels> typeModels) {
+        this.typeModels = typeModels;
+        boolean hasModelsForNodeTypes = false;
+        for (String typeName : typeModels.keySet()) {
+            if (typeName.indexOf('/') == -1) {
+                hasModelsForNodeTypes = true;
+                break;
+            }
+        }
+        this.hasModelsForNodeTypes = hasModelsForNodeTypes;
+    }
+
+    /**
+     * @return whether no models are registered.
+     */
+    boolean isEmpty() {
+        return this.typeModels.isEmpty();
+    }
+
+    /**
+     * Resource types are paths, such as <code>my/app/components/page</code>, while node types are qualified names, such as
+     * <code>nt:unstructured</code>. Thus, a type name without a slash is considered a potential node type name.
+     *
+     * @return whether models may be registered for node types, i.e. whether the node type hierarchy of a resource
+     * may yield a model.
+     */
+    boolean hasModelsForNodeTypes() {
+        return this.hasModelsForNodeTypes;
+    }
+
+    /**
+     * @param typeName must not be <code>null</code>.
+     * @return the models of the type, or <code>null</code> if no models are registered for the type.
+     */
+    @CheckForNull
+    TypeModels modelsOf(@Nonnull String typeName) {
+        return this.typeModels.get(typeName);
+    }
+
+    /**
+     * @param types  must not be <code>null</code>.
+     * @param source must not be <code>null</code>.
+     * @return a new index additionally containing the source for each of the types. A source that is already
+     * registered for a type is moved to the end of the sources of that type. Never <code>null</code>.
+     */
+    @Nonnull
+    ModelSourceIndex with(@Nonnull String[] types, @Nonnull OsgiModelSource<?> source) {
+        if (types == null) {
+            throw new IllegalArgumentException("Method argument types must not be null.");
+        }
+        if (source == null) {
+            throw new IllegalArgumentException("Method argument source must not be null.");
+        }
+
+        final Map<String, TypeModels> typeModels = new HashMap<>(this.typeModels);
+        for (String type : types) {
+            TypeModels models = typeModels.get(type);
+            List<OsgiModelSource<?>> sources = models == null ? new ArrayList<>(1) : new ArrayList<>(models.sources);
+            sources.remove(source);
+            sources.add(source);
+            typeModels.put(type, new TypeModels(type, sources));
+        }
+        return new ModelSourceIndex(unmodifiableMap(typeModels));
+    }
+
+    /**
+     * @param sourcesToRetain must not be <code>null</code>.
+     * @return a new index containing only the sources accepted by the predicate. Never <code>null</code>.
+     */
+    @Nonnull
+    ModelSourceIndex retain(@Nonnull MatchedBundlesPredicate sourcesToRetain) {
+        if (sourcesToRetain == null) {
+            throw new IllegalArgumentException("Method argument sourcesToRetain must not be null.");
+        }
+
+        final Map<String, TypeModels> typeModels = new HashMap<>(this.typeModels.size());
+        for (TypeModels models : this.typeModels.values()) {
+            List<OsgiModelSource<?>> sources = new ArrayList<>(models.sources.size());
+            for (OsgiModelSource<?> source : models.sources) {
+                if (sourcesToRetain.evaluate(source)) {
+                    sources.add(source);
+                }
+            }
+            if (sources.size() == models.sources.size()) {
+                typeModels.put(models.typeName, models);
+                continue;
+            }
+            if (!sources.isEmpty()) {
+                typeModels.put(models.typeName, new TypeModels(models.typeName, sources));
+            }
+        }
+        return new ModelSourceIndex(unmodifiableMap(typeModels));
+    }
+
+    /**
+     * @return all registered sources, never <code>null</code>. A source registered for multiple types
+     * is contained once for each type.
+     */
+    @Nonnull
+    List<OsgiModelSource<?>> getSources() {
+        List<OsgiModelSource<?>> sources = new ArrayList<>();
+        for (TypeModels models : this.typeModels.values()) {
+            sources.addAll(models.sources);
+        }
+        return sources;
+    }
+
+    /**
+     * @return a modifiable copy of the type name -&gt; sources mappings. Never <code>null</code>.
+     */
+    @Nonnull
+    Map<String, Collection<OsgiModelSource<?>>> toMap() {
+        Map<String, Collection<OsgiModelSource<?>>> typeMappings = new HashMap<>(this.typeModels.size());
+        for (TypeModels models : this.typeModels.values()) {
+            typeMappings.put(models.typeName, new ArrayList<>(models.sources));
+        }
+        return typeMappings;
+    }
+
+    /**
+     * The models registered for a single type, resolved for that type.
+     *
+     * @author Olaf Otto
+     */
+    static final class TypeModels {
+        private final String typeName;
+        private final List<OsgiModelSource<?>> sources;
+        private final List<ResolvedModelSource<?>> all;
+        private final Map<String, List<ResolvedModelSource<?>>> byModelName;
+
+        private TypeModels(String typeName, List<OsgiModelSource<?>> sources) {
+            this.typeName = typeName;
+            this.sources = unmodifiableList(sources);
+
+            final ResolvedModelSource<?>[] resolved = new ResolvedModelSource<?>[sources.size()];
+            final Map<String, List<ResolvedModelSource<?>>> byModelName = new LinkedHashMap<>();
+            for (int i = 0; i < resolved.length; ++i) {
+                resolved[i] = new ResolvedModelSource<>(sources.get(i), typeName);
+                String modelName = sources.get(i).getModelName();
+                if (modelName != null) {
+                    byModelName.computeIfAbsent(modelName, k -> new ArrayList<>(1)).add(resolved[i]);
+                }
+            }
+            byModelName.replaceAll((modelName, models) -> unmodifiableList(models));
+
+            this.all = unmodifiableList(asList(resolved));
+            this.byModelName = byModelName;
+        }
+
+        /**
+         * @return all models of the type. Never <code>null</code>.
+         */
+        @Nonnull
+        List<ResolvedModelSource<?>> all() {
+            return this.all;
+        }
+
+        /**
+         * @param modelName must not be <code>null</code>.
+         * @return the models with the given {@link OsgiModelSource#getModelName() model name}. Never <code>null</code>.
+         */
+        @Nonnull
+        List<ResolvedModelSource<?>> withModelName(@Nonnull String modelName) {
+            return this.byModelName.getOrDefault(modelName, emptyList());
+        }
+
+        /**
+         * Lookups may use arbitrary target types, e.g. types of other bundles. The compatible models are thus not retained
+         * per target type, but determined upon each invocation. The results are cached by the {@link ModelRegistry}.
+         *
+         * @param compatibleType must not be <code>null</code>.
+         * @return the models {@link Class#isAssignableFrom(Class) assignable} to the given type. Never <code>null</code>.
+         */
+        @Nonnull
+        List<ResolvedModelSource<?>> compatibleWith(@Nonnull Class<?> compatibleType) {
+            List<ResolvedModelSource<?>> compatible = null;
+            for (ResolvedModelSource<?> model : this.all) {
+                if (compatibleType.isAssignableFrom(model.getSource().getModelType())) {
+                    if (compatible == null) {
+                        compatible = new ArrayList<>(this.all.size());
+                    }
+                    compatible.add(model);
+                }
+            }
+            if (compatible == null) {
+                return emptyList();
+            }
+            // Commonly, all models of a type are compatible.
+            return compatible.size() == this.all.size() ? this.all : unmodifiableList(compatible);
+        }
+    }
+}
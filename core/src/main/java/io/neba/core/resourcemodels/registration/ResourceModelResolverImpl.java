@@ -19,7 +19,7 @@ package io.neba.core.resourcemodels.registration;
 import io.neba.api.services.ResourceModelResolver;
 import io.neba.core.resourcemodels.caching.RequestScopedResourceModelCache;
 import io.neba.core.resourcemodels.mapping.ResourceToModelMapper;
-import io.neba.core.util.Key;
+import io.neba.core.util.Key2;
 import io.neba.core.util.ResolvedModelSource;
 import org.apache.sling.api.resource.Resource;
 import org.osgi.service.component.annotations.Component;
@@ -31,7 +31,6 @@ import java.util.Collection;
 import java.util.Optional;
 
 import static io.neba.api.Constants.SYNTHETIC_RESOURCETYPE_ROOT;
-import static io.neba.core.util.Key.key;
 
 /**
  * Resolves a {@link Resource} to a {@link io.neba.api.annotations.ResourceModel}
@@ -47,6 +46,9 @@ import static io.neba.core.util.Key.key;
  */
 @Component(service = ResourceModelResolver.class)
 public class ResourceModelResolverImpl implements ResourceModelResolver {
+    private static final Key2 MOST_SPECIFIC_MODEL = new Key2(false, null);
+    private static final Key2 MOST_SPECIFIC_MODEL_INCLUDING_BASE_TYPES = new Key2(true, null);
+
     @Reference
     private ModelRegistry registry;
     @Reference
@@ -88,7 +90,13 @@ public class ResourceModelResolverImpl implements ResourceModelResolver {
     }
 
     private <T> T resolveMostSpecificModelForResource(@Nonnull Resource resource, boolean includeBaseTypes, @Nullable String modelName) {
-        final Key key = key(includeBaseTypes, modelName);
+        if (this.registry.isUnmapped(resource)) {
+            return null;
+        }
+
+        final Key2 key = modelName == null ?
+                (includeBaseTypes ? MOST_SPECIFIC_MODEL_INCLUDING_BASE_TYPES : MOST_SPECIFIC_MODEL) :
+                new Key2(includeBaseTypes, modelName);
 
         Optional<T> cachedModel = this.cache.get(resource, key);
         if (cachedModel != null) {
@@ -0,0 +1,217 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.registration;
+
+import io.neba.core.util.Key2;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.jcr.Node;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.neba.api.Constants.SYNTHETIC_RESOURCETYPE_ROOT;
+import static io.neba.core.util.NodeTypeHierarchyIterator.typeHierarchyOf;
+import static java.util.Arrays.asList;
+import static java.util.Arrays.copyOfRange;
+import static org.apache.sling.api.resource.ResourceUtil.isSyntheticResource;
+
+/**
+ * Provides all type names to which a {@link io.neba.api.annotations.ResourceModel} may apply, i.e. the
+ * resource type hierarchy of a {@link Resource} followed by its {@link Node} type hierarchy.
+ * <br />
+ * The hierarchies are resolved once and retained as linearized, immutable type name chains: resource type hierarchies
+ * per resource type, node type hierarchies per combination of primary and mixin types. Thus, once a hierarchy is known,
+ * resolving the type names of a resource requires no repository access.
+ * <br />
+ * Just like the {@link io.neba.core.util.ResourceTypeHierarchyIterator}, the resource type hierarchy consists of the resource type
+ * followed by its {@link ResourceResolver#getParentResourceType(String) parent resource types}; a <code>sling:resourceSuperType</code>
+ * of the resource itself is not considered. The hierarchy of a resource type is shared by all resource resolvers, as it does not depend on
+ * the visibility of the type definitions to the resolver: Sling resolves the parent resource type by reading the type definition with a
+ * service resource resolver dedicated to resolving type hierarchies rather than with the resolver it is invoked on. Likewise, node type
+ * hierarchies are defined by the repository, regardless of the session. Hierarchies containing a changed type are
+ * {@link #invalidate(Collection) invalidated}, e.g. when the <code>sling:resourceSuperType</code> of a type changes.
+ *
+ * @author Olaf Otto
+ * @see io.neba.core.util.ResourceTypeHierarchyIterator
+ * @see io.neba.core.util.NodeTypeHierarchyIterator
+ */
+final class TypeHierarchyIndex {
+    private static final String[] EMPTY = new String[0];
+
+    private final Map<String, String[]> resourceTypeHierarchies = new ConcurrentHashMap<>();
+    private final Map<Key2, String[]> nodeTypeHierarchies = new ConcurrentHashMap<>();
+    // Incremented upon each invalidation to detect hierarchies that were resolved concurrently to an invalidation.
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param resource    must not be <code>null</code>.
+     * @param primaryType the primary type of the resource, or <code>null</code> if the resource does not represent a {@link Node}.
+     * @param mixinTypes  the mixin type names of the resource, can be <code>null</code>. Must not be modified, as it is retained as part of a key.
+     * @return the resource type hierarchy followed by the node type hierarchy of the resource. Never <code>null</code>.
+     */
+    @Nonnull
+    String[] hierarchyOf(@Nonnull Resource resource, @CheckForNull String primaryType, @CheckForNull String[] mixinTypes) {
+        if (resource == null) {
+            throw new IllegalArgumentException("Method argument resource must not be null.");
+        }
+
+        final boolean isSyntheticResource = isSyntheticResource(resource);
+        String resourceType = resource.getResourceType();
+        if (!isSyntheticResource && resourceType != null && resourceType.equals(primaryType)) {
+            // The resource type falls back to the node type if no sling:resourceType is specified. However,
+            // only the sling:resourceType hierarchy is part of the resource type hierarchy.
+            resourceType = null;
+        }
+
+        final String[] resourceTypes = resourceType == null ? EMPTY : resourceTypeHierarchyOf(resourceType, resource.getResourceResolver());
+        final String[] nodeTypes = primaryType == null ? EMPTY : nodeTypeHierarchyOf(resource, primaryType, mixinTypes);
+
+        // Synthetic resources do not represent nodes. A virtual resource type root common to all synthetic resources
+        // enables mapping to all resources including synthetic ones, see SYNTHETIC_RESOURCETYPE_ROOT.
+        final boolean appendSyntheticRoot = isSyntheticResource && resourceTypes.length != 0 &&
+                !SYNTHETIC_RESOURCETYPE_ROOT.equals(resourceTypes[resourceTypes.length - 1]);
+
+        if (nodeTypes.length == 0 && !appendSyntheticRoot) {
+            return resourceTypes;
+        }
+
+        final String[] hierarchy = new String[resourceTypes.length + nodeTypes.length + (appendSyntheticRoot ? 1 : 0)];
+        System.arraycopy(resourceTypes, 0, hierarchy, 0, resourceTypes.length);
+        if (appendSyntheticRoot) {
+            hierarchy[resourceTypes.length] = SYNTHETIC_RESOURCETYPE_ROOT;
+        }
+        System.arraycopy(nodeTypes, 0, hierarchy, hierarchy.length - nodeTypes.length, nodeTypes.length);
+        return hierarchy;
+    }
+
+    /**
+     * @param resource must not be <code>null</code>.
+     * @return the hierarchy of the {@link Resource#getResourceType() resource type}, regardless of whether the resource type
+     * is a node type. Unlike {@link #hierarchyOf(Resource, String, String[])}, this does not require the node types of the resource.
+     * Never <code>null</code>.
+     */
+    @Nonnull
+    String[] resourceTypeHierarchyOf(@Nonnull Resource resource) {
+        if (resource == null) {
+            throw new IllegalArgumentException("Method argument resource must not be null.");
+        }
+        final String resourceType = resource.getResourceType();
+        return resourceType == null ? EMPTY : resourceTypeHierarchyOf(resourceType, resource.getResourceResolver());
+    }
+
+    /**
+     * Removes all hierarchies containing any of the given types.
+     *
+     * @param typeNames must not be <code>null</code>.
+     */
+    void invalidate(@Nonnull Collection<String> typeNames) {
+        if (typeNames == null) {
+            throw new IllegalArgumentException("Method argument typeNames must not be null.");
+        }
+        this.generation.incrementAndGet();
+        this.resourceTypeHierarchies.values().removeIf(hierarchy -> containsAny(hierarchy, typeNames));
+        this.nodeTypeHierarchies.values().removeIf(hierarchy -> containsAny(hierarchy, typeNames));
+    }
+
+    /**
+     * Removes all hierarchies.
+     */
+    void clear() {
+        this.generation.incrementAndGet();
+        this.resourceTypeHierarchies.clear();
+        this.nodeTypeHierarchies.clear();
+    }
+
+    /**
+     * @return the resource type followed by its {@link ResourceResolver#getParentResourceType(String) super types}.
+     */
+    private String[] resourceTypeHierarchyOf(String resourceType, ResourceResolver resolver) {
+        String[] hierarchy = this.resourceTypeHierarchies.get(resourceType);
+        if (hierarchy != null) {
+            return hierarchy;
+        }
+
+        final long generation = this.generation.get();
+        final List<String> types = new ArrayList<>();
+        String type = resourceType;
+        while (type != null && !types.contains(type)) {
+            types.add(type);
+            type = resolver.getParentResourceType(type);
+        }
+        hierarchy = types.toArray(EMPTY);
+        retain(this.resourceTypeHierarchies, resourceType, hierarchy, generation);
+
+        if (type == null) {
+            // The super types of an acyclic hierarchy are the hierarchies of the super types.
+            for (int i = 1; i < hierarchy.length; ++i) {
+                retain(this.resourceTypeHierarchies, hierarchy[i], copyOfRange(hierarchy, i, hierarchy.length), generation);
+            }
+        }
+        return hierarchy;
+    }
+
+    /**
+     * @return the primary type, the mixin types and their super types, see {@link io.neba.core.util.NodeTypeHierarchyIterator}.
+     */
+    private String[] nodeTypeHierarchyOf(Resource resource, String primaryType, String[] mixinTypes) {
+        // The list view compares the mixin types by their contents without copying them.
+        final Key2 key = new Key2(primaryType, mixinTypes == null ? null : asList(mixinTypes));
+        String[] hierarchy = this.nodeTypeHierarchies.get(key);
+        if (hierarchy != null) {
+            return hierarchy;
+        }
+
+        final Node node = resource.adaptTo(Node.class);
+        if (node == null) {
+            // A resource may not represent a JCR node (e.g. synthetic resources)
+            return EMPTY;
+        }
+
+        final long generation = this.generation.get();
+        final List<String> types = new ArrayList<>();
+        typeHierarchyOf(node).forEachRemaining(types::add);
+        hierarchy = types.toArray(EMPTY);
+        retain(this.nodeTypeHierarchies, key, hierarchy, generation);
+        return hierarchy;
+    }
+
+    /**
+     * Retains the hierarchy unless an invalidation occurred since the hierarchy was resolved, as the hierarchy may be outdated.
+     */
+    private <K> void retain(Map<K, String[]> hierarchies, K key, String[] hierarchy, long generation) {
+        hierarchies.putIfAbsent(key, hierarchy);
+        if (this.generation.get() != generation) {
+            hierarchies.remove(key, hierarchy);
+        }
+    }
+
+    private static boolean containsAny(String[] hierarchy, Collection<String> typeNames) {
+        for (String type : hierarchy) {
+            if (typeNames.contains(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -63,6 +63,10 @@ public class ConcurrentDistinctMultiValueMap<K, V> {
         return this.store.values();
     }
 
+    public Set<K> keySet() {
+        return this.store.keySet();
+    }
+
     public void put(K key, Collection<V> values) {
         this.store.computeIfAbsent(key, k -> new ConcurrentLinkedDistinctQueue<>()).addAll(values);
     }
@@ -0,0 +1,69 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+
+package io.neba.core.util;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves enum constants by name. Unlike {@link Enum#valueOf(Class, String)}, unknown names yield <code>null</code>
+ * rather than an exception, as stale or invalid names are common in content. The name-to-constant table of an enum type
+ * is built once and retained with the enum type, i.e. it does not prevent unloading the enum type.
+ *
+ * @author Olaf Otto
+ */
+public final class EnumConstants {
+    private static final ClassValue<Map<String, Enum<?>>> CONSTANTS = new ClassValue<Map<String, Enum<?>>>() {
+        @Override
+        protected Map<String, Enum<?>> computeValue(Class<?> type) {
+            Object[] constants = type.getEnumConstants();
+            Map<String, Enum<?>> constantsByName = new HashMap<>(constants.length * 4 / 3 + 1);
+            for (Object constant : constants) {
+                Enum<?> enumConstant = (Enum<?>) constant;
+                constantsByName.put(enumConstant.name(), enumConstant);
+            }
+            return constantsByName;
+        }
+    };
+
+    /**
+     * @param type must not be <code>null</code>.
+     * @param name can be <code>null</code>.
+     * @return the constant of the enum type with the given name, or <code>null</code> if no such constant exists.
+     */
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public static <T extends Enum<T>> T valueOf(@Nonnull Class<T> type, @CheckForNull String name) {
+        if (type == null) {
+            throw new IllegalArgumentException("Method argument type must not be null.");
+        }
+        if (!type.isEnum()) {
+            throw new IllegalArgumentException("Method argument type must be an enum type, but is " + type + ".");
+        }
+        if (name == null) {
+            return null;
+        }
+
+        return (T) CONSTANTS.get(type).get(name);
+    }
+
+    private EnumConstants() {
+    }
+}
@@ -0,0 +1,139 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.util;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+
+import static io.neba.core.util.ReflectionUtil.makeAccessible;
+import static java.lang.invoke.MethodType.methodType;
+import static org.apache.commons.lang3.ClassUtils.primitiveToWrapper;
+
+/**
+ * Reads and writes the value of a {@link Field} using {@link MethodHandle method handles} that are bound
+ * to the field once, when the accessor is created. Contrary to {@link Field#get(Object)} and {@link Field#set(Object, Object)},
+ * invoking the accessor does not repeat the reflective access checks and (un)boxing decisions, and the resulting
+ * call sites are subject to JIT inlining. Accessors are thus intended to be created once per field, e.g. as part
+ * of the {@link io.neba.core.resourcemodels.metadata.MappedFieldMetaData field metadata}, and used on the mapping hot path.
+ *
+ * @author Olaf Otto
+ */
+public class FieldAccessor {
+    private final Field field;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+    private final Class<?> assignableType;
+
+    /**
+     * @param field must not be <code>null</code>. Is {@link ReflectionUtil#makeAccessible(Field) made accessible}
+     *              if required.
+     * @return never <code>null</code>.
+     */
+    @Nonnull
+    public static FieldAccessor accessorFor(@Nonnull Field field) {
+        if (field == null) {
+            throw new IllegalArgumentException("Method argument field must not be null.");
+        }
+        return new FieldAccessor(makeAccessible(field));
+    }
+
+    private FieldAccessor(Field field) {
+        this.field = field;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            // Erase the exact field and owner types to allow invokeExact with Object-typed arguments.
+            this.getter = lookup.unreflectGetter(field).asType(methodType(Object.class, Object.class));
+            this.setter = lookup.unreflectSetter(field).asType(methodType(void.class, Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to create an accessor for the field " + field + ".", e);
+        }
+        // Primitive fields are only set via the method handle if the value is an instance of the exact wrapper type.
+        // Other values either require a widening conversion (e.g. Integer to long) or are incompatible, e.g. null.
+        this.assignableType = primitiveToWrapper(field.getType());
+    }
+
+    /**
+     * @param instance must not be <code>null</code>.
+     * @return the current value of the field, can be <code>null</code>.
+     */
+    @CheckForNull
+    public Object get(@Nonnull Object instance) {
+        try {
+            return this.getter.invokeExact(instance);
+        } catch (ClassCastException | NullPointerException e) {
+            // Let reflection signal the illegal argument the same way it always has.
+            return getReflectively(instance);
+        } catch (Throwable t) {
+            throw new IllegalStateException("Unable to read the field " + this.field + " of " + instance + ".", t);
+        }
+    }
+
+    /**
+     * @param instance must not be <code>null</code>.
+     * @param value    can be <code>null</code> unless the field has a primitive type.
+     */
+    public void set(@Nonnull Object instance, @CheckForNull Object value) {
+        if (!isAssignable(instance, value)) {
+            // The value is either incompatible or requires a widening conversion which the method handle does not apply.
+            // Reflection either applies the conversion or signals the incompatible value with an IllegalArgumentException.
+            setReflectively(instance, value);
+            return;
+        }
+        try {
+            this.setter.invokeExact(instance, value);
+        } catch (Throwable t) {
+            throw new IllegalStateException("Unable to set the field " + this.field + " of " + instance + ".", t);
+        }
+    }
+
+    /**
+     * @return the field represented by this accessor, never <code>null</code>.
+     */
+    @Nonnull
+    public Field getField() {
+        return this.field;
+    }
+
+    private boolean isAssignable(Object instance, Object value) {
+        return this.field.getDeclaringClass().isInstance(instance) &&
+                (value == null ? !this.field.getType().isPrimitive() : this.assignableType.isInstance(value));
+    }
+
+    private Object getReflectively(Object instance) {
+        try {
+            return this.field.get(instance);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void setReflectively(Object instance, Object value) {
+        try {
+            this.field.set(instance, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [" + this.field + ']';
+    }
+}
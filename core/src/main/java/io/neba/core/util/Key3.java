@@ -0,0 +1,75 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.util;
+
+import java.util.Objects;
+
+/**
+ * A key with exactly three elements. Unlike a varargs-based key, it does not require an array for its
+ * elements and computes its hash code once upon construction. Use the fixed-arity keys for keys created
+ * frequently, e.g. for every cache lookup.
+ *
+ * @author Olaf Otto
+ */
+public final class Key3 {
+    private final Object first;
+    private final Object second;
+    private final Object third;
+    private final int hashCode;
+
+    /**
+     * All elements can be <code>null</code>.
+     */
+    public Key3(Object first, Object second, Object third) {
+        this.first = first;
+        this.second = second;
+        this.third = third;
+
+        int hashCode = Objects.hashCode(first);
+        hashCode = 31 * hashCode + Objects.hashCode(second);
+        hashCode = 31 * hashCode + Objects.hashCode(third);
+        this.hashCode = hashCode;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != Key3.class) {
+            return false;
+        }
+        Key3 other = (Key3) obj;
+        return this.hashCode == other.hashCode &&
+                Objects.equals(this.first, other.first) &&
+                Objects.equals(this.second, other.second) &&
+                Objects.equals(this.third, other.third);
+    }
+
+    @Override
+    public String toString() {
+        return "Key {" +
+                this.first + ", " +
+                this.second + ", " +
+                this.third + '}';
+    }
+}
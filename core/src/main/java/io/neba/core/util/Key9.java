@@ -0,0 +1,104 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.util;
+
+import java.util.Objects;
+
+/**
+ * A key with exactly nine elements.
+ *
+ * @see Key2
+ * @author Olaf Otto
+ */
+public final class Key9 {
+    private final Object first;
+    private final Object second;
+    private final Object third;
+    private final Object fourth;
+    private final Object fifth;
+    private final Object sixth;
+    private final Object seventh;
+    private final Object eighth;
+    private final Object ninth;
+    private final int hashCode;
+
+    /**
+     * All elements can be <code>null</code>.
+     */
+    public Key9(Object first, Object second, Object third, Object fourth, Object fifth, Object sixth, Object seventh, Object eighth, Object ninth) {
+        this.first = first;
+        this.second = second;
+        this.third = third;
+        this.fourth = fourth;
+        this.fifth = fifth;
+        this.sixth = sixth;
+        this.seventh = seventh;
+        this.eighth = eighth;
+        this.ninth = ninth;
+
+        int hashCode = Objects.hashCode(first);
+        hashCode = 31 * hashCode + Objects.hashCode(second);
+        hashCode = 31 * hashCode + Objects.hashCode(third);
+        hashCode = 31 * hashCode + Objects.hashCode(fourth);
+        hashCode = 31 * hashCode + Objects.hashCode(fifth);
+        hashCode = 31 * hashCode + Objects.hashCode(sixth);
+        hashCode = 31 * hashCode + Objects.hashCode(seventh);
+        hashCode = 31 * hashCode + Objects.hashCode(eighth);
+        hashCode = 31 * hashCode + Objects.hashCode(ninth);
+        this.hashCode = hashCode;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != Key9.class) {
+            return false;
+        }
+        Key9 other = (Key9) obj;
+        return this.hashCode == other.hashCode &&
+                Objects.equals(this.first, other.first) &&
+                Objects.equals(this.second, other.second) &&
+                Objects.equals(this.third, other.third) &&
+                Objects.equals(this.fourth, other.fourth) &&
+                Objects.equals(this.fifth, other.fifth) &&
+                Objects.equals(this.sixth, other.sixth) &&
+                Objects.equals(this.seventh, other.seventh) &&
+                Objects.equals(this.eighth, other.eighth) &&
+                Objects.equals(this.ninth, other.ninth);
+    }
+
+    @Override
+    public String toString() {
+        return "Key {" +
+                this.first + ", " +
+                this.second + ", " +
+                this.third + ", " +
+                this.fourth + ", " +
+                this.fifth + ", " +
+                this.sixth + ", " +
+                this.seventh + ", " +
+                this.eighth + ", " +
+                this.ninth + '}';
+    }
+}
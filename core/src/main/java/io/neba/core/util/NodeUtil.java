@@ -44,11 +44,11 @@ public class NodeUtil {
 
     /**
      * @param node must not be <code>null</code>.
-     * @return a String with the comma separated mixin type names assigned to the given node, or <code>null</code> if the node has no mixin types.
+     * @return the mixin type names assigned to the given node, or <code>null</code> if the node has no mixin types.
      * @throws RepositoryException if accessing the node fails due to an unrecoverable repository error.
      */
     public static @CheckForNull
-    String geMixinTypes(@Nonnull Node node) throws RepositoryException {
+    String[] geMixinTypes(@Nonnull Node node) throws RepositoryException {
         Object[] mixinTypes = node.hasProperty(JCR_MIXIN_TYPES) ?
                 node.getProperty(JCR_MIXIN_TYPES).getValues() :
                 node.getMixinNodeTypes();
@@ -57,16 +57,13 @@ public class NodeUtil {
             return null;
         }
 
-        StringBuilder commaSeparatedMixinTypeNames = new StringBuilder(64);
+        String[] mixinTypeNames = new String[mixinTypes.length];
 
         for (int i = 0; i < mixinTypes.length; ++i) {
-            commaSeparatedMixinTypeNames.append(mixinTypes[i].toString());
-            if (i < mixinTypes.length - 1) {
-                commaSeparatedMixinTypeNames.append(',');
-            }
+            mixinTypeNames[i] = mixinTypes[i].toString();
         }
 
-        return commaSeparatedMixinTypeNames.toString();
+        return mixinTypeNames;
     }
 
     private NodeUtil() {
@@ -20,6 +20,7 @@ import org.apache.sling.api.resource.ValueMap;
 
 import javax.annotation.Nonnull;
 import java.lang.reflect.Array;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
@@ -69,16 +70,7 @@ public class PrimitiveAndEnumSupportingValueMap implements ValueMap {
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     private <T> T getEnumInstance(@Nonnull String name, @Nonnull Class<Enum> type) {
-        String instanceName = this.map.get(name, String.class);
-        if (instanceName == null) {
-            return null;
-        }
-
-        try {
-            return (T) Enum.valueOf(type, instanceName);
-        } catch (IllegalArgumentException e) {
-            return null;
-        }
+        return (T) EnumConstants.valueOf(type, this.map.get(name, String.class));
     }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
@@ -87,24 +79,19 @@ public class PrimitiveAndEnumSupportingValueMap implements ValueMap {
         if (instanceNames == null) {
             return null;
         }
-        Enum[] enumInstances = (Enum[]) Array.newInstance(type.getComponentType(), instanceNames.length);
 
+        final Class<Enum> componentType = (Class<Enum>) type.getComponentType();
+        Enum[] enumInstances = (Enum[]) Array.newInstance(componentType, instanceNames.length);
         int numberOfEnumInstances = 0;
         for (String instanceName : instanceNames) {
-            try {
-                enumInstances[numberOfEnumInstances] = Enum.valueOf((Class<Enum>) type.getComponentType(), instanceName);
-                ++numberOfEnumInstances;
-            } catch (IllegalArgumentException e) {
-                // Ignore; continue.
+            Enum instance = EnumConstants.valueOf(componentType, instanceName);
+            if (instance != null) {
+                enumInstances[numberOfEnumInstances++] = instance;
             }
         }
-        if (numberOfEnumInstances == enumInstances.length) {
-            return (T) enumInstances;
-        }
 
-        Enum[] effectiveInstances = (Enum[]) Array.newInstance(type.getComponentType(), numberOfEnumInstances);
-        System.arraycopy(enumInstances, 0, effectiveInstances, 0, effectiveInstances.length);
-        return (T) effectiveInstances;
+        // Only shrink the array if unknown instance names were discarded.
+        return (T) (numberOfEnumInstances == enumInstances.length ? enumInstances : Arrays.copyOf(enumInstances, numberOfEnumInstances));
     }
 
     @Override
@@ -0,0 +1,171 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+
+package io.neba.core.util;
+
+import org.apache.sling.api.resource.ValueMap;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import static org.apache.commons.lang3.ClassUtils.primitiveToWrapper;
+
+/**
+ * Retrieves properties from a {@link ValueMap} as a specific target type, e.g. the type of a
+ * {@link io.neba.core.resourcemodels.metadata.MappedFieldMetaData mapped field}.
+ * <br />
+ * {@link ValueMap#get(String, Class)} runs the generic conversion of the value map implementation for every retrieval. This converter
+ * instead retrieves the raw property value and applies a conversion compiled once per pair of source value type and target type.
+ * Only conversions yielding the same result for all value map implementations are compiled, most notably the retrieval of values
+ * that already are of the target type. All other conversions, as well as failed conversions, are delegated to {@link ValueMap#get(String, Class)}.
+ *
+ * @author Olaf Otto
+ */
+public final class PropertyConverter<T> {
+    private static final Object NOT_CONVERTED = new Object();
+    private static final Conversion FALLBACK = value -> NOT_CONVERTED;
+
+    private static final ClassValue<PropertyConverter<?>> CONVERTERS = new ClassValue<PropertyConverter<?>>() {
+        @Override
+        protected PropertyConverter<?> computeValue(Class<?> targetType) {
+            return new PropertyConverter<>(targetType);
+        }
+    };
+
+    /**
+     * @param targetType must not be <code>null</code>. May be a primitive type.
+     * @return the converter for the target type, never <code>null</code>.
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public static <T> PropertyConverter<T> converterFor(@Nonnull Class<T> targetType) {
+        if (targetType == null) {
+            throw new IllegalArgumentException("Method argument targetType must not be null.");
+        }
+        return (PropertyConverter<T>) CONVERTERS.get(targetType);
+    }
+
+    private final Class<T> targetType;
+    private final Class<?> boxedTargetType;
+    private final ClassValue<Conversion> conversions = new ClassValue<Conversion>() {
+        @Override
+        protected Conversion computeValue(Class<?> sourceType) {
+            return conversionOf(sourceType);
+        }
+    };
+
+    private PropertyConverter(Class<T> targetType) {
+        this.targetType = targetType;
+        this.boxedTargetType = primitiveToWrapper(targetType);
+    }
+
+    /**
+     * @param properties must not be <code>null</code>.
+     * @param name       must not be <code>null</code>.
+     * @return the property converted to the {@link #getTargetType() target type}, or <code>null</code> if the property
+     * does not exist or cannot be converted.
+     */
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public T get(@Nonnull ValueMap properties, @Nonnull String name) {
+        if (properties == null) {
+            throw new IllegalArgumentException("Method argument properties must not be null.");
+        }
+        if (name == null) {
+            throw new IllegalArgumentException("Method argument name must not be null.");
+        }
+
+        final Object value = properties.get(name);
+        if (value == null) {
+            return null;
+        }
+
+        // Most values already are of the target type.
+        if (this.boxedTargetType.isInstance(value)) {
+            return (T) value;
+        }
+
+        final Object converted = this.conversions.get(value.getClass()).convert(value);
+        if (converted == NOT_CONVERTED) {
+            return (T) properties.get(name, this.targetType);
+        }
+        return (T) converted;
+    }
+
+    /**
+     * @return the type properties are converted to, never <code>null</code>. May be a primitive type.
+     */
+    @Nonnull
+    public Class<T> getTargetType() {
+        return this.targetType;
+    }
+
+    /**
+     * @param sourceType a type not assignable to the target type.
+     */
+    private Conversion conversionOf(Class<?> sourceType) {
+        if (sourceType == String.class) {
+            if (this.boxedTargetType == Boolean.class) {
+                return value -> Boolean.valueOf((String) value);
+            }
+            if (this.boxedTargetType == Long.class) {
+                return value -> {
+                    try {
+                        return Long.valueOf((String) value);
+                    } catch (NumberFormatException e) {
+                        return NOT_CONVERTED;
+                    }
+                };
+            }
+            if (this.boxedTargetType == Double.class) {
+                return value -> {
+                    try {
+                        return Double.valueOf((String) value);
+                    } catch (NumberFormatException e) {
+                        return NOT_CONVERTED;
+                    }
+                };
+            }
+        }
+
+        // Calendars and dates have implementation-specific string representations, e.g. ISO 8601 for JCR properties.
+        if (this.boxedTargetType == String.class && (Number.class.isAssignableFrom(sourceType) || sourceType == Boolean.class)) {
+            return String::valueOf;
+        }
+
+        return FALLBACK;
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyConverter {" + this.targetType.getName() + '}';
+    }
+
+    /**
+     * Converts a property value of a specific source type.
+     *
+     * @author Olaf Otto
+     */
+    @FunctionalInterface
+    private interface Conversion {
+        /**
+         * @param value never <code>null</code>.
+         * @return the converted value, or {@link #NOT_CONVERTED} if the value map shall convert the value.
+         */
+        Object convert(@Nonnull Object value);
+    }
+}
@@ -54,7 +54,7 @@ public class ResolvedModelSource<T> {
 
     /**
      * The resource type for which this model was resolved. May be any type within the
-     * mapped resource's {@link io.neba.core.resourcemodels.registration.MappableTypeHierarchy}.
+     * mapped resource's {@link io.neba.core.resourcemodels.registration.TypeHierarchyIndex type hierarchy}.
      *
      * @return never <code>null</code>.
      */
@@ -0,0 +1,149 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.util;
+
+import javax.annotation.Nonnull;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A compact set of resource paths, e.g. for recording the resources read during a resource-to-model mapping.
+ * The paths are stored in a single open-addressing hash table using the (cached) {@link String#hashCode() hash code}
+ * of the paths, i.e. adding a path does not allocate any entry objects. As such sets are typically small,
+ * the table starts with a small capacity. Paths cannot be removed.
+ * <br />
+ * This set is not thread-safe.
+ *
+ * @author Olaf Otto
+ */
+public class ResourcePathSet extends AbstractSet<String> {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private String[] table = new String[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * @param path must not be <code>null</code>.
+     * @return whether the path was added, i.e. was not already contained in this set.
+     */
+    @Override
+    public boolean add(@Nonnull String path) {
+        if (path == null) {
+            throw new IllegalArgumentException("Method argument path must not be null.");
+        }
+
+        int index = indexOf(this.table, path);
+        if (this.table[index] != null) {
+            return false;
+        }
+
+        // Keep the load factor at or below 3/4 to keep the probe sequences short.
+        if ((this.size + 1) * 4 > this.table.length * 3) {
+            grow();
+            index = indexOf(this.table, path);
+        }
+
+        this.table[index] = path;
+        ++this.size;
+        return true;
+    }
+
+    /**
+     * Adds all paths of the given collection. Does not allocate an iterator if the collection is a {@link ResourcePathSet}.
+     */
+    @Override
+    public boolean addAll(@Nonnull Collection<? extends String> paths) {
+        if (!(paths instanceof ResourcePathSet)) {
+            return super.addAll(paths);
+        }
+
+        boolean modified = false;
+        for (String path : ((ResourcePathSet) paths).table) {
+            if (path != null) {
+                modified |= add(path);
+            }
+        }
+        return modified;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof String && this.table[indexOf(this.table, (String) o)] != null;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    @Nonnull
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int index = advance(0);
+
+            @Override
+            public boolean hasNext() {
+                return this.index < table.length;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String path = table[this.index];
+                this.index = advance(this.index + 1);
+                return path;
+            }
+
+            private int advance(int index) {
+                int i = index;
+                while (i < table.length && table[i] == null) {
+                    ++i;
+                }
+                return i;
+            }
+        };
+    }
+
+    private void grow() {
+        final String[] table = new String[this.table.length * 2];
+        for (String path : this.table) {
+            if (path != null) {
+                table[indexOf(table, path)] = path;
+            }
+        }
+        this.table = table;
+    }
+
+    /**
+     * @return the index of the slot containing the path or, if the path is not contained, the index of the empty slot the path is to be stored in.
+     */
+    private static int indexOf(String[] table, String path) {
+        final int mask = table.length - 1;
+        final int hash = path.hashCode();
+        int index = (hash ^ (hash >>> 16)) & mask;
+        String candidate;
+        while ((candidate = table[index]) != null && !candidate.equals(path)) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+}
@@ -54,32 +54,47 @@ public class ResourcePaths {
     }
 
     private static class PathWithPlaceholders implements ResourcePath {
-        private final List<Value> segments;
+        // The assumed average length of a resolved placeholder value, used to pre-size the resolved path.
+        private static final int EXPECTED_VALUE_LENGTH = 16;
 
-        private PathWithPlaceholders(String path) {
-            this(segments(path));
-        }
+        private final String path;
+        private final Value[] segments;
+        private final int expectedLength;
 
-        private PathWithPlaceholders(List<Value> segments) {
-            this.segments = segments;
+        private PathWithPlaceholders(String path) {
+            this.path = path;
+            this.segments = segments(path).toArray(new Value[0]);
+            int expectedLength = 0;
+            for (Value segment : this.segments) {
+                expectedLength += segment.isPlaceholder() ? EXPECTED_VALUE_LENGTH : segment.value.length();
+            }
+            this.expectedLength = expectedLength;
         }
 
+        /**
+         * Placeholders the resolver yields <code>null</code> for are retained in the resolved path.
+         */
         public ResourcePath resolve(Function<String, String> placeholderResolver) {
             if (placeholderResolver == null) {
                 throw new IllegalArgumentException("Method argument placeholderResolver must not be null");
             }
 
-            return new PathWithoutPlaceholders(
-                    this.segments
-                            .stream()
-                            .map(s -> s.isPlaceholder() ? new Value(placeholderResolver.apply(s.value)) : s)
-                            .map(Value::getValue)
-                            .reduce("", String::concat));
+            final StringBuilder resolvedPath = new StringBuilder(this.expectedLength);
+            for (Value segment : this.segments) {
+                if (segment.isPlaceholder()) {
+                    String value = placeholderResolver.apply(segment.value);
+                    resolvedPath.append(value == null ? segment.getValue() : value);
+                } else {
+                    resolvedPath.append(segment.value);
+                }
+            }
+
+            return new PathWithoutPlaceholders(resolvedPath.toString());
         }
 
         @Override
         public String getPath() {
-            return this.segments.stream().map(Value::getValue).reduce("", String::concat);
+            return this.path;
         }
 
         @Override
@@ -131,7 +146,7 @@ public class ResourcePaths {
             List<Value> segments = new ArrayList<>(4);
             int last = 0;
             do {
-                if (matcher.start() != 0) {
+                if (matcher.start() != last) {
                     segments.add(new Value(path.substring(last, matcher.start())));
                 }
                 segments.add(new Placeholder(matcher.group(MATCH_NAME)));
@@ -15,10 +15,38 @@
 */
 package io.neba.core.util;
 
+import javax.annotation.CheckForNull;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * @author Olaf Otto
  */
 public class StringUtil {
+    private static final ConcurrentMap<String, String> TYPE_NAMES = new ConcurrentHashMap<>();
+
+    /**
+     * Provides a canonical instance of the given type name, e.g. a resource or node type name. This allows retaining type names
+     * in long-lived data structures such as caches without holding many equal copies. Note that the canonical instances
+     * are retained indefinitely; only use this for strings from a bounded set of values, such as type names.
+     *
+     * @param typeName can be <code>null</code>.
+     * @return the canonical instance of the type name, or <code>null</code> if the type name is <code>null</code>.
+     */
+    @CheckForNull
+    public static String internTypeName(@CheckForNull String typeName) {
+        if (typeName == null) {
+            return null;
+        }
+        // Check first: Unlike get, putIfAbsent locks even if the value is present.
+        String canonical = TYPE_NAMES.get(typeName);
+        if (canonical != null) {
+            return canonical;
+        }
+        canonical = TYPE_NAMES.putIfAbsent(typeName, typeName);
+        return canonical == null ? typeName : canonical;
+    }
+
     /**
      * Appends the given String to all elements of the given array.
      *
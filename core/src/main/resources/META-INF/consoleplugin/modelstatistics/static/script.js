@@ -98,6 +98,10 @@
                 "minimumMappingDuration" : {hint: "The minimum duration of a single resource to model mappings (in milliseconds)", order:100},
                 "mappingDurationMedian" : {hint: "The median duration of a single resource to model mapping (in milliseconds)", order:110},
                 "cacheHits" : {hint: "The number of times the model was found in a resource model cache, e.g. the NEBA request-scoped model cache.", order:120},
+                "averageDependencies" : {hint: "The average number of resources read to map the model, including nested models", order:130},
+                "maximumDependencies" : {hint: "The maximum number of resources read to map the model, including nested models", order:140},
+                "cacheMisses" : {hint: "The number of times the model was not found in the NEBA request-scoped model cache and added to it.", order:150},
+                "cacheEvictions" : {hint: "The number of times the model was evicted from the NEBA request-scoped model cache as the cache exceeded its bounds.", order:160},
                 "totalMappingDuration" : {hint: "The total time spent instantiating and mapping the model (in milliseconds)", order:20},
                 "average(" : {hint: "The average of the specified property for all models, e.g. average(totalMappingDuration) is the average amount of time spent in resource model mapping.", order:15},
                 "entire(" : {hint: "The sum of the specified property for all models, e.g. entire(totalMappingDuration) is the total amount of time spent in resource model mapping.", order:16},
@@ -200,7 +204,11 @@
                             {name: "mappings", max: 0, label: 'Subsequent mappings'},
                             {name: "mappableFields", max: 0},
                             {name: "minimumMappingDuration", max: 0},
-                            {name: "maximumMappingDuration", max: 0}
+                            {name: "maximumMappingDuration", max: 0},
+                            {name: "averageDependencies", max: 0},
+                            {name: "maximumDependencies", max: 0},
+                            {name: "cacheMisses", max: 0},
+                            {name: "cacheEvictions", max: 0}
                         ],
                         // Used to store property metadata, such as the sum, average
                         // and occurrences of a property for all models
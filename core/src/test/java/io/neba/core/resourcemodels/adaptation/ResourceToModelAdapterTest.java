@@ -19,7 +19,7 @@ package io.neba.core.resourcemodels.adaptation;
 import io.neba.core.resourcemodels.caching.RequestScopedResourceModelCache;
 import io.neba.core.resourcemodels.mapping.ResourceToModelMapper;
 import io.neba.core.resourcemodels.registration.ModelRegistry;
-import io.neba.core.util.Key;
+import io.neba.core.util.Key4;
 import io.neba.core.util.ResolvedModelSource;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
@@ -82,7 +82,7 @@ public class ResourceToModelAdapterTest {
 
     @Mock
     private RequestScopedResourceModelCache cache;
-    private Map<Key, Optional<Object>> testCache = new HashMap<>();
+    private Map<Key4, Optional<Object>> testCache = new HashMap<>();
 
     private Class<?> targetType;
     private Object adapted;
@@ -103,11 +103,11 @@ public class ResourceToModelAdapterTest {
 
         doAnswer(storeInCache)
                 .when(this.cache)
-                .put(isA(Resource.class), isA(Key.class), any());
+                .put(isA(Resource.class), isA(Class.class), any());
 
         doAnswer(lookupFromCache)
                 .when(this.cache)
-                .get(isA(Resource.class), isA(Key.class));
+                .get(isA(Resource.class), isA(Class.class));
 
         doReturn(this.resourceResolver).when(resource).getResourceResolver();
         doReturn("anonymous").when(resourceResolver).getUserID();
@@ -216,11 +216,27 @@ public class ResourceToModelAdapterTest {
         verifyAdapterObtainsSourceFromRegistrar();
     }
 
+    @Test
+    public void testUnmappedResourcesAreRejectedWithoutLookup() {
+        withTargetType(TestModel.class);
+        withUnmappedResource();
+
+        adapt();
+
+        assertResourceWasNotAdaptedToModel();
+        verify(this.registry, never()).lookupMostSpecificModels(any(), any(Class.class));
+        verify(this.cache, never()).get(any(), any(Class.class));
+    }
+
     @SuppressWarnings("unchecked")
     private void verifyAdapterDoesNotMapResourceToModel() {
         verify(this.mapper, never()).map(isA(Resource.class), isA(ResolvedModelSource.class));
     }
 
+    private void withUnmappedResource() {
+        doReturn(true).when(this.registry).isUnmapped(this.resource);
+    }
+
     private void withNullReturnedAsModelSourceFromRegistrar() {
         when(this.registry.lookupMostSpecificModels(eq(this.resource), eq(this.targetType))).thenReturn(null);
     }
@@ -285,9 +301,9 @@ public class ResourceToModelAdapterTest {
     /**
      * Simulates the key calculation used by the ResourceModelCaches implementation.
      */
-    private Key buildCacheInvocationKey(InvocationOnMock invocation) {
+    private Key4 buildCacheInvocationKey(InvocationOnMock invocation) {
         Resource resource = (Resource) invocation.getArguments()[0];
-        Key key = (Key) invocation.getArguments()[1];
-        return new Key(resource.getPath(), key, resource.getResourceType(), resource.getResourceResolver().getUserID());
+        Object key = invocation.getArguments()[1];
+        return new Key4(resource.getPath(), key, resource.getResourceType(), resource.getResourceResolver().getUserID());
     }
 }
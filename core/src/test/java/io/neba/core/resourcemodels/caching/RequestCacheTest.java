@@ -0,0 +1,206 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.caching;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Olaf Otto
+ */
+public class RequestCacheTest {
+    private final List<Optional<?>> evicted = new ArrayList<>();
+    private final RequestCacheStatistics statistics = new RequestCacheStatistics();
+    private int maxEntries;
+    private long maxWeight;
+
+    private RequestCache testee;
+
+    @Before
+    public void setUp() {
+        withBounds(0, 0);
+    }
+
+    @Test
+    public void testCacheIsUnboundedWithoutLimits() {
+        for (int i = 0; i < 1000; ++i) {
+            put(i, of("model" + i));
+        }
+        assertCacheSizeIs(1000);
+        assertNothingWasEvicted();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvictedWhenMaximumNumberOfEntriesIsExceeded() {
+        withBounds(2, 0);
+        put(1, of("one"));
+        put(2, of("two"));
+        get(1);
+        put(3, of("three"));
+
+        assertCacheSizeIs(2);
+        assertEvictedValuesAre(of("two"));
+        assertThat(this.testee.get(1)).isEqualTo(of("one"));
+        assertThat(this.testee.get(3)).isEqualTo(of("three"));
+    }
+
+    @Test
+    public void testEntriesAreEvictedUntilWeightIsWithinBounds() {
+        withBounds(0, 10);
+        put(1, of("aaaa"));
+        put(2, of("bbbb"));
+        put(3, of("cccccccc"));
+
+        assertCacheSizeIs(1);
+        assertWeightIs(8);
+        assertEvictedValuesAre(of("aaaa"), of("bbbb"));
+    }
+
+    @Test
+    public void testMostRecentEntryIsRetainedEvenIfItExceedsMaximumWeight() {
+        withBounds(0, 2);
+        put(1, of("heavy"));
+
+        assertCacheSizeIs(1);
+        assertWeightIs(5);
+        assertNothingWasEvicted();
+    }
+
+    @Test
+    public void testReplacingEntryUpdatesWeight() {
+        put(1, of("aaaa"));
+        put(1, of("bb"));
+
+        assertCacheSizeIs(1);
+        assertWeightIs(2);
+    }
+
+    @Test
+    public void testHitsMissesAndEvictionsAreCounted() {
+        withBounds(1, 0);
+        get(1);
+        put(1, empty());
+        get(1);
+        put(2, of("two"));
+
+        assertThat(this.statistics.getHits()).isEqualTo(1);
+        assertThat(this.statistics.getMisses()).isEqualTo(1);
+        assertThat(this.statistics.getEvictions()).isEqualTo(1);
+        assertThat(this.statistics.getSize()).isEqualTo(1);
+        assertThat(this.statistics.getWeight()).isEqualTo(3);
+    }
+
+    @Test
+    public void testEmptyCopySharesBoundsAndStatistics() {
+        withBounds(1, 0);
+        RequestCache copy = this.testee.emptyCopy();
+        copy.put(1, of("one"));
+        copy.put(2, of("two"));
+
+        assertThat(copy.size()).isEqualTo(1);
+        assertThat(copy.getStatistics()).isSameAs(this.statistics);
+        assertCacheSizeIs(0);
+    }
+
+    @Test
+    public void testEmptyCopyDoesNotReportSizeAndWeight() {
+        withBounds(0, 0);
+        put(1, of("one"));
+        RequestCache copy = this.testee.emptyCopy();
+        copy.put(2, of("two"));
+        copy.put(3, of("three"));
+
+        assertThat(this.statistics.getSize()).isEqualTo(1);
+        assertThat(this.statistics.getWeight()).isEqualTo(3);
+
+        this.testee.putAll(copy);
+
+        assertThat(this.statistics.getSize()).isEqualTo(3);
+        assertThat(this.statistics.getWeight()).isEqualTo(11);
+    }
+
+    @Test
+    public void testForkedCopyDoesNotReportSizeAndWeight() {
+        withBounds(0, 0);
+        RequestCacheStatistics taskStatistics = new RequestCacheStatistics();
+        RequestCache copy = this.testee.emptyCopy(taskStatistics);
+        copy.get(1);
+        copy.put(1, of("one"));
+
+        assertThat(taskStatistics.getMisses()).isEqualTo(1);
+        assertThat(taskStatistics.getSize()).isEqualTo(0);
+        assertThat(taskStatistics.getWeight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testAddingAllEntriesOfOtherCacheAppliesBounds() {
+        withBounds(2, 0);
+        RequestCache other = this.testee.emptyCopy();
+        put(1, of("one"));
+        other.put(2, of("two"));
+        other.put(3, of("three"));
+
+        this.testee.putAll(other);
+
+        assertCacheSizeIs(2);
+        assertEvictedValuesAre(of("one"));
+    }
+
+    private void withBounds(int maxEntries, long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        // Weigh values by their length to simulate models of different sizes
+        this.testee = new RequestCache(
+                this.maxEntries,
+                this.maxWeight,
+                value -> value.map(v -> v.toString().length()).orElse(1),
+                this.evicted::add,
+                this.statistics);
+    }
+
+    private void put(Object key, Optional<?> value) {
+        this.testee.put(key, value);
+    }
+
+    private void get(Object key) {
+        this.testee.get(key);
+    }
+
+    private void assertCacheSizeIs(int size) {
+        assertThat(this.testee.size()).isEqualTo(size);
+    }
+
+    private void assertWeightIs(long weight) {
+        assertThat(this.testee.getWeight()).isEqualTo(weight);
+    }
+
+    private void assertNothingWasEvicted() {
+        assertThat(this.evicted).isEmpty();
+    }
+
+    private void assertEvictedValuesAre(Optional<?>... values) {
+        assertThat(this.evicted).containsExactly(values);
+    }
+}
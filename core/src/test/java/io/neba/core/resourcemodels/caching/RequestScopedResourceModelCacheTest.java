@@ -17,6 +17,7 @@
 package io.neba.core.resourcemodels.caching;
 
 import io.neba.core.resourcemodels.caching.RequestScopedResourceModelCache.Configuration;
+import io.neba.core.resourcemodels.metadata.MappedFieldMetaData;
 import io.neba.core.resourcemodels.metadata.ResourceModelMetaData;
 import io.neba.core.resourcemodels.metadata.ResourceModelMetaDataRegistrar;
 import io.neba.core.resourcemodels.metadata.ResourceModelStatistics;
@@ -27,6 +28,7 @@ import org.apache.sling.api.resource.ResourceResolver;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -34,8 +36,8 @@ import org.mockito.junit.MockitoJUnitRunner;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletResponse;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
-import static io.neba.core.util.Key.key;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
@@ -357,7 +359,7 @@ public class RequestScopedResourceModelCacheTest {
     @Test
     public void testCacheToleratesNullModelWrite() throws Exception {
         request(() -> {
-            testee.put(this.resource, key(), null);
+            testee.put(this.resource, this.modelType, null);
             putModelInCache();
         });
     }
@@ -365,7 +367,7 @@ public class RequestScopedResourceModelCacheTest {
     @Test(expected = IllegalArgumentException.class)
     public void testCacheDoesNotTolerateNullResourceWrite() throws Exception {
         request(() -> {
-            testee.put(null, key(), this.model);
+            testee.put(null, this.modelType, this.model);
             putModelInCache();
         });
     }
@@ -407,6 +409,317 @@ public class RequestScopedResourceModelCacheTest {
         });
     }
 
+    @Test
+    public void testCachedModelsAreNotVisibleInIsolatedScope() throws Exception {
+        request(() -> {
+            withResourcePath("/junit/test/1");
+            putModelInCache();
+
+            this.testee.isolated(() -> {
+                lookupModelFromCache();
+                assertModelIsNotKnownToCache();
+                return null;
+            });
+
+            lookupModelFromCache();
+            assertModelIsInCache();
+        });
+    }
+
+    @Test
+    public void testModelsCachedInIsolatedScopeAreRetained() throws Exception {
+        request(() -> {
+            withResourcePath("/junit/test/1");
+
+            this.testee.isolated(() -> {
+                putModelInCache();
+                return null;
+            });
+
+            lookupModelFromCache();
+            assertModelIsInCache();
+        });
+    }
+
+    @Test
+    public void testRequestCacheSizeIsNotReportedByIsolatedScope() throws Exception {
+        request(() -> {
+            withResourcePath("/junit/test/1");
+            putModelInCache();
+
+            this.testee.isolated(() -> {
+                withResourcePath("/junit/test/2");
+                putModelInCache();
+                assertThat(getRequestCacheStatistics().getSize()).isEqualTo(1);
+                return null;
+            });
+
+            assertThat(getRequestCacheStatistics().getSize()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    public void testRequestCacheIsUnboundedByDefault() {
+        assertThat(defaultValueOf("maxEntries")).isEqualTo(0);
+        assertThat(defaultValueOf("maxWeight")).isEqualTo(0L);
+    }
+
+    @Test
+    public void testIsolatedScopeProvidesSupplierResultOutsideOfRequest() {
+        assertThat(this.testee.isolated(() -> this.model)).isSameAs(this.model);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIsolatedScopeRequiresSupplier() {
+        this.testee.isolated(null);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedModelIsEvictedWhenMaximumNumberOfEntriesIsExceeded() throws Exception {
+        withMaxEntries(2);
+        request(() -> {
+            withResourcePath("/junit/test/1");
+            putModelInCache();
+            withResourcePath("/junit/test/2");
+            putModelInCache();
+
+            withResourcePath("/junit/test/1");
+            lookupModelFromCache();
+            assertModelIsInCache();
+
+            withResourcePath("/junit/test/3");
+            putModelInCache();
+
+            withResourcePath("/junit/test/2");
+            lookupModelFromCache();
+            assertModelIsNotKnownToCache();
+
+            withResourcePath("/junit/test/1");
+            lookupModelFromCache();
+            assertModelIsInCache();
+
+            verifyCacheEvictionIsCounted();
+        });
+    }
+
+    @Test
+    public void testModelsAreEvictedWhenMaximumWeightIsExceeded() throws Exception {
+        withMaxWeight(5);
+        withMappableFields(2);
+        request(() -> {
+            withResourcePath("/junit/test/1");
+            putModelInCache();
+            withResourcePath("/junit/test/2");
+            putModelInCache();
+
+            assertRequestCacheStatisticsAre(0, 0, 1);
+            assertRequestCacheWeightIs(3);
+
+            withResourcePath("/junit/test/1");
+            lookupModelFromCache();
+            assertModelIsNotKnownToCache();
+        });
+    }
+
+    @Test
+    public void testKnownLookupFailuresAreNotCountedAsEvictionOfModels() throws Exception {
+        withMaxEntries(1);
+        withNullModel();
+        request(() -> {
+            withResourcePath("/junit/test/1");
+            putModelInCache();
+            withResourcePath("/junit/test/2");
+            putModelInCache();
+
+            assertRequestCacheStatisticsAre(0, 0, 1);
+            verify(this.resourceModelStatistics, never()).countCacheEviction();
+        });
+    }
+
+    @Test
+    public void testHitsAndMissesAreCountedPerRequest() throws Exception {
+        request(() -> {
+            lookupModelFromCache();
+            putModelInCache();
+            lookupModelFromCache();
+            lookupModelFromCache();
+
+            assertRequestCacheStatisticsAre(2, 1, 0);
+        });
+    }
+
+    @Test
+    public void testAddingModelToCacheIsCountedAsCacheMiss() throws Exception {
+        request(() -> {
+            putModelInCache();
+            verify(this.resourceModelStatistics).countCacheMiss();
+        });
+    }
+
+    @Test
+    public void testModelsCachedInIsolatedScopeAreSubjectToBounds() throws Exception {
+        withMaxEntries(1);
+        request(() -> {
+            withResourcePath("/junit/test/1");
+            putModelInCache();
+
+            this.testee.isolated(() -> {
+                withResourcePath("/junit/test/2");
+                putModelInCache();
+                return null;
+            });
+
+            withResourcePath("/junit/test/1");
+            lookupModelFromCache();
+            assertModelIsNotKnownToCache();
+
+            withResourcePath("/junit/test/2");
+            lookupModelFromCache();
+            assertModelIsInCache();
+        });
+    }
+
+    @Test
+    public void testModelsCachedInForkedTaskAreAddedToRequestCacheWhenForkIsJoined() throws Exception {
+        request(() -> {
+            withResourcePath("/junit/test/1");
+            RequestScopedResourceModelCache.Fork fork = this.testee.fork();
+
+            inOtherThread(() -> fork.run(() -> {
+                putModelInCache();
+                return null;
+            }));
+
+            lookupModelFromCache();
+            assertModelIsNotKnownToCache();
+
+            fork.join();
+
+            lookupModelFromCache();
+            assertModelIsInCache();
+        });
+    }
+
+    @Test
+    public void testForkedTaskUsesRequestOfForkingThreadInSafeMode() throws Exception {
+        withSafeMode();
+        request(() -> {
+            withResourcePath("/junit/test/1");
+            withSelector("forked");
+            RequestScopedResourceModelCache.Fork fork = this.testee.fork();
+
+            inOtherThread(() -> fork.run(() -> {
+                putModelInCache();
+                return null;
+            }));
+            fork.join();
+
+            lookupModelFromCache();
+            assertModelIsInCache();
+
+            withSelector("other");
+            lookupModelFromCache();
+            assertModelIsNotKnownToCache();
+        });
+    }
+
+    @Test
+    public void testCacheStatisticsOfForkedTasksAreAddedToRequestStatistics() throws Exception {
+        request(() -> {
+            withResourcePath("/junit/test/1");
+            RequestScopedResourceModelCache.Fork fork = this.testee.fork();
+
+            inOtherThread(() -> fork.run(() -> {
+                lookupModelFromCache();
+                putModelInCache();
+                lookupModelFromCache();
+                return null;
+            }));
+            fork.join();
+        });
+
+        assertRequestCacheStatisticsAre(1, 1, 0);
+    }
+
+    @Test
+    public void testForkedTaskRestoresCacheOfExecutingThread() throws Exception {
+        request(() -> {
+            withResourcePath("/junit/test/1");
+            putModelInCache();
+
+            this.testee.fork().run(() -> {
+                lookupModelFromCache();
+                assertModelIsNotKnownToCache();
+                return null;
+            });
+
+            lookupModelFromCache();
+            assertModelIsInCache();
+        });
+    }
+
+    @Test
+    public void testForkProvidesTaskResultOutsideOfRequest() {
+        RequestScopedResourceModelCache.Fork fork = this.testee.fork();
+        assertThat(fork.run(() -> this.model)).isSameAs(this.model);
+        fork.join();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testForkRequiresTask() {
+        this.testee.fork().run(null);
+    }
+
+    private static void inOtherThread(Runnable runnable) throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(runnable);
+        thread.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+        thread.start();
+        thread.join();
+        assertThat(failure.get()).isNull();
+    }
+
+    private void assertRequestCacheStatisticsAre(long hits, long misses, long evictions) {
+        RequestCacheStatistics statistics = getRequestCacheStatistics();
+        assertThat(statistics.getHits()).isEqualTo(hits);
+        assertThat(statistics.getMisses()).isEqualTo(misses);
+        assertThat(statistics.getEvictions()).isEqualTo(evictions);
+    }
+
+    private void assertRequestCacheWeightIs(long weight) {
+        assertThat(getRequestCacheStatistics().getWeight()).isEqualTo(weight);
+    }
+
+    private RequestCacheStatistics getRequestCacheStatistics() {
+        ArgumentCaptor<RequestCacheStatistics> statistics = ArgumentCaptor.forClass(RequestCacheStatistics.class);
+        verify(this.request).setAttribute(eq(RequestScopedResourceModelCache.STATISTICS_ATTRIBUTE), statistics.capture());
+        return statistics.getValue();
+    }
+
+    private void verifyCacheEvictionIsCounted() {
+        verify(this.resourceModelStatistics).countCacheEviction();
+    }
+
+    private static Object defaultValueOf(String attribute) {
+        try {
+            return RequestScopedResourceModelCache.Configuration.class.getMethod(attribute).getDefaultValue();
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private void withMaxEntries(int maxEntries) {
+        doReturn(maxEntries).when(this.configuration).maxEntries();
+    }
+
+    private void withMaxWeight(long maxWeight) {
+        doReturn(maxWeight).when(this.configuration).maxWeight();
+    }
+
+    private void withMappableFields(int numberOfFields) {
+        doReturn(new MappedFieldMetaData[numberOfFields]).when(this.resourceModelMetaData).getMappableFields();
+    }
+
     private void verifyCacheHitIsCounted() {
         verify(this.resourceModelStatistics).countCacheHit();
     }
@@ -456,7 +769,7 @@ public class RequestScopedResourceModelCacheTest {
     }
 
     private void putModelInCache() {
-        testee.put(this.resource, key(this.modelType), this.model);
+        testee.put(this.resource, this.modelType, this.model);
     }
 
     private void assertModelIsInCache() {
@@ -472,7 +785,7 @@ public class RequestScopedResourceModelCacheTest {
     }
 
     private void lookupModelFromCache() {
-        cachedModel = testee.get(this.resource, key(this.modelType));
+        cachedModel = testee.get(this.resource, this.modelType);
     }
 
     private void withResourcePath(String path) {
@@ -0,0 +1,202 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+
+package io.neba.core.resourcemodels.caching;
+
+import io.neba.core.resourcemodels.caching.RequestScopedValueMapCache.Configuration;
+import io.neba.core.util.PrimitiveAndEnumSupportingValueMap;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Olaf Otto
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class RequestScopedValueMapCacheTest {
+    @Mock
+    private Resource resource;
+    @Mock
+    private ResourceResolver resolver;
+    @Mock
+    private ValueMap properties;
+    @Mock
+    private SlingHttpServletRequest request;
+    @Mock
+    private ServletResponse response;
+    @Mock
+    private FilterChain chain;
+    @Mock
+    private Configuration configuration;
+
+    private ValueMap valueMap;
+
+    @InjectMocks
+    private RequestScopedValueMapCache testee;
+
+    @Before
+    public void setUp() {
+        lenient().doReturn(this.resolver).when(this.resource).getResourceResolver();
+        lenient().doReturn("/junit/test").when(this.resource).getPath();
+        lenient().doReturn("junit/type").when(this.resource).getResourceType();
+        doReturn(this.properties).when(this.resource).adaptTo(ValueMap.class);
+
+        lenient().doReturn(true).when(this.configuration).enabled();
+        lenient().doReturn(10).when(this.configuration).maxEntries();
+
+        this.testee.activate(this.configuration);
+    }
+
+    @Test
+    public void testValueMapIsWrappedToSupportPrimitivesAndEnums() {
+        getValueMap();
+        assertThat(this.valueMap).isInstanceOf(PrimitiveAndEnumSupportingValueMap.class);
+    }
+
+    @Test
+    public void testValueMapIsAdaptedOnEveryAccessOutsideOfRequests() {
+        getValueMap();
+        getValueMap();
+        verifyResourceIsAdaptedToValueMap(2);
+    }
+
+    @Test
+    public void testValueMapIsAdaptedOncePerRequest() throws Exception {
+        request(() -> {
+            getValueMap();
+            ValueMap first = this.valueMap;
+            getValueMap();
+            assertThat(this.valueMap).isSameAs(first);
+        });
+
+        verifyResourceIsAdaptedToValueMap(1);
+    }
+
+    @Test
+    public void testValueMapIsNotRetainedAfterRequest() throws Exception {
+        request(this::getValueMap);
+        request(this::getValueMap);
+
+        verifyResourceIsAdaptedToValueMap(2);
+    }
+
+    @Test
+    public void testMissingValueMapIsCachedDuringRequest() throws Exception {
+        doReturn(null).when(this.resource).adaptTo(ValueMap.class);
+
+        request(() -> {
+            getValueMap();
+            getValueMap();
+        });
+
+        assertThat(this.valueMap).isNull();
+        verifyResourceIsAdaptedToValueMap(1);
+    }
+
+    @Test
+    public void testResourcesWithSamePathAndDifferentTypesDoNotShareValueMaps() throws Exception {
+        request(() -> {
+            getValueMap();
+            doReturn("other/type").when(this.resource).getResourceType();
+            getValueMap();
+        });
+
+        verifyResourceIsAdaptedToValueMap(2);
+    }
+
+    @Test
+    public void testResourcesWithSamePathAndDifferentResolversDoNotShareValueMaps() throws Exception {
+        request(() -> {
+            getValueMap();
+            doReturn(mock(ResourceResolver.class)).when(this.resource).getResourceResolver();
+            getValueMap();
+        });
+
+        verifyResourceIsAdaptedToValueMap(2);
+    }
+
+    @Test
+    public void testValueMapsAreNotCachedBeyondMaximumEntries() throws Exception {
+        doReturn(1).when(this.configuration).maxEntries();
+
+        request(() -> {
+            doReturn("/junit/first").when(this.resource).getPath();
+            getValueMap();
+            doReturn("/junit/second").when(this.resource).getPath();
+            getValueMap();
+            getValueMap();
+        });
+
+        verifyResourceIsAdaptedToValueMap(3);
+    }
+
+    @Test
+    public void testValueMapsAreNotCachedWhenDisabled() throws Exception {
+        doReturn(false).when(this.configuration).enabled();
+
+        request(() -> {
+            getValueMap();
+            getValueMap();
+        });
+
+        verifyResourceIsAdaptedToValueMap(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullResourceIsRejected() {
+        this.testee.get(null);
+    }
+
+    private void verifyResourceIsAdaptedToValueMap(int times) {
+        verify(this.resource, times(times)).adaptTo(ValueMap.class);
+    }
+
+    private void getValueMap() {
+        this.valueMap = this.testee.get(this.resource);
+    }
+
+    private void request(final Request request) throws Exception {
+        doAnswer(invocationOnMock -> {
+            request.request();
+            return null;
+        }).when(this.chain).doFilter(eq(this.request), eq(this.response));
+        this.testee.doFilter(this.request, this.response, this.chain);
+    }
+
+    private interface Request {
+        void request() throws Exception;
+    }
+}
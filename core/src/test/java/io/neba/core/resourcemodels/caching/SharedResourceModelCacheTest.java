@@ -0,0 +1,453 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.caching;
+
+import io.neba.core.resourcemodels.caching.SharedResourceModelCache.CachedModel;
+import io.neba.core.resourcemodels.caching.SharedResourceModelCache.Configuration;
+import io.neba.core.resourcemodels.metadata.ResourceModelMetaData;
+import io.neba.core.resourcemodels.metadata.ResourceModelMetaDataRegistrar;
+import io.neba.core.resourcemodels.metadata.ResourceModelStatistics;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventHandler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.apache.sling.api.SlingConstants.PROPERTY_PATH;
+import static org.apache.sling.api.SlingConstants.TOPIC_RESOURCE_ADDED;
+import static org.apache.sling.api.SlingConstants.TOPIC_RESOURCE_CHANGED;
+import static org.apache.sling.api.SlingConstants.TOPIC_RESOURCE_REMOVED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * @author Olaf Otto
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SharedResourceModelCacheTest {
+    @Mock
+    private Resource resource;
+    @Mock
+    private ResourceResolver resolver;
+    @Mock
+    private Configuration configuration;
+    @Mock
+    private ResourceModelMetaDataRegistrar metaDataRegistrar;
+    @Mock
+    private ResourceModelMetaData resourceModelMetaData;
+    @Mock
+    private ResourceModelStatistics resourceModelStatistics;
+    @Mock
+    private BundleContext context;
+    private ServiceRegistration<?> registration;
+
+    private Object model = new Object();
+    private Class<?> modelType = Object.class;
+    private CachedModel<Object> cachedModel;
+
+    @InjectMocks
+    private SharedResourceModelCache testee;
+
+    @Before
+    public void setUp() {
+        // Not a @Mock, as it would be injected into the testee
+        this.registration = mock(ServiceRegistration.class);
+        lenient().doReturn(this.resourceModelMetaData).when(this.metaDataRegistrar).get(this.modelType);
+        lenient().doReturn(this.resourceModelStatistics).when(this.resourceModelMetaData).getStatistics();
+        lenient().doReturn(this.resolver).when(this.resource).getResourceResolver();
+        lenient().doReturn(this.registration).when(this.context).registerService(eq(EventHandler.class), any(EventHandler.class), any());
+
+        lenient().doReturn(true).when(this.configuration).enabled();
+        lenient().doReturn(100).when(this.configuration).maxEntries();
+        lenient().doReturn(100).when(this.configuration).maxWeight();
+
+        withResourcePath("/content/page");
+        withResourceType("some/resource/type");
+        withUserId("user");
+
+        activate();
+    }
+
+    @Test
+    public void testLookupOfModel() {
+        lookupModelFromCache();
+        assertModelIsNotInCache();
+
+        putModelInCache("/content/page", "/content/other");
+        lookupModelFromCache();
+
+        assertModelIsInCache();
+        assertThat(this.cachedModel.getDependencies()).containsOnly("/content/page", "/content/other");
+        verify(this.resourceModelStatistics).countCacheHit();
+    }
+
+    @Test
+    public void testModelsAreNotSharedBetweenUsers() {
+        putModelInCache("/content/page");
+
+        withUserId("otherUser");
+        lookupModelFromCache();
+
+        assertModelIsNotInCache();
+    }
+
+    @Test
+    public void testModelsOfResolversWithoutUserAreNotShared() {
+        withUserId(null);
+
+        putModelInCache("/content/page");
+        lookupModelFromCache();
+
+        assertModelIsNotInCache();
+        assertCacheSizeIs(0);
+    }
+
+    @Test
+    public void testModelsAreNotSharedBetweenResourceTypes() {
+        putModelInCache("/content/page");
+
+        withResourceType("other/resource/type");
+        lookupModelFromCache();
+
+        assertModelIsNotInCache();
+    }
+
+    @Test
+    public void testModelsAreNotSharedBetweenModelTypes() {
+        putModelInCache("/content/page");
+
+        this.modelType = String.class;
+        lookupModelFromCache();
+
+        assertModelIsNotInCache();
+    }
+
+    @Test
+    public void testNoModelsAreCachedWhenCacheIsDisabled() {
+        withDisabledCache();
+
+        putModelInCache("/content/page");
+        lookupModelFromCache();
+
+        assertModelIsNotInCache();
+        assertCacheSizeIs(0);
+    }
+
+    @Test
+    public void testChangeOfDependencyEvictsModel() {
+        putModelInCache("/content/page", "/content/other");
+
+        resourceChanged(TOPIC_RESOURCE_CHANGED, "/content/other");
+        lookupModelFromCache();
+
+        assertModelIsNotInCache();
+        assertCacheSizeIs(0);
+        assertCacheWeightIs(0);
+    }
+
+    @Test
+    public void testModelIsNotCachedIfDependencyChangesWhileMapping() {
+        long invalidationSequence = this.testee.getInvalidationSequence();
+        // The eviction happens while the model is mapped and finds no cached model.
+        resourceChanged(TOPIC_RESOURCE_CHANGED, "/content/page");
+        this.testee.put(this.resource, this.modelType, this.model, asList("/content/page"), invalidationSequence);
+
+        lookupModelFromCache();
+        assertModelIsNotInCache();
+        assertCacheSizeIs(0);
+        assertCacheWeightIs(0);
+    }
+
+    @Test
+    public void testModelIsCachedIfNoResourceChangesWhileMapping() {
+        long invalidationSequence = this.testee.getInvalidationSequence();
+        this.testee.put(this.resource, this.modelType, this.model, asList("/content/page"), invalidationSequence);
+
+        lookupModelFromCache();
+        assertModelIsInCache();
+    }
+
+    @Test
+    public void testEventsWithoutPathDoNotRejectModelsBeingMapped() {
+        long invalidationSequence = this.testee.getInvalidationSequence();
+        resourceChanged(TOPIC_RESOURCE_CHANGED, null);
+        this.testee.put(this.resource, this.modelType, this.model, asList("/content/page"), invalidationSequence);
+
+        lookupModelFromCache();
+        assertModelIsInCache();
+    }
+
+    @Test
+    public void testChangeOfUnrelatedResourceDoesNotEvictModel() {
+        putModelInCache("/content/page");
+
+        resourceChanged(TOPIC_RESOURCE_CHANGED, "/content/page/child");
+        resourceChanged(TOPIC_RESOURCE_CHANGED, "/content");
+        resourceChanged(TOPIC_RESOURCE_CHANGED, "/content/page0");
+        lookupModelFromCache();
+
+        assertModelIsInCache();
+    }
+
+    @Test
+    public void testAddingChildEvictsModelOfParent() {
+        putModelInCache("/content/page");
+
+        resourceChanged(TOPIC_RESOURCE_ADDED, "/content/page/child");
+        lookupModelFromCache();
+
+        assertModelIsNotInCache();
+    }
+
+    @Test
+    public void testRemovalOfAncestorEvictsModel() {
+        putModelInCache("/content/page/jcr:content/par");
+
+        resourceChanged(TOPIC_RESOURCE_REMOVED, "/content/page");
+        lookupModelFromCache();
+
+        assertModelIsNotInCache();
+    }
+
+    @Test
+    public void testRemovalOfSiblingDoesNotEvictModel() {
+        putModelInCache("/content/page/one");
+
+        resourceChanged(TOPIC_RESOURCE_REMOVED, "/content/page/o");
+        lookupModelFromCache();
+
+        assertModelIsInCache();
+    }
+
+    @Test
+    public void testEventsWithoutPathAreIgnored() {
+        putModelInCache("/content/page");
+
+        resourceChanged(TOPIC_RESOURCE_CHANGED, null);
+        lookupModelFromCache();
+
+        assertModelIsInCache();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedModelIsEvictedWhenMaximumEntriesAreExceeded() {
+        withMaxEntries(2);
+
+        putModelInCache("/content/page");
+        withResourcePath("/content/second");
+        putModelInCache("/content/second");
+
+        withResourcePath("/content/page");
+        lookupModelFromCache();
+
+        withResourcePath("/content/third");
+        putModelInCache("/content/third");
+
+        assertCacheSizeIs(2);
+        withResourcePath("/content/second");
+        lookupModelFromCache();
+        assertModelIsNotInCache();
+        withResourcePath("/content/page");
+        lookupModelFromCache();
+        assertModelIsInCache();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedModelsAreEvictedWhenMaximumWeightIsExceeded() {
+        withMaxWeight(3);
+
+        putModelInCache("/content/page", "/content/a");
+        withResourcePath("/content/second");
+        putModelInCache("/content/second", "/content/b");
+
+        assertCacheSizeIs(1);
+        assertCacheWeightIs(2);
+        withResourcePath("/content/page");
+        lookupModelFromCache();
+        assertModelIsNotInCache();
+    }
+
+    @Test
+    public void testModelsExceedingMaximumWeightAreNotCached() {
+        withMaxWeight(1);
+
+        putModelInCache("/content/page", "/content/a");
+
+        assertCacheSizeIs(0);
+    }
+
+    @Test
+    public void testReplacingModelUpdatesWeight() {
+        putModelInCache("/content/page", "/content/a");
+        putModelInCache("/content/page");
+
+        assertCacheSizeIs(1);
+        assertCacheWeightIs(1);
+
+        resourceChanged(TOPIC_RESOURCE_CHANGED, "/content/a");
+        lookupModelFromCache();
+        assertModelIsInCache();
+    }
+
+    @Test
+    public void testClearRemovesAllModels() {
+        putModelInCache("/content/page");
+
+        this.testee.clear();
+
+        assertCacheSizeIs(0);
+        assertCacheWeightIs(0);
+    }
+
+    @Test
+    public void testEventHandlerIsRegisteredWhileCacheIsEnabled() {
+        verify(this.context).registerService(eq(EventHandler.class), eq(this.testee), any());
+
+        withDisabledCache();
+        activate();
+        verify(this.registration).unregister();
+
+        this.testee.deactivate();
+        verifyNoMoreInteractions(this.registration);
+    }
+
+    @Test
+    public void testEventHandlerIsNotRegisteredWhileCacheIsDisabled() {
+        withDisabledCache();
+        clearInvocations(this.context);
+
+        this.testee.deactivate();
+        activate();
+
+        verify(this.context, never()).registerService(eq(EventHandler.class), any(EventHandler.class), any());
+    }
+
+    @Test
+    public void testEventHandlerIsUnregisteredUponDeactivation() {
+        this.testee.deactivate();
+        verify(this.registration).unregister();
+    }
+
+    @Test
+    public void testEvictionFreesSpaceBelowBounds() {
+        withMaxEntries(32);
+
+        for (int i = 0; i < 33; ++i) {
+            withResourcePath("/content/page" + i);
+            putModelInCache("/content/page" + i);
+        }
+
+        assertCacheSizeIs(30);
+        assertCacheWeightIs(30);
+        withResourcePath("/content/page2");
+        lookupModelFromCache();
+        assertModelIsNotInCache();
+        withResourcePath("/content/page3");
+        lookupModelFromCache();
+        assertModelIsInCache();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLookupRequiresResource() {
+        this.testee.get(null, this.modelType);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPutRequiresModel() {
+        this.testee.put(this.resource, this.modelType, null, asList("/content/page"), 0);
+    }
+
+    private void activate() {
+        this.testee.activate(this.configuration, this.context);
+    }
+
+    private void withResourcePath(String path) {
+        lenient().doReturn(path).when(this.resource).getPath();
+    }
+
+    private void withResourceType(String type) {
+        lenient().doReturn(type).when(this.resource).getResourceType();
+    }
+
+    private void withUserId(String userId) {
+        lenient().doReturn(userId).when(this.resolver).getUserID();
+    }
+
+    private void withDisabledCache() {
+        doReturn(false).when(this.configuration).enabled();
+    }
+
+    private void withMaxEntries(int maxEntries) {
+        doReturn(maxEntries).when(this.configuration).maxEntries();
+    }
+
+    private void withMaxWeight(int maxWeight) {
+        doReturn(maxWeight).when(this.configuration).maxWeight();
+    }
+
+    private void putModelInCache(String... dependencies) {
+        this.testee.put(this.resource, this.modelType, this.model, asList(dependencies), this.testee.getInvalidationSequence());
+    }
+
+    private void lookupModelFromCache() {
+        this.cachedModel = this.testee.get(this.resource, this.modelType);
+    }
+
+    private void resourceChanged(String topic, String path) {
+        Map<String, Object> properties = new HashMap<>();
+        if (path != null) {
+            properties.put(PROPERTY_PATH, path);
+        }
+        this.testee.handleEvent(new Event(topic, properties));
+    }
+
+    private void assertModelIsInCache() {
+        assertThat(this.cachedModel).isNotNull();
+        assertThat(this.cachedModel.getModel()).isSameAs(this.model);
+    }
+
+    private void assertModelIsNotInCache() {
+        assertThat(this.cachedModel).isNull();
+    }
+
+    private void assertCacheSizeIs(int size) {
+        assertThat(this.testee.size()).isEqualTo(size);
+    }
+
+    private void assertCacheWeightIs(long weight) {
+        assertThat(this.testee.getWeight()).isEqualTo(weight);
+    }
+}
@@ -18,24 +18,42 @@ package io.neba.core.resourcemodels.factory;
 import io.neba.api.annotations.ResourceModel;
 import io.neba.api.spi.ResourceModelFactory.ContentToModelMappingCallback;
 import io.neba.api.spi.ResourceModelFactory.ModelDefinition;
+import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 /**
  * @author Olaf Otto
@@ -49,32 +67,34 @@ public class ModelFactoryTest {
     @Mock
     private ContentToModelMappingCallback<ModelClass> callback;
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ExecutorService scanExecutor = newFixedThreadPool(2);
+    private Dictionary<String, String> headers;
     private ModelFactory testee;
 
     @Before
     public void setUp() throws Exception {
-        Dictionary<String, String> headers = new Hashtable<>();
-        headers.put("Neba-Packages", "first.package, second.package");
-        doReturn(headers)
+        this.headers = new Hashtable<>();
+        this.headers.put("Neba-Packages", "first.package, second.package");
+        doReturn(this.headers)
                 .when(this.bundle)
                 .getHeaders();
 
         doReturn(this.bundleContext).when(this.bundle).getBundleContext();
 
-        // The actual protocol for OSGi bundles is "bundleresource:", but this protocol is not registered for unit tests.
-        URL modelClassResource = new URL("file://bundleId.bundleVersion" + "/" + ModelClass.class.getName().replace('.', '/') + ".class");
-        URL nonModelClassResource = new URL("file://bundleId.bundleVersion" + "/" + NonModelClass.class.getName().replace('.', '/') + ".class");
-
-        Vector<URL> vector = new Vector<>();
-        vector.add(modelClassResource);
-        vector.add(nonModelClassResource);
-
-        doReturn(vector.elements()).when(this.bundle).findEntries("/first/package", "*.class", true);
+        withScannedClasses(ModelClass.class, NonModelClass.class);
         doReturn(ModelClass.class).when(this.bundle).loadClass(ModelClass.class.getName());
-        doReturn(NonModelClass.class).when(this.bundle).loadClass(NonModelClass.class.getName());
+        lenient().doReturn(NonModelClass.class).when(this.bundle).loadClass(NonModelClass.class.getName());
         doAnswer(inv -> inv.getArguments()[0]).when(callback).map(any());
 
-        this.testee = new ModelFactory(this.bundle);
+        createModelFactory();
+    }
+
+    @After
+    public void tearDown() {
+        this.scanExecutor.shutdownNow();
     }
 
     @Test
@@ -108,10 +128,121 @@ public class ModelFactoryTest {
         this.testee.getModelDefinitions().add(mock(ModelDefinition.class));
     }
 
+    @Test
+    public void testModelFactoryLoadsIndexedClassesWithoutScanningPackages() throws Exception {
+        withNebaPackages(getClass().getPackage().getName());
+        withIndexHeader();
+        withIndices(index(ModelClass.class.getName(), "other.package.OtherModel"));
+        clearInvocations(this.bundle);
+
+        createModelFactory();
+
+        assertThat(this.testee.getModelDefinitions()).hasSize(1);
+        assertThat(this.testee.getModelDefinitions().iterator().next().getType()).isSameAs(ModelClass.class);
+        verify(this.bundle, never()).findEntries(anyString(), eq("*.class"), anyBoolean());
+        verify(this.bundle, never()).loadClass("other.package.OtherModel");
+        verify(this.bundle, never()).loadClass(NonModelClass.class.getName());
+    }
+
+    @Test
+    public void testModelFactoryLoadsIndexedClassesOfFragments() throws Exception {
+        withNebaPackages(getClass().getPackage().getName());
+        withIndexHeader();
+        withIndices(index(ModelClass.class.getName()), index(FragmentModelClass.class.getName()));
+        doReturn(FragmentModelClass.class).when(this.bundle).loadClass(FragmentModelClass.class.getName());
+
+        createModelFactory();
+
+        assertThat(this.testee.getModelDefinitions())
+                .extracting(definition -> (Object) definition.getType())
+                .containsExactly(ModelClass.class, FragmentModelClass.class);
+        verify(this.bundle).findEntries("META-INF/neba", "resource-models", false);
+    }
+
+    @Test
+    public void testModelFactoryScansPackagesWithoutIndexedClasses() throws Exception {
+        withIndexHeader();
+        withIndices(index("other.package.OtherModel"));
+        clearInvocations(this.bundle);
+
+        createModelFactory();
+
+        assertThat(this.testee.getModelDefinitions())
+                .extracting(definition -> (Object) definition.getType())
+                .containsExactly(ModelClass.class);
+        verify(this.bundle).findEntries("/first/package", "*.class", true);
+        verify(this.bundle).findEntries("/second/package", "*.class", true);
+        verify(this.bundle, never()).loadClass("other.package.OtherModel");
+    }
+
+    @Test
+    public void testModelFactoryIgnoresIndexWithoutIndexHeader() throws Exception {
+        withNebaPackages(getClass().getPackage().getName());
+        withIndices(index(ModelClass.class.getName()));
+        clearInvocations(this.bundle);
+
+        createModelFactory();
+
+        assertThat(this.testee.getModelDefinitions()).isEmpty();
+        verify(this.bundle, never()).findEntries("META-INF/neba", "resource-models", false);
+        verify(this.bundle).findEntries("/io/neba/core/resourcemodels/factory", "*.class", true);
+    }
+
+    @Test
+    public void testModelFactoryScansPackagesWithoutIndex() {
+        verify(this.bundle, never()).findEntries("META-INF/neba", "resource-models", false);
+        verify(this.bundle).findEntries("/first/package", "*.class", true);
+        verify(this.bundle).findEntries("/second/package", "*.class", true);
+    }
+
+    @Test
+    public void testModelFactoryLoadsScannedClassesInCurrentThreadWithoutExecutor() {
+        this.testee = new ModelFactory(this.bundle, null);
+
+        assertThat(this.testee.getModelDefinitions())
+                .extracting(definition -> (Object) definition.getType())
+                .containsExactly(ModelClass.class);
+    }
+
+    private void createModelFactory() {
+        this.testee = new ModelFactory(this.bundle, this.scanExecutor);
+    }
+
+    private void withNebaPackages(String packages) {
+        this.headers.put("Neba-Packages", packages);
+    }
+
+    private void withIndexHeader() {
+        this.headers.put("Neba-Resource-Model-Index", "true");
+    }
+
+    private void withScannedClasses(Class<?>... classes) throws MalformedURLException {
+        Vector<URL> vector = new Vector<>();
+        for (Class<?> type : classes) {
+            // The actual protocol for OSGi bundles is "bundleresource:", but this protocol is not registered for unit tests.
+            vector.add(new URL("file://bundleId.bundleVersion" + "/" + type.getName().replace('.', '/') + ".class"));
+        }
+        lenient().doAnswer(inv -> vector.elements()).when(this.bundle).findEntries("/first/package", "*.class", true);
+    }
+
+    private URL index(String... classNames) throws IOException {
+        File index = this.temporaryFolder.newFile();
+        Files.write(index.toPath(), asList(classNames), UTF_8);
+        return index.toURI().toURL();
+    }
+
+    private void withIndices(URL... indices) {
+        lenient().doAnswer(inv -> new Vector<>(asList(indices)).elements()).when(this.bundle).findEntries("META-INF/neba", "resource-models", false);
+    }
+
     @ResourceModel("some/type")
     public static class ModelClass {
     }
 
+    @ResourceModel("some/fragment/type")
+    public static class FragmentModelClass {
+    }
+
     public static class NonModelClass {
     }
 }
@@ -238,6 +238,28 @@ public class AnnotatedFieldMappersTest {
         assertMetadataHasMappers(this.metadata2);
     }
 
+    @Test
+    public void testGenerationChangesWhenMappersAreBoundOrUnbound() {
+        int initialGeneration = this.testee.getGeneration();
+
+        bind(this.mapper1);
+        int generationAfterBind = this.testee.getGeneration();
+        assertThat(generationAfterBind).isNotEqualTo(initialGeneration);
+
+        unbind(this.mapper1);
+        assertThat(this.testee.getGeneration()).isNotEqualTo(generationAfterBind);
+    }
+
+    @Test
+    public void testGenerationDoesNotChangeWhenMappersAreQueried() {
+        bind(this.mapper1);
+        int generation = this.testee.getGeneration();
+
+        this.testee.get(this.metadata1);
+
+        assertThat(this.testee.getGeneration()).isEqualTo(generation);
+    }
+
     private void verifyAnnotationsWhereQueriedOnlyOnce() {
         verify(this.metadata1).getAnnotations();
     }
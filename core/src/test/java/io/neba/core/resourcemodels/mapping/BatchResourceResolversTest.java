@@ -0,0 +1,202 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.mapping;
+
+import io.neba.api.spi.BatchResourceResolver;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Olaf Otto
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class BatchResourceResolversTest {
+    @Mock
+    private Resource base;
+    @Mock
+    private ResourceResolver resourceResolver;
+    @Mock
+    private BatchResourceResolver batchResourceResolver;
+
+    private final Map<String, Resource> resources = new HashMap<>();
+    private Resource[] result;
+
+    @InjectMocks
+    private BatchResourceResolvers testee;
+
+    @Before
+    public void setUp() {
+        doReturn("/content/base").when(this.base).getPath();
+        doReturn(this.resourceResolver).when(this.base).getResourceResolver();
+    }
+
+    @Test
+    public void testResourcesAreResolvedInOrderOfPaths() {
+        withResources("/content/a", "/content/b");
+        resolve("/content/b", "/content/a");
+        assertResultIs("/content/b", "/content/a");
+    }
+
+    @Test
+    public void testDuplicatePathsAreResolvedOnce() {
+        withResources("/content/a", "/content/b");
+
+        resolve("/content/a", "/content/b", "/content/a");
+
+        assertResultIs("/content/a", "/content/b", "/content/a");
+        assertThat(this.result[0]).isSameAs(this.result[2]);
+        verify(this.resourceResolver).getResource(this.base, "/content/a");
+        verify(this.resourceResolver).getResource(this.base, "/content/b");
+    }
+
+    @Test
+    public void testPathsAreResolvedInSortedOrder() {
+        withResources("/content/a", "/content/b", "/content/c");
+
+        resolve("/content/c", "/content/a", "/content/b");
+
+        InOrder inOrder = inOrder(this.resourceResolver);
+        inOrder.verify(this.resourceResolver).getResource(this.base, "/content/a");
+        inOrder.verify(this.resourceResolver).getResource(this.base, "/content/b");
+        inOrder.verify(this.resourceResolver).getResource(this.base, "/content/c");
+    }
+
+    @Test
+    public void testRelativeAndAbsolutePathsToTheSameResourceAreResolvedOnce() {
+        withResources("/content/base/child");
+
+        resolve("child", "/content/base/child", "../base/child");
+
+        assertResultIs("/content/base/child", "/content/base/child", "/content/base/child");
+        verify(this.resourceResolver).getResource(this.base, "/content/base/child");
+    }
+
+    @Test
+    public void testUnresolvablePathsYieldNull() {
+        withResources("/content/a");
+        resolve("/content/a", "/content/b");
+        assertResultIs("/content/a", null);
+    }
+
+    @Test
+    public void testEmptyPathsAreNotResolved() {
+        resolve();
+        assertThat(this.result).isEmpty();
+        verify(this.resourceResolver, never()).getResource(any(Resource.class), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBatchResourceResolverIsUsedWithUniqueSortedPaths() {
+        Resource a = mock(Resource.class);
+        Map<String, Resource> batch = new HashMap<>();
+        batch.put("/content/a", a);
+        doReturn(batch).when(this.batchResourceResolver).resolve(eq(this.base), anyList());
+        bindBatchResourceResolver();
+
+        resolve("/content/b", "/content/a", "/content/b");
+
+        assertThat(this.result).containsExactly(null, a, null);
+        verify(this.batchResourceResolver).resolve(this.base, asList("/content/a", "/content/b"));
+        verify(this.resourceResolver, never()).getResource(any(Resource.class), any());
+    }
+
+    @Test
+    public void testPathsAreResolvedIndividuallyIfBatchResourceResolverProvidesNoResult() {
+        withResources("/content/a");
+        doReturn(null).when(this.batchResourceResolver).resolve(eq(this.base), anyList());
+        bindBatchResourceResolver();
+
+        resolve("/content/a");
+
+        assertResultIs("/content/a");
+    }
+
+    @Test
+    public void testUnboundBatchResourceResolverIsNotUsed() {
+        withResources("/content/a");
+        bindBatchResourceResolver();
+        unbindBatchResourceResolver();
+
+        resolve("/content/a");
+
+        assertResultIs("/content/a");
+        verify(this.batchResourceResolver, never()).resolve(any(), anyList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBaseMustNotBeNull() {
+        this.testee.resolve(null, new String[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPathsMustNotBeNull() {
+        this.testee.resolve(this.base, null);
+    }
+
+    private void bindBatchResourceResolver() {
+        this.testee.bind(this.batchResourceResolver);
+    }
+
+    private void unbindBatchResourceResolver() {
+        this.testee.unbind(this.batchResourceResolver);
+    }
+
+    private void assertResultIs(String... paths) {
+        assertThat(this.result).hasSize(paths.length);
+        for (int i = 0; i < paths.length; ++i) {
+            if (paths[i] == null) {
+                assertThat(this.result[i]).isNull();
+            } else {
+                assertThat(this.result[i]).isSameAs(this.resources.get(paths[i]));
+            }
+        }
+    }
+
+    private void resolve(String... paths) {
+        this.result = this.testee.resolve(this.base, paths);
+    }
+
+    private void withResources(String... paths) {
+        for (String path : paths) {
+            Resource resource = mock(Resource.class);
+            doReturn(resource).when(this.resourceResolver).getResource(this.base, path);
+            this.resources.put(path, resource);
+        }
+    }
+}
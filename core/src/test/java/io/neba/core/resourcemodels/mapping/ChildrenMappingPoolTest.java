@@ -0,0 +1,349 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.mapping;
+
+import io.neba.api.spi.PlaceholderVariableResolver;
+import io.neba.core.resourcemodels.caching.RequestScopedResourceModelCache;
+import io.neba.core.resourcemodels.metadata.ResourceModelMetaData;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+import static io.neba.core.util.ResourcePaths.path;
+import static java.lang.Thread.currentThread;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Olaf Otto
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ChildrenMappingPoolTest {
+    @Mock
+    private ChildrenMappingPool.Configuration configuration;
+    @Mock
+    private RequestScopedResourceModelCache requestScopedCache;
+    @Spy
+    private NestedMappingSupport nestedMappingSupport = new NestedMappingSupport();
+    @Spy
+    private PlaceholderVariableResolvers variableResolvers = new PlaceholderVariableResolvers();
+
+    @Mock
+    private ResourceResolver resolver;
+
+    private final Set<Thread> mappingThreads = ConcurrentHashMap.newKeySet();
+    private final Queue<ResourceResolver> clonedResolvers = new ConcurrentLinkedQueue<>();
+    private List<Resource> children;
+    private List<Object> result;
+
+    @InjectMocks
+    private ChildrenMappingPool testee;
+
+    @Before
+    public void setUp() throws Exception {
+        doReturn(4).when(this.configuration).parallelism();
+        doReturn(8).when(this.configuration).threshold();
+        lenient().doReturn(new RequestScopedResourceModelCache().fork()).when(this.requestScopedCache).fork();
+        lenient().doAnswer(inv -> cloneResolver()).when(this.resolver).clone(any());
+        this.testee.activate(this.configuration);
+    }
+
+    @After
+    public void tearDown() {
+        this.testee.deactivate();
+    }
+
+    @Test
+    public void testChildrenAreMappedInOrder() throws Exception {
+        withChildren(1000);
+        mapChildren(this::pathOf);
+        assertResultIsPathsOfChildren();
+    }
+
+    @Test
+    public void testChildrenAreMappedInParallelAboveThreshold() throws Exception {
+        withChildren(1000);
+        mapChildren(this::pathOf);
+        assertChildrenWereNotMappedInCurrentThread();
+    }
+
+    @Test
+    public void testChildrenAreMappedInCurrentThreadUpToThreshold() throws Exception {
+        withChildren(8);
+        mapChildren(this::pathOf);
+        assertResultIsPathsOfChildren();
+        assertChildrenWereOnlyMappedInCurrentThread();
+        verify(this.requestScopedCache, never()).fork();
+    }
+
+    @Test
+    public void testChildrenAreMappedInCurrentThreadOutsideOfRequest() {
+        withChildren(1000);
+        mapChildrenWithoutFilter(this::pathOf);
+        assertResultIsPathsOfChildren();
+        assertChildrenWereOnlyMappedInCurrentThread();
+        assertNoResolverWasCloned();
+    }
+
+    @Test
+    public void testChildrenAreResolvedWithClonedResolversInMappingThreads() throws Exception {
+        withChildren(1000);
+        mapChildren(child -> child.getResourceResolver());
+        assertThat(this.result).doesNotContain(this.resolver).doesNotContainNull();
+        assertThat(this.clonedResolvers).containsAll((List) this.result);
+    }
+
+    @Test
+    public void testClonedResolversAreClosedOnceRequestIsProcessed() throws Exception {
+        withChildren(1000);
+
+        mapChildren(child -> {
+            verify(child.getResourceResolver(), never()).close();
+            return null;
+        });
+
+        assertThat(this.clonedResolvers).isNotEmpty();
+        for (ResourceResolver clone : this.clonedResolvers) {
+            verify(clone).close();
+        }
+    }
+
+    @Test
+    public void testChildrenNotResolvableByClonedResolverAreMappedInCurrentThread() throws Exception {
+        withChildren(1000);
+        Resource syntheticChild = mock(Resource.class);
+        doReturn("/parent/synthetic").when(syntheticChild).getPath();
+        doReturn(this.resolver).when(syntheticChild).getResourceResolver();
+        this.children.set(500, syntheticChild);
+
+        mapChildren(child -> child);
+
+        assertThat(this.result.get(500)).isSameAs(syntheticChild);
+        assertThat(this.result).hasSize(1000).doesNotContainNull();
+    }
+
+    @Test
+    public void testChildrenAreMappedInCurrentThreadIfResolverCannotBeCloned() throws Exception {
+        doThrow(new LoginException("THIS IS AN EXPECTED TEST EXCEPTION")).when(this.resolver).clone(any());
+        withChildren(1000);
+
+        mapChildren(this::pathOf);
+
+        assertResultIsPathsOfChildren();
+        assertChildrenWereOnlyMappedInCurrentThread();
+    }
+
+    @Test
+    public void testNullResultsArePreserved() throws Exception {
+        withChildren(100);
+        mapChildren(child -> null);
+        assertThat(this.result).hasSize(100).containsOnlyNulls();
+    }
+
+    @Test
+    public void testOngoingMappingsArePropagatedToMappingThreads() throws Exception {
+        Mapping<?> ongoingMapping = new Mapping<>("/parent", mock(ResourceModelMetaData.class), "some/type", true);
+        this.nestedMappingSupport.push(ongoingMapping);
+        withChildren(100);
+
+        mapChildren(child -> this.nestedMappingSupport.peek());
+
+        assertThat(this.result).containsOnly(ongoingMapping);
+        this.nestedMappingSupport.pop();
+    }
+
+    @Test
+    public void testDependenciesOfChildMappingsAreIncludedInOngoingMapping() throws Exception {
+        Mapping<?> ongoingMapping = new Mapping<>("/parent", mock(ResourceModelMetaData.class), "some/type", true);
+        this.nestedMappingSupport.push(ongoingMapping);
+        withChildren(100);
+
+        mapChildren(child -> {
+            this.nestedMappingSupport.push(new Mapping<>(child.getPath(), mock(ResourceModelMetaData.class), "some/type", true));
+            this.nestedMappingSupport.pop();
+            return null;
+        });
+
+        assertThat(ongoingMapping.getDependencies()).hasSize(101);
+        this.nestedMappingSupport.pop();
+    }
+
+    @Test
+    public void testRequestContextIsForkedForParallelMapping() throws Exception {
+        withChildren(100);
+        mapChildren(this::pathOf);
+        verify(this.requestScopedCache).fork();
+    }
+
+    @Test
+    public void testRequestScopedPlaceholderVariablesArePropagatedToMappingThreads() throws Exception {
+        PlaceholderVariableResolver resolver = mock(PlaceholderVariableResolver.class);
+        doReturn("de").when(resolver).resolve("language");
+        doReturn(true).when(resolver).isRequestConstant("language");
+        this.variableResolvers.bind(resolver);
+        withChildren(100);
+
+        this.variableResolvers.doFilter(mock(ServletRequest.class), mock(ServletResponse.class), (request, response) ->
+                this.testee.doFilter(request, response, (innerRequest, innerResponse) ->
+                        mapChildrenWithoutFilter(child -> this.variableResolvers.resolve(path("${language}")))));
+
+        assertThat(this.result).containsOnly("de");
+        // At most one resolution per mapping thread
+        verify(resolver, atMost(4)).resolve("language");
+    }
+
+    @Test
+    public void testContextClassLoaderIsPropagatedToMappingThreads() throws Exception {
+        ClassLoader previousClassLoader = currentThread().getContextClassLoader();
+        ClassLoader classLoader = new URLClassLoader(new URL[0]);
+        currentThread().setContextClassLoader(classLoader);
+        withChildren(100);
+
+        try {
+            mapChildren(child -> currentThread().getContextClassLoader());
+        } finally {
+            currentThread().setContextClassLoader(previousClassLoader);
+        }
+
+        assertThat(this.result).containsOnly(classLoader);
+    }
+
+    @Test
+    public void testRuntimeExceptionsArePropagated() throws Exception {
+        withChildren(100);
+
+        Exception e = null;
+        try {
+            mapChildren(child -> {
+                throw new IllegalStateException("THIS IS AN EXPECTED TEST EXCEPTION");
+            });
+        } catch (Exception ex) {
+            e = ex;
+        }
+
+        assertThat(e).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChildrenMustNotBeNull() {
+        this.testee.map(null, this::pathOf);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMapperMustNotBeNull() {
+        withChildren(1);
+        this.testee.map(this.children, null);
+    }
+
+    private void assertResultIsPathsOfChildren() {
+        List<Object> expected = new ArrayList<>();
+        for (Resource child : this.children) {
+            expected.add(child.getPath());
+        }
+        assertThat(this.result).containsExactlyElementsOf(expected);
+    }
+
+    private void assertChildrenWereNotMappedInCurrentThread() {
+        assertThat(this.mappingThreads).doesNotContain(currentThread());
+    }
+
+    private void assertChildrenWereOnlyMappedInCurrentThread() {
+        assertThat(this.mappingThreads).containsOnly(currentThread());
+    }
+
+    private String pathOf(Resource child) {
+        this.mappingThreads.add(currentThread());
+        return child.getPath();
+    }
+
+    private void mapChildren(Function<Resource, Object> mapper) throws Exception {
+        this.testee.doFilter(mock(ServletRequest.class), mock(ServletResponse.class), (request, response) -> mapChildrenWithoutFilter(mapper));
+    }
+
+    private void mapChildrenWithoutFilter(Function<Resource, Object> mapper) {
+        this.result = this.testee.map(this.children, mapper);
+    }
+
+    private void assertNoResolverWasCloned() {
+        assertThat(this.clonedResolvers).isEmpty();
+    }
+
+    /**
+     * @return a resolver resolving all paths to resources of the resolver, as resources are not thread-safe to stub.
+     */
+    private ResourceResolver cloneResolver() {
+        ResourceResolver clone = mock(ResourceResolver.class, inv -> {
+            if ("getResource".equals(inv.getMethod().getName()) && !"/parent/synthetic".equals(inv.getArgument(0))) {
+                return resourceOf((ResourceResolver) inv.getMock(), inv.getArgument(0));
+            }
+            return null;
+        });
+        this.clonedResolvers.add(clone);
+        return clone;
+    }
+
+    private static Resource resourceOf(ResourceResolver resolver, String path) {
+        return mock(Resource.class, inv -> {
+            switch (inv.getMethod().getName()) {
+                case "getPath":
+                    return path;
+                case "getResourceResolver":
+                    return resolver;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private void withChildren(int numberOfChildren) {
+        this.children = new ArrayList<>(numberOfChildren);
+        for (int i = 0; i < numberOfChildren; ++i) {
+            Resource child = mock(Resource.class);
+            doReturn("/parent/child" + i).when(child).getPath();
+            lenient().doReturn(this.resolver).when(child).getResourceResolver();
+            this.children.add(child);
+        }
+    }
+}
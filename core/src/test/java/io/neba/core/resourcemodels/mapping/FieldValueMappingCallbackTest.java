@@ -22,17 +22,22 @@ import io.neba.api.spi.PlaceholderVariableResolver;
 import io.neba.api.spi.ResourceModelFactory;
 import io.neba.core.resourcemodels.mapping.testmodels.OtherTestResourceModel;
 import io.neba.core.resourcemodels.mapping.testmodels.TestResourceModel;
+import io.neba.core.resourcemodels.caching.RequestScopedValueMapCache;
+import io.neba.core.resourcemodels.metadata.ChildrenFilter;
 import io.neba.core.resourcemodels.metadata.MappedFieldMetaData;
+import io.neba.core.resourcemodels.metadata.ResourceModelMetaData;
 import io.neba.core.util.Annotations;
 import io.neba.core.util.ResourcePaths;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.SyntheticResource;
 import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.stubbing.Answer;
 
@@ -40,12 +45,22 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 import static io.neba.api.spi.AnnotatedFieldMapper.OngoingMapping;
 import static io.neba.core.resourcemodels.mapping.AnnotatedFieldMappers.AnnotationMapping;
 import static io.neba.core.resourcemodels.mapping.testmodels.TestResourceModel.Enum.*;
+import static io.neba.core.util.FieldAccessor.accessorFor;
+import static io.neba.core.util.PropertyConverter.converterFor;
 import static java.lang.Boolean.FALSE;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toList;
 import static org.apache.commons.lang3.ClassUtils.primitiveToWrapper;
 import static org.apache.commons.lang3.StringUtils.substringAfterLast;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -73,7 +88,13 @@ public class FieldValueMappingCallbackTest {
     private PlaceholderVariableResolvers placeholderVariableResolvers;
     @Mock
     private ResourcePaths.ResourcePath path;
+    @Mock
+    private ChildrenMappingPool childrenMappingPool;
+    private final BatchResourceResolvers batchResourceResolvers = new BatchResourceResolvers();
+    @Spy
+    private RequestScopedValueMapCache valueMapCache = new RequestScopedValueMapCache();
     private Resource resource;
+    private Mapping<?> mapping;
     private Resource parentOfResourceTargetedByMapping;
     private Resource resourceTargetedByMapping;
 
@@ -88,12 +109,15 @@ public class FieldValueMappingCallbackTest {
     private final Object model = this;
 
     private OngoingMapping<?, ?> ongoingMapping;
+    private List<Resource> children;
+    private int numberOfListedChildren;
 
     @Before
     @SuppressWarnings("unchecked")
     public void setUp() throws Exception {
         withMappedField("mappedFieldOfTypeObject");
         withResource(mock(Resource.class));
+        this.mapping = new Mapping<>(this.resource.getPath(), mock(ResourceModelMetaData.class), "resource/type", true);
         doAnswer((Answer<Object>) inv -> ((Callable<Object>) inv.getArguments()[0]).call())
                 .when(this.mappedFieldMetadata)
                 .getLazyLoadingProxy(isA(Callable.class));
@@ -106,7 +130,7 @@ public class FieldValueMappingCallbackTest {
      */
     @Test(expected = IllegalArgumentException.class)
     public void testHandlingOfNullModelInConstructor() {
-        new FieldValueMappingCallback(null, this.resource, this.factory, this.annotatedFieldMappers, this.placeholderVariableResolvers);
+        new FieldValueMappingCallback(null, this.resource, this.factory, this.annotatedFieldMappers, this.placeholderVariableResolvers, this.mapping, this.childrenMappingPool, this.batchResourceResolvers, this.valueMapCache);
     }
 
     /**
@@ -114,7 +138,7 @@ public class FieldValueMappingCallbackTest {
      */
     @Test(expected = IllegalArgumentException.class)
     public void testHandlingOfNullResourceInConstructor() {
-        new FieldValueMappingCallback(this.model, null, this.factory, this.annotatedFieldMappers, this.placeholderVariableResolvers);
+        new FieldValueMappingCallback(this.model, null, this.factory, this.annotatedFieldMappers, this.placeholderVariableResolvers, this.mapping, this.childrenMappingPool, this.batchResourceResolvers, this.valueMapCache);
     }
 
     /**
@@ -122,7 +146,39 @@ public class FieldValueMappingCallbackTest {
      */
     @Test(expected = IllegalArgumentException.class)
     public void testHandlingOfNullFactoryInConstructor() {
-        new FieldValueMappingCallback(this.model, this.resource, null, this.annotatedFieldMappers, this.placeholderVariableResolvers);
+        new FieldValueMappingCallback(this.model, this.resource, null, this.annotatedFieldMappers, this.placeholderVariableResolvers, this.mapping, this.childrenMappingPool, this.batchResourceResolvers, this.valueMapCache);
+    }
+
+    /**
+     * The factory must not accept null arguments to its constructor.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testHandlingOfNullMappingInConstructor() {
+        new FieldValueMappingCallback(this.model, this.resource, this.factory, this.annotatedFieldMappers, this.placeholderVariableResolvers, null, this.childrenMappingPool, this.batchResourceResolvers, this.valueMapCache);
+    }
+
+    /**
+     * The factory must not accept null arguments to its constructor.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testHandlingOfNullChildrenMappingPoolInConstructor() {
+        new FieldValueMappingCallback(this.model, this.resource, this.factory, this.annotatedFieldMappers, this.placeholderVariableResolvers, this.mapping, null, this.batchResourceResolvers, this.valueMapCache);
+    }
+
+    /**
+     * The factory must not accept null arguments to its constructor.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testHandlingOfNullBatchResourceResolversInConstructor() {
+        new FieldValueMappingCallback(this.model, this.resource, this.factory, this.annotatedFieldMappers, this.placeholderVariableResolvers, this.mapping, this.childrenMappingPool, null, this.valueMapCache);
+    }
+
+    /**
+     * The factory must not accept null arguments to its constructor.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testHandlingOfNullValueMapCacheInConstructor() {
+        new FieldValueMappingCallback(this.model, this.resource, this.factory, this.annotatedFieldMappers, this.placeholderVariableResolvers, this.mapping, this.childrenMappingPool, this.batchResourceResolvers, null);
     }
 
     /**
@@ -130,7 +186,7 @@ public class FieldValueMappingCallbackTest {
      */
     @Test(expected = IllegalArgumentException.class)
     public void testHandlingOfNullFactoryInMapping() {
-        new FieldValueMappingCallback(this.model, this.resource, this.factory, this.annotatedFieldMappers, this.placeholderVariableResolvers).doWith(null);
+        new FieldValueMappingCallback(this.model, this.resource, this.factory, this.annotatedFieldMappers, this.placeholderVariableResolvers, this.mapping, this.childrenMappingPool, this.batchResourceResolvers, this.valueMapCache).doWith((MappedFieldMetaData) null);
     }
 
     /**
@@ -395,6 +451,38 @@ public class FieldValueMappingCallbackTest {
         assertLazyFieldIsJavaUtilOptionalWithValue(this.resourceTargetedByMapping);
     }
 
+    /**
+     * Like a non-lazy field value, a lazy field value is loaded once and all subsequent or concurrent access
+     * yields the same value.
+     */
+    @Test
+    public void testConcurrentAccessToLazyFieldYieldsSameValue() throws Exception {
+        when(this.resourceResolver.getResource(eq(this.resource), eq("/path/stored/in/property")))
+                .thenAnswer(inv -> mock(Resource.class));
+        withLazyField();
+        mapSingleReferenceField(Resource.class, "/path/stored/in/property");
+
+        Lazy<?> lazy = (Lazy<?>) this.mappedFieldOfTypeObject;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = newFixedThreadPool(8);
+        List<Future<Object>> values = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; ++i) {
+                values.add(executor.submit(() -> {
+                    start.await();
+                    return lazy.asOptional().orElse(null);
+                }));
+            }
+            start.countDown();
+            Object value = lazy.asOptional().orElse(null);
+            for (Future<Object> other : values) {
+                assertThat(other.get()).isNotNull().isSameAs(value);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * In case a field value will always resolve to null, e.g. if a resource has no properties and the field is based
      * on the resource properties, the filed mapper must still provide a non-null {@link io.neba.api.resourcemodels.Lazy}
@@ -641,6 +729,37 @@ public class FieldValueMappingCallbackTest {
         assertMappedFieldValueIsCollectionWithResourcesWithPaths(referencedResources);
     }
 
+    /**
+     * A reference collection may contain the same path multiple times. Each occurrence is represented in the
+     * injected collection, but the referenced resource is only resolved once.
+     */
+    @Test
+    public void testDuplicateReferencesAreResolvedOnce() {
+        String[] referencedResources = new String[]{"/first/path", "/second/path", "/first/path"};
+
+        withMockResources("/first/path", "/second/path");
+        mapReferenceCollectionField(Collection.class, Resource.class, referencedResources);
+
+        assertMappedFieldValueIsCollectionWithResourcesWithPaths(referencedResources);
+        verify(this.resourceResolver).getResource(this.resource, "/first/path");
+        verify(this.resourceResolver).getResource(this.resource, "/second/path");
+    }
+
+    /**
+     * References that cannot be resolved are recorded as dependencies, as the mapping result changes
+     * once the referenced resources are added.
+     */
+    @Test
+    public void testUnresolvableReferencesAreRecordedAsDependencies() {
+        String[] referencedResources = new String[]{"/first/path", "/does/not/exist"};
+
+        withMockResources("/first/path");
+        mapReferenceCollectionField(Collection.class, Resource.class, referencedResources);
+
+        assertMappedFieldValueIsCollectionWithResourcesWithPaths("/first/path");
+        assertMappingDependsOn("/test/resource/path", "/first/path", "/does/not/exist");
+    }
+
     /**
      * Same as {@link #testCollectionOfReferencesResolution()}, but using a {@link java.util.Set} instead
      * of a collection of references.
@@ -998,6 +1117,290 @@ public class FieldValueMappingCallbackTest {
         assertMappedFieldValueIsEmptyCollection();
     }
 
+    /**
+     * Children may be mapped in parallel, like so:
+     * <p/>
+     * <p>
+     * <pre>
+     *     &#64;{@link io.neba.api.annotations.ResourceModel}(types = ...)
+     *     public class MyModel {
+     *         &#64;{@link io.neba.api.annotations.Children}(parallel = true, resolveBelowEveryChild = "/jcr:content")
+     *         private List&lt;ModelForChild&gt; link;
+     *     }
+     *  </pre>
+     * </p>
+     * In this case, the resolved children are mapped using the {@link ChildrenMappingPool}.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testChildrenMappedInParallelAreMappedUsingTheChildrenMappingPool() {
+        withField(Collection.class);
+        withCollectionTypedField();
+        withInstantiableCollectionTypedField();
+        withTypeParameter(Resource.class);
+        withChildrenAnnotationPresent();
+        withChildrenMappedInParallel();
+        withResolveBelowChildPathOnChildren("jcr:content");
+        Resource content = child(
+                "child",
+                "jcr:content");
+
+        mapField();
+
+        verify(this.childrenMappingPool).map(eq(singletonList(content)), isA(Function.class));
+        assertMappedFieldValueIsCollectionWithEntries(content);
+    }
+
+    /**
+     * A child mapped in parallel may be <code>null</code>, e.g. due to an unsuccessful adaptation.
+     * Such a <code>null</code> value must not be inserted into the injected collection of children.
+     */
+    @Test
+    public void testChildrenMappedInParallelWithNullValuesAsAdaptationResult() {
+        withField(Collection.class);
+        withCollectionTypedField();
+        withInstantiableCollectionTypedField();
+        withTypeParameter(TestResourceModel.class);
+        withChildrenAnnotationPresent();
+        withChildrenMappedInParallel();
+        withResourceTargetedByMapping(child("field"));
+
+        mapField();
+
+        assertMappedFieldValueIsEmptyCollection();
+    }
+
+    /**
+     * Children may be skipped, like so:
+     * <p/>
+     * <p>
+     * <pre>
+     *     &#64;{@link io.neba.api.annotations.ResourceModel}(types = ...)
+     *     public class MyModel {
+     *         &#64;{@link io.neba.api.annotations.Children}(offset = 3)
+     *         private List&lt;ModelForChild&gt; children;
+     *     }
+     *  </pre>
+     * </p>
+     * Skipped children must not be adapted.
+     */
+    @Test
+    public void testChildrenBeforeOffsetAreSkippedWithoutAdaptation() {
+        withField(Collection.class);
+        withCollectionTypedField();
+        withInstantiableCollectionTypedField();
+        withTypeParameter(TestResourceModel.class);
+        withChildrenAnnotationPresent();
+        withChildrenOffset(3);
+        withChildren(5);
+        withChildrenAdaptingToModels();
+
+        mapField();
+
+        assertMappedFieldValueIsCollectionWithModelsOfChildren(3, 4);
+        verifyChildrenAreNotAdapted(0, 1, 2);
+    }
+
+    /**
+     * The number of children may be limited, like so:
+     * <p/>
+     * <p>
+     * <pre>
+     *     &#64;{@link io.neba.api.annotations.ResourceModel}(types = ...)
+     *     public class MyModel {
+     *         &#64;{@link io.neba.api.annotations.Children}(limit = 2)
+     *         private List&lt;ModelForChild&gt; children;
+     *     }
+     *  </pre>
+     * </p>
+     * Children beyond the limit must neither be listed nor adapted.
+     */
+    @Test
+    public void testChildrenBeyondLimitAreNeitherListedNorAdapted() {
+        withField(Collection.class);
+        withCollectionTypedField();
+        withInstantiableCollectionTypedField();
+        withTypeParameter(TestResourceModel.class);
+        withChildrenAnnotationPresent();
+        withChildrenLimit(2);
+        withChildren(5);
+        withChildrenAdaptingToModels();
+
+        mapField();
+
+        assertMappedFieldValueIsCollectionWithModelsOfChildren(0, 1);
+        assertNumberOfListedChildrenIs(2);
+        verifyChildrenAreNotAdapted(2, 3, 4);
+    }
+
+    /**
+     * Children that cannot be adapted do not count towards the limit.
+     */
+    @Test
+    public void testUnadaptableChildrenDoNotCountTowardsLimit() {
+        withField(Collection.class);
+        withCollectionTypedField();
+        withInstantiableCollectionTypedField();
+        withTypeParameter(TestResourceModel.class);
+        withChildrenAnnotationPresent();
+        withChildrenLimit(2);
+        withChildren(5);
+        withChildrenAdaptingToModels(0, 2, 3, 4);
+
+        mapField();
+
+        assertMappedFieldValueIsCollectionWithModelsOfChildren(0, 2);
+        assertNumberOfListedChildrenIs(3);
+    }
+
+    /**
+     * Offset and limit apply to children mapped in parallel. Since children that cannot be adapted do not count towards the limit,
+     * further children are mapped until the limit is reached.
+     */
+    @Test
+    public void testOffsetAndLimitOfChildrenMappedInParallel() {
+        withField(Collection.class);
+        withCollectionTypedField();
+        withInstantiableCollectionTypedField();
+        withTypeParameter(TestResourceModel.class);
+        withChildrenAnnotationPresent();
+        withChildrenMappedInParallel();
+        withChildrenOffset(1);
+        withChildrenLimit(2);
+        withChildren(6);
+        withChildrenAdaptingToModels(1, 3, 4, 5);
+
+        mapField();
+
+        assertMappedFieldValueIsCollectionWithModelsOfChildren(1, 3);
+        assertNumberOfListedChildrenIs(4);
+        verifyChildrenAreNotAdapted(0, 4, 5);
+    }
+
+    /**
+     * Children may be filtered, like so:
+     * <p/>
+     * <p>
+     * <pre>
+     *     &#64;{@link io.neba.api.annotations.ResourceModel}(types = ...)
+     *     public class MyModel {
+     *         &#64;{@link io.neba.api.annotations.Children}(names = "item_*", resourceTypes = "some/type")
+     *         private List&lt;ModelForChild&gt; children;
+     *     }
+     *  </pre>
+     * </p>
+     * Children rejected by the filter must not be adapted and do not count towards the limit.
+     */
+    @Test
+    public void testChildrenRejectedByFilterAreNotAdapted() {
+        withField(Collection.class);
+        withCollectionTypedField();
+        withInstantiableCollectionTypedField();
+        withTypeParameter(TestResourceModel.class);
+        withChildrenAnnotationPresent();
+        withChildrenLimit(2);
+        withChildren(5);
+        withChildrenAdaptingToModels();
+        withChildrenFilterAccepting(1, 3, 4);
+
+        mapField();
+
+        assertMappedFieldValueIsCollectionWithModelsOfChildren(1, 3);
+        verifyChildrenAreNotAdapted(0, 2, 4);
+    }
+
+    /**
+     * The filter is applied to the resource below the child if a {@link io.neba.api.annotations.Children#resolveBelowEveryChild()}
+     * path is specified.
+     */
+    @Test
+    public void testChildrenFilterIsAppliedToResourceBelowChild() {
+        withField(Collection.class);
+        withCollectionTypedField();
+        withInstantiableCollectionTypedField();
+        withTypeParameter(Resource.class);
+        withChildrenAnnotationPresent();
+        withResolveBelowChildPathOnChildren("jcr:content");
+        Resource content = child("child", "jcr:content");
+        ChildrenFilter filter = withChildrenFilter();
+        doReturn(true).when(filter).acceptsName(any());
+        doReturn(false).when(filter).accepts(eq(content), any());
+
+        mapField();
+
+        assertMappedFieldValueIsEmptyCollection();
+    }
+
+    /**
+     * Children may be ordered by a property prior to adaptation, like so:
+     * <p/>
+     * <p>
+     * <pre>
+     *     &#64;{@link io.neba.api.annotations.ResourceModel}(types = ...)
+     *     public class MyModel {
+     *         &#64;{@link io.neba.api.annotations.Children}(orderBy = "priority", descending = true, offset = 1, limit = 2)
+     *         private List&lt;ModelForChild&gt; children;
+     *     }
+     *  </pre>
+     * </p>
+     * Offset and limit apply to the ordered children, and only the children within the limit are adapted.
+     */
+    @Test
+    public void testOrderedChildrenAreAdaptedInOrderWithinOffsetAndLimit() {
+        withField(Collection.class);
+        withCollectionTypedField();
+        withInstantiableCollectionTypedField();
+        withTypeParameter(TestResourceModel.class);
+        withChildrenAnnotationPresent();
+        withChildrenOrderedDescendingBy("priority");
+        withChildrenOffset(1);
+        withChildrenLimit(2);
+        withChildren(5);
+        withChildrenAdaptingToModels();
+        withChildrenProperty("priority", 3, 1, 5, 2, 4);
+
+        mapField();
+
+        assertMappedFieldValueIsCollectionWithModelsOfChildren(4, 0);
+        verifyChildrenAreNotAdapted(1, 2, 3);
+    }
+
+    /**
+     * Property values already being of the field type are retrieved via the property converter of the field,
+     * bypassing the conversion of the value map.
+     */
+    @Test
+    public void testPropertyIsRetrievedUsingPropertyConverterOfField() {
+        withField(String.class);
+        withPropertyTypedField();
+        withPropertyConverter(String.class);
+        doReturn("property value").when(this.valueMap).get("field");
+
+        mapField();
+
+        assertMappedFieldValueIs("property value");
+        verify(this.valueMap, never()).get(eq("field"), any(Class.class));
+    }
+
+    /**
+     * Property converters are bound to the array type of the type parameter of collection-typed fields.
+     */
+    @Test
+    public void testCollectionPropertyIsRetrievedUsingPropertyConverterOfField() {
+        String[] propertyValues = {"first value", "second value"};
+
+        withField(Collection.class);
+        withInstantiableCollectionTypedField();
+        withTypeParameter(String.class);
+        withPropertyTypedField();
+        withPropertyConverter(String[].class);
+        doReturn(propertyValues).when(this.valueMap).get("field");
+
+        mapField();
+
+        assertMappedFieldValueIsCollectionWithEntries((Object[]) propertyValues);
+    }
+
     /**
      * Properties of a resource may be arrays. In this case, one may use the corresponding collection
      * types instead of arrays, e.g. <code>List&lt;String&gt;</code> instead of <code>String[]</code>.
@@ -1139,6 +1542,57 @@ public class FieldValueMappingCallbackTest {
         assertFieldIsMapped();
     }
 
+    /**
+     * The path of a referenced resource is a dependency of the mapping, regardless of whether it exists.
+     */
+    @Test
+    public void testPathOfReferencedResourceIsRecordedAsDependency() {
+        withResourceTargetedByMapping("/path/stored/in/property");
+        mapSingleReferenceField(Resource.class, "/path/stored/in/property");
+        assertMappingDependsOn("/test/resource/path", "/path/stored/in/property");
+    }
+
+    @Test
+    public void testPathOfNonExistingReferencedResourceIsRecordedAsDependency() {
+        mapSingleReferenceField(Resource.class, "/path/stored/in/property");
+        assertMappingDependsOn("/test/resource/path", "/path/stored/in/property");
+    }
+
+    @Test
+    public void testParentOfChildrenIsRecordedAsDependency() {
+        withField(Collection.class);
+        withCollectionTypedField();
+        withInstantiableCollectionTypedField();
+        withTypeParameter(Resource.class);
+        withChildrenAnnotationPresent();
+        withPathAnnotationPresent();
+        withResourceTargetedByMapping(child("field", "child"));
+
+        mapField();
+
+        assertMappingDependsOn("/test/resource/path", "/test/resource/path/field");
+    }
+
+    /**
+     * A property of another resource changes with the resource containing it, i.e. the parent of the property.
+     */
+    @Test
+    public void testResourceContainingForeignPropertyIsRecordedAsDependency() {
+        withPropertyFieldWithPath(Boolean.class, "/other/resource/propertyName");
+        withResourceTargetedByMapping("/other/resource/propertyName");
+        mapField();
+
+        assertMappingDependsOn("/test/resource/path", "/other/resource");
+    }
+
+    @Test
+    public void testRelativePathOfNonExistingForeignPropertyIsRecordedAsAbsoluteDependency() {
+        withPropertyFieldWithPath(Boolean.class, "../other/propertyName");
+        mapField();
+
+        assertMappingDependsOn("/test/resource/path", "/test/resource/other");
+    }
+
     /**
      * Resource models can also be mapped from resources without properties - i.e. synthetic resources.
      * In this case, only fields with absolute or relative mapping paths or non-property types can be resolved.
@@ -1171,6 +1625,22 @@ public class FieldValueMappingCallbackTest {
         assertMappedFieldValueIsNull();
     }
 
+    /**
+     * The properties of the mapped resource and of resources containing foreign properties are shared
+     * amongst the models mapped during a request.
+     */
+    @Test
+    public void testPropertiesAreObtainedFromValueMapCache() {
+        withPropertyFieldWithPath(Boolean.class, "/other/resource/propertyName");
+        withResourceTargetedByMapping("/other/resource/propertyName");
+        withParentOfTargetResource("/other/resource");
+
+        mapField();
+
+        verify(this.valueMapCache).get(this.resource);
+        verify(this.valueMapCache).get(this.parentOfResourceTargetedByMapping);
+    }
+
     /**
      * Resource models can also be mapped from resources without properties - i.e. synthetic resources.
      * In this case, only fields with absolute or relative mapping paths or non-property types can be resolved.
@@ -1441,6 +1911,7 @@ public class FieldValueMappingCallbackTest {
 
     private void withMappedField(String fieldName) throws NoSuchFieldException {
         this.mappedField = getClass().getDeclaredField(fieldName);
+        doReturn(accessorFor(this.mappedField)).when(this.mappedFieldMetadata).getAccessor();
     }
 
     private void withDefaultFieldValue(Object value) {
@@ -1476,6 +1947,89 @@ public class FieldValueMappingCallbackTest {
         doReturn(true).when(this.mappedFieldMetadata).isChildrenAnnotationPresent();
     }
 
+    @SuppressWarnings("unchecked")
+    private void withChildrenMappedInParallel() {
+        doReturn(true).when(this.mappedFieldMetadata).isChildrenMappedInParallel();
+        doAnswer(inv -> ((List<Resource>) inv.getArgument(0))
+                .stream()
+                .map((Function<Resource, Object>) inv.getArgument(1))
+                .collect(toList()))
+                .when(this.childrenMappingPool)
+                .map(anyList(), isA(Function.class));
+    }
+
+    private void withChildrenOffset(int offset) {
+        doReturn(offset).when(this.mappedFieldMetadata).getChildrenOffset();
+    }
+
+    private void withChildrenLimit(int limit) {
+        doReturn(true).when(this.mappedFieldMetadata).isChildrenLimited();
+        doReturn(limit).when(this.mappedFieldMetadata).getChildrenLimit();
+    }
+
+    private void withChildren(int numberOfChildren) {
+        this.children = new ArrayList<>(numberOfChildren);
+        for (int i = 0; i < numberOfChildren; ++i) {
+            Resource child = mock(Resource.class);
+            lenient().doReturn("/child" + i).when(child).getPath();
+            this.children.add(child);
+        }
+        Iterator<Resource> iterator = this.children.iterator();
+        doReturn(new Iterator<Resource>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Resource next() {
+                ++numberOfListedChildren;
+                return iterator.next();
+            }
+        }).when(this.resource).listChildren();
+    }
+
+    private void withChildrenOrderedDescendingBy(String propertyName) {
+        doReturn(true).when(this.mappedFieldMetadata).isChildrenOrdered();
+        doReturn(propertyName).when(this.mappedFieldMetadata).getChildrenOrderProperty();
+        doReturn(true).when(this.mappedFieldMetadata).isChildrenOrderDescending();
+    }
+
+    private void withChildrenProperty(String name, Object... values) {
+        for (int i = 0; i < values.length; ++i) {
+            Resource child = this.children.get(i);
+            doReturn(new ValueMapDecorator(singletonMap(name, values[i]))).when(child).adaptTo(ValueMap.class);
+        }
+    }
+
+    private ChildrenFilter withChildrenFilter() {
+        ChildrenFilter filter = mock(ChildrenFilter.class);
+        doReturn(filter).when(this.mappedFieldMetadata).getChildrenFilter();
+        return filter;
+    }
+
+    private void withChildrenFilterAccepting(int... indices) {
+        ChildrenFilter filter = withChildrenFilter();
+        for (int i = 0; i < this.children.size(); ++i) {
+            Resource child = this.children.get(i);
+            lenient().doReturn("child" + i).when(child).getName();
+            lenient().doReturn(true).when(filter).acceptsName("child" + i);
+        }
+        for (int index : indices) {
+            lenient().doReturn(true).when(filter).accepts(eq(this.children.get(index)), any());
+        }
+    }
+
+    private void withChildrenAdaptingToModels(int... indices) {
+        if (indices.length == 0) {
+            indices = new int[this.children.size()];
+            Arrays.setAll(indices, i -> i);
+        }
+        for (int index : indices) {
+            lenient().doReturn(new TestResourceModel()).when(this.children.get(index)).adaptTo(TestResourceModel.class);
+        }
+    }
+
     private void withResolveBelowChildPathOnChildren(String path) {
         doReturn(true).when(this.mappedFieldMetadata).isResolveBelowEveryChildPathPresentOnChildren();
         doReturn(path).when(this.mappedFieldMetadata).getResolveBelowEveryChildPathOnChildren();
@@ -1553,9 +2107,7 @@ public class FieldValueMappingCallbackTest {
     }
 
     private void withPathVariableResolution(String to) {
-        ResourcePaths.ResourcePath resolvedPath = mock(ResourcePaths.ResourcePath.class);
-        doReturn(to).when(resolvedPath).getPath();
-        doReturn(resolvedPath).when(this.path).resolve(any());
+        doReturn(to).when(this.placeholderVariableResolvers).resolve(this.path);
     }
 
     private void withResourceModelFactory() {
@@ -1573,14 +2125,7 @@ public class FieldValueMappingCallbackTest {
         String path = parent.getPath() + "/" + childName;
         doReturn(path).when(child).getPath();
         when(this.resourceResolver.getResource(eq(parent), eq(childName))).thenReturn(child);
-
-        @SuppressWarnings("unchecked")
-        Iterator<Resource> ci = mock(Iterator.class);
-        when(ci.hasNext()).thenReturn(true, false);
-        when(ci.next()).thenReturn(child).thenThrow(new IllegalStateException());
-
-        doReturn(ci).when(parent).listChildren();
-
+        doAnswer(inv -> singletonList(child).iterator()).when(parent).listChildren();
 
         return child;
     }
@@ -1663,6 +2208,10 @@ public class FieldValueMappingCallbackTest {
         doReturn(relativeAppendPath).when(this.mappedFieldMetadata).getAppendPathOnReference();
     }
 
+    private void withPropertyConverter(Class<?> targetType) {
+        doReturn(converterFor(targetType)).when(this.mappedFieldMetadata).getPropertyConverter();
+    }
+
     private void withPropertyTypedField() {
         doReturn(true).when(this.mappedFieldMetadata).isPropertyType();
     }
@@ -1686,7 +2235,7 @@ public class FieldValueMappingCallbackTest {
     }
 
     private void mapField() {
-        new FieldValueMappingCallback(this.model, this.resource, this.factory, this.annotatedFieldMappers, this.placeholderVariableResolvers)
+        new FieldValueMappingCallback(this.model, this.resource, this.factory, this.annotatedFieldMappers, this.placeholderVariableResolvers, this.mapping, this.childrenMappingPool, this.batchResourceResolvers, this.valueMapCache)
                 .doWith(this.mappedFieldMetadata);
     }
 
@@ -1750,6 +2299,10 @@ public class FieldValueMappingCallbackTest {
         assertThat(this.mappedFieldOfTypeObject).isEqualTo(value);
     }
 
+    private void assertMappingDependsOn(String... paths) {
+        assertThat(this.mapping.getDependencies()).containsOnly(paths);
+    }
+
     private void assertMappedFieldValueIsNull() {
         assertThat(this.mappedFieldOfTypeObject).isNull();
     }
@@ -1774,7 +2327,7 @@ public class FieldValueMappingCallbackTest {
     }
 
     private void verifyFieldMapperResolvesPath() {
-        verify(this.path).resolve(any());
+        verify(this.placeholderVariableResolvers).resolve(this.path);
     }
 
     @SuppressWarnings("unchecked")
@@ -1794,6 +2347,26 @@ public class FieldValueMappingCallbackTest {
         assertThat((Collection<Object>) this.mappedFieldOfTypeObject).containsOnly(entries);
     }
 
+    @SuppressWarnings("unchecked")
+    private void assertMappedFieldValueIsCollectionWithModelsOfChildren(int... indices) {
+        List<Object> models = new ArrayList<>();
+        for (int index : indices) {
+            models.add(this.children.get(index).adaptTo(TestResourceModel.class));
+        }
+        assertThat(this.mappedFieldOfTypeObject).isInstanceOf(Collection.class);
+        assertThat((Collection<Object>) this.mappedFieldOfTypeObject).containsExactlyElementsOf(models);
+    }
+
+    private void assertNumberOfListedChildrenIs(int numberOfListedChildren) {
+        assertThat(this.numberOfListedChildren).isEqualTo(numberOfListedChildren);
+    }
+
+    private void verifyChildrenAreNotAdapted(int... indices) {
+        for (int index : indices) {
+            verify(this.children.get(index), never()).adaptTo(TestResourceModel.class);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private void assertCustomFieldMapperIsUsedToMapField() {
         verify(this.annotatedFieldMapper).map(eq(this.ongoingMapping));
@@ -0,0 +1,177 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package io.neba.core.resourcemodels.mapping;
+
+import io.neba.core.resourcemodels.mapping.testmodels.TestResourceModel;
+import io.neba.core.resourcemodels.metadata.MappedFieldMetaData;
+import io.neba.core.resourcemodels.metadata.ResourceModelMetaData;
+import io.neba.core.util.ResourcePaths.ResourcePath;
+import org.apache.sling.api.resource.Resource;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Olaf Otto
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class MappingPlanTest {
+    @Mock
+    private ResourceModelMetaData metaData;
+    @Mock
+    private AnnotatedFieldMappers mappers;
+
+    private MappedFieldMetaData[] mappableFields;
+    private MappingPlan testee;
+
+    @Before
+    public void setUp() {
+        withMappableFields(mappableField("first"), mappableField("second"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompilationRequiresMetaData() {
+        MappingPlan.compile(null, this.mappers);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompilationRequiresMappers() {
+        MappingPlan.compile(this.metaData, null);
+    }
+
+    @Test
+    public void testPlanContainsMappingForEachMappableField() {
+        compilePlan();
+        assertThat(this.testee.size()).isEqualTo(2);
+        assertThat(this.testee.getMetaData()).isSameAs(this.metaData);
+    }
+
+    @Test
+    public void testCustomMappersAreBoundWhenPlanIsCompiled() {
+        compilePlan();
+        verify(this.mappers).get(this.mappableFields[0]);
+        verify(this.mappers).get(this.mappableFields[1]);
+    }
+
+    @Test
+    public void testPlanIsCurrentForMappersOfSameGeneration() {
+        withMappersGeneration(1);
+        compilePlan();
+        assertThat(this.testee.isCurrentFor(this.mappers)).isTrue();
+    }
+
+    @Test
+    public void testPlanIsOutdatedWhenMappersGenerationChanges() {
+        withMappersGeneration(1);
+        compilePlan();
+        withMappersGeneration(2);
+        assertThat(this.testee.isCurrentFor(this.mappers)).isFalse();
+    }
+
+    @Test
+    public void testPlanWithPropertyAndModelFieldsIsDetached() {
+        withMappableFields(propertyField(), modelField());
+        compilePlan();
+        assertThat(this.testee.isDetached()).isTrue();
+    }
+
+    @Test
+    public void testPlanWithLazyFieldIsNotDetached() {
+        MappedFieldMetaData lazyField = mappableField("lazy");
+        doReturn(true).when(lazyField).isLazy();
+        withMappableFields(propertyField(), lazyField);
+
+        compilePlan();
+
+        assertThat(this.testee.isDetached()).isFalse();
+    }
+
+    @Test
+    public void testPlanWithChildrenFieldIsNotDetached() {
+        MappedFieldMetaData childrenField = mappableField("children");
+        doReturn(true).when(childrenField).isChildrenAnnotationPresent();
+        withMappableFields(childrenField);
+
+        compilePlan();
+
+        assertThat(this.testee.isDetached()).isFalse();
+    }
+
+    @Test
+    public void testPlanWithReferenceCollectionIsNotDetached() {
+        MappedFieldMetaData referenceCollectionField = mappableField("references");
+        doReturn(true).when(referenceCollectionField).isCollectionType();
+        doReturn(true).when(referenceCollectionField).isReference();
+        withMappableFields(referenceCollectionField);
+
+        compilePlan();
+
+        assertThat(this.testee.isDetached()).isFalse();
+    }
+
+    @Test
+    public void testPlanWithNonModelFieldIsNotDetached() {
+        MappedFieldMetaData resourceField = mappableField("resource");
+        doReturn(Resource.class).when(resourceField).getType();
+        withMappableFields(propertyField(), resourceField);
+
+        compilePlan();
+
+        assertThat(this.testee.isDetached()).isFalse();
+    }
+
+    private static MappedFieldMetaData propertyField() {
+        MappedFieldMetaData field = mappableField("property");
+        doReturn(true).when(field).isPropertyType();
+        return field;
+    }
+
+    private static MappedFieldMetaData modelField() {
+        MappedFieldMetaData field = mappableField("model");
+        doReturn(TestResourceModel.class).when(field).getType();
+        return field;
+    }
+
+    private void withMappersGeneration(int generation) {
+        doReturn(generation).when(this.mappers).getGeneration();
+    }
+
+    private void withMappableFields(MappedFieldMetaData... fields) {
+        this.mappableFields = fields;
+        doReturn(fields).when(this.metaData).getMappableFields();
+    }
+
+    private static MappedFieldMetaData mappableField(String path) {
+        ResourcePath resourcePath = mock(ResourcePath.class);
+        doReturn(path).when(resourcePath).getPath();
+        MappedFieldMetaData field = mock(MappedFieldMetaData.class);
+        doReturn(resourcePath).when(field).getPath();
+        lenient().doReturn(String.class).when(field).getType();
+        return field;
+    }
+
+    private void compilePlan() {
+        this.testee = MappingPlan.compile(this.metaData, this.mappers);
+    }
+}
@@ -23,6 +23,9 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.Set;
+
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -44,7 +47,7 @@ public class MappingTest {
     @Before
     public void prepareMapping() {
         this.source = "/src/path";
-        this.testee = new Mapping<>(this.source, this.metaData, "resource/type");
+        this.testee = new Mapping<>(this.source, this.metaData, "resource/type", true);
 
         doReturn("junit.test.Type")
                 .when(this.metaData)
@@ -53,30 +56,30 @@ public class MappingTest {
 
     @Test(expected = IllegalArgumentException.class)
     public void testMappingConstructorRequiresNonNullResourcePath() {
-        new Mapping<>(null, this.metaData, "resource/type");
+        new Mapping<>(null, this.metaData, "resource/type", true);
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void testMappingConstructorRequiresNonNullMetaData() {
-        new Mapping<>("/some/resource/path", null, "resource/type");
+        new Mapping<>("/some/resource/path", null, "resource/type", true);
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void testMappingConstructorRequiresNonNullResourceType() {
-        new Mapping<>("/some/resource/path", this.metaData, null);
+        new Mapping<>("/some/resource/path", this.metaData, null, true);
     }
 
     @Test
     public void testHashCodeAndEquals() {
-        Mapping<?> secondMapping = new Mapping<>(this.source, this.metaData, "resource/type");
+        Mapping<?> secondMapping = new Mapping<>(this.source, this.metaData, "resource/type", true);
         assertThat(this.testee.hashCode()).isEqualTo(secondMapping.hashCode());
         assertThat(this.testee).isEqualTo(secondMapping);
 
-        secondMapping = new Mapping<>("/other/source", this.metaData, "resource/type");
+        secondMapping = new Mapping<>("/other/source", this.metaData, "resource/type", true);
         assertThat(this.testee.hashCode()).isNotEqualTo(secondMapping.hashCode());
         assertThat(this.testee).isNotEqualTo(secondMapping);
 
-        secondMapping = new Mapping<>(this.source, mock(ResourceModelMetaData.class), "resource/type");
+        secondMapping = new Mapping<>(this.source, mock(ResourceModelMetaData.class), "resource/type", true);
         assertThat(this.testee.hashCode()).isNotEqualTo(secondMapping.hashCode());
         assertThat(this.testee).isNotEqualTo(secondMapping);
     }
@@ -103,6 +106,82 @@ public class MappingTest {
         assertThat(this.testee.getMetadata()).isEqualTo(this.metaData);
     }
 
+    @Test
+    public void testMappingDependsOnSourceResourceByDefault() {
+        assertThat(this.testee.getDependencies()).containsOnly(this.source);
+        assertThat(this.testee.isRequestBound()).isFalse();
+    }
+
+    @Test
+    public void testDependencyRecording() {
+        this.testee.addDependency("/a");
+        this.testee.addDependencies(asList("/b", "/a"));
+        assertThat(this.testee.getDependencies()).containsOnly(this.source, "/a", "/b");
+    }
+
+    @Test
+    public void testInclusionOfNestedMapping() {
+        Mapping<?> nestedMapping = new Mapping<>("/nested/path", this.metaData, "resource/type", true);
+        nestedMapping.addDependency("/nested/path");
+        nestedMapping.markRequestBound();
+
+        this.testee.include(nestedMapping);
+
+        assertThat(this.testee.getDependencies()).containsOnly(this.source, "/nested/path");
+        assertThat(this.testee.isRequestBound()).isTrue();
+    }
+
+    @Test
+    public void testMappingWithoutRecordingHasNoDependencies() {
+        Mapping<?> mapping = new Mapping<>(this.source, this.metaData, "resource/type", false);
+        mapping.addDependency("/a");
+        mapping.addDependencies(asList("/b", "/c"));
+
+        assertThat(mapping.isRecordingDependencies()).isFalse();
+        assertThat(mapping.getDependencies()).isEmpty();
+        assertThat(mapping.getNumberOfDependencies()).isZero();
+    }
+
+    @Test
+    public void testNestedMappingIsNotIncludedIfItDoesNotRecordDependencies() {
+        Mapping<?> nestedMapping = new Mapping<>("/nested/path", this.metaData, "resource/type", false);
+
+        this.testee.include(nestedMapping);
+
+        assertThat(this.testee.getDependencies()).containsOnly(this.source);
+    }
+
+    @Test
+    public void testCompleteMappingStopsRecordingDependencies() {
+        this.testee.addDependency("/a");
+        this.testee.complete();
+        this.testee.addDependency("/lazily/loaded");
+        this.testee.include(new Mapping<>("/nested/path", this.metaData, "resource/type", true));
+
+        assertThat(this.testee.isRecordingDependencies()).isFalse();
+        assertThat(this.testee.getDependencies()).containsOnly(this.source, "/a");
+    }
+
+    @Test
+    public void testDependenciesAreSnapshot() {
+        Set<String> dependencies = this.testee.getDependencies();
+        this.testee.addDependency("/a");
+
+        assertThat(dependencies).containsOnly(this.source);
+        assertThat(this.testee.getNumberOfDependencies()).isEqualTo(2);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testDependenciesAreUnmodifiable() {
+        this.testee.addDependency("/a");
+        this.testee.getDependencies().clear();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDependencyMustNotBeNull() {
+        this.testee.addDependency(null);
+    }
+
     private void assertGetterReturnsOriginalModel() {
         assertThat(this.testee.getMappedModel()).isSameAs(this.model);
     }
@@ -24,10 +24,15 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 /**
  * @author Olaf Otto
@@ -39,6 +44,8 @@ public class NestedMappingSupportTest {
     @SuppressWarnings("rawtypes")
     private Iterable<Mapping> ongoingMappings;
 
+    private NestedMappingSupport.Fork fork;
+
     @InjectMocks
     private NestedMappingSupport testee;
 
@@ -175,6 +182,127 @@ public class NestedMappingSupportTest {
         assertNoModelsWhereRecorded();
     }
 
+    @Test
+    public void testNestedMappingIsIncludedInParentMappingWhenItEnds() {
+        beginMapping();
+        Mapping<?> parentMapping = this.mapping;
+        withNewMapping();
+        beginMapping();
+        endMapping();
+
+        verify(parentMapping).include(this.mapping);
+    }
+
+    @Test
+    public void testTopLevelMappingIsNotIncludedAnywhereWhenItEnds() {
+        beginMapping();
+        endMapping();
+
+        verify(this.mapping, never()).include(any());
+    }
+
+    @Test
+    public void testForkedMappingsDetectCyclesWithOngoingMappingsOfForkingThread() throws Exception {
+        beginMapping();
+        forkMappings();
+
+        inOtherThread(() -> this.fork.run(() -> {
+            beginMapping();
+            return null;
+        }));
+
+        assertAlreadyStartedMappingIsDetected();
+        endMapping();
+    }
+
+    @Test
+    public void testForkedMappingsAreIncludedInOngoingMappingOfForkingThread() throws Exception {
+        beginMapping();
+        Mapping<?> parentMapping = this.mapping;
+        forkMappings();
+        withNewMapping();
+
+        inOtherThread(() -> this.fork.run(() -> {
+            beginMapping();
+            endMapping();
+            return null;
+        }));
+
+        verify(parentMapping).include(this.mapping);
+        endMapping();
+    }
+
+    @Test
+    public void testForkedMappingsAreRecordedWhenRecordingIsStarted() throws Exception {
+        beginRecordingMappings();
+        beginMapping();
+        forkMappings();
+        withNewMapping();
+
+        inOtherThread(() -> this.fork.run(() -> {
+            beginMapping();
+            endMapping();
+            return null;
+        }));
+
+        endMapping();
+        assertNumberOfRecordedMappingsIs(2);
+
+        endRecordingMappings();
+    }
+
+    @Test
+    public void testForkRestoresMappingStateOfExecutingThread() {
+        beginMapping();
+        forkMappings();
+        Mapping<?> ongoingMapping = this.mapping;
+        withNewMapping();
+
+        this.fork.run(() -> {
+            beginMapping();
+            endMapping();
+            return null;
+        });
+
+        getOngoingMappings();
+        assertThat(this.ongoingMappings).containsOnly(ongoingMapping);
+        endMapping();
+    }
+
+    @Test
+    public void testForkWithoutOngoingMappingsLeavesNoMappingState() {
+        forkMappings();
+
+        this.fork.run(() -> {
+            beginMapping();
+            endMapping();
+            return null;
+        });
+
+        getOngoingMappings();
+        assertOngoingMappingsAreEmpty();
+        assertNoModelsWhereRecorded();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testForkDoesNotAcceptNullTask() {
+        forkMappings();
+        this.fork.run(null);
+    }
+
+    private void forkMappings() {
+        this.fork = this.testee.fork();
+    }
+
+    private static void inOtherThread(Runnable runnable) throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(runnable);
+        thread.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+        thread.start();
+        thread.join();
+        assertThat(failure.get()).isNull();
+    }
+
     private void assertNoModelsWhereRecorded() {
         assertThat(this.testee.getRecordedMappings()).isNull();
     }
@@ -0,0 +1,183 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.mapping;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author Olaf Otto
+ */
+public class OrderedChildrenTest {
+    private final List<Resource> children = new ArrayList<>();
+    private final Map<Resource, ValueMap> properties = new HashMap<>();
+    private Iterator<Resource> ordered;
+
+    @Test
+    public void testChildrenAreOrderedAscendingByProperty() {
+        withChild("b", 2L);
+        withChild("c", 3L);
+        withChild("a", 1L);
+
+        orderBy("value", false);
+
+        assertOrderIs("a", "b", "c");
+    }
+
+    @Test
+    public void testChildrenAreOrderedDescendingByProperty() {
+        withChild("b", 2L);
+        withChild("c", 3L);
+        withChild("a", 1L);
+
+        orderBy("value", true);
+
+        assertOrderIs("c", "b", "a");
+    }
+
+    @Test
+    public void testChildrenAreOrderedByDate() {
+        withChild("new", new GregorianCalendar(2020, Calendar.JANUARY, 2));
+        withChild("old", new GregorianCalendar(2019, Calendar.JANUARY, 1));
+
+        orderBy("value", false);
+
+        assertOrderIs("old", "new");
+    }
+
+    @Test
+    public void testChildrenWithEqualValuesRetainTheirOrder() {
+        withChild("first", "x");
+        withChild("second", "x");
+        withChild("third", "a");
+        withChild("fourth", "x");
+
+        orderBy("value", true);
+
+        assertOrderIs("first", "second", "fourth", "third");
+    }
+
+    @Test
+    public void testChildrenWithoutValueAreOrderedLast() {
+        withChild("none");
+        withChild("b", "b");
+        withChildWithoutProperties("no properties");
+        withChild("a", "a");
+
+        orderBy("value", false);
+        assertOrderIs("a", "b", "none", "no properties");
+
+        orderBy("value", true);
+        assertOrderIs("b", "a", "none", "no properties");
+    }
+
+    @Test
+    public void testNumbersOfDifferentTypesAreComparedByValue() {
+        withChild("two", 2L);
+        withChild("one and a half", 1.5D);
+        withChild("one", 1);
+
+        orderBy("value", false);
+
+        assertOrderIs("one", "one and a half", "two");
+    }
+
+    @Test
+    public void testValuesOfDifferentTypesAreComparedByStringRepresentation() {
+        withChild("true", true);
+        withChild("abc", "abc");
+
+        orderBy("value", false);
+
+        assertOrderIs("abc", "true");
+    }
+
+    @Test
+    public void testMultiValuePropertiesAreOrderedByFirstValue() {
+        withChild("b", new String[]{"b", "a"});
+        withChild("a", new String[]{"a", "z"});
+        withChild("empty", new String[0]);
+
+        orderBy("value", false);
+
+        assertOrderIs("a", "b", "empty");
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testExhaustedOrderSignalsNoSuchElement() {
+        orderBy("value", false);
+        this.ordered.next();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChildrenMustNotBeNull() {
+        OrderedChildren.order(null, "value", false, this.properties::get);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPropertyNameMustNotBeNull() {
+        OrderedChildren.order(this.children.iterator(), null, false, this.properties::get);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPropertiesMustNotBeNull() {
+        OrderedChildren.order(this.children.iterator(), "value", false, null);
+    }
+
+    private void withChild(String name, Object value) {
+        Resource child = withChildWithoutProperties(name);
+        this.properties.put(child, new ValueMapDecorator(singletonMap("value", value)));
+    }
+
+    private void withChild(String name) {
+        Resource child = withChildWithoutProperties(name);
+        this.properties.put(child, new ValueMapDecorator(new HashMap<>()));
+    }
+
+    private Resource withChildWithoutProperties(String name) {
+        Resource child = mock(Resource.class);
+        doReturn(name).when(child).getName();
+        this.children.add(child);
+        return child;
+    }
+
+    private void orderBy(String propertyName, boolean descending) {
+        this.ordered = OrderedChildren.order(this.children.iterator(), propertyName, descending, this.properties::get);
+    }
+
+    private void assertOrderIs(String... names) {
+        List<String> orderedNames = new ArrayList<>();
+        this.ordered.forEachRemaining(child -> orderedNames.add(child.getName()));
+        assertThat(orderedNames).containsExactly(names);
+    }
+}
@@ -0,0 +1,332 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.mapping;
+
+import io.neba.api.spi.PlaceholderVariableResolver;
+import io.neba.core.util.ResourcePaths.ResourcePath;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import static io.neba.core.util.ResourcePaths.path;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Olaf Otto
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PlaceholderVariableResolversTest {
+    @Mock
+    private PlaceholderVariableResolver resolver;
+
+    private String resolvedPath;
+
+    private PlaceholderVariableResolvers testee;
+
+    @Before
+    public void setUp() {
+        this.testee = new PlaceholderVariableResolvers();
+        this.testee.bind(this.resolver);
+    }
+
+    @Test
+    public void testVariableResolution() {
+        withValue("language", "de");
+        assertThat(this.testee.resolve("language")).isEqualTo("de");
+    }
+
+    @Test
+    public void testFallbackToSystemProperties() {
+        assertThat(this.testee.resolve("java.version")).isEqualTo(System.getProperty("java.version"));
+    }
+
+    @Test
+    public void testUnresolvableVariableYieldsNull() {
+        assertThat(this.testee.resolve("neba.unknown.variable")).isNull();
+    }
+
+    @Test
+    public void testPathResolution() {
+        withValue("language", "de");
+        resolvePath("title-${language}");
+        assertResolvedPathIs("title-de");
+    }
+
+    @Test
+    public void testPathWithoutPlaceholdersIsNotResolved() {
+        resolvePath("title");
+        assertResolvedPathIs("title");
+        verify(this.resolver, never()).resolve(anyString());
+    }
+
+    @Test
+    public void testPathsWithConstantVariablesAreResolvedOnce() {
+        withConstantValue("language", "de");
+
+        resolvePath("title-${language}");
+        resolvePath("title-${language}");
+
+        assertResolvedPathIs("title-de");
+        verify(this.resolver, times(1)).resolve("language");
+    }
+
+    @Test
+    public void testPathsWithNonConstantVariablesAreAlwaysResolved() {
+        withValue("language", "de");
+        resolvePath("title-${language}");
+
+        withValue("language", "en");
+        resolvePath("title-${language}");
+
+        assertResolvedPathIs("title-en");
+    }
+
+    @Test
+    public void testPathsWithConstantAndNonConstantVariablesAreAlwaysResolved() {
+        withConstantValue("site", "neba");
+        withValue("language", "de");
+        resolvePath("${site}/title-${language}");
+
+        withValue("language", "en");
+        resolvePath("${site}/title-${language}");
+
+        assertResolvedPathIs("neba/title-en");
+    }
+
+    @Test
+    public void testPathsAreNotCachedWhenNonConstantResolverYieldsNull() {
+        withValue("language", null);
+        resolvePath("title-${language}");
+        assertResolvedPathIs("title-${language}");
+
+        withValue("language", "de");
+        resolvePath("title-${language}");
+        assertResolvedPathIs("title-de");
+    }
+
+    @Test
+    public void testPathsAreNotCachedWhenRequestConstantResolverYieldsNull() throws Exception {
+        withRequestConstantValue("language", null);
+        request(() -> resolvePath("title-${language}"));
+        assertResolvedPathIs("title-${language}");
+
+        withRequestConstantValue("language", "de");
+        request(() -> resolvePath("title-${language}"));
+        assertResolvedPathIs("title-de");
+    }
+
+    @Test
+    public void testPathsWithUnresolvableVariablesAreNotCached() {
+        withConstantValue("neba.test.language", null);
+        resolvePath("title-${neba.test.language}");
+        assertResolvedPathIs("title-${neba.test.language}");
+
+        System.setProperty("neba.test.language", "de");
+        try {
+            resolvePath("title-${neba.test.language}");
+        } finally {
+            System.clearProperty("neba.test.language");
+        }
+        assertResolvedPathIs("title-de");
+    }
+
+    @Test
+    public void testPathsWithSystemPropertiesAreAlwaysResolved() {
+        System.setProperty("neba.test.language", "de");
+        try {
+            resolvePath("title-${neba.test.language}");
+            System.setProperty("neba.test.language", "en");
+            resolvePath("title-${neba.test.language}");
+        } finally {
+            System.clearProperty("neba.test.language");
+        }
+
+        assertResolvedPathIs("title-en");
+    }
+
+    @Test
+    public void testResolvedPathsAreInvalidatedWhenResolverIsBound() {
+        withConstantValue("language", "de");
+        resolvePath("title-${language}");
+
+        PlaceholderVariableResolver other = mock(PlaceholderVariableResolver.class);
+        this.testee.unbind(this.resolver);
+        this.testee.bind(other);
+        doReturn("en").when(other).resolve("language");
+
+        resolvePath("title-${language}");
+
+        assertResolvedPathIs("title-en");
+    }
+
+    @Test
+    public void testResolvedPathsAreInvalidatedWhenResolverIsUnbound() {
+        withConstantValue("language", "de");
+        resolvePath("title-${language}");
+
+        this.testee.unbind(this.resolver);
+        resolvePath("title-${language}");
+
+        assertResolvedPathIs("title-${language}");
+    }
+
+    @Test
+    public void testRequestConstantVariablesAreResolvedOncePerRequest() throws Exception {
+        withRequestConstantValue("language", "de");
+
+        request(() -> {
+            resolvePath("title-${language}");
+            resolvePath("text-${language}");
+            assertThat(this.testee.resolve("language")).isEqualTo("de");
+        });
+        assertResolvedPathIs("text-de");
+        verify(this.resolver, times(1)).resolve("language");
+
+        request(() -> resolvePath("title-${language}"));
+        verify(this.resolver, times(2)).resolve("language");
+    }
+
+    @Test
+    public void testRequestConstantVariablesAreResolvedOnUseOutsideOfRequests() {
+        withRequestConstantValue("language", "de");
+
+        resolvePath("title-${language}");
+        resolvePath("title-${language}");
+
+        assertResolvedPathIs("title-de");
+        verify(this.resolver, times(2)).resolve("language");
+    }
+
+    @Test
+    public void testPathsWithRequestConstantAndNonConstantVariablesAreAlwaysResolved() throws Exception {
+        withRequestConstantValue("language", "de");
+        withValue("site", "neba");
+
+        request(() -> {
+            resolvePath("${site}/${language}");
+            withValue("site", "other");
+            resolvePath("${site}/${language}");
+        });
+
+        assertResolvedPathIs("other/de");
+        verify(this.resolver, times(1)).resolve("language");
+    }
+
+    @Test
+    public void testRequestScopeIsRetainedForNestedFiltering() throws Exception {
+        withRequestConstantValue("language", "de");
+
+        request(() -> {
+            resolvePath("title-${language}");
+            request(() -> resolvePath("title-${language}"));
+            resolvePath("title-${language}");
+        });
+
+        verify(this.resolver, times(1)).resolve("language");
+    }
+
+    @Test
+    public void testRequestScopeIsDiscardedWhenResolversChange() throws Exception {
+        withRequestConstantValue("language", "de");
+
+        request(() -> {
+            resolvePath("title-${language}");
+            this.testee.bind(mock(PlaceholderVariableResolver.class));
+            resolvePath("title-${language}");
+        });
+
+        verify(this.resolver, times(2)).resolve("language");
+    }
+
+    @Test
+    public void testForkProvidesRequestScopeToOtherThreads() throws Exception {
+        withRequestConstantValue("language", "de");
+
+        request(() -> {
+            resolvePath("title-${language}");
+            PlaceholderVariableResolvers.Fork fork = this.testee.fork();
+            Thread thread = new Thread(() -> fork.run(() -> {
+                resolvePath("text-${language}");
+                return null;
+            }));
+            thread.start();
+            thread.join();
+        });
+
+        assertResolvedPathIs("text-de");
+        verify(this.resolver, times(1)).resolve("language");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testResolutionOfNullVariableIsRejected() {
+        this.testee.resolve((String) null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testResolutionOfNullPathIsRejected() {
+        this.testee.resolve((ResourcePath) null);
+    }
+
+    private void request(Request request) throws Exception {
+        this.testee.doFilter(mock(ServletRequest.class), mock(ServletResponse.class), (req, res) -> {
+            try {
+                request.request();
+            } catch (Exception e) {
+                throw new ServletException(e);
+            }
+        });
+    }
+
+    private interface Request {
+        void request() throws Exception;
+    }
+
+    private void assertResolvedPathIs(String expected) {
+        assertThat(this.resolvedPath).isEqualTo(expected);
+    }
+
+    private void resolvePath(String path) {
+        this.resolvedPath = this.testee.resolve(path(path));
+    }
+
+    private void withValue(String variableName, String value) {
+        doReturn(value).when(this.resolver).resolve(variableName);
+    }
+
+    private void withRequestConstantValue(String variableName, String value) {
+        withValue(variableName, value);
+        lenient().doReturn(true).when(this.resolver).isRequestConstant(variableName);
+    }
+
+    private void withConstantValue(String variableName, String value) {
+        withValue(variableName, value);
+        lenient().doReturn(true).when(this.resolver).isConstant(variableName);
+    }
+}
@@ -20,6 +20,10 @@ import io.neba.api.spi.AopSupport;
 import io.neba.api.spi.ResourceModelFactory;
 import io.neba.api.spi.ResourceModelFactory.ContentToModelMappingCallback;
 import io.neba.api.spi.ResourceModelPostProcessor;
+import io.neba.core.resourcemodels.caching.RequestScopedResourceModelCache;
+import io.neba.core.resourcemodels.caching.RequestScopedValueMapCache;
+import io.neba.core.resourcemodels.caching.SharedResourceModelCache;
+import io.neba.core.resourcemodels.caching.SharedResourceModelCache.CachedModel;
 import io.neba.core.resourcemodels.metadata.MappedFieldMetaData;
 import io.neba.core.resourcemodels.metadata.ResourceModelMetaData;
 import io.neba.core.resourcemodels.metadata.ResourceModelMetaDataRegistrar;
@@ -32,18 +36,34 @@ import org.apache.sling.api.resource.ValueMap;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.lang.reflect.Field;
-
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static io.neba.core.util.FieldAccessor.accessorFor;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -89,7 +109,20 @@ public class ResourceToModelMapperTest {
     @SuppressWarnings("unused") // Required for injection into testee
     private PlaceholderVariableResolvers placeholderVariableResolvers;
     @Mock
+    @SuppressWarnings("unused") // Required for injection into testee
+    private ChildrenMappingPool childrenMappingPool;
+    @Mock
+    @SuppressWarnings("unused") // Required for injection into testee
+    private BatchResourceResolvers batchResourceResolvers;
+    @Spy
+    @SuppressWarnings("unused") // Required for injection into testee
+    private RequestScopedValueMapCache valueMapCache = new RequestScopedValueMapCache();
+    @Mock
     private Mapping<Object> ongoingMapping;
+    @Mock
+    private SharedResourceModelCache sharedCache;
+    @Mock
+    private RequestScopedResourceModelCache requestScopedCache;
 
     private TestModel model;
     private Class<?> modelType;
@@ -97,6 +130,7 @@ public class ResourceToModelMapperTest {
     private TestModel modelReturnedFromPostProcessor;
     private TestModel mappedModel;
     private AopSupport aopSupport;
+    private MappedFieldMetaData[] mappableFields;
 
     @InjectMocks
     private ResourceToModelMapper testee;
@@ -122,6 +156,8 @@ public class ResourceToModelMapperTest {
         when(this.modelMetaData.getStatistics())
                 .thenReturn(this.resourceModelStatistics);
 
+        withIsolatedRequestScopedCache();
+
         this.model = new TestModel();
         this.modelType = TestModel.class;
     }
@@ -250,6 +286,240 @@ public class ResourceToModelMapperTest {
         verifyNumberOfSubsequentMappingsIs(1);
     }
 
+    @Test
+    public void testMappingPlanIsCompiledOnce() throws Exception {
+        withModelWithMappableField();
+
+        mapResourceToModel();
+        mapResourceToModel();
+
+        verifyMappableFieldsAreCompiled(1, this.modelMetaData);
+    }
+
+    @Test
+    public void testMappingPlanIsRecompiledWhenFieldMappersChange() throws Exception {
+        withModelWithMappableField();
+
+        mapResourceToModel();
+        withFieldMappersGeneration(1);
+        mapResourceToModel();
+        mapResourceToModel();
+
+        verifyMappableFieldsAreCompiled(2, this.modelMetaData);
+    }
+
+    @Test
+    public void testMappingPlansOfUnregisteredModelsAreRemoved() throws Exception {
+        ResourceModelMetaData initialMetaData = this.modelMetaData;
+        withModelWithMappableField();
+        mapResourceToModel();
+
+        withNewlyRegisteredModelMetaData();
+        mapResourceToModel();
+
+        verifyMappableFieldsAreCompiled(1, initialMetaData);
+        verifyMappableFieldsAreCompiled(1, this.modelMetaData);
+        assertMappingPlansAreRetainedFor(this.modelMetaData);
+    }
+
+    @Test
+    public void testSharedCacheIsNotUsedIfDisabled() {
+        withShareableModel();
+        mapResourceToModel();
+        verifySharedCacheIsNotUsed();
+    }
+
+    @Test
+    public void testSharedCacheIsNotUsedForModelsThatAreNotShareable() {
+        withSharedCacheEnabled();
+        mapResourceToModel();
+        verifySharedCacheIsNotUsed();
+    }
+
+    @Test
+    public void testShareableModelIsAddedToSharedCacheWithItsDependencies() {
+        withSharedCacheEnabled();
+        withShareableModel();
+        doReturn(7L).when(this.sharedCache).getInvalidationSequence();
+
+        mapResourceToModel();
+
+        assertModelReturnedFromMapperIsOriginalModel();
+        verify(this.requestScopedCache).isolated(any());
+        verify(this.sharedCache).put(this.resource, TestModel.class, this.model, singleton("/resource/path"), 7L);
+    }
+
+    @Test
+    public void testShareableModelIsTakenFromSharedCache() {
+        withSharedCacheEnabled();
+        withShareableModel();
+        TestModel sharedModel = new TestModel();
+        withModelInSharedCache(sharedModel, "/resource/path", "/referenced/path");
+
+        mapResourceToModel();
+
+        assertThat(this.mappedModel).isSameAs(sharedModel);
+        verifyModelInstantiationIsNotCounted();
+        verify(this.sharedCache, never()).put(any(), any(), any(), anyCollection(), anyLong());
+        verifyMappingHasDependencies("/resource/path", "/referenced/path");
+    }
+
+    @Test
+    public void testDependenciesAreProvidedToPostProcessorsRequiringThem() {
+        withPostProcessorRequiringDependencies();
+        mapResourceToModel();
+        verify(this.postProcessor).processAfterMapping(any(), eq(this.resource), eq(this.factory), eq(singleton("/resource/path")));
+    }
+
+    @Test
+    public void testDependenciesAreNotRecordedForPostProcessorsNotRequiringThem() {
+        withPostProcessor(mock(ResourceModelPostProcessor.class));
+        mapResourceToModel();
+        verify(this.postProcessor).processAfterMapping(any(), eq(this.resource), eq(this.factory), eq(emptySet()));
+        verifyMappingDoesNotRecordDependencies();
+    }
+
+    @Test
+    public void testModelsWithPostProcessorsRequiringDependenciesAreMappedIsolatedFromRequestScopedCache() {
+        withPostProcessorRequiringDependencies();
+        mapResourceToModel();
+        verify(this.requestScopedCache).isolated(any());
+        verify(this.sharedCache, never()).put(any(), any(), any(), anyCollection(), anyLong());
+    }
+
+    @Test
+    public void testModelsWithPostProcessorsNotRequiringDependenciesAreNotMappedIsolatedFromRequestScopedCache() {
+        withPostProcessor(mock(ResourceModelPostProcessor.class));
+        mapResourceToModel();
+        verify(this.requestScopedCache, never()).isolated(any());
+    }
+
+    @Test
+    public void testPostProcessorsRequiringDependenciesAreNoLongerConsideredOnceUnbound() {
+        withPostProcessorRequiringDependencies();
+        this.testee.unbindProcessor(this.postProcessor);
+        mapResourceToModel();
+        verify(this.requestScopedCache, never()).isolated(any());
+        verifyMappingDoesNotRecordDependencies();
+    }
+
+    @Test
+    public void testModelsWithoutPostProcessorsAreNotMappedIsolatedFromRequestScopedCache() {
+        mapResourceToModel();
+        verify(this.requestScopedCache, never()).isolated(any());
+        verifyMappingDoesNotRecordDependencies();
+    }
+
+    @Test
+    public void testNestedMappingRecordsDependenciesIfParentRecordsDependencies() {
+        withParentMappingRecordingDependencies(true);
+        mapResourceToModel();
+        verifyMappingHasDependencies("/resource/path");
+        // The parent mapping is already isolated from the request-scoped cache.
+        verify(this.requestScopedCache, never()).isolated(any());
+    }
+
+    @Test
+    public void testNestedMappingDoesNotRecordDependenciesIfParentDoesNotRecordDependencies() {
+        withParentMappingRecordingDependencies(false);
+        mapResourceToModel();
+        verifyMappingDoesNotRecordDependencies();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMappingStopsRecordingDependenciesOnceComplete() {
+        withPostProcessorRequiringDependencies();
+        mapResourceToModel();
+
+        ArgumentCaptor<Mapping<?>> mapping = ArgumentCaptor.forClass(Mapping.class);
+        verify(this.nestedMappingSupport).push(mapping.capture());
+        mapping.getValue().addDependency("/lazily/loaded/path");
+
+        assertThat(mapping.getValue().isRecordingDependencies()).isFalse();
+        assertThat(mapping.getValue().getDependencies()).containsOnly("/resource/path");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDependenciesProvidedToPostProcessorsAreSnapshot() {
+        withPostProcessorRequiringDependencies();
+        mapResourceToModel();
+
+        ArgumentCaptor<Set<String>> dependencies = ArgumentCaptor.forClass(Set.class);
+        verify(this.postProcessor).processAfterMapping(any(), eq(this.resource), eq(this.factory), dependencies.capture());
+
+        assertThat(dependencies.getValue()).containsOnly("/resource/path");
+        assertThatThrownBy(() -> dependencies.getValue().add("/other/path")).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void testNumberOfDependenciesIsCounted() {
+        withPostProcessorRequiringDependencies();
+        mapResourceToModel();
+        verify(this.resourceModelStatistics).countDependencies(1);
+    }
+
+    @Test
+    public void testNumberOfDependenciesIsNotCountedIfDependenciesAreNotRecorded() {
+        mapResourceToModel();
+        verify(this.resourceModelStatistics, never()).countDependencies(anyInt());
+    }
+
+    private void withSharedCacheEnabled() {
+        doReturn(true).when(this.sharedCache).isEnabled();
+    }
+
+    private void withShareableModel() {
+        doReturn(true).when(this.modelMetaData).isShareable();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void withIsolatedRequestScopedCache() {
+        lenient().doAnswer(inv -> ((Supplier<Object>) inv.getArguments()[0]).get()).when(this.requestScopedCache).isolated(any());
+    }
+
+    private void withModelInSharedCache(Object model, String... dependencies) {
+        CachedModel<?> cachedModel = new CachedModel<>(model, asList(dependencies));
+        doReturn(cachedModel).when(this.sharedCache).get(this.resource, TestModel.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyMappingHasDependencies(String... dependencies) {
+        ArgumentCaptor<Mapping<?>> mapping = ArgumentCaptor.forClass(Mapping.class);
+        verify(this.nestedMappingSupport).push(mapping.capture());
+        assertThat(mapping.getValue().getDependencies()).containsOnly(dependencies);
+    }
+
+    private void verifySharedCacheIsNotUsed() {
+        verify(this.sharedCache, never()).get(any(), any());
+        verify(this.sharedCache, never()).put(any(), any(), any(), anyCollection(), anyLong());
+        verify(this.requestScopedCache, never()).isolated(any());
+    }
+
+    private void withFieldMappersGeneration(int generation) {
+        doReturn(generation).when(this.annotatedFieldMappers).getGeneration();
+    }
+
+    private void withNewlyRegisteredModelMetaData() throws NoSuchFieldException {
+        this.modelMetaData = mock(ResourceModelMetaData.class);
+        doReturn(this.resourceModelStatistics).when(this.modelMetaData).getStatistics();
+        doReturn(this.mappableFields).when(this.modelMetaData).getMappableFields();
+        doReturn(this.modelMetaData).when(this.resourceModelMetaDataRegistrar).get(isA(Class.class));
+        doReturn(singletonList(this.modelMetaData)).when(this.resourceModelMetaDataRegistrar).get();
+    }
+
+    private void verifyMappableFieldsAreCompiled(int times, ResourceModelMetaData metaData) {
+        verify(metaData, times(times)).getMappableFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertMappingPlansAreRetainedFor(ResourceModelMetaData metaData) throws Exception {
+        Field plans = ResourceToModelMapper.class.getDeclaredField("mappingPlans");
+        plans.setAccessible(true);
+        assertThat(((Map<ResourceModelMetaData, MappingPlan>) plans.get(this.testee)).keySet()).containsOnly(metaData);
+    }
+
     private void verifyNumberOfSubsequentMappingsIs(int mappings) {
         verify(this.resourceModelStatistics, times(mappings)).countSubsequentMapping();
     }
@@ -320,7 +590,7 @@ public class ResourceToModelMapperTest {
 
     private void withModelReturnedFromPostProcessing(TestModel model) {
         this.modelReturnedFromPostProcessor = model;
-        when(this.postProcessor.processAfterMapping(eq(this.model), eq(this.resource), eq(this.factory)))
+        when(this.postProcessor.processAfterMapping(eq(this.model), eq(this.resource), eq(this.factory), anySet()))
                 .thenReturn(this.modelReturnedFromPostProcessor);
     }
 
@@ -350,9 +620,10 @@ public class ResourceToModelMapperTest {
         doReturn("mapped").when(path).getPath();
         doReturn(path).when(mappedFieldMetaData).getPath();
         doReturn(String.class).when(mappedFieldMetaData).getType();
-        doReturn(field).when(mappedFieldMetaData).getField();
+        doReturn(accessorFor(field)).when(mappedFieldMetaData).getAccessor();
 
-        doReturn(new MappedFieldMetaData[]{ mappedFieldMetaData }).when(this.modelMetaData).getMappableFields();
+        this.mappableFields = new MappedFieldMetaData[]{ mappedFieldMetaData };
+        doReturn(this.mappableFields).when(this.modelMetaData).getMappableFields();
     }
 
     private void assertModelReturnedFromMapperIsOriginalModel() {
@@ -360,7 +631,7 @@ public class ResourceToModelMapperTest {
     }
 
     private void verifyPostProcessorIsInvokedAfterMapping() {
-        verify(this.postProcessor).processAfterMapping(any(), eq(this.resource), eq(this.factory));
+        verify(this.postProcessor).processAfterMapping(any(), eq(this.resource), eq(this.factory), anySet());
     }
 
     private void withPostProcessor(ResourceModelPostProcessor mock) {
@@ -368,6 +639,26 @@ public class ResourceToModelMapperTest {
         this.testee.bindProcessor(this.postProcessor);
     }
 
+    private void withPostProcessorRequiringDependencies() {
+        ResourceModelPostProcessor processor = mock(ResourceModelPostProcessor.class);
+        doReturn(true).when(processor).requiresDependencies();
+        withPostProcessor(processor);
+    }
+
+    private void withParentMappingRecordingDependencies(boolean recording) {
+        Mapping<?> parent = mock(Mapping.class);
+        doReturn(modelMetaData).when(parent).getMetadata();
+        doReturn(recording).when(parent).isRecordingDependencies();
+        doReturn(parent).when(this.nestedMappingSupport).peek();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyMappingDoesNotRecordDependencies() {
+        ArgumentCaptor<Mapping<?>> mapping = ArgumentCaptor.forClass(Mapping.class);
+        verify(this.nestedMappingSupport).push(mapping.capture());
+        assertThat(mapping.getValue().getDependencies()).isEmpty();
+    }
+
     @SuppressWarnings("unchecked")
     private void mapResourceToModel() {
         OsgiModelSource<TestModel> source = mock(OsgiModelSource.class);
@@ -104,6 +104,18 @@ public class TestResourceModel {
     @Children(resolveBelowEveryChild = "/jcr:content")
     private List<Resource> childContentResourcesAsResources;
 
+    @Children(parallel = true)
+    private List<Resource> childrenAsResourcesInParallel;
+
+    @Children(offset = 10, limit = 5)
+    private List<Resource> pageOfChildrenAsResources;
+
+    @Children(names = "item_*", resourceTypes = "some/type", properties = "visible=true")
+    private List<Resource> filteredChildrenAsResources;
+
+    @Children(orderBy = "date", descending = true, limit = 5)
+    private List<Resource> latestChildrenAsResources;
+
     @Children
     private Lazy<List<Resource>> lazyChildContentResourcesAsResources;
 
@@ -0,0 +1,42 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+
+package io.neba.core.resourcemodels.mapping.testmodels;
+
+import io.neba.api.annotations.Children;
+import io.neba.api.annotations.Reference;
+import org.apache.sling.api.resource.Resource;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author Olaf Otto
+ */
+public class TestResourceModelWithLazyLoadingCollectionTypes {
+    @Children
+    private Collection<Resource> childrenAsCollection;
+
+    @Children
+    private List<Resource> childrenAsList;
+
+    @Reference
+    private Set<Resource> referencesAsSet;
+
+    @Children
+    private Object childrenAsObject;
+}
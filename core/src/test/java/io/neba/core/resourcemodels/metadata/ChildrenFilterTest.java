@@ -0,0 +1,242 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.metadata;
+
+import io.neba.api.annotations.Children;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+
+/**
+ * @author Olaf Otto
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ChildrenFilterTest {
+    @Mock
+    private Children children;
+    @Mock
+    private Resource resource;
+
+    private final Map<String, Object> properties = new HashMap<>();
+    private Field field;
+
+    private ChildrenFilter testee;
+
+    @Before
+    public void setUp() throws Exception {
+        this.field = ChildrenFilterTest.class.getDeclaredField("field");
+        lenient().doReturn(new String[0]).when(this.children).names();
+        lenient().doReturn(new String[0]).when(this.children).resourceTypes();
+        lenient().doReturn(new String[0]).when(this.children).properties();
+    }
+
+    @Test
+    public void testNoFilterIsCreatedIfNoFilterIsSpecified() {
+        createFilter();
+        assertThat(this.testee).isNull();
+    }
+
+    @Test
+    public void testNamesMatchingGlobPatternsAreAccepted() {
+        withNames("item_*", "t?st");
+        createFilter();
+
+        assertNameIsAccepted("item_");
+        assertNameIsAccepted("item_1");
+        assertNameIsAccepted("test");
+        assertNameIsAccepted("tast");
+    }
+
+    @Test
+    public void testNamesNotMatchingGlobPatternsAreRejected() {
+        withNames("item_*", "t?st");
+        createFilter();
+
+        assertNameIsRejected("item");
+        assertNameIsRejected("other_item_1");
+        assertNameIsRejected("toast");
+        assertNameIsRejected("tst");
+    }
+
+    @Test
+    public void testRegularExpressionCharactersInGlobPatternsAreLiterals() {
+        withNames("a.b+(c)*");
+        createFilter();
+
+        assertNameIsAccepted("a.b+(c)d");
+        assertNameIsRejected("axb+(c)d");
+        assertNameIsRejected("abb(c)d");
+    }
+
+    @Test
+    public void testAllNamesAreAcceptedIfOnlyOtherFiltersAreSpecified() {
+        withResourceTypes("some/type");
+        createFilter();
+
+        assertNameIsAccepted("any");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBlankNamePatternsAreRejected() {
+        withNames(" ");
+        createFilter();
+    }
+
+    @Test
+    public void testResourcesOfAnySpecifiedResourceTypeAreAccepted() {
+        withResourceTypes("some/type", "other/type");
+        withResourceOfType("other/type");
+        createFilter();
+
+        assertResourceIsAccepted();
+    }
+
+    @Test
+    public void testResourcesOfOtherResourceTypesAreRejected() {
+        withResourceTypes("some/type");
+        withResourceOfType("other/type");
+        createFilter();
+
+        assertResourceIsRejected();
+    }
+
+    @Test
+    public void testResourcesWithAllSpecifiedPropertiesAreAccepted() {
+        withPropertyFilters("visible=true", "category=news");
+        withProperty("visible", true);
+        withProperty("category", "news");
+        createFilter();
+
+        assertResourceIsAccepted();
+    }
+
+    @Test
+    public void testResourcesLackingAnySpecifiedPropertyAreRejected() {
+        withPropertyFilters("visible=true", "category=news");
+        withProperty("visible", true);
+        createFilter();
+
+        assertResourceIsRejected();
+    }
+
+    @Test
+    public void testResourcesWithDifferentPropertyValuesAreRejected() {
+        withPropertyFilters("visible=true");
+        withProperty("visible", false);
+        createFilter();
+
+        assertResourceIsRejected();
+    }
+
+    @Test
+    public void testPropertyFiltersSupportEmptyValuesAndValuesContainingTheSeparator() {
+        withPropertyFilters("title=", "expression=a=b");
+        withProperty("title", "");
+        withProperty("expression", "a=b");
+        createFilter();
+
+        assertResourceIsAccepted();
+    }
+
+    @Test
+    public void testResourcesWithoutPropertiesAreRejectedByPropertyFilters() {
+        withPropertyFilters("visible=true");
+        createFilter();
+
+        assertThat(this.testee.accepts(this.resource, r -> null)).isFalse();
+    }
+
+    @Test
+    public void testPropertiesAreNotRetrievedWithoutPropertyFilters() {
+        withResourceTypes("some/type");
+        withResourceOfType("some/type");
+        createFilter();
+
+        assertThat(this.testee.accepts(this.resource, r -> {
+            throw new AssertionError("The properties must not be retrieved");
+        })).isTrue();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPropertyFiltersWithoutSeparatorAreRejected() {
+        withPropertyFilters("visible");
+        createFilter();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPropertyFiltersWithoutNameAreRejected() {
+        withPropertyFilters("=true");
+        createFilter();
+    }
+
+    private void withNames(String... names) {
+        doReturn(names).when(this.children).names();
+    }
+
+    private void withResourceTypes(String... resourceTypes) {
+        doReturn(resourceTypes).when(this.children).resourceTypes();
+    }
+
+    private void withPropertyFilters(String... properties) {
+        doReturn(properties).when(this.children).properties();
+    }
+
+    private void withResourceOfType(String resourceType) {
+        lenient().doReturn(true).when(this.resource).isResourceType(resourceType);
+    }
+
+    private void withProperty(String name, Object value) {
+        this.properties.put(name, value);
+    }
+
+    private void createFilter() {
+        this.testee = ChildrenFilter.filterFor(this.children, this.field);
+    }
+
+    private void assertNameIsAccepted(String name) {
+        assertThat(this.testee.acceptsName(name)).isTrue();
+    }
+
+    private void assertNameIsRejected(String name) {
+        assertThat(this.testee.acceptsName(name)).isFalse();
+    }
+
+    private void assertResourceIsAccepted() {
+        assertThat(this.testee.accepts(this.resource, this::valueMapOf)).isTrue();
+    }
+
+    private void assertResourceIsRejected() {
+        assertThat(this.testee.accepts(this.resource, this::valueMapOf)).isFalse();
+    }
+
+    private ValueMap valueMapOf(Resource resource) {
+        return new ValueMapDecorator(this.properties);
+    }
+}
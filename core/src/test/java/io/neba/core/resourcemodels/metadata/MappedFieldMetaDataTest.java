@@ -19,8 +19,10 @@ package io.neba.core.resourcemodels.metadata;
 import io.neba.api.annotations.Reference;
 import io.neba.core.resourcemodels.mapping.testmodels.OtherTestResourceModel;
 import io.neba.core.resourcemodels.mapping.testmodels.TestResourceModel;
+import io.neba.core.resourcemodels.mapping.testmodels.TestResourceModelWithInvalidChildrenDeclaration;
 import io.neba.core.resourcemodels.mapping.testmodels.TestResourceModelWithInvalidGenericFieldDeclaration;
 import io.neba.core.resourcemodels.mapping.testmodels.TestResourceModelWithInvalidPathDeclaration;
+import io.neba.core.resourcemodels.mapping.testmodels.TestResourceModelWithLazyLoadingCollectionTypes;
 import io.neba.core.resourcemodels.mapping.testmodels.TestResourceModelWithUnsupportedCollectionTypes;
 import org.apache.sling.api.resource.Resource;
 import org.junit.Test;
@@ -31,14 +33,29 @@ import org.mockito.junit.MockitoJUnitRunner;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static io.neba.core.util.ReflectionUtil.findField;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -47,6 +64,8 @@ import static org.mockito.Mockito.verify;
  */
 @RunWith(MockitoJUnitRunner.class)
 public class MappedFieldMetaDataTest {
+    private static final int THREADS = 8;
+
     @Mock
     private Callable<Object> callbackForLazyLoading;
     private Object lazyLoadingProxy;
@@ -126,6 +145,98 @@ public class MappedFieldMetaDataTest {
         assertChildrenDoesNotHaveResolveBelowEveryChildPath();
     }
 
+    @Test
+    public void testParallelMappingOfChildren() {
+        createMetadataForTestModelFieldWithName("childrenAsResourcesInParallel");
+        assertThat(this.testee.isChildrenMappedInParallel()).isTrue();
+    }
+
+    @Test
+    public void testChildrenAreNotMappedInParallelByDefault() {
+        createMetadataForTestModelFieldWithName("childrenAsResources");
+        assertThat(this.testee.isChildrenMappedInParallel()).isFalse();
+    }
+
+    @Test
+    public void testFieldsWithoutChildrenAnnotationAreNotMappedInParallel() {
+        createMetadataForTestModelFieldWithName("referencedResource");
+        assertThat(this.testee.isChildrenMappedInParallel()).isFalse();
+    }
+
+    @Test
+    public void testOffsetAndLimitOfChildren() {
+        createMetadataForTestModelFieldWithName("pageOfChildrenAsResources");
+        assertThat(this.testee.getChildrenOffset()).isEqualTo(10);
+        assertThat(this.testee.isChildrenLimited()).isTrue();
+        assertThat(this.testee.getChildrenLimit()).isEqualTo(5);
+    }
+
+    @Test
+    public void testChildrenAreNotLimitedByDefault() {
+        createMetadataForTestModelFieldWithName("childrenAsResources");
+        assertThat(this.testee.getChildrenOffset()).isEqualTo(0);
+        assertThat(this.testee.isChildrenLimited()).isFalse();
+    }
+
+    @Test
+    public void testChildrenFilterIsProvidedForFilteredChildren() {
+        createMetadataForTestModelFieldWithName("filteredChildrenAsResources");
+        assertThat(this.testee.getChildrenFilter()).isNotNull();
+        assertThat(this.testee.getChildrenFilter().acceptsName("item_1")).isTrue();
+    }
+
+    @Test
+    public void testChildrenAreNotFilteredByDefault() {
+        createMetadataForTestModelFieldWithName("childrenAsResources");
+        assertThat(this.testee.getChildrenFilter()).isNull();
+    }
+
+    @Test
+    public void testOrderOfChildren() {
+        createMetadataForTestModelFieldWithName("latestChildrenAsResources");
+        assertThat(this.testee.isChildrenOrdered()).isTrue();
+        assertThat(this.testee.getChildrenOrderProperty()).isEqualTo("date");
+        assertThat(this.testee.isChildrenOrderDescending()).isTrue();
+    }
+
+    @Test
+    public void testChildrenAreNotOrderedByDefault() {
+        createMetadataForTestModelFieldWithName("childrenAsResources");
+        assertThat(this.testee.isChildrenOrdered()).isFalse();
+        assertThat(this.testee.getChildrenOrderProperty()).isNull();
+        assertThat(this.testee.isChildrenOrderDescending()).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTreatmentOfNegativeChildrenOffset() {
+        withModelType(TestResourceModelWithInvalidChildrenDeclaration.class);
+        createMetadataForTestModelFieldWithName("childrenWithNegativeOffset");
+    }
+
+    @Test
+    public void testPropertyFieldsAreBoundToConverterForFieldType() {
+        createMetadataForTestModelFieldWithName("primitiveLongField");
+        assertPropertyConverterTargetTypeIs(long.class);
+    }
+
+    @Test
+    public void testCollectionTypedPropertyFieldsAreBoundToConverterForArrayTypeOfTypeParameter() {
+        createMetadataForTestModelFieldWithName("collectionOfStrings");
+        assertPropertyConverterTargetTypeIs(String[].class);
+    }
+
+    @Test
+    public void testReferencesAreNotBoundToConverter() {
+        createMetadataForTestModelFieldWithName("referencedResource");
+        assertThat(this.testee.getPropertyConverter()).isNull();
+    }
+
+    @Test
+    public void testNonPropertyFieldsAreNotBoundToConverter() {
+        createMetadataForTestModelFieldWithName("childrenAsResources");
+        assertThat(this.testee.getPropertyConverter()).isNull();
+    }
+
     @Test
 	public void testTypeParameterDetection() {
 		createMetadataForTestModelFieldWithName("referencedResourcesListWithSimpleTypeParameter");
@@ -293,6 +404,144 @@ public class MappedFieldMetaDataTest {
         assertLazyLoadingCallbackWasCalledExactlyOnceDuringTestExecution();
     }
 
+    @Test(expected = NoSuchElementException.class)
+    public void testExceptionsOfLazyLoadedTargetArePropagated() throws Exception {
+        createMetadataForTestModelFieldWithName("childrenAsResources");
+        createLazyLoadingProxy();
+        withListReturnedFromLazyLoadingCallback();
+
+        ((List<?>) this.lazyLoadingProxy).iterator().next();
+    }
+
+    @Test
+    public void testConcurrentAccessToLazyLoadingProxyYieldsSameTarget() throws Exception {
+        createMetadataForTestModelFieldWithName("childrenAsResources");
+        createLazyLoadingProxy();
+        AtomicInteger loads = new AtomicInteger();
+        doAnswer(inv -> singletonList(loads.incrementAndGet())).when(this.callbackForLazyLoading).call();
+
+        List<Object> elements = accessLazyLoadingProxyConcurrently(list -> list.get(0));
+
+        assertThat(elements).hasSize(THREADS).containsOnly(elements.get(0));
+        assertThat(((List<?>) this.lazyLoadingProxy).get(0)).isEqualTo(elements.get(0));
+    }
+
+    @Test
+    public void testLazyLoadingProxyForCollectionInterfaceFieldType() throws Exception {
+        withModelType(TestResourceModelWithLazyLoadingCollectionTypes.class);
+        createMetadataForTestModelFieldWithName("childrenAsCollection");
+        createLazyLoadingProxy();
+        withValueReturnedFromLazyLoadingCallback(new ArrayList<>(asList("one", "two")));
+
+        assertLazyLoadingProxyIsSubclassOf(Object.class);
+        assertLazyLoadingProxyHasType(Collection.class);
+        assertThat((Collection<?>) this.lazyLoadingProxy).containsExactly("one", "two");
+    }
+
+    @Test
+    public void testLazyLoadingProxyForListInterfaceFieldType() throws Exception {
+        withModelType(TestResourceModelWithLazyLoadingCollectionTypes.class);
+        createMetadataForTestModelFieldWithName("childrenAsList");
+        createLazyLoadingProxy();
+        withValueReturnedFromLazyLoadingCallback(new ArrayList<>(asList("one", "two")));
+
+        assertLazyLoadingProxyIsSubclassOf(Object.class);
+        assertLazyLoadingProxyHasType(List.class);
+        assertThat(((List<?>) this.lazyLoadingProxy).get(1)).isEqualTo("two");
+        assertThat(((List<?>) this.lazyLoadingProxy).indexOf("one")).isZero();
+    }
+
+    @Test
+    public void testLazyLoadingProxyForSetInterfaceFieldType() throws Exception {
+        withModelType(TestResourceModelWithLazyLoadingCollectionTypes.class);
+        createMetadataForTestModelFieldWithName("referencesAsSet");
+        createLazyLoadingProxy();
+        withValueReturnedFromLazyLoadingCallback(new LinkedHashSet<>(asList("one", "two")));
+
+        assertLazyLoadingProxyIsSubclassOf(Object.class);
+        assertLazyLoadingProxyHasType(Set.class);
+        assertThat(((Set<?>) this.lazyLoadingProxy).contains("two")).isTrue();
+        assertThat((Set<?>) this.lazyLoadingProxy).containsExactly("one", "two");
+    }
+
+    /**
+     * Concrete collection types, such as {@link ArrayList} or {@link LinkedHashSet}, are
+     * {@link #testTreatmentOfUnsupportedCollectionTypes() not supported} for collection fields. The only class
+     * type eligible for a lazy-loading proxy is {@link Object}, for which the proxy constructor must invoke the
+     * no-argument constructor of the field type rather than the one of {@link Object} chosen for interface types.
+     */
+    @Test
+    public void testLazyLoadingProxyForClassFieldTypeInvokesConstructorOfFieldType() throws Exception {
+        withModelType(TestResourceModelWithLazyLoadingCollectionTypes.class);
+        createMetadataForTestModelFieldWithName("childrenAsObject");
+        createLazyLoadingProxy();
+        withValueReturnedFromLazyLoadingCallback(new ArrayList<>(asList("one", "two")));
+
+        assertLazyLoadingProxyIsSubclassOf(Object.class);
+        assertThat(this.lazyLoadingProxy.toString()).isEqualTo("[one, two]");
+    }
+
+    @Test
+    public void testEqualsHashCodeAndToStringAreDelegatedToLazyLoadedTarget() throws Exception {
+        createMetadataForTestModelFieldWithName("childrenAsResources");
+        createLazyLoadingProxy();
+        List<String> target = new ArrayList<>(asList("one", "two"));
+        withValueReturnedFromLazyLoadingCallback(target);
+
+        assertThat(this.lazyLoadingProxy.equals(asList("one", "two"))).isTrue();
+        assertThat(this.lazyLoadingProxy.equals(singletonList("one"))).isFalse();
+        assertThat(this.lazyLoadingProxy.hashCode()).isEqualTo(target.hashCode());
+        assertThat(this.lazyLoadingProxy.toString()).isEqualTo(target.toString());
+        assertLazyLoadingCallbackWasCalledExactlyOnceDuringTestExecution();
+    }
+
+    @Test
+    public void testTargetIsLoadedOnceAcrossDifferentMethodsOfLazyLoadingProxy() throws Exception {
+        createMetadataForTestModelFieldWithName("childrenAsResources");
+        createLazyLoadingProxy();
+        withValueReturnedFromLazyLoadingCallback(new ArrayList<>(asList("one", "two")));
+
+        List<?> proxy = (List<?>) this.lazyLoadingProxy;
+        proxy.size();
+        proxy.get(0);
+        proxy.iterator();
+        proxy.contains("two");
+        proxy.toString();
+        proxy.hashCode();
+
+        assertLazyLoadingCallbackWasCalledExactlyOnceDuringTestExecution();
+    }
+
+    @Test
+    public void testLazyLoadingCallbackIsNotInvokedBeforeFirstAccess() throws Exception {
+        createMetadataForTestModelFieldWithName("childrenAsResources");
+        createLazyLoadingProxy();
+
+        verify(this.callbackForLazyLoading, never()).call();
+    }
+
+    @Test
+    public void testExceptionsOfLazyLoadedTargetArePropagatedUnwrapped() throws Exception {
+        createMetadataForTestModelFieldWithName("childrenAsResources");
+        createLazyLoadingProxy();
+        withListReturnedFromLazyLoadingCallback();
+
+        assertThatThrownBy(() -> ((List<?>) this.lazyLoadingProxy).get(0))
+                .isExactlyInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> ((List<?>) this.lazyLoadingProxy).listIterator().previous())
+                .isExactlyInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    public void testExceptionsOfLazyLoadingCallbackArePropagatedUnwrapped() throws Exception {
+        createMetadataForTestModelFieldWithName("childrenAsResources");
+        createLazyLoadingProxy();
+        IllegalStateException exception = new IllegalStateException("THIS IS AN EXPECTED TEST EXCEPTION");
+        doThrow(exception).when(this.callbackForLazyLoading).call();
+
+        assertThatThrownBy(() -> ((List<?>) this.lazyLoadingProxy).size()).isSameAs(exception);
+    }
+
     @Test
     public void testResolutionOfArrayComponentType() {
         createMetadataForTestModelFieldWithName("collectionOfStrings");
@@ -315,6 +564,15 @@ public class MappedFieldMetaDataTest {
         assertThat(testResourceModel.getStringField()).isEqualTo("JunitTest");
     }
 
+    @Test
+    public void testMetadataProvidesAccessorForField() {
+        TestResourceModel testResourceModel = new TestResourceModel();
+        createMetadataForTestModelFieldWithName("stringField");
+        assertThat(this.testee.getAccessor().getField()).isEqualTo(this.testee.getField());
+        this.testee.getAccessor().set(testResourceModel, "JunitTest");
+        assertThat(testResourceModel.getStringField()).isEqualTo("JunitTest");
+    }
+
     @Test
     public void testHashCodeAndEquals() {
         Field field1 = findField(this.modelType, "stringField");
@@ -343,6 +601,28 @@ public class MappedFieldMetaDataTest {
                 .contains(Reference.class);
     }
 
+    private List<Object> accessLazyLoadingProxyConcurrently(Function<List<?>, Object> access) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = newFixedThreadPool(THREADS);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; ++i) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return access.apply((List<?>) this.lazyLoadingProxy);
+                }));
+            }
+            start.countDown();
+            List<Object> results = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private void assertLazyLoadingCallbackWasCalledExactlyOnceDuringTestExecution() throws Exception {
         verify(this.callbackForLazyLoading, times(1)).call();
     }
@@ -351,10 +631,19 @@ public class MappedFieldMetaDataTest {
         doReturn(new ArrayList<>()).when(this.callbackForLazyLoading).call();
     }
 
-    private <T> void assertLazyLoadingProxyHasType(Class<List> expectedType) {
+    private void withValueReturnedFromLazyLoadingCallback(Object value) throws Exception {
+        doReturn(value).when(this.callbackForLazyLoading).call();
+    }
+
+    private void assertLazyLoadingProxyHasType(Class<?> expectedType) {
         assertThat(this.lazyLoadingProxy).isInstanceOf(expectedType);
     }
 
+    private void assertLazyLoadingProxyIsSubclassOf(Class<?> expectedSuperclass) {
+        assertThat(this.lazyLoadingProxy).isInstanceOf(MappedFieldMetaData.NebaDelegatingLazyLoadingProxy.class);
+        assertThat(this.lazyLoadingProxy.getClass().getSuperclass()).isEqualTo(expectedSuperclass);
+    }
+
     private void createLazyLoadingProxy() {
         this.lazyLoadingProxy = this.testee.getLazyLoadingProxy(this.callbackForLazyLoading);
     }
@@ -455,6 +744,11 @@ public class MappedFieldMetaDataTest {
 		assertThat(this.testee.isPropertyType()).isFalse();
 	}
 
+    private void assertPropertyConverterTargetTypeIs(Class<?> type) {
+        assertThat(this.testee.getPropertyConverter()).isNotNull();
+        assertThat(this.testee.getPropertyConverter().getTargetType()).isSameAs(type);
+    }
+
 	private void createMetadataForTestModelFieldWithName(String fieldName) {
         Field field = findField(this.modelType, fieldName);
         this.testee = new MappedFieldMetaData(field, this.modelType);
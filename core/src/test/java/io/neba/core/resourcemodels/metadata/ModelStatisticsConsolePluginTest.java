@@ -116,7 +116,11 @@ public class ModelStatisticsConsolePluginTest {
                                     "\"maximumMappingDuration\":20.0," +
                                     "\"minimumMappingDuration\":0.0," +
                                     "\"mappingDurationMedian\":5.0," +
-                                    "\"cacheHits\":0" +
+                                    "\"cacheHits\":0," +
+                                    "\"cacheMisses\":0," +
+                                    "\"cacheEvictions\":0," +
+                                    "\"averageDependencies\":0.0," +
+                                    "\"maximumDependencies\":0" +
                                     "}," +
 
                                     "{" +
@@ -132,7 +136,11 @@ public class ModelStatisticsConsolePluginTest {
                                     "\"maximumMappingDuration\":40.0," +
                                     "\"minimumMappingDuration\":1.0," +
                                     "\"mappingDurationMedian\":10.0," +
-                                    "\"cacheHits\":0" +
+                                    "\"cacheHits\":0," +
+                                    "\"cacheMisses\":0," +
+                                    "\"cacheEvictions\":0," +
+                                    "\"averageDependencies\":0.0," +
+                                    "\"maximumDependencies\":0" +
                                     "}" +
                                 "]");
     }
@@ -156,6 +164,10 @@ public class ModelStatisticsConsolePluginTest {
                         "\"minimumMappingDuration\":0.0," +
                         "\"mappingDurationMedian\":5.0," +
                         "\"cacheHits\":0," +
+                        "\"cacheMisses\":0," +
+                        "\"cacheEvictions\":0," +
+                        "\"averageDependencies\":0.0," +
+                        "\"maximumDependencies\":0," +
                         "\"mappingDurationFrequencies\":{" +
                             "\"[0, 1)\":10," +
                              "\"[1, 2)\":20," +
@@ -16,6 +16,7 @@
 
 package io.neba.core.resourcemodels.metadata;
 
+import io.neba.api.annotations.Shareable;
 import io.neba.core.resourcemodels.mapping.testmodels.ExtendedTestResourceModel;
 import io.neba.core.resourcemodels.mapping.testmodels.TestResourceModel;
 import org.junit.Before;
@@ -32,6 +33,10 @@ import static org.assertj.core.api.Assertions.assertThat;
  */
 @RunWith(MockitoJUnitRunner.class)
 public class ResourceModelMetaDataTest {
+    @Shareable
+    private static class ShareableTestModel {
+    }
+
     private Class<?> modelType;
 
     private ResourceModelMetaData testee;
@@ -82,6 +87,17 @@ public class ResourceModelMetaDataTest {
         assertMetadataEqualsMetadataOf(TestResourceModel.class);
     }
 
+    @Test
+    public void testModelsAreNotShareableByDefault() {
+        assertThat(this.testee.isShareable()).isFalse();
+    }
+
+    @Test
+    public void testModelsAnnotatedWithShareableAreShareable() {
+        createMetadataFor(ShareableTestModel.class);
+        assertThat(this.testee.isShareable()).isTrue();
+    }
+
     @Test
     public void testToStringRepresentation() {
         assertThat(this.testee.toString()).isEqualTo("ResourceModelMetaData[" + TestResourceModel.class.getName() + "]");
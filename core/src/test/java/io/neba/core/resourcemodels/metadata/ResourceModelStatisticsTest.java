@@ -181,6 +181,40 @@ public class ResourceModelStatisticsTest {
         assertNumberOfCacheHitsIs(2);
     }
 
+    @Test
+    public void testCacheMissAndEvictionCount() {
+        assertThat(this.testee.getCacheMisses()).isEqualTo(0);
+        assertThat(this.testee.getCacheEvictions()).isEqualTo(0);
+
+        this.testee.countCacheMiss().countCacheMiss();
+        this.testee.countCacheEviction();
+
+        assertThat(this.testee.getCacheMisses()).isEqualTo(2);
+        assertThat(this.testee.getCacheEvictions()).isEqualTo(1);
+
+        reset();
+
+        assertThat(this.testee.getCacheMisses()).isEqualTo(0);
+        assertThat(this.testee.getCacheEvictions()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDependencyCount() {
+        assertThat(this.testee.getAverageNumberOfDependencies()).isEqualTo(0D);
+        assertThat(this.testee.getMaximumNumberOfDependencies()).isEqualTo(0);
+
+        this.testee.countDependencies(2);
+        this.testee.countDependencies(5);
+
+        assertThat(this.testee.getAverageNumberOfDependencies()).isEqualTo(3.5D);
+        assertThat(this.testee.getMaximumNumberOfDependencies()).isEqualTo(5);
+
+        reset();
+
+        assertThat(this.testee.getAverageNumberOfDependencies()).isEqualTo(0D);
+        assertThat(this.testee.getMaximumNumberOfDependencies()).isEqualTo(0);
+    }
+
     @Test
     public void testReset() {
         countCacheHit();
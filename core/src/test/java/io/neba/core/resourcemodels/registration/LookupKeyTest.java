@@ -0,0 +1,136 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.registration;
+
+import org.junit.Test;
+
+import static org.apache.commons.lang3.reflect.FieldUtils.readField;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Olaf Otto
+ */
+public class LookupKeyTest {
+    private LookupKey key1;
+    private LookupKey key2;
+
+    @Test
+    public void testEqualKeys() {
+        withFirstKey("some/type", "some/supertype", "nt:unstructured", new String[]{"mix:a", "mix:b"}, "modelName");
+        withSecondKey("some/type", "some/supertype", "nt:unstructured", new String[]{"mix:a", "mix:b"}, "modelName");
+        assertKeysAreEqual();
+    }
+
+    @Test
+    public void testKeysWithDifferentNodeTypesAreNotEqual() {
+        withFirstKey("some/type", null, "nt:unstructured", null, null);
+        withSecondKey("some/type", null, "sling:Folder", null, null);
+        assertKeysAreNotEqual();
+
+        withFirstKey("some/type", null, "nt:unstructured", new String[]{"mix:a"}, null);
+        withSecondKey("some/type", null, "nt:unstructured", null, null);
+        assertKeysAreNotEqual();
+    }
+
+    @Test
+    public void testKeysWithDifferentMixinTypesAreNotEqual() {
+        withFirstKey("some/type", null, "nt:unstructured", new String[]{"mix:a", "mix:b"}, null);
+        withSecondKey("some/type", null, "nt:unstructured", new String[]{"mix:b", "mix:a"}, null);
+        assertKeysAreNotEqual();
+    }
+
+    @Test
+    public void testKeysWithoutMixinTypesAreEqualToKeysWithEmptyMixinTypes() {
+        withFirstKey("some/type", null, "nt:unstructured", new String[0], null);
+        withSecondKey("some/type", null, "nt:unstructured", null, null);
+        assertKeysAreEqual();
+    }
+
+    @Test
+    public void testKeysWithDifferentQualifiersAreNotEqual() {
+        withFirstKey("some/type", null, null, null, String.class);
+        withSecondKey("some/type", null, null, null, "modelName");
+        assertKeysAreNotEqual();
+    }
+
+    @Test
+    public void testKeysWithNullElementsAreEqual() {
+        withFirstKey(null, null, null, null, null);
+        withSecondKey(null, null, null, null, null);
+        assertKeysAreEqual();
+    }
+
+    @Test
+    public void testInternedKeyIsEqualToOriginalKey() {
+        withFirstKey("some/type", "some/supertype", "nt:unstructured", new String[]{"mix:a"}, "modelName");
+        this.key2 = this.key1.intern();
+        assertKeysAreEqual();
+    }
+
+    @Test
+    public void testInternedKeysShareTypeNames() throws Exception {
+        withFirstKey(new String("some/type"), null, new String("nt:unstructured"), null, null);
+        withSecondKey(new String("some/type"), null, new String("nt:unstructured"), null, null);
+
+        this.key1 = this.key1.intern();
+        this.key2 = this.key2.intern();
+
+        assertThat(readField(this.key1, "resourceType", true)).isSameAs(readField(this.key2, "resourceType", true));
+        assertThat(readField(this.key1, "primaryType", true)).isSameAs(readField(this.key2, "primaryType", true));
+    }
+
+    @Test
+    public void testInternedKeysShareMixinTypeNames() throws Exception {
+        String[] mixinTypes = {new String("mix:a")};
+        withFirstKey("some/type", null, "nt:unstructured", mixinTypes, null);
+        withSecondKey("some/type", null, "nt:unstructured", new String[]{new String("mix:a")}, null);
+
+        this.key1 = this.key1.intern();
+        this.key2 = this.key2.intern();
+
+        assertThat(this.key1.getMixinTypes()).isNotSameAs(mixinTypes);
+        assertThat(this.key1.getMixinTypes()[0]).isSameAs(this.key2.getMixinTypes()[0]);
+    }
+
+    @Test
+    public void testStringRepresentation() {
+        withFirstKey("some/type", null, "nt:unstructured", null, "modelName");
+        assertThat(this.key1.toString()).isEqualTo("LookupKey {some/type, null, nt:unstructured, null, modelName}");
+
+        withFirstKey("some/type", null, "nt:unstructured", new String[]{"mix:a", "mix:b"}, "modelName");
+        assertThat(this.key1.toString()).isEqualTo("LookupKey {some/type, null, nt:unstructured, [mix:a, mix:b], modelName}");
+    }
+
+    private void assertKeysAreEqual() {
+        assertThat(this.key1.hashCode()).isEqualTo(this.key2.hashCode());
+        assertThat(this.key1).isEqualTo(this.key2);
+        assertThat(this.key2).isEqualTo(this.key1);
+    }
+
+    private void assertKeysAreNotEqual() {
+        assertThat(this.key1).isNotEqualTo(this.key2);
+        assertThat(this.key2).isNotEqualTo(this.key1);
+    }
+
+    private void withFirstKey(String resourceType, String resourceSuperType, String primaryType, String[] mixinTypes, Object qualifier) {
+        this.key1 = new LookupKey(resourceType, resourceSuperType, primaryType, mixinTypes, qualifier);
+    }
+
+    private void withSecondKey(String resourceType, String resourceSuperType, String primaryType, String[] mixinTypes, Object qualifier) {
+        this.key2 = new LookupKey(resourceType, resourceSuperType, primaryType, mixinTypes, qualifier);
+    }
+}
@@ -18,6 +18,7 @@ package io.neba.core.resourcemodels.registration;
 import java.lang.reflect.Field;
 import java.util.Dictionary;
 import java.util.Hashtable;
+import java.util.LinkedHashSet;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 import org.junit.Before;
@@ -30,12 +31,15 @@ import org.osgi.service.event.Event;
 import org.slf4j.Logger;
 
 
+import static io.neba.core.resourcemodels.registration.MappableTypeHierarchyChangeListener.typeNamesOf;
+import static java.util.Arrays.asList;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.commons.lang3.reflect.FieldUtils.getField;
 import static org.apache.commons.lang3.reflect.FieldUtils.writeField;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.anyCollection;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.atLeast;
-import static org.mockito.Mockito.atMost;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
@@ -82,25 +86,62 @@ public class MappableTypeHierarchyChangeListenerTest {
         withChangeOn("/apps/testapp/components/test");
         sleep();
 
-        verifyModelRegistryCacheIsCleared();
+        verifyModelRegistryCacheIsClearedFor("/apps/testapp/components/test", "testapp/components/test");
     }
 
     /**
-     * When multiple successive events are handled, only the first one shall cause the cache to be cleared, i.e.
-     * events do not queue up while the cache is cleared, as it is sufficient to clear the cache once.
+     * When multiple successive events are handled, the changes are invalidated in one batch
+     * rather than once per event.
      */
     @Test
-    public void testOnlyOneEventIsAccepted() throws Exception {
-        withChangeOn("/apps/testapp/components/test");
-        withChangeOn("/apps/testapp/components/test");
-        withChangeOn("/apps/testapp/components/test");
+    public void testSuccessiveChangesAreInvalidatedInOneBatch() throws Exception {
         withChangeOn("/apps/testapp/components/test");
         withChangeOn("/apps/testapp/components/test");
+        withChangeOn("/apps/testapp/components/other");
+
+        activate();
+        sleep();
+
+        verifyModelRegistryCacheIsClearedFor(
+                "/apps/testapp/components/test",
+                "testapp/components/test",
+                "/apps/testapp/components/other",
+                "testapp/components/other");
+    }
+
+    /**
+     * If too many changes are pending, the cache is cleared entirely.
+     */
+    @Test
+    public void testCacheIsClearedEntirelyIfTooManyChangesArePending() throws Exception {
+        for (int i = 0; i <= 1000; ++i) {
+            withChangeOn("/apps/testapp/components/test" + i);
+        }
 
         activate();
         sleep();
 
         verifyModelRegistryCacheIsCleared();
+        verify(this.modelRegistry, never()).typeHierarchyChanged(anyCollection());
+    }
+
+    @Test
+    public void testEventsWithoutPathAreIgnored() throws Exception {
+        activate();
+
+        this.testee.handleEvent(new Event("test/topic", (Dictionary<String, Object>) new Hashtable<String, Object>()));
+        sleep();
+
+        verifyModelRegistryCacheIsNotCleared();
+    }
+
+    @Test
+    public void testTypeNamesOfPathAreAbsoluteAndSearchPathRelativeType() {
+        assertThat(typeNamesOf("/apps/testapp/components/test")).containsExactly("/apps/testapp/components/test", "testapp/components/test");
+        assertThat(typeNamesOf("/apps")).containsExactly("/apps");
+        assertThat(typeNamesOf("/apps/")).containsExactly("/apps/");
+        assertThat(typeNamesOf("relative/type")).containsExactly("relative/type");
+        assertThat(typeNamesOf("")).containsExactly("");
     }
 
     @Test
@@ -152,8 +193,8 @@ public class MappableTypeHierarchyChangeListenerTest {
         doReturn(true).when(this.logger).isTraceEnabled();
     }
 
-    private void verifyModelRegistryCacheIsClearedAtMost(int times) {
-        verify(this.modelRegistry, atMost(times)).clearLookupCaches();
+    private void verifyModelRegistryCacheIsClearedFor(String... typeNames) {
+        verify(this.modelRegistry).typeHierarchyChanged(new LinkedHashSet<>(asList(typeNames)));
     }
 
     private void verifyModelRegistryCacheIsCleared() {
@@ -166,6 +207,7 @@ public class MappableTypeHierarchyChangeListenerTest {
 
     private void verifyModelRegistryCacheIsNotCleared() {
         verify(this.modelRegistry, never()).clearLookupCaches();
+        verify(this.modelRegistry, never()).typeHierarchyChanged(anyCollection());
     }
 
     private void sleep() throws InterruptedException {
@@ -4,6 +4,7 @@ import io.neba.api.annotations.ResourceModel;
 import io.neba.api.spi.ResourceModelFactory;
 import io.neba.api.spi.ResourceModelFactory.ModelDefinition;
 import io.neba.core.resourcemodels.adaptation.ResourceToModelAdapterUpdater;
+import io.neba.core.resourcemodels.caching.SharedResourceModelCache;
 import io.neba.core.resourcemodels.metadata.ResourceModelMetaDataRegistrar;
 import io.neba.core.util.OsgiModelSource;
 import org.junit.Before;
@@ -48,6 +49,8 @@ public class ModelRegistrarTest {
     @Mock
     private ResourceModelMetaDataRegistrar resourceModelMetaDataRegistrar;
     @Mock
+    private SharedResourceModelCache sharedResourceModelCache;
+    @Mock
     private BundleContext context;
     @Mock
     private ServiceReference<?> referenceToModelFactory;
@@ -163,13 +166,15 @@ public class ModelRegistrarTest {
      * <ol>
      *     <li>Removal of the model from the model registry for lookup</li>
      *     <li>Removal of model metadata (mappable fields et. al.)</li>
+     *     <li>Removal of shared models</li>
      *     <li>Refresh the resource to model adapter factory to reflect the removed model</li>
      * </ol>
      */
     private void verifyResourceModelIsRemoved() {
-        InOrder inOrder = Mockito.inOrder(this.modelRegistry, this.resourceModelMetaDataRegistrar, this.resourceToModelAdapterUpdater);
+        InOrder inOrder = Mockito.inOrder(this.modelRegistry, this.resourceModelMetaDataRegistrar, this.sharedResourceModelCache, this.resourceToModelAdapterUpdater);
         inOrder.verify(this.modelRegistry).removeResourceModels(this.bundle);
         inOrder.verify(this.resourceModelMetaDataRegistrar).removeMetadataForModelsIn(this.bundle);
+        inOrder.verify(this.sharedResourceModelCache).clear();
         inOrder.verify(this.resourceToModelAdapterUpdater).refresh();
     }
 
@@ -17,15 +17,19 @@
 package io.neba.core.resourcemodels.registration;
 
 import io.neba.api.annotations.ResourceModel;
+import io.neba.core.resourcemodels.caching.RequestScopedValueMapCache;
 import io.neba.core.util.OsgiModelSource;
 import io.neba.core.util.ResolvedModelSource;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.osgi.framework.Bundle;
 
@@ -33,11 +37,21 @@ import javax.jcr.Node;
 import javax.jcr.RepositoryException;
 import javax.jcr.nodetype.NodeType;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
+import static io.neba.api.Constants.SYNTHETIC_RESOURCETYPE_ROOT;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -57,6 +71,8 @@ public class ModelRegistryTest {
 	private Bundle bundle;
     @Mock
     private ResourceResolver resolver;
+    @Spy
+    private RequestScopedValueMapCache valueMapCache = new RequestScopedValueMapCache();
 
     private Set<ResourceModel> resourceModelAnnotations;
     private long bundleId;
@@ -452,6 +468,139 @@ public class ModelRegistryTest {
         assertLookedUpModelSourcesAreNull();
     }
 
+    /**
+     * Node types are read from the resource properties. Thus, repeated lookups must not adapt the resource to a {@link Node}.
+     */
+    @Test
+    public void testCachedLookupDoesNotAdaptResourceToNodeIfNodeTypesAreAvailableAsProperties() throws Exception {
+        withModelForType("my/page/type", TargetType1.class);
+
+        Resource resource = mockResourceWithResourceType("my/page/type");
+        withPrimaryType(resource, "nt:unstructured");
+        withNodeTypeProperties(resource, "nt:unstructured");
+
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertNumberOfLookedUpModelSourcesIs(1);
+
+        clearInvocations(resource);
+
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertNumberOfLookedUpModelSourcesIs(1);
+        verify(resource, never()).adaptTo(Node.class);
+    }
+
+    /**
+     * The node type properties are read from the value map shared by all models mapped from the resource during a request.
+     */
+    @Test
+    public void testNodeTypePropertiesAreReadFromRequestScopedValueMap() throws Exception {
+        withModelForType("some:JcrType", TargetType1.class);
+
+        Resource resource = mockResourceWithResourceType("some/resourcetype");
+        withPrimaryType(resource, "some:JcrType");
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("jcr:primaryType", "some:JcrType");
+        doReturn(new ValueMapDecorator(properties)).when(this.valueMapCache).get(resource);
+
+        lookupModelSourcesForType(TargetType1.class, resource);
+
+        assertNumberOfLookedUpModelSourcesIs(1);
+        verify(this.valueMapCache).get(resource);
+        verify(resource, never()).adaptTo(ValueMap.class);
+    }
+
+    @Test
+    public void testLookupDependsOnPrimaryTypeProperty() throws Exception {
+        withModelForType("some:JcrType", TargetType1.class);
+
+        Resource resource = mockResourceWithResourceType("some/resourcetype");
+
+        withPrimaryType(resource, "some:JcrType");
+        withNodeTypeProperties(resource, "some:JcrType");
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertNumberOfLookedUpModelSourcesIs(1);
+
+        withPrimaryType(resource, "nt:unstructured");
+        withNodeTypeProperties(resource, "nt:unstructured");
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertLookedUpModelSourcesAreNull();
+    }
+
+    @Test
+    public void testLookupDependsOnMixinTypeProperties() throws Exception {
+        withModelForType("mix:SomeMixing", TargetType1.class);
+
+        Resource resource = mockResourceWithResourceType("my/page/type");
+        withPrimaryType(resource, "nt:unstructured");
+
+        withMixinTypes(resource, "mix:SomeMixing", "mix:OtherMixin");
+        withNodeTypeProperties(resource, "nt:unstructured", "mix:SomeMixing", "mix:OtherMixin");
+
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertNumberOfLookedUpModelSourcesIs(1);
+
+        withMixinTypes(resource, "mix:DifferentMixin", "mix:OtherMixin");
+        withNodeTypeProperties(resource, "nt:unstructured", "mix:DifferentMixin", "mix:OtherMixin");
+
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertLookedUpModelSourcesAreNull();
+    }
+
+    /**
+     * Resources whose properties do not contain the primary type, e.g. resources not stemming from the JCR, are adapted to a
+     * {@link Node} to determine the node types, if any.
+     */
+    @Test
+    public void testLookupFallsBackToNodeIfPropertiesDoNotContainPrimaryType() throws Exception {
+        withModelForType("some:JcrType", TargetType1.class);
+
+        Resource resource = mockResourceWithResourceType("some/resourcetype");
+        withProperties(resource, new HashMap<>());
+
+        withPrimaryType(resource, "some:JcrType");
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertNumberOfLookedUpModelSourcesIs(1);
+
+        withPrimaryType(resource, "nt:unstructured");
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertLookedUpModelSourcesAreNull();
+    }
+
+    @Test
+    public void testNodeTypesAreNotResolvedFromPropertiesIfDisabled() throws Exception {
+        withResolutionOfNodeTypesFromProperties(false);
+        withModelForType("some:JcrType", TargetType1.class);
+
+        Resource resource = mockResourceWithResourceType("some/resourcetype");
+        withNodeTypeProperties(resource, "some:JcrType");
+
+        withPrimaryType(resource, "some:JcrType");
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertNumberOfLookedUpModelSourcesIs(1);
+
+        withPrimaryType(resource, "nt:unstructured");
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertLookedUpModelSourcesAreNull();
+    }
+
+    /**
+     * The lookup of all models must not share cached results with a lookup by a model name that happens to be equal to
+     * an internal name of the lookup of all models.
+     */
+    @Test
+    public void testLookupOfAllModelsDoesNotCollideWithLookupByModelName() {
+        withModelForType("some/resourcetype/parent", TargetType1.class, "allModels");
+        withModelForType("some/resourcetype", TargetType2.class, "otherName");
+
+        Resource resource = mockResourceWithResourceSuperType("some/resourcetype", "some/resourcetype/parent");
+
+        lookupModelSourcesWithModelName("allModels", resource);
+        assertLookedUpModelTypesAre(TargetType1.class);
+
+        lookupAllModelSourcesFor(resource);
+        assertLookedUpModelTypesAre(TargetType1.class, TargetType2.class);
+    }
+
     /**
      * The sling resource super type of a resource may stem from either the <em>implicit</em> resource super
      * type, i.e. the resource type's super type, retrieved via {@link ResourceResolver#getParentResourceType(Resource)} or from
@@ -471,11 +620,300 @@ public class ModelRegistryTest {
 
         resource = mockResourceWithResourceType("my/page/type");
         withPrimaryType(resource, "nt:unstructured");
+        // The super type of the resource type was removed, as reported by the type hierarchy change listener
+        this.testee.typeHierarchyChanged(singletonList("my/page/type"));
 
         lookupModelSourcesForType(TargetType1.class, resource);
         assertLookedUpModelSourcesAreNull();
     }
 
+    /**
+     * Adding a model for a type within the traversed type hierarchy of a cached lookup must invalidate the lookup,
+     * as the model may be more specific.
+     */
+    @Test
+    public void testAddingModelForTraversedTypeInvalidatesCachedLookup() {
+        withModelForType("super/type", TargetType1.class);
+        Resource resource = mockResourceWithResourceSuperType("my/type", "super/type");
+
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertLookedUpModelTypesAre(TargetType1.class);
+
+        withModelForType("my/type", ExtendedTargetType1.class);
+
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertLookedUpModelTypesAre(ExtendedTargetType1.class);
+    }
+
+    /**
+     * Adding a model for a type that is not part of the traversed type hierarchy of a cached lookup
+     * must not invalidate the lookup.
+     */
+    @Test
+    public void testAddingModelForUnrelatedTypeRetainsCachedLookup() {
+        withModelForType("my/type", TargetType1.class);
+        Resource resource = mockResourceWithResourceType("my/type");
+        lookupModelSourcesForType(TargetType1.class, resource);
+
+        withModelForType("other/type", TargetType1.class);
+
+        assertLookupIsCached(TargetType1.class, resource);
+    }
+
+    /**
+     * Adding a model for a super type beyond the most specific model of a cached lookup
+     * must not invalidate the lookup, since the type was never traversed.
+     */
+    @Test
+    public void testAddingModelForTypeBeyondMostSpecificModelRetainsCachedLookup() {
+        withModelForType("my/type", TargetType1.class);
+        Resource resource = mockResourceWithResourceSuperType("my/type", "super/type");
+        lookupModelSourcesForType(TargetType1.class, resource);
+
+        withModelForType("super/type", TargetType1.class);
+
+        assertLookupIsCached(TargetType1.class, resource);
+    }
+
+    @Test
+    public void testRemovingModelsInvalidatesCachedLookupsOfAffectedTypes() {
+        withModelForType("my/type", TargetType1.class);
+        Resource resource = mockResourceWithResourceType("my/type");
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertNumberOfLookedUpModelSourcesIs(1);
+
+        removeBundle();
+
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertLookedUpModelSourcesAreNull();
+    }
+
+    /**
+     * Cached lookups may reference classes of a removed bundle regardless of the types they traversed, e.g. their target type.
+     * Removing the models of a bundle must thus clear all cached lookups.
+     */
+    @Test
+    public void testRemovingModelsClearsAllCachedLookups() {
+        withModelForType("my/type", TargetType1.class);
+        Resource resource = mockResourceWithResourceType("other/type");
+        lookupModelSourcesForType(TargetType2.class, resource);
+        assertLookedUpModelSourcesAreNull();
+
+        removeBundle();
+        clearInvocations(this.resolver);
+
+        lookupModelSourcesForType(TargetType2.class, resource);
+        verify(this.resolver).getParentResourceType("other/type");
+    }
+
+    @Test
+    public void testClearingLookupCachesForTraversedTypeInvalidatesCachedLookup() {
+        withModelForType("super/type", TargetType1.class);
+        Resource resource = mockResourceWithResourceSuperType("my/type", "super/type");
+        lookupModelSourcesForType(TargetType1.class, resource);
+
+        this.testee.clearLookupCaches(singletonList("super/type"));
+        clearInvocations(this.resolver);
+
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertLookedUpModelTypesAre(TargetType1.class);
+        // The type hierarchy did not change and is thus not resolved again
+        verify(this.resolver, never()).getParentResourceType(anyString());
+    }
+
+    @Test
+    public void testTypeHierarchyOfResourceTypeIsOnlyResolvedOnce() {
+        withModelForType("super/type", TargetType1.class);
+        Resource child = mockResourceWithSupertype("super/type");
+        Resource parent = mockResourceWithResourceType("super/type");
+        clearInvocations(this.resolver);
+
+        lookupModelSourcesForType(TargetType1.class, child);
+        lookupModelSourcesForType(TargetType2.class, child);
+        lookupModelSourcesForType(TargetType1.class, parent);
+
+        verify(this.resolver).getParentResourceType("super/type");
+    }
+
+    @Test
+    public void testTypeHierarchyChangeInvalidatesHierarchyAndCachedLookup() {
+        withModelForType("super/type", TargetType1.class);
+        Resource resource = mockResourceWithResourceType("my/type");
+        when(this.resolver.getParentResourceType("my/type")).thenReturn("super/type");
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertLookedUpModelTypesAre(TargetType1.class);
+
+        when(this.resolver.getParentResourceType("my/type")).thenReturn("other/type");
+        this.testee.typeHierarchyChanged(singletonList("my/type"));
+
+        lookupModelSourcesForType(TargetType1.class, resource);
+        assertLookedUpModelSourcesAreNull();
+    }
+
+    @Test
+    public void testTypeHierarchyChangeOfOtherTypeRetainsCachedLookup() {
+        withModelForType("my/type", TargetType1.class);
+        Resource resource = mockResourceWithResourceType("my/type");
+        lookupModelSourcesForType(TargetType1.class, resource);
+
+        this.testee.typeHierarchyChanged(singletonList("other/type"));
+
+        assertLookupIsCached(TargetType1.class, resource);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTypeHierarchyChangeRequiresTypeNames() {
+        this.testee.typeHierarchyChanged(null);
+    }
+
+    @Test
+    public void testClearingLookupCachesForOtherTypeRetainsCachedLookup() {
+        withModelForType("my/type", TargetType1.class);
+        Resource resource = mockResourceWithResourceType("my/type");
+        lookupModelSourcesForType(TargetType1.class, resource);
+
+        this.testee.clearLookupCaches(singletonList("other/type"));
+
+        assertLookupIsCached(TargetType1.class, resource);
+    }
+
+    @Test
+    public void testLookupsOfResourcesWithSameTypeShareResolvedModels() {
+        withModelForType("my/type", TargetType1.class);
+
+        lookupModelSourcesForType(TargetType1.class, mockResourceWithResourceType("my/type"));
+        Collection<ResolvedModelSource<?>> models = this.lookedUpModels;
+        lookupModelSourcesForType(TargetType1.class, mockResourceWithResourceSuperType("my/type", "super/type"));
+
+        assertThat(this.lookedUpModels).isSameAs(models);
+    }
+
+    @Test
+    public void testResourcesAreUnmappedIfNoModelsAreRegistered() {
+        assertThat(this.testee.isUnmapped(mock(Resource.class))).isTrue();
+    }
+
+    @Test
+    public void testResourceIsUnmappedIfNoModelsExistForItsResourceTypeHierarchy() {
+        withModelForType("other/type", TargetType1.class);
+        Resource resource = mockResourceWithResourceSuperType("my/type", "super/type");
+
+        assertThat(this.testee.isUnmapped(resource)).isTrue();
+        verify(resource, never()).adaptTo(any());
+    }
+
+    @Test
+    public void testResourceIsNotUnmappedIfModelExistsForResourceSuperType() {
+        withModelForType("super/type", TargetType1.class);
+        Resource resource = mockResourceWithResourceSuperType("my/type", "super/type");
+
+        assertThat(this.testee.isUnmapped(resource)).isFalse();
+    }
+
+    @Test
+    public void testResourcesAreNotUnmappedIfModelsExistForNodeTypes() {
+        withModelForType("nt:unstructured", TargetType1.class);
+        Resource resource = mockResourceWithResourceType("my/type");
+
+        assertThat(this.testee.isUnmapped(resource)).isFalse();
+    }
+
+    @Test
+    public void testResourceIsUnmappedIfNoModelsExistForItsTypesWhileModelsExistForNodeTypes() throws Exception {
+        withModelForType("nt:unstructured", TargetType1.class);
+        withModelForType(SYNTHETIC_RESOURCETYPE_ROOT, TargetType1.class);
+        Resource resource = mockResourceWithResourceType("my/type");
+        withPrimaryType(resource, "nt:folder");
+        withNodeTypeProperties(resource, "nt:folder");
+
+        assertThat(this.testee.isUnmapped(resource)).isTrue();
+
+        clearInvocations(resource, this.resolver);
+
+        assertThat(this.testee.isUnmapped(resource)).isTrue();
+        verify(resource, never()).adaptTo(Node.class);
+        verify(this.resolver, never()).getParentResourceType(anyString());
+    }
+
+    @Test
+    public void testResourceIsNotUnmappedIfModelExistsForItsPrimaryType() throws Exception {
+        withModelForType("nt:unstructured", TargetType1.class);
+        Resource resource = mockResourceWithResourceType("my/type");
+        withPrimaryType(resource, "nt:unstructured");
+        withNodeTypeProperties(resource, "nt:unstructured");
+
+        assertThat(this.testee.isUnmapped(resource)).isFalse();
+    }
+
+    @Test
+    public void testResourceIsNotUnmappedIfModelExistsForItsMixinType() throws Exception {
+        withModelForType("mix:SomeMixin", TargetType1.class);
+        Resource resource = mockResourceWithResourceType("my/type");
+        withPrimaryType(resource, "nt:unstructured");
+        withMixinTypes(resource, "mix:SomeMixin");
+        withNodeTypeProperties(resource, "nt:unstructured", "mix:SomeMixin");
+
+        assertThat(this.testee.isUnmapped(resource)).isFalse();
+    }
+
+    @Test
+    public void testResourceWithoutPrimaryTypePropertyIsNotUnmappedIfModelsExistForNodeTypes() {
+        withModelForType("nt:unstructured", TargetType1.class);
+        Resource resource = mockResourceWithResourceType("my/type");
+
+        assertThat(this.testee.isUnmapped(resource)).isFalse();
+        verify(resource, never()).adaptTo(Node.class);
+    }
+
+    @Test
+    public void testUnmappedResourceIsMappedOnceModelIsRegisteredWhileModelsExistForNodeTypes() throws Exception {
+        withModelForType("nt:unstructured", TargetType1.class);
+        Resource resource = mockResourceWithResourceSuperType("my/type", "super/type");
+        withPrimaryType(resource, "nt:folder");
+        withNodeTypeProperties(resource, "nt:folder");
+        assertThat(this.testee.isUnmapped(resource)).isTrue();
+
+        withModelForType("super/type", TargetType1.class);
+
+        assertThat(this.testee.isUnmapped(resource)).isFalse();
+    }
+
+    @Test
+    public void testUnmappedResourceIsMappedOnceTypeHierarchyChangesWhileModelsExistForNodeTypes() throws Exception {
+        withModelForType("nt:unstructured", TargetType1.class);
+        withModelForType("other/type", TargetType1.class);
+        Resource resource = mockResourceWithResourceType("my/type");
+        withPrimaryType(resource, "nt:folder");
+        withNodeTypeProperties(resource, "nt:folder");
+        assertThat(this.testee.isUnmapped(resource)).isTrue();
+
+        when(this.resolver.getParentResourceType("my/type")).thenReturn("other/type");
+        this.testee.typeHierarchyChanged(singletonList("my/type"));
+
+        assertThat(this.testee.isUnmapped(resource)).isFalse();
+    }
+
+    @Test
+    public void testUnmappedResourceIsMappedOnceModelIsRegistered() {
+        withModelForType("other/type", TargetType1.class);
+        Resource resource = mockResourceWithResourceType("my/type");
+        assertThat(this.testee.isUnmapped(resource)).isTrue();
+
+        withModelForType("my/type", TargetType1.class);
+
+        assertThat(this.testee.isUnmapped(resource)).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnmappedResourceCheckRequiresResource() {
+        this.testee.isUnmapped(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testClearingLookupCachesRequiresTypeNames() {
+        this.testee.clearLookupCaches(null);
+    }
+
     private void withPrimaryType(Resource resource, String nodeTypeName) throws RepositoryException {
         Node node = mock(Node.class);
         NodeType nodeType = mock(NodeType.class);
@@ -499,6 +937,25 @@ public class ModelRegistryTest {
         }
     }
 
+    private void withNodeTypeProperties(Resource resource, String primaryType, String... mixinTypes) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("jcr:primaryType", primaryType);
+        if (mixinTypes.length != 0) {
+            properties.put("jcr:mixinTypes", mixinTypes);
+        }
+        withProperties(resource, properties);
+    }
+
+    private void withProperties(Resource resource, Map<String, Object> properties) {
+        when(resource.adaptTo(ValueMap.class)).thenReturn(new ValueMapDecorator(properties));
+    }
+
+    private void withResolutionOfNodeTypesFromProperties(boolean resolveFromProperties) {
+        ModelRegistry.Configuration configuration = mock(ModelRegistry.Configuration.class);
+        when(configuration.resolveNodeTypesFromProperties()).thenReturn(resolveFromProperties);
+        this.testee.activate(configuration);
+    }
+
     private void withBundleId(final long withBundleId) {
         this.bundleId = withBundleId;
         when(this.bundle.getBundleId()).thenReturn(bundleId);
@@ -534,6 +991,14 @@ public class ModelRegistryTest {
         assertThat(this.lookedUpModels).hasSize(i);
 	}
         
+    private void assertLookupIsCached(Class<?> targetType, Resource resource) {
+        Collection<ResolvedModelSource<?>> cachedModels = this.lookedUpModels;
+        clearInvocations(this.resolver);
+        lookupModelSourcesForType(targetType, resource);
+        assertThat(this.lookedUpModels).isSameAs(cachedModels);
+        verify(this.resolver, never()).getParentResourceType(anyString());
+    }
+
     private void assertLookedUpModelSourcesAreNull() {
         assertThat(this.lookedUpModels).isNull();
     }
@@ -0,0 +1,233 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.registration;
+
+import io.neba.core.resourcemodels.registration.ModelSourceIndex.TypeModels;
+import io.neba.core.util.MatchedBundlesPredicate;
+import io.neba.core.util.OsgiModelSource;
+import io.neba.core.util.ResolvedModelSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.osgi.framework.Bundle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author Olaf Otto
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ModelSourceIndexTest {
+    //CHECKSTYLE:OFF (Test types)
+    private static class TargetType {}
+    private static class ExtendedTargetType extends TargetType {}
+    private static class OtherType {}
+    //CHECKSTYLE:ON
+
+    @Mock
+    private Bundle bundle;
+
+    private ModelSourceIndex testee;
+
+    @Before
+    public void setUp() {
+        doReturn(1L).when(this.bundle).getBundleId();
+        this.testee = ModelSourceIndex.EMPTY;
+    }
+
+    @Test
+    public void testEmptyIndexHasNoModels() {
+        assertThat(this.testee.modelsOf("some/type")).isNull();
+        assertThat(this.testee.getSources()).isEmpty();
+        assertThat(this.testee.toMap()).isEmpty();
+    }
+
+    @Test
+    public void testAddingSourceYieldsNewIndex() {
+        OsgiModelSource<?> source = withSource(TargetType.class, "model", 1L);
+
+        ModelSourceIndex index = this.testee.with(new String[]{"some/type", "other/type"}, source);
+
+        assertThat(index).isNotSameAs(this.testee);
+        assertThat(this.testee.modelsOf("some/type")).isNull();
+        assertThat(index.getSources()).containsExactly(source, source);
+        assertThat(index.toMap()).containsOnlyKeys("some/type", "other/type");
+    }
+
+    @Test
+    public void testAllModelsAreResolvedForTheirType() {
+        OsgiModelSource<?> first = withSource(TargetType.class, "first", 1L);
+        OsgiModelSource<?> second = withSource(OtherType.class, "second", 1L);
+        add("some/type", first);
+        add("some/type", second);
+
+        List<ResolvedModelSource<?>> models = modelsOf("some/type").all();
+
+        assertThat(sourcesOf(models)).containsExactly(first, second);
+        assertThat(models).extracting(ResolvedModelSource::getResolvedResourceType).containsOnly("some/type");
+    }
+
+    @Test
+    public void testReAddedSourceIsMovedToTheEnd() {
+        OsgiModelSource<?> first = withSource(TargetType.class, "first", 1L);
+        OsgiModelSource<?> second = withSource(OtherType.class, "second", 1L);
+        add("some/type", first);
+        add("some/type", second);
+        add("some/type", first);
+
+        assertThat(sourcesOf(modelsOf("some/type").all())).containsExactly(second, first);
+    }
+
+    @Test
+    public void testModelsAreResolvedByModelName() {
+        OsgiModelSource<?> first = withSource(TargetType.class, "first", 1L);
+        OsgiModelSource<?> second = withSource(OtherType.class, "second", 1L);
+        add("some/type", first);
+        add("some/type", second);
+
+        TypeModels models = modelsOf("some/type");
+
+        assertThat(sourcesOf(models.withModelName("second"))).containsExactly(second);
+        assertThat(models.withModelName("unknown")).isEmpty();
+    }
+
+    @Test
+    public void testModelsAreResolvedByCompatibleType() {
+        OsgiModelSource<?> target = withSource(TargetType.class, "target", 1L);
+        OsgiModelSource<?> extended = withSource(ExtendedTargetType.class, "extended", 1L);
+        OsgiModelSource<?> other = withSource(OtherType.class, "other", 1L);
+        add("some/type", target);
+        add("some/type", extended);
+        add("some/type", other);
+
+        TypeModels models = modelsOf("some/type");
+
+        assertThat(sourcesOf(models.compatibleWith(TargetType.class))).containsExactly(target, extended);
+        assertThat(sourcesOf(models.compatibleWith(ExtendedTargetType.class))).containsExactly(extended);
+        assertThat(models.compatibleWith(String.class)).isEmpty();
+    }
+
+    @Test
+    public void testResolvedModelsArePrecomputed() {
+        add("some/type", withSource(TargetType.class, "target", 1L));
+
+        TypeModels models = modelsOf("some/type");
+
+        assertThat(models.all()).isSameAs(models.all());
+        assertThat(models.withModelName("target")).isSameAs(models.withModelName("target"));
+    }
+
+    @Test
+    public void testAllModelsAreProvidedIfAllModelsAreCompatible() {
+        add("some/type", withSource(TargetType.class, "target", 1L));
+        add("some/type", withSource(ExtendedTargetType.class, "extended", 1L));
+
+        TypeModels models = modelsOf("some/type");
+
+        assertThat(models.compatibleWith(TargetType.class)).isSameAs(models.all());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testResolvedModelsAreImmutable() {
+        add("some/type", withSource(TargetType.class, "target", 1L));
+        modelsOf("some/type").all().clear();
+    }
+
+    @Test
+    public void testRetainingSourcesRemovesSourcesOfBundle() {
+        OsgiModelSource<?> removed = withSource(TargetType.class, "removed", 1L);
+        OsgiModelSource<?> retained = withSource(OtherType.class, "retained", 2L);
+        add("some/type", removed);
+        add("some/type", retained);
+        add("other/type", removed);
+        add("unchanged/type", retained);
+        TypeModels unchanged = modelsOf("unchanged/type");
+
+        removeSourcesOfBundle();
+
+        assertThat(sourcesOf(modelsOf("some/type").all())).containsExactly(retained);
+        assertThat(this.testee.modelsOf("other/type")).isNull();
+        assertThat(modelsOf("unchanged/type")).isSameAs(unchanged);
+    }
+
+    @Test
+    public void testIndexWithModelsIsNotEmpty() {
+        assertThat(this.testee.isEmpty()).isTrue();
+        add("some/type", withSource(TargetType.class, "model", 1L));
+        assertThat(this.testee.isEmpty()).isFalse();
+    }
+
+    @Test
+    public void testTypeNamesWithoutSlashArePotentialNodeTypes() {
+        add("some/type", withSource(TargetType.class, "model", 1L));
+        assertThat(this.testee.hasModelsForNodeTypes()).isFalse();
+
+        add("nt:unstructured", withSource(TargetType.class, "model", 1L));
+        assertThat(this.testee.hasModelsForNodeTypes()).isTrue();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTypesMustNotBeNull() {
+        this.testee.with(null, withSource(TargetType.class, "model", 1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSourceMustNotBeNull() {
+        this.testee.with(new String[]{"some/type"}, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPredicateMustNotBeNull() {
+        this.testee.retain(null);
+    }
+
+    private void removeSourcesOfBundle() {
+        this.testee = this.testee.retain(new MatchedBundlesPredicate(this.bundle));
+    }
+
+    private static List<Object> sourcesOf(List<ResolvedModelSource<?>> models) {
+        List<Object> sources = new ArrayList<>(models.size());
+        models.forEach(model -> sources.add(model.getSource()));
+        return sources;
+    }
+
+    private TypeModels modelsOf(String typeName) {
+        TypeModels models = this.testee.modelsOf(typeName);
+        assertThat(models).isNotNull();
+        return models;
+    }
+
+    private void add(String typeName, OsgiModelSource<?> source) {
+        this.testee = this.testee.with(new String[]{typeName}, source);
+    }
+
+    private static OsgiModelSource<?> withSource(Class<?> modelType, String modelName, long bundleId) {
+        OsgiModelSource<?> source = mock(OsgiModelSource.class);
+        lenient().doReturn(modelType).when(source).getModelType();
+        lenient().doReturn(modelName).when(source).getModelName();
+        lenient().doReturn(bundleId).when(source).getBundleId();
+        return source;
+    }
+}
@@ -19,7 +19,8 @@ package io.neba.core.resourcemodels.registration;
 import io.neba.api.spi.ResourceModelFactory.ContentToModelMappingCallback;
 import io.neba.core.resourcemodels.caching.RequestScopedResourceModelCache;
 import io.neba.core.resourcemodels.mapping.ResourceToModelMapper;
-import io.neba.core.util.Key;
+import io.neba.core.util.Key4;
+import io.neba.core.util.Key2;
 import io.neba.core.util.OsgiModelSource;
 import io.neba.core.util.ResolvedModelSource;
 import org.apache.sling.api.resource.Resource;
@@ -48,6 +49,7 @@ import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -74,7 +76,7 @@ public class ResourceModelResolverImplTest {
     @Mock
     private ContentToModelMappingCallback<Object> callback;
 
-    private Map<Key, Optional<Object>> testCache = new HashMap<>();
+    private Map<Key4, Optional<Object>> testCache = new HashMap<>();
     private Object resolutionResult;
     private final Object model = new Object();
 
@@ -94,11 +96,11 @@ public class ResourceModelResolverImplTest {
 
         doAnswer(storeInCache)
                 .when(this.cache)
-                .put(isA(Resource.class), isA(Key.class), any());
+                .put(isA(Resource.class), isA(Key2.class), any());
 
         doAnswer(lookupFromCache)
                 .when(this.cache)
-                .get(isA(Resource.class), isA(Key.class));
+                .get(isA(Resource.class), isA(Key2.class));
 
         doReturn(this.resourceResolver)
                 .when(this.resource)
@@ -271,11 +273,29 @@ public class ResourceModelResolverImplTest {
         verifyRegistryWasQueriedOnceWithoutModelName();
     }
 
+    @Test
+    public void testUnmappedResourcesAreRejectedWithoutLookup() {
+        withUnmappedResource();
+
+        resolveMostSpecificModel();
+        provideMostSpecificModelWithModelName("modelName");
+        provideMostSpecificModelIncludingBaseTypes();
+
+        assertResolvedModelIsNull();
+        verify(this.registry, never()).lookupMostSpecificModels(any());
+        verify(this.registry, never()).lookupMostSpecificModels(any(), anyString());
+        verify(this.cache, never()).get(any(), any());
+    }
+
     @SuppressWarnings("unchecked")
     private void withTwoResolvedModels() {
         when(this.registry.lookupMostSpecificModels(eq(this.resource))).thenReturn(asList(mock(ResolvedModelSource.class), mock(ResolvedModelSource.class)));
     }
 
+    private void withUnmappedResource() {
+        doReturn(true).when(this.registry).isUnmapped(this.resource);
+    }
+
     private void withoutAnyModelInRegistry() {
         when(this.registry.lookupMostSpecificModels(eq(this.resource))).thenReturn(null);
     }
@@ -331,9 +351,9 @@ public class ResourceModelResolverImplTest {
     /**
      * Simulates the key calculation used by the ResourceModelCaches implementation.
      */
-    private Key buildCacheInvocationKey(InvocationOnMock invocation) {
+    private Key4 buildCacheInvocationKey(InvocationOnMock invocation) {
         Resource resource = (Resource) invocation.getArguments()[0];
-        Key key = (Key) invocation.getArguments()[1];
-        return new Key(resource.getPath(), key, resource.getResourceType(), resource.getResourceResolver().hashCode());
+        Object key = invocation.getArguments()[1];
+        return new Key4(resource.getPath(), key, resource.getResourceType(), resource.getResourceResolver().hashCode());
     }
 }
@@ -0,0 +1,359 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.resourcemodels.registration;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.SyntheticResource;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.nodetype.NodeType;
+
+import static io.neba.api.Constants.SYNTHETIC_RESOURCETYPE_ROOT;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Olaf Otto
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TypeHierarchyIndexTest {
+    @Mock
+    private ResourceResolver resolver;
+    @Mock
+    private Resource resource;
+
+    private Node node;
+    private String primaryType;
+    private String[] mixinTypes;
+    private String[] hierarchy;
+
+    private TypeHierarchyIndex testee;
+
+    @Before
+    public void setUp() {
+        doReturn(this.resolver).when(this.resource).getResourceResolver();
+        this.testee = new TypeHierarchyIndex();
+    }
+
+    @Test
+    public void testHierarchyContainsResourceTypeHierarchy() {
+        withResourceType("my/type");
+        withParentResourceType("my/type", "super/type");
+        withParentResourceType("super/type", "base/type");
+
+        resolveHierarchy();
+
+        assertHierarchyIs("my/type", "super/type", "base/type");
+    }
+
+    @Test
+    public void testHierarchyContainsResourceTypeHierarchyFollowedByNodeTypeHierarchy() throws Exception {
+        withResourceType("my/type");
+        withParentResourceType("my/type", "super/type");
+        withNode("nt:unstructured", "nt:base");
+
+        resolveHierarchy();
+
+        assertHierarchyIs("my/type", "super/type", "nt:unstructured", "nt:base");
+    }
+
+    @Test
+    public void testResourceTypeIsOmittedIfItIsThePrimaryType() throws Exception {
+        withResourceType("nt:unstructured");
+        withNode("nt:unstructured", "nt:base");
+
+        resolveHierarchy();
+
+        assertHierarchyIs("nt:unstructured", "nt:base");
+        verify(this.resolver, never()).getParentResourceType(anyString());
+    }
+
+    @Test
+    public void testResourceTypeHierarchyAndNodeTypeHierarchyAreUsed() throws Exception {
+        withResourceType("myResourceType");
+        withNode("myNodeTypeName", "nt:base");
+
+        resolveHierarchy();
+
+        assertHierarchyIs("myResourceType", "myNodeTypeName", "nt:base");
+        verify(this.resource).getResourceType();
+        verify(this.resolver).getParentResourceType("myResourceType");
+        verify(this.node).getMixinNodeTypes();
+    }
+
+    @Test
+    public void testResourceSuperTypeOfResourceDoesNotAlterResourceTypeHierarchy() {
+        withResourceType("my/type");
+        withResourceSuperType("explicit/super/type");
+        withParentResourceType("my/type", "super/type");
+
+        resolveHierarchy();
+
+        assertHierarchyIs("my/type", "super/type");
+        verify(this.resolver, never()).getParentResourceType("explicit/super/type");
+    }
+
+    @Test
+    public void testResourceTypeHierarchyIsSharedByResourceResolvers() {
+        withResourceType("my/type");
+        withParentResourceType("my/type", "super/type");
+        resolveHierarchy();
+
+        ResourceResolver otherResolver = withOtherResourceResolver();
+        resolveHierarchy();
+
+        assertHierarchyIs("my/type", "super/type");
+        verify(otherResolver, never()).getParentResourceType(anyString());
+        verify(this.resolver, never()).getResource(anyString());
+        verify(otherResolver, never()).getResource(anyString());
+    }
+
+    @Test
+    public void testSyntheticResourceTypeRootIsAppendedToHierarchyOfSyntheticResources() {
+        withSyntheticResource();
+        withResourceType("my/type");
+        withParentResourceType("my/type", "super/type");
+
+        resolveHierarchy();
+
+        assertHierarchyIs("my/type", "super/type", SYNTHETIC_RESOURCETYPE_ROOT);
+    }
+
+    @Test
+    public void testSyntheticResourceTypeRootIsNotAppendedTwice() {
+        withSyntheticResource();
+        withResourceType(SYNTHETIC_RESOURCETYPE_ROOT);
+
+        resolveHierarchy();
+
+        assertHierarchyIs(SYNTHETIC_RESOURCETYPE_ROOT);
+    }
+
+    @Test
+    public void testCyclicResourceTypeHierarchyIsTraversedOnce() {
+        withResourceType("my/type");
+        withParentResourceType("my/type", "super/type");
+        withParentResourceType("super/type", "my/type");
+
+        resolveHierarchy();
+
+        assertHierarchyIs("my/type", "super/type");
+    }
+
+    @Test
+    public void testHierarchyIsNotResolvedAgain() throws Exception {
+        withResourceType("my/type");
+        withParentResourceType("my/type", "super/type");
+        withNode("nt:unstructured", "nt:base");
+
+        resolveHierarchy();
+        resolveHierarchy();
+
+        assertHierarchyIs("my/type", "super/type", "nt:unstructured", "nt:base");
+        verify(this.resolver).getParentResourceType("my/type");
+        verify(this.resource).adaptTo(Node.class);
+    }
+
+    @Test
+    public void testHierarchyOfSuperTypeIsNotResolvedAgain() {
+        withResourceType("my/type");
+        withParentResourceType("my/type", "super/type");
+        withParentResourceType("super/type", "base/type");
+        resolveHierarchy();
+
+        clearInvocations(this.resolver);
+        withResourceType("super/type");
+        resolveHierarchy();
+
+        assertHierarchyIs("super/type", "base/type");
+        verify(this.resolver, never()).getParentResourceType(anyString());
+    }
+
+    @Test
+    public void testHierarchyOfSuperTypeIsNotDerivedFromCyclicHierarchy() {
+        withResourceType("my/type");
+        withParentResourceType("my/type", "super/type");
+        withParentResourceType("super/type", "my/type");
+        resolveHierarchy();
+
+        withResourceType("super/type");
+        resolveHierarchy();
+
+        assertHierarchyIs("super/type", "my/type");
+    }
+
+    @Test
+    public void testNodeTypeHierarchyDependsOnMixinTypes() throws Exception {
+        withNode("nt:unstructured", "nt:base");
+
+        resolveHierarchy();
+        withMixinTypes("mix:versionable");
+        resolveHierarchy();
+
+        verify(this.resource, times(2)).adaptTo(Node.class);
+    }
+
+    @Test
+    public void testNodeTypeHierarchyIsSharedByEqualMixinTypes() throws Exception {
+        withNode("nt:unstructured", "nt:base");
+
+        withMixinTypes("mix:versionable");
+        resolveHierarchy();
+        withMixinTypes("mix:versionable");
+        resolveHierarchy();
+
+        verify(this.resource).adaptTo(Node.class);
+    }
+
+    @Test
+    public void testNodeTypeHierarchyIsEmptyIfResourceIsNoNode() {
+        this.primaryType = "nt:unstructured";
+
+        resolveHierarchy();
+
+        assertHierarchyIs();
+    }
+
+    @Test
+    public void testInvalidationOfTypeDiscardsHierarchiesContainingTheType() {
+        withResourceType("my/type");
+        withParentResourceType("my/type", "super/type");
+        resolveHierarchy();
+
+        withParentResourceType("my/type", "other/type");
+        invalidate("super/type");
+        resolveHierarchy();
+
+        assertHierarchyIs("my/type", "other/type");
+    }
+
+    @Test
+    public void testInvalidationOfOtherTypeRetainsHierarchy() {
+        withResourceType("my/type");
+        withParentResourceType("my/type", "super/type");
+        resolveHierarchy();
+
+        invalidate("other/type");
+        clearInvocations(this.resolver);
+        resolveHierarchy();
+
+        assertHierarchyIs("my/type", "super/type");
+        verify(this.resolver, never()).getParentResourceType(anyString());
+    }
+
+    @Test
+    public void testClearDiscardsAllHierarchies() {
+        withResourceType("my/type");
+        resolveHierarchy();
+
+        this.testee.clear();
+        resolveHierarchy();
+
+        verify(this.resolver, times(2)).getParentResourceType("my/type");
+    }
+
+    @Test
+    public void testResourceTypeHierarchyDoesNotRequireNodeTypes() {
+        withResourceType("my/type");
+        withParentResourceType("my/type", "super/type");
+
+        assertThat(this.testee.resourceTypeHierarchyOf(this.resource)).containsExactly("my/type", "super/type");
+        verify(this.resource, never()).adaptTo(Node.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testResourceMustNotBeNull() {
+        this.testee.hierarchyOf(null, null, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testResourceMustNotBeNullForResourceTypeHierarchy() {
+        this.testee.resourceTypeHierarchyOf(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTypeNamesMustNotBeNull() {
+        this.testee.invalidate(null);
+    }
+
+    private void assertHierarchyIs(String... types) {
+        assertThat(this.hierarchy).containsExactly(types);
+    }
+
+    private void invalidate(String typeName) {
+        this.testee.invalidate(singletonList(typeName));
+    }
+
+    private void resolveHierarchy() {
+        this.hierarchy = this.testee.hierarchyOf(this.resource, this.primaryType, this.mixinTypes);
+    }
+
+    private void withSyntheticResource() {
+        this.resource = mock(SyntheticResource.class);
+        doReturn(this.resolver).when(this.resource).getResourceResolver();
+    }
+
+    private void withResourceType(String resourceType) {
+        doReturn(resourceType).when(this.resource).getResourceType();
+    }
+
+    private void withResourceSuperType(String resourceSuperType) {
+        lenient().doReturn(resourceSuperType).when(this.resource).getResourceSuperType();
+    }
+
+    private ResourceResolver withOtherResourceResolver() {
+        ResourceResolver otherResolver = mock(ResourceResolver.class);
+        doReturn(otherResolver).when(this.resource).getResourceResolver();
+        return otherResolver;
+    }
+
+    private void withParentResourceType(String resourceType, String parentResourceType) {
+        doReturn(parentResourceType).when(this.resolver).getParentResourceType(resourceType);
+    }
+
+    private void withMixinTypes(String... mixinTypes) {
+        this.mixinTypes = mixinTypes;
+    }
+
+    private void withNode(String primaryType, String superType) throws RepositoryException {
+        NodeType nodeType = mock(NodeType.class);
+        NodeType nodeSuperType = mock(NodeType.class);
+        doReturn(primaryType).when(nodeType).getName();
+        doReturn(superType).when(nodeSuperType).getName();
+        doReturn(new NodeType[]{nodeSuperType}).when(nodeType).getDeclaredSupertypes();
+
+        this.node = mock(Node.class);
+        doReturn(nodeType).when(this.node).getPrimaryNodeType();
+        doReturn(this.node).when(this.resource).adaptTo(Node.class);
+        this.primaryType = primaryType;
+    }
+}
@@ -137,4 +137,12 @@ public class ConcurrentDistinctMultiValueMapTest {
         assertThat(testee.values()).hasSize(1);
         assertThat(testee.values().iterator().next()).containsExactly("value1", "value2");
     }
+
+    @Test
+    public void testGetKeys() {
+        testee.put("key1", "value1");
+        testee.put("key2", "value2");
+
+        assertThat(testee.keySet()).containsOnly("key1", "key2");
+    }
 }
@@ -0,0 +1,88 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+
+package io.neba.core.util;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Olaf Otto
+ */
+public class EnumConstantsTest {
+    private TestEnum constant;
+
+    @Test
+    public void testConstantIsResolvedByName() {
+        valueOf("ONE");
+        assertConstantIs(TestEnum.ONE);
+    }
+
+    @Test
+    public void testConstantWithBodyIsResolvedByName() {
+        valueOf("TWO");
+        assertConstantIs(TestEnum.TWO);
+    }
+
+    @Test
+    public void testUnknownNameYieldsNull() {
+        valueOf("THREE");
+        assertConstantIs(null);
+    }
+
+    @Test
+    public void testNamesAreCaseSensitive() {
+        valueOf("one");
+        assertConstantIs(null);
+    }
+
+    @Test
+    public void testNullNameYieldsNull() {
+        valueOf(null);
+        assertConstantIs(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullTypeIsRejected() {
+        EnumConstants.valueOf(null, "ONE");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testNonEnumTypeIsRejected() {
+        EnumConstants.valueOf((Class) String.class, "ONE");
+    }
+
+    private void assertConstantIs(TestEnum expected) {
+        assertThat(this.constant).isSameAs(expected);
+    }
+
+    private void valueOf(String name) {
+        this.constant = EnumConstants.valueOf(TestEnum.class, name);
+    }
+
+    private enum TestEnum {
+        ONE,
+        TWO {
+            @Override
+            public String toString() {
+                return "two";
+            }
+        }
+    }
+}
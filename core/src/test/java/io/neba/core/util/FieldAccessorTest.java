@@ -0,0 +1,133 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+
+package io.neba.core.util;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+
+import static io.neba.core.util.FieldAccessor.accessorFor;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Olaf Otto
+ */
+public class FieldAccessorTest {
+    @SuppressWarnings("unused")
+    private static class TestModel {
+        private String stringField;
+        private long primitiveLongField;
+        private Object objectField = "default";
+    }
+
+    private final TestModel model = new TestModel();
+    private FieldAccessor accessor;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAccessorRequiresField() {
+        accessorFor(null);
+    }
+
+    @Test
+    public void testPrivateFieldIsMadeAccessible() throws Exception {
+        Field field = TestModel.class.getDeclaredField("stringField");
+        accessorFor(field);
+        assertThat(field.isAccessible()).isTrue();
+    }
+
+    @Test
+    public void testReadingFieldValue() throws Exception {
+        withAccessorFor("objectField");
+        assertThat(this.accessor.get(this.model)).isEqualTo("default");
+    }
+
+    @Test
+    public void testWritingFieldValue() throws Exception {
+        withAccessorFor("stringField");
+        this.accessor.set(this.model, "value");
+        assertThat(this.model.stringField).isEqualTo("value");
+    }
+
+    @Test
+    public void testWritingNullValue() throws Exception {
+        withAccessorFor("objectField");
+        this.accessor.set(this.model, null);
+        assertThat(this.model.objectField).isNull();
+    }
+
+    @Test
+    public void testWritingBoxedValueToPrimitiveField() throws Exception {
+        withAccessorFor("primitiveLongField");
+        this.accessor.set(this.model, 42L);
+        assertThat(this.model.primitiveLongField).isEqualTo(42L);
+        assertThat(this.accessor.get(this.model)).isEqualTo(42L);
+    }
+
+    @Test
+    public void testWideningConversionIsApplied() throws Exception {
+        withAccessorFor("primitiveLongField");
+        this.accessor.set(this.model, 42);
+        assertThat(this.model.primitiveLongField).isEqualTo(42L);
+    }
+
+    @Test
+    public void testIncompatibleValueIsSignaledLikeReflectiveAccess() throws Exception {
+        withAccessorFor("stringField");
+
+        Exception e = null;
+        try {
+            this.accessor.set(this.model, 1);
+        } catch (Exception ex) {
+            e = ex;
+        }
+
+        assertThat(e)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Can not set java.lang.String field");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullValueForPrimitiveFieldIsSignaledLikeReflectiveAccess() throws Exception {
+        withAccessorFor("primitiveLongField");
+        this.accessor.set(this.model, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncompatibleInstanceIsSignaledLikeReflectiveAccess() throws Exception {
+        withAccessorFor("stringField");
+        this.accessor.set(new Object(), "value");
+    }
+
+    @Test
+    public void testWideningConversionIsAppliedToNarrowerWrapperTypes() throws Exception {
+        withAccessorFor("primitiveLongField");
+        this.accessor.set(this.model, (short) 1);
+        assertThat(this.model.primitiveLongField).isEqualTo(1L);
+        this.accessor.set(this.model, 'a');
+        assertThat(this.model.primitiveLongField).isEqualTo(97L);
+    }
+
+    @Test
+    public void testAccessorProvidesField() throws Exception {
+        withAccessorFor("stringField");
+        assertThat(this.accessor.getField()).isEqualTo(TestModel.class.getDeclaredField("stringField"));
+    }
+
+    private void withAccessorFor(String fieldName) throws NoSuchFieldException {
+        this.accessor = accessorFor(TestModel.class.getDeclaredField(fieldName));
+    }
+}
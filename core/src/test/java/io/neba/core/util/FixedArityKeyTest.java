@@ -0,0 +1,125 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.util;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Function;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies the {@link Key2}, {@link Key3}, {@link Key4} and {@link Key9} implementations, which must
+ * all behave identically apart from the number of elements.
+ *
+ * @author Olaf Otto
+ */
+@RunWith(Parameterized.class)
+public class FixedArityKeyTest {
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> keys() {
+        return asList(
+                key("Key2", e -> new Key2(e[0], e[1]), "one", 2),
+                key("Key3", e -> new Key3(e[0], e[1], e[2]), "one", 2, "three"),
+                key("Key4", e -> new Key4(e[0], e[1], e[2], e[3]), "one", 2, "three", 4),
+                key("Key9", e -> new Key9(e[0], e[1], e[2], e[3], e[4], e[5], e[6], e[7], e[8]),
+                        "one", 2, "three", 4, "five", 6, "seven", 8, "nine"));
+    }
+
+    private static Object[] key(String name, Function<Object[], Object> factory, Object... elements) {
+        return new Object[]{name, factory, elements};
+    }
+
+    @Parameter
+    public String name;
+    @Parameter(1)
+    public Function<Object[], Object> factory;
+    @Parameter(2)
+    public Object[] elements;
+
+    private Object key1;
+    private Object key2;
+
+    @Test
+    public void testEqualKeys() {
+        this.key1 = key(this.elements);
+        this.key2 = key(this.elements.clone());
+        assertKeysAreEqual();
+    }
+
+    @Test
+    public void testUnequalKeys() {
+        this.key1 = key(this.elements);
+        this.key2 = key(withLastElement("other"));
+        assertKeysAreNotEqual();
+    }
+
+    @Test
+    public void testNullValuesInKeysAreNotIgnored() {
+        this.key1 = key(this.elements);
+        this.key2 = key(withLastElement(null));
+        assertKeysAreNotEqual();
+    }
+
+    @Test
+    public void testHandlingOfNullElements() {
+        this.key1 = key(new Object[this.elements.length]);
+        this.key2 = key(new Object[this.elements.length]);
+        assertKeysAreEqual();
+    }
+
+    @Test
+    public void testKeyIsNotEqualToOtherTypeWithSameElements() {
+        this.key1 = key(this.elements);
+        assertThat(this.key1).isNotEqualTo(asList(this.elements));
+    }
+
+    @Test
+    public void testStringRepresentation() {
+        this.key1 = key(withLastElement(null));
+        String[] expected = Arrays.stream(withLastElement(null)).map(String::valueOf).toArray(String[]::new);
+        assertThat(this.key1.toString()).isEqualTo("Key {" + String.join(", ", expected) + '}');
+    }
+
+    private Object key(Object[] elements) {
+        return this.factory.apply(elements);
+    }
+
+    private Object[] withLastElement(Object element) {
+        Object[] elements = this.elements.clone();
+        elements[elements.length - 1] = element;
+        return elements;
+    }
+
+    private void assertKeysAreNotEqual() {
+        assertThat(this.key1).isNotEqualTo(this.key2);
+        assertThat(this.key2).isNotEqualTo(this.key1);
+    }
+
+    private void assertKeysAreEqual() {
+        assertThat(this.key1.hashCode()).isEqualTo(this.key2.hashCode());
+        assertThat(this.key1).isEqualTo(this.key2);
+        assertThat(this.key2).isEqualTo(this.key1);
+    }
+}
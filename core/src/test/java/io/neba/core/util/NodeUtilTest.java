@@ -39,13 +39,13 @@ public class NodeUtilTest {
     @Test
     public void testRetrievalOfMixinTypesViaApi() throws RepositoryException {
         withMixinTypes("nt:file", "rep:AccessControllable");
-        assertThat(geMixinTypes(this.node)).isEqualTo("nt:file,rep:AccessControllable");
+        assertThat(geMixinTypes(this.node)).containsExactly("nt:file", "rep:AccessControllable");
     }
 
     @Test
     public void testRetrievalOfMixinTypesViaNodeProperty() throws RepositoryException {
         withJcrMixinTypesNodeProperty("nt:file", "rep:AccessControllable");
-        assertThat(geMixinTypes(this.node)).isEqualTo("nt:file,rep:AccessControllable");
+        assertThat(geMixinTypes(this.node)).containsExactly("nt:file", "rep:AccessControllable");
     }
 
     @Test
@@ -72,7 +72,7 @@ public class NodeUtilTest {
         withMixinTypes("via:Api");
         withJcrMixinTypesNodeProperty("via:Property");
 
-        assertThat(geMixinTypes(this.node)).isEqualTo("via:Property");
+        assertThat(geMixinTypes(this.node)).containsExactly("via:Property");
     }
 
     private void withJcrPrimaryTypeNodeProperty(String nodeTypeName) throws RepositoryException {
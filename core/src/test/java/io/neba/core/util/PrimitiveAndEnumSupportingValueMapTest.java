@@ -85,6 +85,13 @@ public class PrimitiveAndEnumSupportingValueMapTest {
         assertResultIs(new Enum[]{Enum.INSTANCE});
     }
 
+    @Test
+    public void testEnumArraySupportDiscardsNullInstanceNames() {
+        with(new String[]{null, "INSTANCE"});
+        get(Enum[].class);
+        assertResultIs(new Enum[]{Enum.INSTANCE});
+    }
+
     @Test
     public void testEnumArraySupportReturnsNullWhenInstanceNamesAreNull() {
         get(Enum[].class);
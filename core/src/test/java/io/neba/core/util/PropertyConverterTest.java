@@ -0,0 +1,157 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+
+package io.neba.core.util;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.neba.core.util.PropertyConverter.converterFor;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Olaf Otto
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PropertyConverterTest {
+    private final Map<String, Object> values = new HashMap<>();
+    private ValueMap properties;
+    private Object result;
+
+    @Before
+    public void setUp() {
+        this.properties = spy(new ValueMapDecorator(this.values));
+    }
+
+    @Test
+    public void testConvertersAreSharedPerTargetType() {
+        assertThat(converterFor(String.class)).isSameAs(converterFor(String.class));
+        assertThat(converterFor(long.class)).isNotSameAs(converterFor(Long.class));
+    }
+
+    @Test
+    public void testValuesOfTargetTypeAreRetrievedWithoutConversion() {
+        Calendar calendar = new GregorianCalendar();
+        Date date = new Date();
+        String[] strings = {"one", "two"};
+
+        assertPropertyIsConvertedWithoutValueMap("value", String.class, "value");
+        assertPropertyIsConvertedWithoutValueMap(1L, long.class, 1L);
+        assertPropertyIsConvertedWithoutValueMap(true, boolean.class, true);
+        assertPropertyIsConvertedWithoutValueMap(calendar, Calendar.class, calendar);
+        assertPropertyIsConvertedWithoutValueMap(date, Date.class, date);
+        assertPropertyIsConvertedWithoutValueMap(strings, String[].class, strings);
+    }
+
+    @Test
+    public void testStringsAreConvertedToBooleansLongsAndDoubles() {
+        assertPropertyIsConvertedWithoutValueMap("true", boolean.class, true);
+        assertPropertyIsConvertedWithoutValueMap("nonsense", Boolean.class, false);
+        assertPropertyIsConvertedWithoutValueMap("123", long.class, 123L);
+        assertPropertyIsConvertedWithoutValueMap("1.5", Double.class, 1.5D);
+    }
+
+    @Test
+    public void testNumbersAndBooleansAreConvertedToStrings() {
+        assertPropertyIsConvertedWithoutValueMap(123L, String.class, "123");
+        assertPropertyIsConvertedWithoutValueMap(1.5D, String.class, "1.5");
+        assertPropertyIsConvertedWithoutValueMap(true, String.class, "true");
+    }
+
+    @Test
+    public void testUnparsableNumbersAreConvertedByValueMap() {
+        withProperty("not a number");
+        get(Long.class);
+        assertResultIs(null);
+        verifyValueMapConvertsTo(Long.class);
+    }
+
+    @Test
+    public void testOtherConversionsAreDelegatedToValueMap() {
+        withProperty("123");
+        get(Integer.class);
+        assertResultIs(123);
+        verifyValueMapConvertsTo(Integer.class);
+    }
+
+    @Test
+    public void testCalendarToStringConversionIsDelegatedToValueMap() {
+        withProperty(new GregorianCalendar());
+        get(String.class);
+        verifyValueMapConvertsTo(String.class);
+    }
+
+    @Test
+    public void testMissingPropertiesYieldNull() {
+        get(String.class);
+        assertResultIs(null);
+        verify(this.properties, never()).get(anyString(), any(Class.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullTargetTypeIsRejected() {
+        converterFor(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullPropertiesAreRejected() {
+        converterFor(String.class).get(null, "property");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullNameIsRejected() {
+        converterFor(String.class).get(this.properties, null);
+    }
+
+    private void assertPropertyIsConvertedWithoutValueMap(Object value, Class<?> targetType, Object expected) {
+        withProperty(value);
+        get(targetType);
+        assertResultIs(expected);
+        verify(this.properties, never()).get(anyString(), any(Class.class));
+    }
+
+    private void verifyValueMapConvertsTo(Class<?> type) {
+        verify(this.properties).get("property", type);
+    }
+
+    private void assertResultIs(Object expected) {
+        assertThat(this.result).isEqualTo(expected);
+    }
+
+    private void get(Class<?> targetType) {
+        this.result = converterFor(targetType).get(this.properties, "property");
+    }
+
+    private void withProperty(Object value) {
+        this.values.put("property", value);
+    }
+}
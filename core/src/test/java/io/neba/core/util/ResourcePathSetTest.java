@@ -0,0 +1,111 @@
+/*
+  Copyright 2013 the original author or authors.
+
+  Licensed under the Apache License, Version 2.0 the "License";
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package io.neba.core.util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Olaf Otto
+ */
+public class ResourcePathSetTest {
+    private final ResourcePathSet testee = new ResourcePathSet();
+
+    @Test
+    public void testSetIsInitiallyEmpty() {
+        assertThat(this.testee).isEmpty();
+        assertThat(this.testee.iterator().hasNext()).isFalse();
+    }
+
+    @Test
+    public void testPathsAreDistinct() {
+        assertThat(this.testee.add("/content/a")).isTrue();
+        assertThat(this.testee.add(new String("/content/a"))).isFalse();
+
+        assertThat(this.testee).containsExactly("/content/a");
+    }
+
+    @Test
+    public void testSetGrowsBeyondInitialCapacity() {
+        for (int i = 0; i < 100; ++i) {
+            this.testee.add("/content/" + i);
+        }
+
+        assertThat(this.testee).hasSize(100);
+        for (int i = 0; i < 100; ++i) {
+            assertThat(this.testee.contains("/content/" + i)).isTrue();
+        }
+        assertThat(this.testee.contains("/content/100")).isFalse();
+    }
+
+    @Test
+    public void testContainsToleratesOtherTypes() {
+        this.testee.add("/content/a");
+        assertThat(this.testee.contains(null)).isFalse();
+        assertThat(this.testee.contains(1)).isFalse();
+    }
+
+    @Test
+    public void testAddingAllPathsOfOtherSet() {
+        ResourcePathSet other = new ResourcePathSet();
+        other.add("/content/b");
+        other.add("/content/c");
+        this.testee.add("/content/a");
+        this.testee.add("/content/b");
+
+        assertThat(this.testee.addAll(other)).isTrue();
+        assertThat(this.testee.addAll(other)).isFalse();
+
+        assertThat(this.testee).containsOnly("/content/a", "/content/b", "/content/c");
+    }
+
+    @Test
+    public void testAddingAllPathsOfCollection() {
+        this.testee.addAll(asList("/content/a", "/content/b", "/content/a"));
+        assertThat(this.testee).containsOnly("/content/a", "/content/b");
+    }
+
+    @Test
+    public void testEqualityWithOtherSets() {
+        this.testee.addAll(asList("/content/a", "/content/b"));
+        assertThat(this.testee).isEqualTo(new HashSet<>(asList("/content/b", "/content/a")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullPathsAreNotSupported() {
+        this.testee.add(null);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testPathsCannotBeRemoved() {
+        this.testee.add("/content/a");
+        Iterator<String> iterator = this.testee.iterator();
+        iterator.next();
+        iterator.remove();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testIteratorSignalsExhaustion() {
+        this.testee.iterator().next();
+    }
+}
@@ -79,6 +79,32 @@ public class ResourcePathsTest {
         assertReplacedValueIs("test-value");
     }
 
+    @Test
+    public void testAdjacentVariableResolution() {
+        withResolution("first", "1");
+        withResolution("second", "2");
+
+        replace("${first}${second}/${first}");
+
+        assertReplacedValueIs("12/1");
+    }
+
+    @Test
+    public void testUnresolvableVariablesAreRetained() {
+        withResolution("key", "value");
+
+        replace("/${key}/${unknown}/");
+
+        assertReplacedValueIs("/value/${unknown}/");
+    }
+
+    @Test
+    public void testResolutionOfVariableToEmptyValue() {
+        withResolution("key", "");
+        replace("/path/${key}");
+        assertReplacedValueIs("/path/");
+    }
+
     @Test
     public void testDetectionOfVariables() {
         assertThat(path("").hasPlaceholders()).isFalse();
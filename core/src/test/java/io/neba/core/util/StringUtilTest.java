@@ -19,6 +19,7 @@ import org.junit.Test;
 
 
 import static io.neba.core.util.StringUtil.appendToAll;
+import static io.neba.core.util.StringUtil.internTypeName;
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -48,4 +49,17 @@ public class StringUtilTest {
                 .isEqualTo(new String[]{"/one/test", "/test", "/two/test"});
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testInterningOfNullTypeName() {
+        assertThat(internTypeName(null)).isNull();
+    }
+
+    @Test
+    public void testInternedTypeNamesAreCanonicalInstances() {
+        String first = internTypeName(new String("some/resource/type"));
+        String second = internTypeName(new String("some/resource/type"));
+        assertThat(first).isEqualTo("some/resource/type");
+        assertThat(second).isSameAs(first);
+    }
+}